@@ -0,0 +1,142 @@
+package com.jakduk.api.benchmark;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.*;
+import com.jakduk.api.model.simple.ArticleSimple;
+import com.jakduk.api.restcontroller.vo.board.*;
+import com.jakduk.api.service.mapper.ArticleMapper;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 글 상세, 사진과 엮인 글의 VO 만들기. 예전 BeanUtils.copyProperties 와 ArticleMapper 비교.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArticleConversionBenchmark {
+
+    // 한 페이지 목록부터 큰 배치까지
+    @Param({"20", "1000"})
+    private int rows;
+
+    private List<Article> articles;
+    private List<BoardLog> boardLogs;
+
+    @Setup
+    public void setUp() {
+        CommonWriter writer = CommonWriter.builder()
+                .userId(new ObjectId().toString())
+                .username("jakduk")
+                .providerId(Constants.ACCOUNT_TYPE.JAKDUK)
+                .build();
+
+        List<CommonFeelingUser> usersLiking = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++)
+            usersLiking.add(new CommonFeelingUser(new ObjectId().toString(), "liker" + i, "liker" + i));
+
+        articles = new ArrayList<>();
+        boardLogs = new ArrayList<>();
+
+        for (int i = 0; i < rows; i++) {
+            BoardLog boardLog = new BoardLog(new ObjectId().toString(), Constants.ARTICLE_HISTORY_TYPE.CREATE.name(),
+                    new SimpleWriter(writer.getUserId(), writer.getUsername()));
+
+            Article article = Article.builder()
+                    .id(new ObjectId().toString())
+                    .writer(writer)
+                    .subject("오늘 경기 후기 " + i)
+                    .content("<p>오늘 경기 정말 재밌었네요.</p>")
+                    .seq(i)
+                    .board(Constants.BOARD_TYPE.FOOTBALL.name())
+                    .category("CLASSIC")
+                    .views(100)
+                    .usersLiking(usersLiking)
+                    .usersDisliking(Collections.emptyList())
+                    .status(ArticleStatus.builder().device(Constants.DEVICE_TYPE.NORMAL).build())
+                    .logs(Collections.singletonList(boardLog))
+                    .shortContent("오늘 경기 정말 재밌었네요.")
+                    .linkedGallery(true)
+                    .build();
+
+            articles.add(article);
+            boardLogs.add(boardLog);
+        }
+    }
+
+    // 글 상세
+    @Benchmark
+    public List<ArticleDetail> articleDetailBeanUtils() {
+        return articles.stream()
+                .map(article -> {
+                    ArticleDetail articleDetail = new ArticleDetail();
+                    BeanUtils.copyProperties(article, articleDetail);
+
+                    return articleDetail;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ArticleDetail> articleDetailMapper() {
+        return articles.stream()
+                .map(ArticleMapper::toArticleDetail)
+                .collect(Collectors.toList());
+    }
+
+    // 사진과 엮인 글
+    @Benchmark
+    public List<ArticleSimple> articleSimpleBeanUtils() {
+        return articles.stream()
+                .map(article -> {
+                    ArticleSimple articleSimple = new ArticleSimple();
+                    BeanUtils.copyProperties(article, articleSimple);
+
+                    return articleSimple;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ArticleSimple> articleSimpleMapper() {
+        return articles.stream()
+                .map(ArticleMapper::toArticleSimple)
+                .collect(Collectors.toList());
+    }
+
+    // 글 상세의 이력
+    @Benchmark
+    public List<ArticleLog> articleLogBeanUtils() {
+        return boardLogs.stream()
+                .map(boardLog -> {
+                    ArticleLog articleLog = new ArticleLog();
+                    BeanUtils.copyProperties(boardLog, articleLog);
+                    articleLog.setType(Constants.ARTICLE_HISTORY_TYPE.valueOf(boardLog.getType()));
+                    articleLog.setTimestamp(DateUtils.dateToLocalDateTime(new ObjectId(articleLog.getId()).getDate()));
+
+                    return articleLog;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ArticleLog> articleLogMapper() {
+        return boardLogs.stream()
+                .map(ArticleMapper::toArticleLog)
+                .collect(Collectors.toList());
+    }
+
+}
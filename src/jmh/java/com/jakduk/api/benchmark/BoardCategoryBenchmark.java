@@ -0,0 +1,45 @@
+package com.jakduk.api.benchmark;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.board.category.BoardCategory;
+import com.jakduk.api.common.board.category.BoardCategoryGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게시판 말머리 목록 가져오기. 글 목록, 글 상세마다 불린다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoardCategoryBenchmark {
+
+    @Param({"ko", "en", "ja"})
+    private String language;
+
+    private BoardCategoryGenerator boardCategoryGenerator;
+    private Locale locale;
+
+    @Setup
+    public void setUp() {
+        boardCategoryGenerator = new BoardCategoryGenerator();
+        locale = new Locale(language);
+    }
+
+    @Benchmark
+    public List<BoardCategory> getCategories() {
+        return boardCategoryGenerator.getCategories(Constants.BOARD_TYPE.FOOTBALL, locale);
+    }
+
+    @Benchmark
+    public BoardCategory getCategory() {
+        return boardCategoryGenerator.getCategory(Constants.BOARD_TYPE.FOOTBALL, "CLASSIC", locale);
+    }
+
+}
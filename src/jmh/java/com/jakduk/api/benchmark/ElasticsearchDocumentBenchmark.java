@@ -0,0 +1,87 @@
+package com.jakduk.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.ObjectMapperUtils;
+import com.jakduk.api.model.elasticsearch.EsBoard;
+import com.jakduk.api.model.elasticsearch.EsComment;
+import com.jakduk.api.model.embedded.ArticleItem;
+import com.jakduk.api.model.embedded.CommonWriter;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 색인 문서(EsBoard, EsComment)의 ObjectMapperUtils 직렬화, 역직렬화.
+ * 색인할 때 JSON 으로 쓰고, ElasticsearchListener 가 메시지 바이트를 읽는다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElasticsearchDocumentBenchmark {
+
+    private EsBoard esBoard;
+    private EsComment esComment;
+
+    private byte[] esBoardBytes;
+    private byte[] esCommentBytes;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        CommonWriter writer = CommonWriter.builder()
+                .userId(new ObjectId().toString())
+                .username("jakduk")
+                .providerId(Constants.ACCOUNT_TYPE.JAKDUK)
+                .build();
+
+        esBoard = EsBoard.builder()
+                .id(new ObjectId().toString())
+                .writer(writer)
+                .subject("오늘 경기 후기")
+                .content("오늘 경기 정말 재밌었네요. 전반 0 - 0, 후반 2 - 1 로 이겼습니다. K리그 일정 참고하세요.")
+                .seq(1234)
+                .board(Constants.BOARD_TYPE.FOOTBALL.name())
+                .category("CLASSIC")
+                .galleries(Arrays.asList(new ObjectId().toString(), new ObjectId().toString()))
+                .build();
+
+        esComment = EsComment.builder()
+                .id(new ObjectId().toString())
+                .article(new ArticleItem(esBoard.getId(), esBoard.getSeq(), esBoard.getBoard()))
+                .writer(writer)
+                .content("동감합니다. 후반 경기력이 좋았어요.")
+                .galleries(Arrays.asList(new ObjectId().toString()))
+                .build();
+
+        esBoardBytes = ObjectMapperUtils.writeValueAsString(esBoard).getBytes(StandardCharsets.UTF_8);
+        esCommentBytes = ObjectMapperUtils.writeValueAsString(esComment).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String writeEsBoard() throws JsonProcessingException {
+        return ObjectMapperUtils.writeValueAsString(esBoard);
+    }
+
+    @Benchmark
+    public EsBoard readEsBoard() throws IOException {
+        return ObjectMapperUtils.readValue(esBoardBytes, EsBoard.class);
+    }
+
+    @Benchmark
+    public String writeEsComment() throws JsonProcessingException {
+        return ObjectMapperUtils.writeValueAsString(esComment);
+    }
+
+    @Benchmark
+    public EsComment readEsComment() throws IOException {
+        return ObjectMapperUtils.readValue(esCommentBytes, EsComment.class);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.jakduk.api.benchmark;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.JakdukUtils;
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.model.embedded.CommonWriter;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 글, 댓글의 내 감정 표현 찾기. 좋아요, 싫어요 목록을 다 훑는다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeelingBenchmark {
+
+    // 감정 표현한 회원 수
+    @Param({"0", "10", "1000"})
+    private int users;
+
+    private List<CommonFeelingUser> usersLiking;
+    private List<CommonFeelingUser> usersDisliking;
+
+    private CommonWriter liker;
+    private CommonWriter stranger;
+
+    @Setup
+    public void setUp() {
+        usersLiking = new ArrayList<>();
+        usersDisliking = new ArrayList<>();
+
+        for (int i = 0; i < users; i++) {
+            usersLiking.add(new CommonFeelingUser(new ObjectId().toString(), "liker" + i, "liker" + i));
+            usersDisliking.add(new CommonFeelingUser(new ObjectId().toString(), "disliker" + i, "disliker" + i));
+        }
+
+        // 좋아요 목록 맨 끝에 있는 회원, 어느 목록에도 없는 회원
+        liker = CommonWriter.builder().userId("liker" + (users - 1)).username("liker").build();
+        stranger = CommonWriter.builder().userId("stranger").username("stranger").build();
+    }
+
+    @Benchmark
+    public Constants.FEELING_TYPE lastLiker() {
+        return JakdukUtils.getMyFeeling(liker, usersLiking, usersDisliking);
+    }
+
+    @Benchmark
+    public Constants.FEELING_TYPE noFeeling() {
+        return JakdukUtils.getMyFeeling(stranger, usersLiking, usersDisliking);
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.jakduk.api.benchmark;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.ImageCache;
+import com.jakduk.api.configuration.JakdukProperties;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사진 파일 응답 경로. 디스크에서 FileSystemResource 로 읽기, ImageCache hit, ImageCache 에 넣기.
+ * 응답 바디를 다 읽을 때까지 잰다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GalleryFileReadBenchmark {
+
+    // 썸네일, 작은 사진, 큰 사진 정도
+    @Param({"16", "128", "1024"})
+    private int sizeKb;
+
+    private Path directory;
+    private Path filePath;
+    private String id;
+
+    private ImageCache imageCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] bytes = new byte[sizeKb * 1024];
+        new Random(sizeKb).nextBytes(bytes);
+
+        directory = Files.createTempDirectory("gallery-benchmark");
+        id = new ObjectId().toString();
+        filePath = Files.write(directory.resolve(id + ".jpeg"), bytes);
+
+        JakdukProperties.ImageCache imageCacheProperties = new JakdukProperties().new ImageCache();
+        imageCacheProperties.setMaxSizeMb(64);
+        imageCacheProperties.setMaxEntrySizeKb(sizeKb);
+
+        imageCache = new ImageCache(imageCacheProperties);
+
+        imageCache.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, id, imageCache.getGeneration(), filePath, "image/jpeg", null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(filePath);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int fileSystemResource() throws IOException {
+        return drain(new FileSystemResource(filePath.toFile()).getInputStream());
+    }
+
+    @Benchmark
+    public int imageCacheHit() throws IOException {
+        return drain(imageCache.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, id).get().toResource().getInputStream());
+    }
+
+    @Benchmark
+    public int imageCachePut() throws IOException {
+        return drain(imageCache.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, id, imageCache.getGeneration(), filePath, "image/jpeg", null).get()
+                .toResource().getInputStream());
+    }
+
+    private static int drain(InputStream inputStream) throws IOException {
+        try (InputStream in = inputStream) {
+            return StreamUtils.copyToByteArray(in).length;
+        }
+    }
+
+}
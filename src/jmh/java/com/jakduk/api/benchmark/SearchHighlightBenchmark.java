@@ -0,0 +1,49 @@
+package com.jakduk.api.benchmark;
+
+import com.jakduk.api.service.mapper.SearchMapper;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.highlight.HighlightField;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 결과 하이라이트 변환(SearchMapper.toHighlight). 검색 결과 한 건마다 불린다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchHighlightBenchmark {
+
+    // 필드마다 fragment 수
+    @Param({"1", "3"})
+    private int fragments;
+
+    private Map<String, HighlightField> highlightFields;
+
+    @Setup
+    public void setUp() {
+        highlightFields = new HashMap<>();
+
+        for (String field : new String[]{"subject", "content"}) {
+            Text[] texts = new Text[fragments];
+
+            for (int i = 0; i < fragments; i++)
+                texts[i] = new Text("오늘 <span class=\"color-highlight\">경기</span> 정말 재밌었네요. " + i);
+
+            highlightFields.put(field, new HighlightField(field, texts));
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<String>> toHighlight() {
+        return SearchMapper.toHighlight(highlightFields.entrySet());
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.jakduk.api.benchmark;
+
+import com.jakduk.api.common.util.HtmlTextExtractor;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML 글자 뽑기. Jsoup DOM 과 HtmlTextExtractor 비교.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StripHtmlTagBenchmark {
+
+    // 에디터가 만든 글 본문 하나
+    private final static String ARTICLE_PARAGRAPH = "<p><span style=\"font-size: 18px;\"><b>[후기]</b></span>&nbsp;오늘 경기 정말 재밌었네요.&nbsp;</p>"
+            + "<p><img src=\"https://api.jakduk.com/gallery/thumbnail/59a3b2f4e4b0a1c2d3e4f567\" style=\"width: 360px;\"><br></p>"
+            + "<p><a href=\"http://www.kleague.com/schedule?year=2017&amp;month=9\" target=\"_blank\">K리그 일정</a>&nbsp;참고하세요 &lt;공지&gt;</p>"
+            + "<ul><li>전반: 0 - 0</li><li>후반: 2 - 1</li></ul>";
+
+    // 홈 댓글, 글 제목 정도부터 긴 글까지
+    @Param({"1", "10", "50"})
+    private int paragraphs;
+
+    private String html;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < paragraphs; i++)
+            builder.append(ARTICLE_PARAGRAPH);
+
+        html = builder.toString();
+    }
+
+    @Benchmark
+    public String jsoup() {
+        return Jsoup.parse(html).text();
+    }
+
+    @Benchmark
+    public String htmlTextExtractor() {
+        return HtmlTextExtractor.extractText(html);
+    }
+
+}
@@ -35,6 +35,7 @@ public class Constants {
 	 * 화면에 보여질 목록 갯수
 	 */
 	public final static Integer BOARD_MAX_LIMIT = 20;
+	public final static Integer BOARD_MAX_PAGE_SIZE = 100;
 	public final static Integer HOME_SIZE_LINE_NUMBER = 5;
 	public final static Integer HOME_SIZE_POST = 7;
 	public final static Integer HOME_SIZE_GALLERY = 10;
@@ -101,6 +102,14 @@ public class Constants {
 	public final static Integer USER_SMALL_PICTURE_SIZE_WIDTH = 50;
 	public final static Integer USER_SMALL_PICTURE_SIZE_HEIGHT = 50;
 
+	/**
+	 * 메모리에 캐시하는 이미지 종류
+	 */
+	public enum IMAGE_CACHE_TYPE {
+		GALLERY_THUMBNAIL,		// 사진 썸네일
+		USER_SMALL_PICTURE		// 회원 프로필 작은 사진
+	}
+
 	/**
 	 * 사진 상태값.
 	 */
@@ -109,6 +118,15 @@ public class Constants {
 		ENABLE,
 	}
 
+	/**
+	 * 엘라스틱서치 재색인 작업 상태
+	 */
+	public enum REINDEX_STATUS {
+		RUNNING,
+		COMPLETED,
+		FAILED
+	}
+
 	/**
 	 * 디바이스 타입
      */
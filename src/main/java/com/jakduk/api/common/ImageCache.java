@@ -0,0 +1,280 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import lombok.Getter;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 자주 불리는 작은 이미지(사진 썸네일, 작은 프로필 사진)를 메모리에 들고 있는 LRU 캐시.
+ *
+ * 전체 바이트 크기로 제한하고, 이미지는 GC 대상이 되지 않도록 direct ByteBuffer 에 담는다.
+ * 캐시 hit 이면 Mongo 조회와 디스크 읽기 없이 응답한다.
+ *
+ * 지우기 전에 읽어 둔 이미지를 지운 뒤에 넣지 않도록, put 은 Mongo 조회 전에 받은 세대(getGeneration)를 같이 받는다.
+ * 그 사이에 evict 가 있었으면 캐시하지 않는다.
+ */
+
+@Component
+public class ImageCache {
+
+    private final JakdukProperties.ImageCache imageCacheProperties;
+
+    // 접근 순서로 정렬. 가장 앞이 가장 오래 안 쓰인 이미지.
+    private final LinkedHashMap<String, CachedImage> images = new LinkedHashMap<>(256, 0.75f, true);
+
+    // 캐시된 이미지 바이트 합
+    private long sizeBytes = 0;
+
+    // evict 할 때마다 올린다. images 잠금 안에서만 바꾼다.
+    private long generation = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public ImageCache(JakdukProperties.ImageCache imageCacheProperties) {
+        this.imageCacheProperties = imageCacheProperties;
+    }
+
+    /**
+     * 캐시된 이미지 가져오기
+     */
+    public Optional<CachedImage> get(Constants.IMAGE_CACHE_TYPE type, String id) {
+        CachedImage image;
+
+        synchronized (images) {
+            image = images.get(getKey(type, id));
+        }
+
+        if (Objects.nonNull(image)) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+
+        return Optional.ofNullable(image);
+    }
+
+    /**
+     * 지금 세대. 캐시에 없어서 이미지를 찾아보기 전에 받아 두고 put 에 넘긴다.
+     */
+    public long getGeneration() {
+        synchronized (images) {
+            return generation;
+        }
+    }
+
+    /**
+     * 이미지 파일을 읽어서 캐시에 넣는다.
+     *
+     * @param type 이미지 종류
+     * @param id 이미지 ID
+     * @param generation 이미지를 찾아보기 전에 받은 세대. 그 뒤로 evict 가 있었으면 캐시하지 않는다
+     * @param filePath 파일 경로
+     * @param contentType 콘텐츠 타입
+     * @param hash 파일 해시 (ETag). 없으면 null
+     * @return 캐시된 이미지. 한 이미지 크기 제한을 넘거나 그 사이에 evict 가 있었으면 캐시하지 않고 empty
+     */
+    public Optional<CachedImage> put(Constants.IMAGE_CACHE_TYPE type, String id, long generation, Path filePath,
+                                     String contentType, String hash) {
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            if (fileSize > imageCacheProperties.getMaxEntrySizeKb() * 1024L)
+                return Optional.empty();
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) fileSize);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    break;
+            }
+
+            buffer.flip();
+
+            CachedImage image = new CachedImage(buffer.asReadOnlyBuffer(), contentType, hash,
+                    Files.getLastModifiedTime(filePath).toMillis());
+
+            if (! this.put(getKey(type, id), generation, image))
+                return Optional.empty();
+
+            return Optional.of(image);
+
+        } catch (IOException e) {
+            throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+        }
+    }
+
+    /**
+     * 캐시에서 지운다. 이미지가 지워지거나 바뀌었을 때 부른다.
+     */
+    public void evict(Constants.IMAGE_CACHE_TYPE type, String id) {
+        synchronized (images) {
+            generation++;
+
+            CachedImage image = images.remove(getKey(type, id));
+
+            if (Objects.nonNull(image))
+                sizeBytes -= image.getSize();
+        }
+    }
+
+    /**
+     * 캐시 통계
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        synchronized (images) {
+            stats.put("count", images.size());
+            stats.put("sizeBytes", sizeBytes);
+        }
+
+        stats.put("maxSizeBytes", getMaxSizeBytes());
+        stats.put("hitCount", hitCount.get());
+        stats.put("missCount", missCount.get());
+        stats.put("evictionCount", evictionCount.get());
+
+        return stats;
+    }
+
+    private boolean put(String key, long generation, CachedImage image) {
+        long maxSizeBytes = getMaxSizeBytes();
+
+        synchronized (images) {
+            // 어느 이미지가 지워졌는지는 남기지 않는다. evict 는 드물어서 그 사이 한번 캐시 못하는 정도는 괜찮다.
+            if (this.generation != generation)
+                return false;
+
+            CachedImage old = images.put(key, image);
+
+            if (Objects.nonNull(old))
+                sizeBytes -= old.getSize();
+
+            sizeBytes += image.getSize();
+
+            // 제한을 넘으면 가장 오래 안 쓰인 것부터 버린다.
+            Iterator<CachedImage> iterator = images.values().iterator();
+
+            while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+                sizeBytes -= iterator.next().getSize();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+
+        return true;
+    }
+
+    private long getMaxSizeBytes() {
+        return imageCacheProperties.getMaxSizeMb() * 1024L * 1024L;
+    }
+
+    private static String getKey(Constants.IMAGE_CACHE_TYPE type, String id) {
+        return type.name() + ":" + id;
+    }
+
+    @Getter
+    public static class CachedImage {
+
+        private final ByteBuffer buffer;        // 읽기 전용. 쓸때는 duplicate() 해서 쓴다.
+        private final String contentType;
+        private final String hash;
+        private final long lastModified;
+
+        CachedImage(ByteBuffer buffer, String contentType, String hash, long lastModified) {
+            this.buffer = buffer;
+            this.contentType = contentType;
+            this.hash = hash;
+            this.lastModified = lastModified;
+        }
+
+        public int getSize() {
+            return buffer.capacity();
+        }
+
+        /**
+         * 응답용 Resource. 요청마다 새 위치로 읽으므로 동시에 여러 응답에 써도 된다.
+         */
+        public AbstractResource toResource() {
+            return new ByteBufferResource(buffer, lastModified);
+        }
+    }
+
+    private static class ByteBufferResource extends AbstractResource {
+
+        private final ByteBuffer buffer;
+        private final long lastModified;
+
+        ByteBufferResource(ByteBuffer buffer, long lastModified) {
+            this.buffer = buffer;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached image [" + buffer.capacity() + " bytes]";
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            ByteBuffer duplicate = buffer.duplicate();
+
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return duplicate.hasRemaining() ? duplicate.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                    if (! duplicate.hasRemaining())
+                        return -1;
+
+                    int count = Math.min(length, duplicate.remaining());
+                    duplicate.get(bytes, offset, count);
+
+                    return count;
+                }
+
+                @Override
+                public long skip(long n) {
+                    int count = (int) Math.max(0, Math.min(n, duplicate.remaining()));
+                    duplicate.position(duplicate.position() + count);
+
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return duplicate.remaining();
+                }
+            };
+        }
+    }
+
+}
@@ -11,8 +11,6 @@ import java.util.List;
 public class BoardCategory {
 
 	private String code;
-
-	@Setter
 	private List<LocalSimpleName> names;
 
 }
@@ -4,14 +4,27 @@ import com.jakduk.api.common.Constants;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.embedded.LocalSimpleName;
+import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * 게시판 말머리.
+ *
+ * 게시판, 언어별 말머리 목록과 이름들을 처음 한번만 만들어 두고, 요청마다 같은 객체를 돌려준다.
+ * 돌려준 말머리와 목록은 바꿀 수 없다.
+ */
+
+@Component
 public class BoardCategoryGenerator {
 
-    List<BoardCategory> footballCategories = Arrays.asList(
+    private final static List<Locale> LOCALES = Arrays.asList(Locale.US, Locale.KOREA);
+    private final static String DEFAULT_LANGUAGE = Locale.US.getLanguage();
+    private final static String CATEGORY_ALL = "ALL";
+
+    private final static List<BoardCategory> FOOTBALL_CATEGORIES = Arrays.asList(
             BoardCategory.builder()
                     .code("CLASSIC")
                     .names(Arrays.asList(new LocalSimpleName(Locale.US.getLanguage(), "Classic"), new LocalSimpleName(Locale.KOREA.getLanguage(), "클래식")))
@@ -38,7 +51,7 @@ public class BoardCategoryGenerator {
                     .build()
     );
 
-    List<BoardCategory> developerCategories = Arrays.asList(
+    private final static List<BoardCategory> DEVELOPER_CATEGORIES = Arrays.asList(
             BoardCategory.builder()
                     .code("QUESTION")
                     .names(Arrays.asList(new LocalSimpleName(Locale.US.getLanguage(), "Question"), new LocalSimpleName(Locale.KOREA.getLanguage(), "물음")))
@@ -65,77 +78,118 @@ public class BoardCategoryGenerator {
                     .build()
     );
 
+    // 게시판 -> 언어 -> 말머리 목록
+    private final Map<Constants.BOARD_TYPE, Map<String, List<BoardCategory>>> categoriesTable = new EnumMap<>(Constants.BOARD_TYPE.class);
+
+    // 게시판 -> 언어 -> 말머리 code -> 말머리
+    private final Map<Constants.BOARD_TYPE, Map<String, Map<String, BoardCategory>>> categoryTable = new EnumMap<>(Constants.BOARD_TYPE.class);
+
+    // 게시판 -> 언어 -> 말머리 code -> 말머리 이름. "ALL" 포함
+    private final Map<Constants.BOARD_TYPE, Map<String, Map<String, String>>> categoriesMapTable = new EnumMap<>(Constants.BOARD_TYPE.class);
+
+    public BoardCategoryGenerator() {
+        this.put(Constants.BOARD_TYPE.FOOTBALL, FOOTBALL_CATEGORIES);
+        this.put(Constants.BOARD_TYPE.DEVELOPER, DEVELOPER_CATEGORIES);
+    }
+
     /**
      * 해당 언어에 맞는 게시판 말머리 목록을 가져온다.
      */
     public List<BoardCategory> getCategories(Constants.BOARD_TYPE boardType, Locale locale) {
+        Map<String, List<BoardCategory>> categoriesByLanguage = categoriesTable.get(boardType);
 
-        Consumer<BoardCategory> localeNamesConsumer = boardCategory -> {
-            List<LocalSimpleName> names = boardCategory.getNames().stream()
-                    .filter(localSimpleName -> localSimpleName.getLanguage().equals(locale.getLanguage()))
-                    .collect(Collectors.toList());
-            boardCategory.setNames(names);
-        };
-
-        switch (boardType) {
-            case FOOTBALL:
-                return footballCategories.stream()
-                        .peek(localeNamesConsumer)
-                        .collect(Collectors.toList());
-            case DEVELOPER:
-                return developerCategories.stream()
-                        .peek(localeNamesConsumer)
-                        .collect(Collectors.toList());
-            default:
-                return new ArrayList<>();
-        }
+        if (Objects.isNull(categoriesByLanguage))
+            return Collections.emptyList();
+
+        return getByLanguage(categoriesByLanguage, locale);
     }
 
     /**
      * 해당 언어에 맞는 게시판 말머리 하나를 가져온다.
      */
     public BoardCategory getCategory(Constants.BOARD_TYPE boardType, String code, Locale locale) {
+        Map<String, Map<String, BoardCategory>> categoryByLanguage = categoryTable.get(boardType);
 
-        Consumer<BoardCategory> localeNamesConsumer = boardCategory -> {
-            List<LocalSimpleName> names = boardCategory.getNames().stream()
-                    .filter(localSimpleName -> localSimpleName.getLanguage().equals(locale.getLanguage()))
-                    .collect(Collectors.toList());
-            boardCategory.setNames(names);
-        };
-
-        switch (boardType) {
-            case FOOTBALL:
-                return footballCategories.stream()
-                        .filter(boardCategory -> boardCategory.getCode().equals(code))
-                        .peek(localeNamesConsumer)
-                        .findFirst()
-                        .orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND));
-            case DEVELOPER:
-                return developerCategories.stream()
-                        .filter(boardCategory -> boardCategory.getCode().equals(code))
-                        .peek(localeNamesConsumer)
-                        .findFirst()
-                        .orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND));
-            default:
-                return null;
-        }
+        if (Objects.isNull(categoryByLanguage))
+            return null;
+
+        BoardCategory boardCategory = getByLanguage(categoryByLanguage, locale).get(code);
+
+        if (Objects.isNull(boardCategory))
+            throw new ServiceException(ServiceError.NOT_FOUND);
+
+        return boardCategory;
+    }
+
+    /**
+     * 해당 언어에 맞는 말머리 code, 이름 Map. "ALL" 도 들어 있다. 말머리가 없는 게시판이면 null
+     */
+    public Map<String, String> getCategoriesMap(Constants.BOARD_TYPE boardType, Locale locale) {
+        Map<String, Map<String, String>> categoriesMapByLanguage = categoriesMapTable.get(boardType);
+
+        if (Objects.isNull(categoriesMapByLanguage))
+            return null;
 
+        return getByLanguage(categoriesMapByLanguage, locale);
     }
 
     /**
      * 해당 말머리가 존재 하는지 확인 한다.
      */
     public Boolean existCategory(Constants.BOARD_TYPE boardType, String code) {
-        switch (boardType) {
-            case FOOTBALL:
-                return footballCategories.stream()
-                        .anyMatch(boardCategory -> boardCategory.getCode().equals(code));
-            case DEVELOPER:
-                return developerCategories.stream()
-                        .anyMatch(boardCategory -> boardCategory.getCode().equals(code));
-            default:
-                return null;
+        Map<String, Map<String, BoardCategory>> categoryByLanguage = categoryTable.get(boardType);
+
+        if (Objects.isNull(categoryByLanguage))
+            return null;
+
+        return categoryByLanguage.get(DEFAULT_LANGUAGE).containsKey(code);
+    }
+
+    private void put(Constants.BOARD_TYPE boardType, List<BoardCategory> sourceCategories) {
+        Map<String, List<BoardCategory>> categoriesByLanguage = new HashMap<>();
+        Map<String, Map<String, BoardCategory>> categoryByLanguage = new HashMap<>();
+        Map<String, Map<String, String>> categoriesMapByLanguage = new HashMap<>();
+
+        for (Locale locale : LOCALES) {
+            String language = locale.getLanguage();
+
+            // 해당 언어의 이름만 남긴 말머리
+            List<BoardCategory> categories = sourceCategories.stream()
+                    .map(boardCategory -> BoardCategory.builder()
+                            .code(boardCategory.getCode())
+                            .names(Collections.unmodifiableList(boardCategory.getNames().stream()
+                                    .filter(localSimpleName -> localSimpleName.getLanguage().equals(language))
+                                    .collect(Collectors.toList())))
+                            .build())
+                    .collect(Collectors.toList());
+
+            Map<String, BoardCategory> categoryByCode = categories.stream()
+                    .collect(Collectors.toMap(BoardCategory::getCode, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+
+            Map<String, String> categoriesMap = categories.stream()
+                    .collect(Collectors.toMap(BoardCategory::getCode, boardCategory -> boardCategory.getNames().get(0).getName(),
+                            (a, b) -> a, LinkedHashMap::new));
+
+            ResourceBundle resourceBundle = ResourceBundle.getBundle("messages.board", locale,
+                    ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT));
+
+            categoriesMap.put(CATEGORY_ALL, resourceBundle.getString("board.category.all"));
+
+            categoriesByLanguage.put(language, Collections.unmodifiableList(categories));
+            categoryByLanguage.put(language, Collections.unmodifiableMap(categoryByCode));
+            categoriesMapByLanguage.put(language, Collections.unmodifiableMap(categoriesMap));
         }
+
+        categoriesTable.put(boardType, categoriesByLanguage);
+        categoryTable.put(boardType, categoryByLanguage);
+        categoriesMapTable.put(boardType, categoriesMapByLanguage);
+    }
+
+    // 없는 언어면 영어
+    private static <T> T getByLanguage(Map<String, T> byLanguage, Locale locale) {
+        T value = byLanguage.get(locale.getLanguage());
+
+        return Objects.nonNull(value) ? value : byLanguage.get(DEFAULT_LANGUAGE);
     }
 
 }
@@ -0,0 +1,164 @@
+package com.jakduk.api.common.elasticsearch;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.*;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 엘라스틱서치 색인, 삭제 요청을 모아서 벌크로 보낸다.
+ *
+ * 벌크 크기, 동시 요청 수, 주기는 jakduk.elasticsearch.bulk-* 설정을 따른다.
+ * 요청마다 붙인 ActionListener 는 그 요청이 담긴 벌크 응답이 왔을 때 불린다.
+ *
+ * 응답 항목은 itemId 가 아니라 항목에 담긴 종류(색인, 삭제), 타입, ID 로 요청과 맞춘다.
+ * 백오프로 다시 보낸 요청의 응답은 itemId 가 다시 보낸 작은 요청 기준이라 원래 요청과 맞지 않을 수 있다.
+ * 인덱스 이름은 별칭이 아니라 실제 인덱스 이름으로 오므로 맞추는 데 쓰지 않는다.
+ */
+
+@Slf4j
+@Component
+public class ElasticsearchBulkProcessor implements BulkProcessor.Listener {
+
+    @Resource private JakdukProperties.Elasticsearch elasticsearchProperties;
+
+    @Autowired private Client client;
+
+    private BulkProcessor bulkProcessor;
+
+    private final static String OP_INDEX = "index";
+    private final static String OP_DELETE = "delete";
+
+    // 벌크 응답을 기다리는 요청들. 같은 문서의 요청이 여러 개면 넣은 순서대로 꺼낸다.
+    private final Map<String, Queue<ActionListener<BulkItemResponse>>> listeners = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        bulkProcessor = BulkProcessor.builder(client, this)
+                .setBulkActions(elasticsearchProperties.getBulkActions())
+                .setBulkSize(new ByteSizeValue(elasticsearchProperties.getBulkSizeMb(), ByteSizeUnit.MB))
+                .setFlushInterval(TimeValue.timeValueSeconds(elasticsearchProperties.getBulkFlushIntervalSeconds()))
+                .setConcurrentRequests(elasticsearchProperties.getBulkConcurrentRequests())
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff())
+                .build();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        bulkProcessor.awaitClose(elasticsearchProperties.getBulkFlushIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 요청을 벌크에 넣는다.
+     *
+     * @param request 색인 또는 삭제 요청
+     * @param listener 벌크 응답이 왔을 때 이 요청의 결과를 받는다. 필요 없으면 null
+     */
+    public void add(ActionRequest<?> request, ActionListener<BulkItemResponse> listener) {
+
+        // ID 를 엘라스틱서치가 만들게 두면 응답과 맞춰볼 수 없다.
+        if (request instanceof IndexRequest && Objects.isNull(((IndexRequest) request).id()))
+            ((IndexRequest) request).id(UUID.randomUUID().toString());
+
+        if (Objects.nonNull(listener))
+            listeners.compute(toKey(request), (key, queue) -> {
+                Queue<ActionListener<BulkItemResponse>> waiting = Objects.isNull(queue) ? new LinkedList<>() : queue;
+                waiting.add(listener);
+                return waiting;
+            });
+
+        bulkProcessor.add(request);
+    }
+
+    @Override
+    public void beforeBulk(long executionId, BulkRequest request) {
+        log.debug("Executing bulk. executionId={}, actions={}", executionId, request.numberOfActions());
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+        for (BulkItemResponse item : response.getItems()) {
+            ActionListener<BulkItemResponse> listener = this.pollListener(toKey(item));
+
+            if (item.isFailed()) {
+                log.warn("Bulk item failed. index={}, type={}, id={}, message={}", item.getIndex(), item.getType(),
+                        item.getId(), item.getFailureMessage());
+
+                if (Objects.nonNull(listener))
+                    listener.onFailure(new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, item.getFailure().getCause()));
+
+                continue;
+            }
+
+            if (item.getResponse() instanceof DeleteResponse && ! ((DeleteResponse) item.getResponse()).isFound())
+                log.info("{} id {} is not found. so can't delete it!", item.getType(), item.getId());
+
+            if (Objects.nonNull(listener))
+                listener.onResponse(item);
+        }
+
+        log.debug("Bulk executed. executionId={}, actions={}, took={}ms", executionId, request.numberOfActions(),
+                response.getTookInMillis());
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+        log.warn("Bulk failed. executionId={}, actions={}", executionId, request.numberOfActions(), failure);
+
+        request.requests().stream()
+                .map(actionRequest -> this.pollListener(toKey(actionRequest)))
+                .filter(Objects::nonNull)
+                .forEach(listener -> listener.onFailure(failure));
+    }
+
+    // 큐는 compute 안에서만 만진다.
+    private ActionListener<BulkItemResponse> pollListener(String key) {
+        List<ActionListener<BulkItemResponse>> polled = new ArrayList<>(1);
+
+        listeners.computeIfPresent(key, (k, queue) -> {
+            polled.add(queue.poll());
+            return queue.isEmpty() ? null : queue;
+        });
+
+        return polled.isEmpty() ? null : polled.get(0);
+    }
+
+    // delete:board/{id}
+    private static String toKey(ActionRequest<?> request) {
+        if (request instanceof DeleteRequest) {
+            DeleteRequest deleteRequest = (DeleteRequest) request;
+            return toKey(OP_DELETE, deleteRequest.type(), deleteRequest.id());
+        }
+
+        IndexRequest indexRequest = (IndexRequest) request;
+        return toKey(OP_INDEX, indexRequest.type(), indexRequest.id());
+    }
+
+    private static String toKey(BulkItemResponse item) {
+        return toKey(OP_DELETE.equals(item.getOpType()) ? OP_DELETE : OP_INDEX, item.getType(), item.getId());
+    }
+
+    private static String toKey(String op, String type, String id) {
+        return op + ":" + type + "/" + id;
+    }
+
+}
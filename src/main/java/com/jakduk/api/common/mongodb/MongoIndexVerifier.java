@@ -0,0 +1,266 @@
+package com.jakduk.api.common.mongodb;
+
+import com.jakduk.api.common.Constants;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 도큐먼트에 선언한 인덱스(@CompoundIndex, @Indexed)가 실제로 있는지 확인하고,
+ * 자주 쓰는 쿼리 모양들이 어떤 실행 계획을 타는지 보여준다.
+ *
+ * 시작할 때는 빠진 인덱스만 확인해서 로그를 남긴다. explain 은 관리자 API 에서만 돌린다.
+ */
+
+@Slf4j
+@Component
+public class MongoIndexVerifier {
+
+    private final static String SAMPLE_BOARD = Constants.BOARD_TYPE.FREE.name();
+    private final static ObjectId SAMPLE_ID = new ObjectId();
+    private final static Integer EXPLAIN_LIMIT = 20;
+
+    // repository, JakdukDAO 의 자주 쓰는 쿼리 모양. aggregate 는 $match, $sort 만 옮겼다.
+    private final static List<QueryShape> QUERY_SHAPES = Arrays.asList(
+            new QueryShape("articles", Constants.COLLECTION_ARTICLE,
+                    new BasicDBObject("board", SAMPLE_BOARD),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("articlesByCategory", Constants.COLLECTION_ARTICLE,
+                    new BasicDBObject("board", SAMPLE_BOARD).append("category", "CLASSIC"),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("articlesByCursor", Constants.COLLECTION_ARTICLE,
+                    new BasicDBObject("board", SAMPLE_BOARD).append("_id", new BasicDBObject("$lt", SAMPLE_ID)),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("articleBySeq", Constants.COLLECTION_ARTICLE,
+                    new BasicDBObject("seq", 1),
+                    null),
+            new QueryShape("articleByBoardAndSeq", Constants.COLLECTION_ARTICLE,
+                    new BasicDBObject("board", SAMPLE_BOARD).append("seq", 1),
+                    null),
+            new QueryShape("notices", Constants.COLLECTION_ARTICLE,
+                    new BasicDBObject("status.notice", true).append("board", SAMPLE_BOARD),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("articlesByWriter", Constants.COLLECTION_ARTICLE,
+                    new BasicDBObject("writer.userId", "userId").append("_id", new BasicDBObject("$ne", SAMPLE_ID)),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("commentCountsByArticles", Constants.COLLECTION_ARTICLE_COMMENT,
+                    new BasicDBObject("article._id", new BasicDBObject("$in", Collections.singletonList(SAMPLE_ID))),
+                    null),
+            new QueryShape("comments", Constants.COLLECTION_ARTICLE_COMMENT,
+                    new BasicDBObject("article.board", SAMPLE_BOARD),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("commentsByCursor", Constants.COLLECTION_ARTICLE_COMMENT,
+                    new BasicDBObject("article.board", SAMPLE_BOARD).append("_id", new BasicDBObject("$lt", SAMPLE_ID)),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("commentsOfArticle", Constants.COLLECTION_ARTICLE_COMMENT,
+                    new BasicDBObject("article.seq", 1).append("article.board", SAMPLE_BOARD).append("_id", new BasicDBObject("$gt", SAMPLE_ID)),
+                    new BasicDBObject("_id", 1)),
+            new QueryShape("galleriesOfItem", Constants.COLLECTION_GALLERY,
+                    new BasicDBObject("status.status", Constants.GALLERY_STATUS_TYPE.ENABLE.name())
+                            .append("linkedItems._id", SAMPLE_ID)
+                            .append("linkedItems.from", Constants.GALLERY_FROM_TYPE.ARTICLE.name()),
+                    new BasicDBObject("_id", -1)),
+            new QueryShape("galleryByHash", Constants.COLLECTION_GALLERY,
+                    new BasicDBObject("hash", "hash").append("status.status", Constants.GALLERY_STATUS_TYPE.ENABLE.name()),
+                    null),
+            new QueryShape("jakduComments", "jakduComment",
+                    new BasicDBObject("jakduScheduleId", "jakduScheduleId").append("_id", new BasicDBObject("$gt", SAMPLE_ID)),
+                    new BasicDBObject("_id", 1)),
+            new QueryShape("userByEmail", "user",
+                    new BasicDBObject("email", "email"),
+                    null),
+            new QueryShape("userByUsername", "user",
+                    new BasicDBObject("username", "username"),
+                    null),
+            new QueryShape("userByProvider", "user",
+                    new BasicDBObject("providerId", Constants.ACCOUNT_TYPE.FACEBOOK.name()).append("providerUserId", "providerUserId"),
+                    null),
+            new QueryShape("tokenByCode", "token",
+                    new BasicDBObject("code", "code"),
+                    null)
+    );
+
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private MongoMappingContext mongoMappingContext;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        try {
+            List<MissingIndex> missingIndexes = this.findMissingIndexes();
+
+            if (missingIndexes.isEmpty()) {
+                log.info("All declared mongodb indexes exist.");
+            } else {
+                missingIndexes.forEach(missingIndex ->
+                        log.warn("Missing mongodb index. collection={}, name={}, keys={}", missingIndex.getCollection(),
+                                missingIndex.getName(), missingIndex.getKeys()));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to verify mongodb indexes.", e);
+        }
+    }
+
+    /**
+     * 빠진 인덱스와 쿼리 모양별 실행 계획
+     */
+    public Map<String, Object> getReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("missingIndexes", this.findMissingIndexes());
+        report.put("queryPlans", this.explainQueryShapes());
+
+        return report;
+    }
+
+    /**
+     * 도큐먼트에 선언했는데 DB 에 없는 인덱스. 이름이 달라도 키가 같으면 있는 것으로 본다.
+     */
+    public List<MissingIndex> findMissingIndexes() {
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        Map<String, Set<String>> existingKeysByCollection = new HashMap<>();
+        List<MissingIndex> missingIndexes = new ArrayList<>();
+
+        for (MongoPersistentEntity<?> entity : mongoMappingContext.getPersistentEntities()) {
+            for (IndexDefinitionHolder holder : indexResolver.resolveIndexFor(entity.getTypeInformation())) {
+                String keys = toKeys(holder.getIndexKeys());
+
+                Set<String> existingKeys = existingKeysByCollection.computeIfAbsent(holder.getCollection(), collection ->
+                        mongoTemplate.indexOps(collection).getIndexInfo().stream()
+                                .map(MongoIndexVerifier::toKeys)
+                                .collect(Collectors.toSet()));
+
+                if (! existingKeys.contains(keys)) {
+                    missingIndexes.add(MissingIndex.builder()
+                            .collection(holder.getCollection())
+                            .name(toDefaultName(holder.getIndexKeys()))
+                            .keys(keys)
+                            .build());
+                }
+            }
+        }
+
+        return missingIndexes;
+    }
+
+    /**
+     * 쿼리 모양마다 explain 해서 winningPlan 의 단계들을 뽑는다. COLLSCAN 이면 인덱스를 못 타는 것.
+     */
+    public List<QueryPlan> explainQueryShapes() {
+        return QUERY_SHAPES.stream()
+                .map(shape -> {
+                    DBObject explain = mongoTemplate.getCollection(shape.getCollection())
+                            .find(shape.getQuery())
+                            .sort(Optional.ofNullable(shape.getSort()).orElseGet(BasicDBObject::new))
+                            .limit(EXPLAIN_LIMIT)
+                            .explain();
+
+                    DBObject queryPlanner = (DBObject) explain.get("queryPlanner");
+                    List<String> stages = new ArrayList<>();
+                    List<String> indexNames = new ArrayList<>();
+
+                    if (Objects.nonNull(queryPlanner))
+                        collectStages((DBObject) queryPlanner.get("winningPlan"), stages, indexNames);
+
+                    return QueryPlan.builder()
+                            .name(shape.getName())
+                            .collection(shape.getCollection())
+                            .query(shape.getQuery().toString())
+                            .stages(stages)
+                            .indexNames(indexNames)
+                            .collectionScan(stages.contains("COLLSCAN"))
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    // 바깥 단계부터 안쪽 단계 순으로 담는다. (예: LIMIT, FETCH, IXSCAN)
+    private static void collectStages(DBObject plan, List<String> stages, List<String> indexNames) {
+        if (Objects.isNull(plan))
+            return;
+
+        stages.add((String) plan.get("stage"));
+
+        if (Objects.nonNull(plan.get("indexName")))
+            indexNames.add((String) plan.get("indexName"));
+
+        collectStages((DBObject) plan.get("inputStage"), stages, indexNames);
+
+        if (plan.get("inputStages") instanceof BasicDBList) {
+            for (Object inputStage : (BasicDBList) plan.get("inputStages"))
+                collectStages((DBObject) inputStage, stages, indexNames);
+        }
+    }
+
+    // {board: 1, _id: -1} -> "board:1,_id:-1"
+    private static String toKeys(DBObject indexKeys) {
+        return indexKeys.keySet().stream()
+                .map(key -> key + ":" + ((Number) indexKeys.get(key)).intValue())
+                .collect(Collectors.joining(","));
+    }
+
+    // 이름을 주지 않은 인덱스에 MongoDB 가 붙이는 이름. {board: 1, _id: -1} -> "board_1__id_-1"
+    private static String toDefaultName(DBObject indexKeys) {
+        return indexKeys.keySet().stream()
+                .map(key -> key + "_" + ((Number) indexKeys.get(key)).intValue())
+                .collect(Collectors.joining("_"));
+    }
+
+    private static String toKeys(IndexInfo indexInfo) {
+        return indexInfo.getIndexFields().stream()
+                .map(field -> field.getKey() + ":" + (field.getDirection() == Sort.Direction.DESC ? -1 : 1))
+                .collect(Collectors.joining(","));
+    }
+
+    @Getter
+    private static class QueryShape {
+
+        private final String name;
+        private final String collection;
+        private final DBObject query;
+        private final DBObject sort;
+
+        QueryShape(String name, String collection, DBObject query, DBObject sort) {
+            this.name = name;
+            this.collection = collection;
+            this.query = query;
+            this.sort = sort;
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class MissingIndex {
+        private String collection;
+        private String name;
+        private String keys;
+    }
+
+    @Builder
+    @Getter
+    public static class QueryPlan {
+        private String name;
+        private String collection;
+        private String query;
+        private List<String> stages;
+        private List<String> indexNames;
+        private boolean collectionScan;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.jakduk.api.common.mongodb;
+
+import com.mongodb.event.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mongo 연결 풀 이벤트를 받아서 사용 중인 연결 수, 연결을 얻기까지 기다린 시간, 실패 수를 센다.
+ * 서버(풀)가 여럿이면 합쳐서 센다.
+ */
+public class MongoPoolMetrics extends ConnectionPoolListenerAdapter {
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger waitQueueSize = new AtomicInteger();
+
+    private final LongAdder checkoutCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    // 대기열에 들어간 시각. 드라이버는 연결을 얻는 쓰레드에서 entered, exited 를 부른다.
+    private final ThreadLocal<Long> waitStarted = new ThreadLocal<>();
+
+    @Override
+    public void connectionAdded(ConnectionAddedEvent event) {
+        size.incrementAndGet();
+    }
+
+    @Override
+    public void connectionRemoved(ConnectionRemovedEvent event) {
+        size.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        inUse.incrementAndGet();
+        checkoutCount.increment();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        inUse.decrementAndGet();
+    }
+
+    @Override
+    public void waitQueueEntered(ConnectionPoolWaitQueueEnteredEvent event) {
+        waitQueueSize.incrementAndGet();
+        waitStarted.set(System.nanoTime());
+    }
+
+    @Override
+    public void waitQueueExited(ConnectionPoolWaitQueueExitedEvent event) {
+        waitQueueSize.decrementAndGet();
+
+        Long started = waitStarted.get();
+        waitStarted.remove();
+
+        if (Objects.isNull(started))
+            return;
+
+        long elapsed = System.nanoTime() - started;
+
+        waitCount.increment();
+        waitNanos.add(elapsed);
+        maxWaitNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    public Map<String, Object> getStats() {
+        long waits = waitCount.sum();
+        long checkouts = checkoutCount.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size.get());
+        stats.put("inUse", inUse.get());
+        stats.put("waitQueueSize", waitQueueSize.get());
+        stats.put("checkoutCount", checkouts);
+        // 대기열을 나왔는데 연결을 못 받은 수. 대기열이 꽉 차서 바로 실패한 것은 이벤트가 없어 빠진다.
+        stats.put("checkoutFailureCount", Math.max(0, waits - checkouts));
+        stats.put("averageWaitMillis", waits == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / waits));
+        stats.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+
+        return stats;
+    }
+
+}
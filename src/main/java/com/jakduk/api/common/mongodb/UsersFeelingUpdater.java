@@ -0,0 +1,211 @@
+package com.jakduk.api.common.mongodb;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.aggregate.BoardFeelingCount;
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.*;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Objects;
+
+/**
+ * 글, 댓글의 좋아요/싫어요를 도큐먼트를 통째로 읽고 저장하지 않고, userId 조건을 건 findAndModify 로 바꾼다.
+ *
+ * 조건에 맞을 때만 $pull, $push 하므로 동시에 눌러도 같은 회원이 두 번 들어가거나 다른 회원의 감정 표현이 사라지지 않는다.
+ * 돌려주는 도큐먼트의 usersLiking, usersDisliking 에는 그 회원의 것만 담긴다.
+ */
+
+@Component
+public class UsersFeelingUpdater {
+
+    // 세 조건 모두 안 맞으면 그 사이에 같은 회원이 또 누른 것이다. 그만큼만 다시 해 본다.
+    private final static Integer MAX_ATTEMPTS = 10;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * 같은 감정이면 취소, 반대 감정이면 바꾸고, 아직 없으면 더한다.
+     *
+     * @param entityClass 도큐먼트 클래스
+     * @param target 도큐먼트를 찾는 조건
+     * @param writer 감정 표현하는 회원
+     * @param feeling 감정
+     * @param notFoundError 도큐먼트가 없을 때 에러
+     * @param counted likingCount, dislikingCount 도 같이 증감할지
+     * @param fields 감정 표현 말고 돌려받을 필드
+     * @return 바뀐 도큐먼트
+     */
+    public <T> T toggle(Class<T> entityClass, Criteria target, CommonWriter writer, Constants.FEELING_TYPE feeling,
+                        ServiceError notFoundError, Boolean counted, String... fields) {
+
+        String userId = writer.getUserId();
+        Constants.FEELING_TYPE opposite = oppositeOf(feeling);
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+
+            // 이미 같은 감정이면 취소
+            Update cancel = new Update().pull(usersOf(feeling), new BasicDBObject("userId", userId));
+
+            if (counted)
+                cancel.inc(countOf(feeling), -1);
+
+            T modified = this.modify(entityClass, target, userId, fields, cancel,
+                    Criteria.where(usersOf(feeling) + ".userId").is(userId));
+
+            if (Objects.nonNull(modified))
+                return modified;
+
+            // 반대 감정이면 없애고 바꿈
+            Update change = new Update()
+                    .pull(usersOf(opposite), new BasicDBObject("userId", userId))
+                    .push(usersOf(feeling), newFeelingUser(writer));
+
+            if (counted)
+                change.inc(countOf(opposite), -1).inc(countOf(feeling), 1);
+
+            modified = this.modify(entityClass, target, userId, fields, change,
+                    Criteria.where(usersOf(opposite) + ".userId").is(userId),
+                    Criteria.where(usersOf(feeling) + ".userId").ne(userId));
+
+            if (Objects.nonNull(modified))
+                return modified;
+
+            // 아직 감정 표현을 하지 않았음
+            modified = this.add(entityClass, target, writer, feeling, counted, fields);
+
+            if (Objects.nonNull(modified))
+                return modified;
+
+            this.verifyTarget(entityClass, target, userId, notFoundError);
+        }
+
+        throw new ServiceException(ServiceError.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * 감정 표현을 아직 하지 않았을 때만 더한다. 취소, 바꾸기는 없다.
+     *
+     * @return 바뀐 도큐먼트
+     */
+    public <T> T addOnce(Class<T> entityClass, Criteria target, CommonWriter writer, Constants.FEELING_TYPE feeling,
+                         ServiceError notFoundError, String... fields) {
+
+        T modified = this.add(entityClass, target, writer, feeling, false, fields);
+
+        if (Objects.isNull(modified)) {
+            this.verifyTarget(entityClass, target, writer.getUserId(), notFoundError);
+
+            throw new ServiceException(ServiceError.FEELING_SELECT_ALREADY_LIKE);
+        }
+
+        return modified;
+    }
+
+    /**
+     * 도큐먼트 하나의 좋아요, 싫어요 수를 DB 에서 센다.
+     *
+     * db.articleComment.aggregate([
+     *  {$match: {_id: ObjectId("59c0a1e2aaf2c9a6d1e6a3c2")}},
+     *  {$project: {usersLikingCount: {$size: {$ifNull: ['$usersLiking', []]}}, usersDislikingCount: {$size: {$ifNull: ['$usersDisliking', []]}}}}
+     * ])
+     */
+    public BoardFeelingCount count(Class<?> entityClass, String id) {
+        AggregationExpression usersLikingCount = ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("usersLiking").then(new ArrayList<>()));
+        AggregationExpression usersDislikingCount = ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("usersDisliking").then(new ArrayList<>()));
+
+        AggregationOperation match = Aggregation.match(Criteria.where("_id").is(new ObjectId(id)));
+        AggregationOperation project = Aggregation.project("_id")
+                .and(usersLikingCount).as("usersLikingCount")
+                .and(usersDislikingCount).as("usersDislikingCount");
+
+        Aggregation aggregation = Aggregation.newAggregation(match, project);
+        AggregationResults<BoardFeelingCount> results = mongoTemplate.aggregate(aggregation,
+                mongoTemplate.getCollectionName(entityClass), BoardFeelingCount.class);
+
+        return results.getUniqueMappedResult();
+    }
+
+    private <T> T add(Class<T> entityClass, Criteria target, CommonWriter writer, Constants.FEELING_TYPE feeling,
+                      Boolean counted, String[] fields) {
+
+        String userId = writer.getUserId();
+
+        Update add = new Update().push(usersOf(feeling), newFeelingUser(writer));
+
+        if (counted)
+            add.inc(countOf(feeling), 1);
+
+        return this.modify(entityClass, target, userId, fields, add,
+                Criteria.where("usersLiking.userId").ne(userId),
+                Criteria.where("usersDisliking.userId").ne(userId));
+    }
+
+    private <T> T modify(Class<T> entityClass, Criteria target, String userId, String[] fields, Update update,
+                         Criteria... conditions) {
+
+        // 작성자는 자기 글에 감정 표현을 할 수 없다.
+        Query query = new Query(target).addCriteria(Criteria.where("writer.userId").ne(userId));
+
+        for (Criteria condition : conditions)
+            query.addCriteria(condition);
+
+        for (String field : fields)
+            query.fields().include(field);
+
+        query.fields()
+                .elemMatch("usersLiking", Criteria.where("userId").is(userId))
+                .elemMatch("usersDisliking", Criteria.where("userId").is(userId));
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), entityClass);
+    }
+
+    /**
+     * 조건에 맞지 않은 까닭이 도큐먼트가 없거나 작성자 본인이어서인지 확인한다.
+     */
+    private void verifyTarget(Class<?> entityClass, Criteria target, String userId, ServiceError notFoundError) {
+        Query query = new Query(target);
+        query.fields().include("writer.userId");
+
+        DBObject found = mongoTemplate.findOne(query, DBObject.class, mongoTemplate.getCollectionName(entityClass));
+
+        if (Objects.isNull(found))
+            throw new ServiceException(notFoundError);
+
+        DBObject foundWriter = (DBObject) found.get("writer");
+
+        // 이 게시물의 작성자라서 감정 표현을 할 수 없음
+        if (Objects.nonNull(foundWriter) && userId.equals(foundWriter.get("userId")))
+            throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
+    }
+
+    private static CommonFeelingUser newFeelingUser(CommonWriter writer) {
+        return new CommonFeelingUser(new ObjectId().toString(), writer.getUserId(), writer.getUsername());
+    }
+
+    private static Constants.FEELING_TYPE oppositeOf(Constants.FEELING_TYPE feeling) {
+        return feeling == Constants.FEELING_TYPE.LIKE ? Constants.FEELING_TYPE.DISLIKE : Constants.FEELING_TYPE.LIKE;
+    }
+
+    private static String usersOf(Constants.FEELING_TYPE feeling) {
+        return feeling == Constants.FEELING_TYPE.LIKE ? "usersLiking" : "usersDisliking";
+    }
+
+    private static String countOf(Constants.FEELING_TYPE feeling) {
+        return feeling == Constants.FEELING_TYPE.LIKE ? "likingCount" : "dislikingCount";
+    }
+
+}
@@ -28,95 +28,67 @@ public class FileUtils {
     /**
      * 이미지 파일 저장
      *
-     * @param imagePath     파일 최상위 경로
-     * @param localDate     파일 작성일 (년/월/일 로 폴더 나뉘어짐)
-     * @param fileName      파일 제목 (확장자 제외)
+     * @param imageFilePath 파일 경로. 포맷은 경로가 아닌 contentType 을 따른다.
      * @param contentType   콘텐츠 타입
      * @param size          콘텐츠 크기
      * @param bytes         콘텐츠
      * @throws IOException  예외 처리 필요함
      */
-    public static void writeImageFile(String imagePath, LocalDate localDate, String fileName, String contentType, long size, byte[] bytes) throws IOException {
+    public static void writeImageFile(Path imageFilePath, String contentType, long size, byte[] bytes) throws IOException {
 
         // 사진 포맷.
         String formatName = StringUtils.split(contentType, "/")[1];
 
-        Path imageDirPath = Paths.get(imagePath, String.valueOf(localDate.getYear()),
-                String.valueOf(localDate.getMonthValue()), String.valueOf(localDate.getDayOfMonth()));
-
-        if (Files.notExists(imageDirPath, LinkOption.NOFOLLOW_LINKS))
-            Files.createDirectories(imageDirPath);
-
-        // 사진 경로.
-        Path imageFilePath = imageDirPath.resolve(fileName + "." + formatName);
-
-        // 사진 저장.
-        if (Files.notExists(imageFilePath, LinkOption.NOFOLLOW_LINKS)) {
-            if ("gif".equals(formatName)) {
-                Files.write(imageFilePath, bytes);
-            } else {
-
-                double scale = Constants.GALLERY_MAXIMUM_CAPACITY < size ?
-                        Constants.GALLERY_MAXIMUM_CAPACITY / (double) size : 1;
+        if ("gif".equals(formatName)) {
+            Files.write(imageFilePath, bytes);
+            return;
+        }
 
-                InputStream inputStream = new ByteArrayInputStream(bytes);
+        double scale = Constants.GALLERY_MAXIMUM_CAPACITY < size ?
+                Constants.GALLERY_MAXIMUM_CAPACITY / (double) size : 1;
 
-                Thumbnails.of(inputStream)
-                        .scale(scale)
-                        .toFile(imageFilePath.toFile());
-            }
+        try (OutputStream outputStream = Files.newOutputStream(imageFilePath)) {
+            Thumbnails.of(new ByteArrayInputStream(bytes))
+                    .scale(scale)
+                    .outputFormat(formatName)
+                    .toOutputStream(outputStream);
         }
     }
 
     /**
      * 작은 이미지 파일 저장
      *
-     * @param imagePath     파일 최상위 경로
-     * @param localDate     파일 작성일 (년/월/일 로 폴더 나뉘어짐)
-     * @param fileName      파일 제목 (확장자 제외)
+     * @param imageFilePath 파일 경로. 포맷은 경로가 아닌 contentType 을 따른다.
      * @param contentType   콘텐츠 타입
      * @param width         줄일 가로 길이
      * @param height        줄일 세로 길이
      * @param bytes         콘텐츠
      * @throws IOException  예외 처리 필요함
      */
-    public static void writeSmallImageFile(String imagePath, LocalDate localDate, String fileName, String contentType,
-                                           Integer width, Integer height, byte[] bytes) throws IOException {
+    public static void writeSmallImageFile(Path imageFilePath, String contentType, Integer width, Integer height,
+                                           byte[] bytes) throws IOException {
 
         // 사진 포맷.
         String formatName = StringUtils.split(contentType, "/")[1];
 
-        Path imageDirPath = Paths.get(imagePath, String.valueOf(localDate.getYear()),
-                String.valueOf(localDate.getMonthValue()), String.valueOf(localDate.getDayOfMonth()));
-
-        if (Files.notExists(imageDirPath, LinkOption.NOFOLLOW_LINKS))
-            Files.createDirectories(imageDirPath);
-
-        // 사진 경로.
-        Path imageFilePath = imageDirPath.resolve(fileName + "." + formatName);
-
-        // 사진 저장.
-        if (Files.notExists(imageFilePath, LinkOption.NOFOLLOW_LINKS)) {
-
-            InputStream inputStream = new ByteArrayInputStream(bytes);
-
-            Thumbnails.of(inputStream)
+        try (OutputStream outputStream = Files.newOutputStream(imageFilePath)) {
+            Thumbnails.of(new ByteArrayInputStream(bytes))
                     .size(width, height)
                     .crop(Positions.CENTER)
-                    .toFile(imageFilePath.toFile());
+                    .outputFormat(formatName)
+                    .toOutputStream(outputStream);
         }
     }
 
     /**
-     * 파일 스트림 읽기
+     * 이미지 파일 경로 가져오기. 파일을 읽지는 않는다.
      *
      * @param imagePath     파일 최상위 경로
      * @param localDate     파일 작성일 (년/월/일 로 폴더 나뉘어짐)
      * @param fileName      파일 제목 (확장자 제외)
      * @param contentType   콘텐츠 타입
-     * @throws IOException  예외 처리 필요함
      */
-    public static ByteArrayOutputStream readImageFile(String imagePath, LocalDate localDate, String fileName, String contentType) throws IOException {
+    public static Path getImageFilePath(String imagePath, LocalDate localDate, String fileName, String contentType) {
 
         // 사진 포맷.
         String formatName = StringUtils.split(contentType, "/")[1];
@@ -124,22 +96,10 @@ public class FileUtils {
         Path filePath = Paths.get(imagePath, String.valueOf(localDate.getYear()), String.valueOf(localDate.getMonthValue()),
                 String.valueOf(localDate.getDayOfMonth()), fileName + "." + formatName);
 
-        if (Files.exists(filePath, LinkOption.NOFOLLOW_LINKS)) {
-            BufferedInputStream in = new BufferedInputStream(new FileInputStream(filePath.toString()));
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream(512);
-
-            int imageByte;
-
-            while ((imageByte = in.read()) != -1){
-                byteStream.write(imageByte);
-            }
-
-            in.close();
-            return byteStream;
-
-        } else {
+        if (Files.notExists(filePath, LinkOption.NOFOLLOW_LINKS))
             throw new ServiceException(ServiceError.NOT_FOUND_GALLERY_FILE);
-        }
+
+        return filePath;
     }
 
     /**
@@ -0,0 +1,435 @@
+package com.jakduk.api.common.util;
+
+import org.jsoup.nodes.Entities;
+
+import java.util.*;
+
+/**
+ * HTML 에서 글자만 뽑아낸다.
+ *
+ * Jsoup.parse(html).text() 와 같은 결과를 내지만 DOM 을 만들지 않고 한번 훑으면서 태그를 지우고 엔티티를 푼다.
+ * 공백은 Jsoup 처럼 하나로 줄이고, 블록 태그와 br 앞에는 공백을 넣는다. script, style 의 내용은 버린다.
+ * 이름 있는 엔티티 표는 Jsoup 의 것을 쓴다.
+ */
+public class HtmlTextExtractor {
+
+    // Jsoup Tag 의 블록 태그들
+    private final static Set<String> BLOCK_TAGS = new HashSet<>(Arrays.asList(
+            "html", "head", "body", "frameset", "script", "noscript", "style", "meta", "link", "title", "frame",
+            "noframes", "section", "nav", "aside", "hgroup", "header", "footer", "p", "h1", "h2", "h3", "h4", "h5", "h6",
+            "ul", "ol", "pre", "div", "blockquote", "hr", "address", "figure", "figcaption", "form", "fieldset", "ins",
+            "del", "s", "dl", "dt", "dd", "li", "table", "caption", "thead", "tfoot", "tbody", "colgroup", "col", "tr",
+            "th", "td", "video", "audio", "canvas", "details", "menu", "plaintext", "template", "article", "main", "svg",
+            "math"));
+
+    // 닫는 태그가 없는 태그들
+    private final static Set<String> VOID_TAGS = new HashSet<>(Arrays.asList(
+            "meta", "link", "base", "frame", "img", "br", "wbr", "embed", "hr", "input", "keygen", "col", "command",
+            "device", "area", "basefont", "bgsound", "menuitem", "param", "source", "track"));
+
+    // 열려 있는 p 를 닫는 태그들
+    private final static Set<String> CLOSE_P_TAGS = new HashSet<>(Arrays.asList(
+            "address", "article", "aside", "blockquote", "center", "details", "dir", "div", "dl", "fieldset",
+            "figcaption", "figure", "footer", "header", "hgroup", "menu", "nav", "ol", "p", "section", "summary", "ul",
+            "h1", "h2", "h3", "h4", "h5", "h6", "pre", "listing", "form", "li", "dd", "dt", "hr", "xmp", "plaintext"));
+
+    // 공백을 그대로 두는 태그들. 바로 안쪽과 그 한단계 안쪽 글자까지.
+    private final static Set<String> PRESERVE_WHITESPACE_TAGS = new HashSet<>(Arrays.asList(
+            "pre", "plaintext", "title", "textarea"));
+
+    // 내용을 버리는 태그들
+    private final static Set<String> DATA_TAGS = new HashSet<>(Arrays.asList("script", "style"));
+
+    // 내용을 태그, 엔티티 없이 글자 그대로 보는 태그들
+    private final static Set<String> RAW_TEXT_TAGS = new HashSet<>(Arrays.asList("iframe", "noembed", "noframes", "xmp"));
+
+    // 내용의 태그는 글자로 보고 엔티티만 푸는 태그들
+    private final static Set<String> RCDATA_TAGS = new HashSet<>(Arrays.asList("title", "textarea"));
+
+    private final static int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private final String html;
+    private final int length;
+    private final StringBuilder text;
+    private final Deque<String> openTags = new ArrayDeque<>();
+
+    private int pos;
+    private boolean preserveWhitespace;
+
+    private HtmlTextExtractor(String html) {
+        this.html = html;
+        this.length = html.length();
+        this.text = new StringBuilder(length);
+    }
+
+    /**
+     * HTML 에서 글자만 뽑는다.
+     *
+     * @param html HTML
+     * @return 태그를 지우고 엔티티를 푼 글자. html 이 null 이면 빈 문자열
+     */
+    public static String extractText(String html) {
+        if (Objects.isNull(html) || html.isEmpty())
+            return "";
+
+        return new HtmlTextExtractor(html).extract();
+    }
+
+    private String extract() {
+        while (pos < length) {
+            char c = html.charAt(pos);
+
+            if (c == '<') {
+                if (! this.readMarkup()) {
+                    this.append(c);
+                    pos++;
+                }
+            } else if (c == '&') {
+                this.readCharacterReference();
+            } else {
+                this.append(c);
+                pos++;
+            }
+        }
+
+        return text.toString().trim();
+    }
+
+    /**
+     * '<' 에서 시작하는 태그, 주석 등을 읽는다. 태그가 아니면 false
+     */
+    private boolean readMarkup() {
+        int next = pos + 1;
+
+        if (next >= length)
+            return false;
+
+        char c = html.charAt(next);
+
+        if (isAsciiLetter(c)) {
+            this.readStartTag();
+        } else if (c == '/') {
+            if (next + 1 >= length)
+                return false;
+
+            char afterSlash = html.charAt(next + 1);
+
+            if (isAsciiLetter(afterSlash)) {
+                this.readEndTag();
+            } else if (afterSlash == '>') {
+                pos = next + 2;
+            } else {
+                this.skipPast('>');
+            }
+        } else if (c == '!') {
+            if (html.startsWith("<!--", pos)) {
+                int end = html.indexOf("-->", pos + 4);
+                pos = end < 0 ? length : end + 3;
+            } else {
+                this.skipPast('>');
+            }
+        } else if (c == '?') {
+            this.skipPast('>');
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    private void readStartTag() {
+        int nameEnd = this.indexOfTagNameEnd(pos + 1);
+        String name = html.substring(pos + 1, nameEnd).toLowerCase(Locale.ENGLISH);
+        int end = nameEnd < length && html.charAt(nameEnd) == '<' ? nameEnd : this.indexAfterAttributes(nameEnd);
+
+        // 태그가 끝나기 전에 HTML 이 끝나면 태그를 버린다.
+        if (end < 0) {
+            pos = length;
+            return;
+        }
+
+        pos = end;
+
+        if (CLOSE_P_TAGS.contains(name) && openTags.contains("p"))
+            this.popUntil("p");
+
+        if (BLOCK_TAGS.contains(name) || name.equals("br"))
+            this.appendSpace();
+
+        if (DATA_TAGS.contains(name)) {
+            pos = this.indexAfterEndTag(name, this.indexOfEndTag(name));
+        } else if (RAW_TEXT_TAGS.contains(name)) {
+            int endTag = this.indexOfEndTag(name);
+
+            for (; pos < endTag; pos++)
+                this.append(html.charAt(pos));
+
+            pos = this.indexAfterEndTag(name, endTag);
+        } else if (RCDATA_TAGS.contains(name)) {
+            int endTag = this.indexOfEndTag(name);
+            boolean preserved = preserveWhitespace;
+            preserveWhitespace = true;
+
+            while (pos < endTag) {
+                if (html.charAt(pos) == '&') {
+                    this.readCharacterReference();
+                } else {
+                    this.append(html.charAt(pos));
+                    pos++;
+                }
+            }
+
+            preserveWhitespace = preserved;
+            pos = this.indexAfterEndTag(name, endTag);
+        } else if (name.equals("plaintext")) {
+            preserveWhitespace = true;
+
+            for (; pos < length; pos++)
+                this.append(html.charAt(pos));
+        } else if (! VOID_TAGS.contains(name)) {
+            openTags.push(name);
+            this.updatePreserveWhitespace();
+        }
+    }
+
+    private void readEndTag() {
+        int nameEnd = this.indexOfTagNameEnd(pos + 2);
+        String name = html.substring(pos + 2, nameEnd).toLowerCase(Locale.ENGLISH);
+        int end = this.indexAfterAttributes(nameEnd);
+
+        if (end < 0) {
+            pos = length;
+            return;
+        }
+
+        pos = end;
+
+        // </br> 은 <br> 로, 열린 p 가 없는 </p> 는 빈 <p> 로 본다.
+        if (name.equals("br") || (name.equals("p") && ! openTags.contains("p"))) {
+            this.appendSpace();
+            return;
+        }
+
+        if (openTags.contains(name))
+            this.popUntil(name);
+    }
+
+    private void popUntil(String name) {
+        while (! openTags.isEmpty() && ! openTags.pop().equals(name)) {
+            // 안쪽에 열린 태그들도 같이 닫는다.
+        }
+
+        this.updatePreserveWhitespace();
+    }
+
+    private void updatePreserveWhitespace() {
+        Iterator<String> iterator = openTags.iterator();
+        preserveWhitespace = false;
+
+        for (int depth = 0; depth < 2 && iterator.hasNext(); depth++) {
+            if (PRESERVE_WHITESPACE_TAGS.contains(iterator.next()))
+                preserveWhitespace = true;
+        }
+    }
+
+    /**
+     * '&' 에서 시작하는 문자 참조를 푼다. 참조가 아니면 '&' 를 그대로 둔다.
+     */
+    private void readCharacterReference() {
+        int start = pos + 1;
+
+        if (start >= length || isNotCharacterReferenceStart(html.charAt(start))) {
+            this.append('&');
+            pos++;
+            return;
+        }
+
+        if (html.charAt(start) == '#') {
+            this.readNumericCharacterReference(start + 1);
+        } else {
+            this.readNamedCharacterReference(start);
+        }
+    }
+
+    private void readNumericCharacterReference(int start) {
+        boolean hex = start < length && (html.charAt(start) == 'x' || html.charAt(start) == 'X');
+        int digitsStart = hex ? start + 1 : start;
+        int i = digitsStart;
+
+        while (i < length && (hex ? isHexDigit(html.charAt(i)) : isDigit(html.charAt(i))))
+            i++;
+
+        if (i == digitsStart) {
+            this.append('&');
+            pos++;
+            return;
+        }
+
+        int codePoint;
+
+        try {
+            codePoint = Integer.parseInt(html.substring(digitsStart, i), hex ? 16 : 10);
+        } catch (NumberFormatException e) {
+            codePoint = -1;
+        }
+
+        if (codePoint == -1 || (codePoint >= 0xD800 && codePoint <= 0xDFFF) || codePoint > 0x10FFFF)
+            codePoint = REPLACEMENT_CHARACTER;
+
+        this.append(codePoint);
+        pos = i < length && html.charAt(i) == ';' ? i + 1 : i;
+    }
+
+    private void readNamedCharacterReference(int start) {
+        int i = start;
+
+        while (i < length && isLetter(html.charAt(i)))
+            i++;
+
+        while (i < length && isDigit(html.charAt(i)))
+            i++;
+
+        String name = html.substring(start, i);
+        boolean semicolon = i < length && html.charAt(i) == ';';
+
+        // ; 없이는 기본 엔티티만 푼다.
+        if (! Entities.isBaseNamedEntity(name) && ! (semicolon && Entities.isNamedEntity(name))) {
+            this.append('&');
+            pos++;
+            return;
+        }
+
+        String value = Entities.getByName(name);
+
+        for (int offset = 0; offset < value.length(); ) {
+            int codePoint = value.codePointAt(offset);
+            this.append(codePoint);
+            offset += Character.charCount(codePoint);
+        }
+
+        pos = semicolon ? i + 1 : i;
+    }
+
+    private void append(int codePoint) {
+        if (preserveWhitespace) {
+            text.appendCodePoint(codePoint);
+        } else if (isWhitespace(codePoint)) {
+            this.appendSpace();
+        } else {
+            text.appendCodePoint(codePoint);
+        }
+    }
+
+    private void appendSpace() {
+        if (text.length() > 0 && text.charAt(text.length() - 1) != ' ')
+            text.append(' ');
+    }
+
+    private void skipPast(char c) {
+        int index = html.indexOf(c, pos);
+        pos = index < 0 ? length : index + 1;
+    }
+
+    private int indexOfTagNameEnd(int from) {
+        int i = from;
+
+        while (i < length && ! isTagNameEnd(html.charAt(i)))
+            i++;
+
+        return i;
+    }
+
+    /**
+     * 속성들을 건너뛰고 태그를 닫는 '>' 다음 위치. 따옴표 안의 '>' 는 넘어간다. 태그가 안 닫히면 -1
+     */
+    private int indexAfterAttributes(int from) {
+        int i = from;
+
+        while (i < length) {
+            char c = html.charAt(i);
+
+            if (c == '>')
+                return i + 1;
+
+            i++;
+
+            if (c == '=') {
+                while (i < length && isWhitespace(html.charAt(i)))
+                    i++;
+
+                if (i < length && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+                    int close = html.indexOf(html.charAt(i), i + 1);
+
+                    if (close < 0)
+                        return -1;
+
+                    i = close + 1;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * script, style 등의 내용이 끝나는 닫는 태그의 위치. 없으면 HTML 끝
+     */
+    private int indexOfEndTag(String name) {
+        int i = pos;
+
+        while ((i = html.indexOf("</", i)) >= 0) {
+            int nameEnd = i + 2 + name.length();
+
+            if (nameEnd < length && html.regionMatches(true, i + 2, name, 0, name.length())
+                    && isEndTagNameEnd(html.charAt(nameEnd))) {
+                return i;
+            }
+
+            i += 2;
+        }
+
+        return length;
+    }
+
+    private int indexAfterEndTag(String name, int endTag) {
+        if (endTag >= length)
+            return length;
+
+        int end = this.indexAfterAttributes(endTag + 2 + name.length());
+
+        return end < 0 ? length : end;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == 160;
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == ' ' || c == '/' || c == '>' || c == '<';
+    }
+
+    private static boolean isEndTagNameEnd(char c) {
+        return c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == ' ' || c == '/' || c == '>';
+    }
+
+    private static boolean isNotCharacterReferenceStart(char c) {
+        return c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == ' ' || c == '<' || c == '&';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isLetter(char c) {
+        return isAsciiLetter(c) || Character.isLetter(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+}
@@ -7,7 +7,6 @@ import com.jakduk.api.model.embedded.CommonWriter;
 import com.jakduk.api.model.embedded.LocalName;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jsoup.Jsoup;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.mobile.device.Device;
 import org.springframework.util.CollectionUtils;
@@ -82,7 +81,13 @@ public class JakdukUtils {
      * @return 언어별 메시지 결과 반환
      */
     public static String getResourceBundleMessage(String bundle, String getString, Object... params) {
-        Locale locale = LocaleContextHolder.getLocale();
+        return JakdukUtils.getResourceBundleMessage(LocaleContextHolder.getLocale(), bundle, getString, params);
+    }
+
+    /**
+     * 요청 쓰레드 밖에서처럼 LocaleContextHolder 에 Locale 이 없을 때 직접 Locale 을 준다.
+     */
+    public static String getResourceBundleMessage(Locale locale, String bundle, String getString, Object... params) {
         ResourceBundle resourceBundle = ResourceBundle.getBundle(bundle, locale);
         return MessageFormat.format(resourceBundle.getString(getString), params);
     }
@@ -94,13 +99,10 @@ public class JakdukUtils {
     }
 
     /**
-     * HTML TAG를 제거한다.
+     * HTML TAG를 제거한다. 결과는 Jsoup.parse(htmlTag).text() 와 같다.
      */
     public static String stripHtmlTag(String htmlTag) {
-        String content = StringUtils.defaultIfBlank(htmlTag, StringUtils.EMPTY);
-        content = Jsoup.parse(content).text();
-
-        return content;
+        return HtmlTextExtractor.extractText(htmlTag);
     }
 
     /**
@@ -11,12 +11,14 @@ import org.springframework.web.util.UriComponentsBuilder;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Component
 public class UrlGenerationUtils {
 
     @Resource private JakdukProperties jakdukProperties;
     @Resource private JakdukProperties.ApiUrlPath apiUrlPathProperties;
+    @Resource private JakdukProperties.GalleryUpload galleryUploadProperties;
 
     /**
      * URL 생성
@@ -63,6 +65,25 @@ public class UrlGenerationUtils {
         return uriComponents.toUriString();
     }
 
+    /**
+     * 사진첩 이미지의 srcset 을 생성한다. 가로 길이별로 미리 줄여 둔 사진을 ?w= 로 가리킨다.
+     *
+     * @param id Gallery ID
+     * @return 예) https://api.jakduk.com/gallery/{id}?w=320 320w, https://api.jakduk.com/gallery/{id}?w=640 640w
+     */
+    public String generateGallerySrcset(String id) {
+
+        if (StringUtils.isBlank(id))
+            return null;
+
+        String imageUrl = this.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, id);
+
+        return galleryUploadProperties.getRenditionWidths().stream()
+                .sorted()
+                .map(width -> UriComponentsBuilder.fromHttpUrl(imageUrl).queryParam("w", width).toUriString() + " " + width + "w")
+                .collect(Collectors.joining(", "));
+    }
+
     /**
      * 글 상세 API URL 생성
      *
@@ -2,12 +2,15 @@ package com.jakduk.api.configuration;
 
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import javax.annotation.Resource;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * @author pyohwan
@@ -18,6 +21,9 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig implements AsyncConfigurer {
 
+    @Resource private JakdukProperties.ArticleDetail articleDetailProperties;
+    @Resource private JakdukProperties.GalleryUpload galleryUploadProperties;
+
     @Override
     public Executor getAsyncExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -28,6 +34,36 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * 글 상세의 하위 쿼리들을 동시에 돌리는 전용 쓰레드 풀. 큐가 넘치면 요청 쓰레드에서 돌린다.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor articleDetailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(articleDetailProperties.getFanOutPoolSize());
+        executor.setMaxPoolSize(articleDetailProperties.getFanOutPoolSize());
+        executor.setQueueCapacity(articleDetailProperties.getFanOutQueueCapacity());
+        executor.setThreadNamePrefix("article-detail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        return executor;
+    }
+
+    /**
+     * 올린 사진을 줄이고 썸네일을 만드는 쓰레드 풀. 몰려 올리면 큐에서 기다리고, 큐가 넘치면 요청 쓰레드에서 만든다.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor galleryUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(galleryUploadProperties.getPoolSize());
+        executor.setMaxPoolSize(galleryUploadProperties.getPoolSize());
+        executor.setQueueCapacity(galleryUploadProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("gallery-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
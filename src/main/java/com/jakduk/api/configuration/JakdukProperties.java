@@ -7,7 +7,9 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,6 +32,15 @@ public class JakdukProperties {
     private Rabbitmq rabbitmq = new Rabbitmq();
     private Elasticsearch elasticsearch = new Elasticsearch();
     private Storage storage = new Storage();
+    private ArticleViews articleViews = new ArticleViews();
+    private ImageCache imageCache = new ImageCache();
+    private BoardTops boardTops = new BoardTops();
+    private HomeLatest homeLatest = new HomeLatest();
+    private ArticleDetail articleDetail = new ArticleDetail();
+    private Sitemap sitemap = new Sitemap();
+    private Rss rss = new Rss();
+    private GalleryUpload galleryUpload = new GalleryUpload();
+    private GalleryRebuild galleryRebuild = new GalleryRebuild();
 
     @Getter
     @Setter
@@ -49,6 +60,15 @@ public class JakdukProperties {
     public class Mongodb {
         private String database;
         private String host;
+        private Integer connectionsPerHost;
+        private Integer minConnectionsPerHost;
+        private Integer threadsAllowedToBlockForConnectionMultiplier;
+        private Integer maxWaitTimeMillis;
+        private Integer connectTimeoutMillis;
+        private Integer socketTimeoutMillis;
+        private String writeConcern;
+        private String readPreference;
+        private String readOnlyReadPreference;
     }
 
     @Getter
@@ -106,6 +126,91 @@ public class JakdukProperties {
         private String thumbnailPath;
         private String userPictureLargePath;
         private String userPictureSmallPath;
+        private String sitemapPath;
+        private String blobPath;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.article-views")
+    public class ArticleViews {
+        private Boolean writeBehind;
+        private Long flushIntervalMillis;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.image-cache")
+    public class ImageCache {
+        private Integer maxSizeMb;
+        private Integer maxEntrySizeKb;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.board-tops")
+    public class BoardTops {
+        private Long refreshIntervalMillis;
+        private Long reloadIntervalMillis;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.home-latest")
+    public class HomeLatest {
+        private Long maxStalenessMillis;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.article-detail")
+    public class ArticleDetail {
+        private Integer fanOutPoolSize;
+        private Integer fanOutQueueCapacity;
+        private Long subqueryTimeoutMillis;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.sitemap")
+    public class Sitemap {
+        private Long refreshIntervalMillis;
+        private Long fullRebuildIntervalMillis;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.rss")
+    public class Rss {
+        private Integer maxItems;
+        private Long refreshIntervalMillis;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.gallery-upload")
+    public class GalleryUpload {
+        private Integer poolSize;
+        private Integer queueCapacity;
+        private List<Integer> renditionWidths = new ArrayList<>();
+        private Integer mobileWidth;
+    }
+
+    @Getter
+    @Setter
+    @Configuration
+    @ConfigurationProperties("jakduk.gallery-rebuild")
+    public class GalleryRebuild {
+        private Integer parallelism;
+        private Integer batchSize;
     }
 
 }
@@ -2,16 +2,22 @@ package com.jakduk.api.configuration;
 
 import com.jakduk.api.common.converter.DateToLocalDateTimeConverter;
 import com.jakduk.api.common.converter.LocalDateTimeToDateConverter;
+import com.jakduk.api.common.mongodb.MongoPoolMetrics;
 import com.mongodb.Mongo;
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
 import org.apache.commons.lang3.StringUtils;
 import org.jongo.Jongo;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.core.env.Environment;
 import org.springframework.data.mongodb.config.AbstractMongoConfiguration;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.convert.CustomConversions;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
@@ -39,6 +45,19 @@ public class MongodbConfig extends AbstractMongoConfiguration {
         return mongodbProperties.getDatabase();
     }
 
+    /**
+     * 시작할 때 도큐먼트 클래스들을 미리 읽어서 선언된 인덱스를 만든다.
+     * 인덱스에 이름을 주지 않아서 MongoDB 기본 이름(seq_1 등)으로 만든다. 밖에서 먼저 만든 같은 인덱스와 부딪히지 않게.
+     */
+    @Override
+    protected String getMappingBasePackage() {
+        return "com.jakduk.api.model.db";
+    }
+
+    /**
+     * 풀 설정을 넣은 하나뿐인 클라이언트. MongoDbFactory, Jongo 가 같이 쓴다.
+     */
+    @Bean
     @Override
     public Mongo mongo() throws Exception {
 
@@ -53,12 +72,48 @@ public class MongodbConfig extends AbstractMongoConfiguration {
                 })
                 .collect(Collectors.toList());
 
-        return new MongoClient(seeds);
+        MongoClientOptions options = MongoClientOptions.builder()
+                .connectionsPerHost(mongodbProperties.getConnectionsPerHost())
+                .minConnectionsPerHost(mongodbProperties.getMinConnectionsPerHost())
+                .threadsAllowedToBlockForConnectionMultiplier(mongodbProperties.getThreadsAllowedToBlockForConnectionMultiplier())
+                .maxWaitTime(mongodbProperties.getMaxWaitTimeMillis())
+                .connectTimeout(mongodbProperties.getConnectTimeoutMillis())
+                .socketTimeout(mongodbProperties.getSocketTimeoutMillis())
+                .writeConcern(WriteConcern.valueOf(mongodbProperties.getWriteConcern()))
+                .readPreference(ReadPreference.valueOf(mongodbProperties.getReadPreference()))
+                .addConnectionPoolListener(mongoPoolMetrics())
+                .build();
+
+        return new MongoClient(seeds, options);
+    }
+
+    @Bean
+    public MongoPoolMetrics mongoPoolMetrics() {
+        return new MongoPoolMetrics();
+    }
+
+    @Primary
+    @Bean
+    @Override
+    public MongoTemplate mongoTemplate() throws Exception {
+        return super.mongoTemplate();
+    }
+
+    /**
+     * RSS, 사이트맵, 통계, 검색 색인처럼 조금 늦은 데이터라도 되는 읽기 전용.
+     * 같은 클라이언트를 쓰고 읽기 선호만 다르다.
+     */
+    @Bean
+    public MongoTemplate secondaryPreferredMongoTemplate() throws Exception {
+        MongoTemplate mongoTemplate = new MongoTemplate(mongoDbFactory(), mappingMongoConverter());
+        mongoTemplate.setReadPreference(ReadPreference.valueOf(mongodbProperties.getReadOnlyReadPreference()));
+
+        return mongoTemplate;
     }
 
     @Bean
     public Jongo jongo() throws Exception {
-        return new Jongo(mongo().getDB(getDatabaseName()));
+        return new Jongo(mongoDbFactory().getDb());
     }
 
     @Bean
@@ -2,19 +2,24 @@ package com.jakduk.api.configuration.rabbitmq;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jakduk.api.configuration.JakdukProperties;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.Resource;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +30,7 @@ import java.util.stream.Collectors;
 public class RabbitMQConfig {
 
     @Resource private JakdukProperties.Rabbitmq rabbitmqProperties;
+    @Resource private JakdukProperties.Elasticsearch elasticsearchProperties;
 
     @Autowired private ObjectMapper objectMapper;
 
@@ -33,6 +39,22 @@ public class RabbitMQConfig {
         return new Jackson2JsonMessageConverter(objectMapper);
     }
 
+    /**
+     * 엘라스틱서치 큐 전용. 벌크 응답을 받은 뒤에 직접 ack 하므로, 벌크 크기만큼은 ack 없이 받을 수 있어야 한다.
+     * ack 는 컨슈머 쓰레드가 다음 메시지를 받거나 쉬는 동안(idle 이벤트) 한다.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory elasticsearchListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                                      ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(elasticsearchProperties.getBulkActions());
+        factory.setIdleEventInterval(TimeUnit.SECONDS.toMillis(elasticsearchProperties.getBulkFlushIntervalSeconds()));
+
+        return factory;
+    }
+
     @Bean
     public TopicExchange topicExchange() {
         return new TopicExchange(rabbitmqProperties.getExchangeName());
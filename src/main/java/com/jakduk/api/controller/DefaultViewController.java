@@ -1,42 +1,41 @@
 package com.jakduk.api.controller;
 
 import com.jakduk.api.common.Constants;
-import com.jakduk.api.common.util.DateUtils;
-import com.jakduk.api.common.util.FileUtils;
+import com.jakduk.api.common.ImageCache;
+import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.common.util.UrlGenerationUtils;
-import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.db.Gallery;
 import com.jakduk.api.model.db.UserPicture;
-import com.jakduk.api.model.simple.ArticleOnSitemap;
-import com.jakduk.api.service.ArticleService;
+import com.jakduk.api.service.ArticleRssFeed;
+import com.jakduk.api.service.ArticleSitemap;
+import com.jakduk.api.service.GalleryImageProcessor;
+import com.jakduk.api.service.GalleryRenditions;
 import com.jakduk.api.service.GalleryService;
 import com.jakduk.api.service.UserPictureService;
-import com.redfin.sitemapgenerator.ChangeFreq;
-import com.redfin.sitemapgenerator.W3CDateFormat;
-import com.redfin.sitemapgenerator.WebSitemapGenerator;
-import com.redfin.sitemapgenerator.WebSitemapUrl;
-import org.bson.types.ObjectId;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mobile.device.Device;
 import org.springframework.stereotype.Controller;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import javax.annotation.Resource;
-import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.ZoneId;
-import java.util.Comparator;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * @author <a href="mailto:phjang1983@daum.net">Jang,Pyohwan</a>
@@ -48,148 +47,194 @@ import java.util.List;
 @Controller
 public class DefaultViewController {
 
-	@Resource private JakdukProperties jakdukProperties;
-	@Resource private JakdukProperties.Storage storageProperties;
-
 	@Autowired private UrlGenerationUtils urlGenerationUtils;
 	@Autowired private GalleryService galleryService;
 	@Autowired private UserPictureService userPictureService;
-	@Autowired private ArticleService articleService;
-
-	// RSS
-	@RequestMapping(value = "/rss", method = RequestMethod.GET, produces = "application/*")
-	public String getRss() {
-		return "documentRssFeedView";
+	@Autowired private ArticleRssFeed articleRssFeed;
+	@Autowired private ArticleSitemap articleSitemap;
+	@Autowired private ImageCache imageCache;
+	@Autowired private GalleryRenditions galleryRenditions;
+	@Autowired private GalleryImageProcessor galleryImageProcessor;
+
+	// RSS. 미리 만들어 둔 피드를 준다. ETag 나 Last-Modified 가 맞으면 304 로 응답한다. (ArticleRssFeed)
+	@GetMapping("/rss")
+	public ResponseEntity<byte[]> getRss() {
+		ArticleRssFeed.CachedFeed feed = articleRssFeed.getFeed(JakdukUtils.getLanguageCode());
+
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType("application/rss+xml;charset=UTF-8"))
+				.lastModified(feed.getLastModified())
+				.eTag("\"" + feed.getHash() + "\"")
+				.body(feed.getBody());
 	}
 
-	// Sitemap
-	@GetMapping(value = "/sitemap", produces = MediaType.APPLICATION_XML_VALUE)
-	public void getSitemap(HttpServletResponse servletResponse) {
-
-		try {
-			WebSitemapGenerator wsg =  WebSitemapGenerator.builder(jakdukProperties.getWebServerUrl(), null)
-					.dateFormat(new W3CDateFormat(W3CDateFormat.Pattern.SECOND))
-					.build();
-
-			ObjectId postId = null;
-			Boolean existPosts = true;
-
-			do {
-				List<ArticleOnSitemap> articles = articleService.getBoardFreeOnSitemap(postId, Constants.NUMBER_OF_ITEMS_EACH_PAGES);
-
-				if (CollectionUtils.isEmpty(articles)) {
-					existPosts = false;
-				} else {
-					ArticleOnSitemap article = articles.stream()
-							.sorted(Comparator.comparing(ArticleOnSitemap::getId))
-							.findFirst()
-							.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_ARTICLE));
-
-					postId = new ObjectId(article.getId());
-				}
-
-				if (existPosts) {
-					articles.forEach(post-> {
-						try {
-							WebSitemapUrl url = new WebSitemapUrl
-									.Options(urlGenerationUtils.generateArticleDetailUrl(post.getBoard(), post.getSeq()))
-									.lastMod(DateUtils.localDateTimeToDate(post.getLastUpdated()))
-									.priority(0.5)
-									.changeFreq(ChangeFreq.DAILY)
-									.build();
-
-							wsg.addUrl(url);
-						} catch (MalformedURLException e) {
-							throw new ServiceException(ServiceError.IO_EXCEPTION, e);
-						}
-					});
-				}
-			} while (existPosts);
-
-			servletResponse.setContentType(MediaType.APPLICATION_XML_VALUE);
-			servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
-			servletResponse.getWriter().println(wsg.writeAsStrings().get(0));
-
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
-		}
+	// Sitemap. 미리 만들어 둔 색인 파일을 준다. (ArticleSitemap)
+	@GetMapping("/sitemap")
+	public ResponseEntity<AbstractResource> getSitemap() {
+		return this.getSitemapResponse(ArticleSitemap.INDEX_FILE_NAME, MediaType.APPLICATION_XML_VALUE);
+	}
 
+	// Sitemap 조각 파일.
+	@GetMapping("/sitemap/{fileName:.+}")
+	public ResponseEntity<AbstractResource> getSitemapShard(@PathVariable String fileName) {
+		return this.getSitemapResponse(fileName, "application/x-gzip");
 	}
 
-	// 사진 가져오기.
+	// 사진 가져오기. w 를 주면 그 가로 길이 이상으로 미리 줄여 둔 사진을, Accept 에 image/webp 가 있으면 webp 를 준다.
 	@GetMapping("/${jakduk.api-url-path.gallery-image}/{id}")
-	public void getGallery(@PathVariable String id,
-						   HttpServletResponse response) {
+	public ResponseEntity<AbstractResource> getGallery(
+			@PathVariable String id,
+			@RequestParam(required = false) Integer w,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			Device device) {
 
 		Gallery gallery = galleryService.findOneById(id);
 
-		ByteArrayOutputStream byteStream = galleryService.getGalleryOutStream(gallery.getId(), gallery.getContentType(),
-				Constants.IMAGE_TYPE.FULL);
-		response.setContentType(gallery.getContentType());
+		// w 가 없으면 모바일에는 원본 대신 작은 사진
+		Integer width = w;
 
-		try {
-			byteStream.writeTo(response.getOutputStream());
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.NOT_FOUND_GALLERY, e);
+		if (Objects.isNull(width) && JakdukUtils.getDeviceInfo(device) == Constants.DEVICE_TYPE.MOBILE)
+			width = galleryRenditions.getMobileWidth();
+
+		Optional<GalleryRenditions.Rendition> rendition = galleryRenditions.select(gallery, width,
+				StringUtils.contains(accept, GalleryRenditions.WEBP_CONTENT_TYPE));
+
+		if (rendition.isPresent()) {
+			GalleryRenditions.Rendition selected = rendition.get();
+			String hash = String.format("%s-w%d-%s", gallery.getHash(), selected.getWidth(), selected.getContentType().replace("/", "-"));
+
+			return this.getImageResponse(selected.getPath(), selected.getContentType(), hash, HttpHeaders.ACCEPT, HttpHeaders.USER_AGENT);
 		}
+
+		Path filePath = galleryService.getGalleryFilePath(gallery, Constants.IMAGE_TYPE.FULL);
+
+		// 아직 줄이고 있으면 곧 파일이 바뀐다.
+		if (! galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL))
+			return this.getProcessingImageResponse(filePath, gallery.getContentType());
+
+		// 블롭의 full 은 줄인 뒤로는 바뀌지 않는다. 예전 사진은 올릴 때 줄였으므로 원본 해시를 그대로 쓴다.
+		String hash = StringUtils.isNotBlank(gallery.getBlobId()) ? gallery.getBlobId() : gallery.getHash();
+
+		return this.getImageResponse(filePath, gallery.getContentType(), hash, HttpHeaders.ACCEPT, HttpHeaders.USER_AGENT);
 	}
 
 	// 사진 썸네일 가져오기.
 	@GetMapping("/${jakduk.api-url-path.gallery-thumbnail}/{id}")
-	public void getGalleyThumbnail(@PathVariable String id,
-								   HttpServletResponse response) {
+	public ResponseEntity<AbstractResource> getGalleyThumbnail(@PathVariable String id) {
+
+		// 캐시에 있으면 Mongo 조회, 디스크 읽기 없이 응답
+		long cacheGeneration = imageCache.getGeneration();
+		Optional<ImageCache.CachedImage> cachedImage = imageCache.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, id);
+
+		if (cachedImage.isPresent())
+			return this.getImageResponse(cachedImage.get());
 
 		Gallery gallery = galleryService.findOneById(id);
 
-		ByteArrayOutputStream byteStream = galleryService.getGalleryOutStream(gallery.getId(), gallery.getContentType(),
-				Constants.IMAGE_TYPE.THUMBNAIL);
-		response.setContentType(gallery.getContentType());
+		// 썸네일이 없으면 바로 만든다. 방금 올려서 쓰레드 풀에서 만들고 있으면 원본을 주고 캐시하지 않는다.
+		if (! galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL) && ! galleryImageProcessor.processMissing(gallery))
+			return this.getProcessingImageResponse(galleryService.getGalleryFilePath(gallery, Constants.IMAGE_TYPE.FULL), gallery.getContentType());
 
-		try {
-			byteStream.writeTo(response.getOutputStream());
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.NOT_FOUND_GALLERY, e);
-		}
+		Path filePath = galleryService.getGalleryFilePath(gallery, Constants.IMAGE_TYPE.THUMBNAIL);
+
+		return imageCache.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, id, cacheGeneration, filePath, gallery.getContentType(), gallery.getHash())
+				.map(this::getImageResponse)
+				.orElseGet(() -> this.getImageResponse(filePath, gallery.getContentType(), gallery.getHash()));
 	}
 
 	// 회원 프로필 사진 가져오기.
 	@RequestMapping(value = "/${jakduk.api-url-path.user-picture-large}/{id}", method = RequestMethod.GET)
-	public void getUserPicture(@PathVariable String id,
-							 HttpServletResponse response) {
+	public ResponseEntity<AbstractResource> getUserPicture(@PathVariable String id) {
 
 		UserPicture userPicture = userPictureService.findOneById(id);
 
-		ObjectId objectId = new ObjectId(userPicture.getId());
-		LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-
-		try {
-			ByteArrayOutputStream byteStream = FileUtils.readImageFile(storageProperties.getUserPictureLargePath(), localDate, userPicture.getId(), userPicture.getContentType());
-			response.setContentType(userPicture.getContentType());
+		Path filePath = userPictureService.getPictureFilePath(userPicture, Constants.IMAGE_SIZE_TYPE.LARGE);
 
-			byteStream.writeTo(response.getOutputStream());
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
-		}
+		return this.getImageResponse(filePath, userPicture.getContentType(), null);
 	}
 
 	// 회원 프로필 작은 사진 가져오기.
 	@RequestMapping(value = "/${jakduk.api-url-path.user-picture-small}/{id}", method = RequestMethod.GET)
-	public void getUserSmallPicture(@PathVariable String id,
-									HttpServletResponse response) {
+	public ResponseEntity<AbstractResource> getUserSmallPicture(@PathVariable String id) {
+
+		// 캐시에 있으면 Mongo 조회, 디스크 읽기 없이 응답
+		long cacheGeneration = imageCache.getGeneration();
+		Optional<ImageCache.CachedImage> cachedImage = imageCache.get(Constants.IMAGE_CACHE_TYPE.USER_SMALL_PICTURE, id);
+
+		if (cachedImage.isPresent())
+			return this.getImageResponse(cachedImage.get());
 
 		UserPicture userPicture = userPictureService.findOneById(id);
 
-		ObjectId objectId = new ObjectId(userPicture.getId());
-		LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+		Path filePath = userPictureService.getPictureFilePath(userPicture, Constants.IMAGE_SIZE_TYPE.SMALL);
+
+		return imageCache.put(Constants.IMAGE_CACHE_TYPE.USER_SMALL_PICTURE, id, cacheGeneration, filePath, userPicture.getContentType(), null)
+				.map(this::getImageResponse)
+				.orElseGet(() -> this.getImageResponse(filePath, userPicture.getContentType(), null));
+	}
+
+	/**
+	 * Sitemap 파일 응답. 아직 만들어지지 않았으면 404. Last-Modified 가 맞으면 304 로 응답한다.
+	 */
+	private ResponseEntity<AbstractResource> getSitemapResponse(String fileName, String contentType) {
+		Path filePath = articleSitemap.getFile(fileName)
+				.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND));
 
+		return this.getImageResponse(filePath, contentType, null);
+	}
+
+	/**
+	 * 이미지 파일 응답.
+	 * 파일을 메모리에 올리지 않고 응답으로 그대로 흘려 보낸다. Content-Length 는 파일 크기로 채워지고,
+	 * Range 요청은 ResourceRegion 으로 잘라서 206 으로, ETag 나 Last-Modified 가 맞으면 파일을 열지 않고 304 로 응답한다.
+	 *
+	 * @param filePath 파일 경로
+	 * @param contentType 콘텐츠 타입
+	 * @param hash 파일 해시 (ETag). 없으면 Last-Modified 만 쓴다.
+	 * @param varyBy 이 요청 헤더에 따라 다른 파일을 줄 때
+	 */
+	private ResponseEntity<AbstractResource> getImageResponse(Path filePath, String contentType, String hash, String... varyBy) {
 		try {
-			ByteArrayOutputStream byteStream = FileUtils.readImageFile(storageProperties.getUserPictureSmallPath(), localDate, userPicture.getId(), userPicture.getContentType());
-			response.setContentType(userPicture.getContentType());
+			return this.getImageResponse(new FileSystemResource(filePath.toFile()), contentType, hash,
+					Files.getLastModifiedTime(filePath).toMillis(), varyBy);
 
-			byteStream.writeTo(response.getOutputStream());
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
 		}
 	}
 
+	/**
+	 * 아직 줄이고 있는 사진 응답. 곧 바뀌므로 ETag, Last-Modified 없이 저장하지 못하게 한다.
+	 */
+	private ResponseEntity<AbstractResource> getProcessingImageResponse(Path filePath, String contentType) {
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(contentType))
+				.cacheControl(CacheControl.noStore())
+				.body(new FileSystemResource(filePath.toFile()));
+	}
+
+	/**
+	 * 캐시된 이미지 응답. 조건부 GET, Range 처리는 파일 응답과 같다.
+	 */
+	private ResponseEntity<AbstractResource> getImageResponse(ImageCache.CachedImage cachedImage) {
+		return this.getImageResponse(cachedImage.toResource(), cachedImage.getContentType(), cachedImage.getHash(),
+				cachedImage.getLastModified());
+	}
+
+	private ResponseEntity<AbstractResource> getImageResponse(AbstractResource resource, String contentType, String hash,
+															  long lastModified, String... varyBy) {
+
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(contentType))
+				.lastModified(lastModified);
+
+		if (StringUtils.isNotBlank(hash))
+			builder.eTag("\"" + hash + "\"");
+
+		if (varyBy.length > 0)
+			builder.varyBy(varyBy);
+
+		return builder.body(resource);
+	}
+
 }
@@ -20,6 +20,7 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.Resource;
 import java.util.List;
 import java.util.Objects;
 
@@ -36,6 +37,10 @@ public class JakdukDAO {
 	@Autowired
 	private MongoTemplate mongoTemplate;
 
+	// 통계는 secondary 에서 읽는다.
+	@Resource
+	private MongoTemplate secondaryPreferredMongoTemplate;
+
 	@Autowired
 	private Jongo jongo;
 
@@ -46,7 +51,7 @@ public class JakdukDAO {
 		AggregationOperation sort = Aggregation.sort(Direction.DESC, "count");
 		Aggregation aggregation = Aggregation.newAggregation(match, group, project, sort);
 
-		AggregationResults<SupporterCount> results = mongoTemplate.aggregate(aggregation, "user", SupporterCount.class);
+		AggregationResults<SupporterCount> results = secondaryPreferredMongoTemplate.aggregate(aggregation, "user", SupporterCount.class);
 
 		List<SupporterCount> users = results.getMappedResults();
 
@@ -63,7 +63,12 @@ public enum ServiceError {
     SEND_EMAIL_FAILED(HttpStatus.SC_INTERNAL_SERVER_ERROR, "exception.send.email.failed"),
     GALLERY_IO_ERROR(HttpStatus.SC_INTERNAL_SERVER_ERROR, "exception.gallery.io"),
     ELASTICSEARCH_NOT_FOUND_INDEX(HttpStatus.SC_INTERNAL_SERVER_ERROR, "exception.elasticsearch.not.found.index"),
-    ELASTICSEARCH_INDEX_FAILED(HttpStatus.SC_INTERNAL_SERVER_ERROR, "exception.elasticsearch.index.failed");
+    ELASTICSEARCH_INDEX_FAILED(HttpStatus.SC_INTERNAL_SERVER_ERROR, "exception.elasticsearch.index.failed"),
+    ELASTICSEARCH_REINDEX_ALREADY_RUNNING(HttpStatus.SC_CONFLICT, "exception.elasticsearch.reindex.already.running"),
+    ELASTICSEARCH_REINDEX_NOT_RESUMABLE(HttpStatus.SC_BAD_REQUEST, "exception.elasticsearch.reindex.not.resumable"),
+    ELASTICSEARCH_ALIAS_NOT_MIGRATED(HttpStatus.SC_CONFLICT, "exception.elasticsearch.alias.not.migrated"),
+    GALLERY_REBUILD_ALREADY_RUNNING(HttpStatus.SC_CONFLICT, "exception.gallery.rebuild.already.running"),
+    GALLERY_REBUILD_NOT_RESUMABLE(HttpStatus.SC_BAD_REQUEST, "exception.gallery.rebuild.not.resumable");
 
     private final Integer httpStatus;
     private final String code;
@@ -10,17 +10,28 @@ import com.jakduk.api.model.elasticsearch.EsComment;
 import com.jakduk.api.model.elasticsearch.EsGallery;
 import com.jakduk.api.model.elasticsearch.EsSearchWord;
 import com.jakduk.api.service.SearchService;
+import com.rabbitmq.client.Channel;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.BooleanUtils;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.connection.ConsumerChannelRegistry;
+import org.springframework.amqp.rabbit.listener.ListenerContainerIdleEvent;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 import java.io.IOException;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by pyohwanjang on 2017. 6. 20..
@@ -30,58 +41,142 @@ import java.util.Map;
 @Component
 public class ElasticsearchListener {
 
+    public final static String LISTENER_ID = "elasticsearch";
+
     @Resource private JakdukProperties.Rabbitmq rabbitmqProperties;
 
     @Autowired private SearchService searchService;
 
-    @RabbitListener(queues = "${jakduk.rabbitmq.queues.elasticsearch.binding-queue-name}")
-    public void receive(Message message, @Header(AmqpHeaders.RECEIVED_ROUTING_KEY) String routingKey) throws IOException {
+    // 벌크 응답 쓰레드가 남긴 ack, nack. 채널을 가진 컨슈머 쓰레드가 꺼내서 한다.
+    private final Map<Channel, Queue<ChannelAction>> pendingAcks = new ConcurrentHashMap<>();
+
+    /**
+     * 색인, 삭제 요청을 벌크에 넣는다. ack 는 벌크 응답에서 해당 문서가 처리된 것을 확인한 뒤에 한다.
+     */
+    @RabbitListener(id = LISTENER_ID, queues = "${jakduk.rabbitmq.queues.elasticsearch.binding-queue-name}",
+            containerFactory = "elasticsearchListenerContainerFactory")
+    public void receive(Message message, Channel channel,
+                        @Header(AmqpHeaders.RECEIVED_ROUTING_KEY) String routingKey,
+                        @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
+
+        this.flushPendingAcks(channel);
+
+        ActionListener<BulkItemResponse> ackListener = this.getAckListener(channel, deliveryTag,
+                message.getMessageProperties().isRedelivered());
 
-        String findKey = rabbitmqProperties.getRoutingKeys().entrySet().stream()
-                .filter(entity -> entity.getValue().equals(routingKey))
-                .findFirst()
-                .map(Map.Entry::getKey)
-                .orElseThrow(() -> new ServiceException(ServiceError.ILLEGAL_ARGUMENT));
+        try {
+            String findKey = rabbitmqProperties.getRoutingKeys().entrySet().stream()
+                    .filter(entity -> entity.getValue().equals(routingKey))
+                    .findFirst()
+                    .map(Map.Entry::getKey)
+                    .orElseThrow(() -> new ServiceException(ServiceError.ILLEGAL_ARGUMENT));
 
-        ElasticsearchRoutingKey elasticsearchRoutingKey = ElasticsearchRoutingKey.find(findKey);
+            ElasticsearchRoutingKey elasticsearchRoutingKey = ElasticsearchRoutingKey.find(findKey);
 
-        switch (elasticsearchRoutingKey) {
-            case ELASTICSEARCH_INDEX_DOCUMENT_BOARD:
-                EsBoard esBoard = ObjectMapperUtils.readValue(message.getBody(), EsBoard.class);
-                searchService.indexDocumentBoard(esBoard);
-                break;
+            switch (elasticsearchRoutingKey) {
+                case ELASTICSEARCH_INDEX_DOCUMENT_BOARD:
+                    EsBoard esBoard = ObjectMapperUtils.readValue(message.getBody(), EsBoard.class);
+                    searchService.indexDocumentBoard(esBoard, ackListener);
+                    break;
 
                 case ELASTICSEARCH_DELETE_DOCUMENT_BOARD:
-                String boardId = ObjectMapperUtils.readValue(message.getBody(), String.class);
-                    searchService.deleteDocumentBoard(boardId);
-                break;
-
-            case ELASTICSEARCH_INDEX_DOCUMENT_COMMENT:
-                EsComment esComment = ObjectMapperUtils.readValue(message.getBody(), EsComment.class);
-                searchService.indexDocumentBoardComment(esComment);
-                break;
-
-            case ELASTICSEARCH_DELETE_DOCUMENT_COMMENT:
-                String commentId = ObjectMapperUtils.readValue(message.getBody(), String.class);
-                searchService.deleteDocumentBoardComment(commentId);
-                break;
-
-            case ELASTICSEARCH_INDEX_DOCUMENT_GALLERY:
-                EsGallery esGallery = ObjectMapperUtils.readValue(message.getBody(), EsGallery.class);
-                searchService.indexDocumentGallery(esGallery);
-                break;
-
-            case ELASTICSEARCH_DELETE_DOCUMENT_GALLERY:
-                String galleryId = ObjectMapperUtils.readValue(message.getBody(), String.class);
-                searchService.deleteDocumentGallery(galleryId);
-                break;
-
-            case ELASTICSEARCH_INDEX_DOCUMENT_SEARCH_WORD:
-                EsSearchWord esSearchWord = ObjectMapperUtils.readValue(message.getBody(), EsSearchWord.class);
-                searchService.indexDocumentSearchWord(esSearchWord);
-                break;
+                    String boardId = ObjectMapperUtils.readValue(message.getBody(), String.class);
+                    searchService.deleteDocumentBoard(boardId, ackListener);
+                    break;
+
+                case ELASTICSEARCH_INDEX_DOCUMENT_COMMENT:
+                    EsComment esComment = ObjectMapperUtils.readValue(message.getBody(), EsComment.class);
+                    searchService.indexDocumentBoardComment(esComment, ackListener);
+                    break;
+
+                case ELASTICSEARCH_DELETE_DOCUMENT_COMMENT:
+                    String commentId = ObjectMapperUtils.readValue(message.getBody(), String.class);
+                    searchService.deleteDocumentBoardComment(commentId, ackListener);
+                    break;
+
+                case ELASTICSEARCH_INDEX_DOCUMENT_GALLERY:
+                    EsGallery esGallery = ObjectMapperUtils.readValue(message.getBody(), EsGallery.class);
+                    searchService.indexDocumentGallery(esGallery, ackListener);
+                    break;
+
+                case ELASTICSEARCH_DELETE_DOCUMENT_GALLERY:
+                    String galleryId = ObjectMapperUtils.readValue(message.getBody(), String.class);
+                    searchService.deleteDocumentGallery(galleryId, ackListener);
+                    break;
+
+                case ELASTICSEARCH_INDEX_DOCUMENT_SEARCH_WORD:
+                    EsSearchWord esSearchWord = ObjectMapperUtils.readValue(message.getBody(), EsSearchWord.class);
+                    searchService.indexDocumentSearchWord(esSearchWord, ackListener);
+                    break;
+
+            }
+        } catch (IOException | RuntimeException e) {
+            // 메시지 자체가 잘못된 경우라 다시 받아도 소용 없다.
+            log.warn("Failed to handle elasticsearch message. routingKey={}", routingKey, e);
+            channel.basicNack(deliveryTag, false, false);
+        }
+    }
 
+    /**
+     * 메시지가 한동안 없을 때 컨슈머 쓰레드에서 불린다. 마지막 벌크의 ack 가 다음 메시지까지 밀리지 않게 여기서도 한다.
+     */
+    @EventListener(condition = "#event.listenerId == '" + LISTENER_ID + "'")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        Channel channel = ConsumerChannelRegistry.getConsumerChannel();
+
+        if (Objects.nonNull(channel))
+            this.flushPendingAcks(channel);
+    }
+
+    /**
+     * 이 채널에 쌓인 ack, nack 를 한다. 채널을 가진 컨슈머 쓰레드에서만 부른다.
+     */
+    public void flushPendingAcks(Channel channel) {
+        Queue<ChannelAction> actions = pendingAcks.remove(channel);
+
+        if (Objects.isNull(actions))
+            return;
+
+        for (ChannelAction action : actions) {
+            try {
+                action.run();
+            } catch (IOException e) {
+                log.warn("Failed to ack or nack elasticsearch message.", e);
+            }
         }
     }
 
+    /**
+     * 벌크 응답이 오면 메시지를 ack 한다.
+     * 실패하면 한번은 다시 큐에 넣고, 다시 받은 메시지가 또 실패하면 버린다.
+     * 벌크 응답은 엘라스틱서치 쓰레드에서 오므로 여기서는 쌓아만 두고, 채널은 컨슈머 쓰레드에서 만진다.
+     */
+    private ActionListener<BulkItemResponse> getAckListener(Channel channel, long deliveryTag, Boolean redelivered) {
+        return new ActionListener<BulkItemResponse>() {
+            @Override
+            public void onResponse(BulkItemResponse bulkItemResponse) {
+                addPendingAck(channel, () -> channel.basicAck(deliveryTag, false));
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                addPendingAck(channel, () -> channel.basicNack(deliveryTag, false, ! BooleanUtils.isTrue(redelivered)));
+            }
+        };
+    }
+
+    // 큐는 compute 안에서만 만든다. 꺼내는 쪽이 통째로 가져가도 새로 넣은 것은 다음 큐에 남는다.
+    private void addPendingAck(Channel channel, ChannelAction action) {
+        pendingAcks.compute(channel, (key, queue) -> {
+            Queue<ChannelAction> actions = Objects.isNull(queue) ? new LinkedList<>() : queue;
+            actions.add(action);
+            return actions;
+        });
+    }
+
+    @FunctionalInterface
+    private interface ChannelAction {
+        void run() throws IOException;
+    }
+
 }
@@ -0,0 +1,16 @@
+package com.jakduk.api.model.aggregate;
+
+import com.jakduk.api.model.db.Gallery;
+import lombok.Getter;
+
+/**
+ * 아이템(글, 댓글)별 첫번째 사진
+ */
+
+@Getter
+public class LinkedItemGallery {
+
+	private String id; // 아이템 ID
+	private Gallery gallery;
+
+}
@@ -0,0 +1,17 @@
+package com.jakduk.api.model.aggregate;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 아이템(글, 댓글)별 사진 ID 목록
+ */
+
+@Getter
+public class LinkedItemGalleryIds {
+
+	private String id; // 아이템 ID
+	private List<String> galleryIds;
+
+}
@@ -6,6 +6,9 @@ import com.jakduk.api.model.embedded.CommonFeelingUser;
 import com.jakduk.api.model.embedded.CommonWriter;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -23,6 +26,13 @@ import java.util.List;
 @Getter
 @Setter
 @Document
+@CompoundIndexes({
+		@CompoundIndex(def = "{'board': 1, '_id': -1}", background = true),
+		@CompoundIndex(def = "{'board': 1, 'category': 1, '_id': -1}", background = true),
+		@CompoundIndex(def = "{'board': 1, 'seq': 1}", background = true),
+		@CompoundIndex(def = "{'status.notice': 1, 'board': 1}", background = true),
+		@CompoundIndex(def = "{'writer.userId': 1, '_id': -1}", background = true)
+})
 public class Article implements UsersFeeling {
 
 	@Id
@@ -46,6 +56,7 @@ public class Article implements UsersFeeling {
 	/**
 	 * 글 번호
 	 */
+	@Indexed(background = true, useGeneratedName = true)
 	private Integer seq;
 
 	// 게시판
@@ -64,6 +75,21 @@ public class Article implements UsersFeeling {
 	private List<CommonFeelingUser> usersLiking;
 	
 	private List<CommonFeelingUser> usersDisliking;
+
+	/**
+	 * 댓글 수
+	 */
+	private int commentCount;
+
+	/**
+	 * 좋아요 수
+	 */
+	private int likingCount;
+
+	/**
+	 * 싫어요 수
+	 */
+	private int dislikingCount;
 	
 	private ArticleStatus status;
 
@@ -3,6 +3,8 @@ package com.jakduk.api.model.db;
 import com.jakduk.api.model.embedded.*;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -20,6 +22,10 @@ import java.util.List;
 @Getter
 @Setter
 @Document
+@CompoundIndexes({
+		@CompoundIndex(def = "{'article.board': 1, '_id': -1}", background = true),
+		@CompoundIndex(def = "{'article.seq': 1, 'article.board': 1, '_id': 1}", background = true)
+})
 public class ArticleComment implements UsersFeeling {
 
 	@Id
@@ -5,6 +5,8 @@ import com.jakduk.api.model.embedded.GalleryStatus;
 import com.jakduk.api.model.embedded.LinkedItem;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -22,6 +24,11 @@ import java.util.List;
 @Getter
 @Setter
 @Document
+@CompoundIndexes({
+		@CompoundIndex(def = "{'linkedItems._id': 1, 'linkedItems.from': 1, 'status.status': 1}", background = true),
+		@CompoundIndex(def = "{'hash': 1, 'status.status': 1}", background = true),
+		@CompoundIndex(def = "{'writer.userId': 1, '_id': -1}", background = true)
+})
 public class Gallery {
 	
 	@Id
@@ -47,4 +54,6 @@ public class Gallery {
 
 	private String hash;
 
+	private String blobId; // 파일을 둔 ImageBlobStore 의 블롭. 예전 사진은 없고 날짜별 폴더에 있다.
+
 }
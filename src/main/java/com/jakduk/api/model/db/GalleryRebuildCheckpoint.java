@@ -0,0 +1,36 @@
+package com.jakduk.api.model.db;
+
+import com.jakduk.api.common.Constants;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 사진 다시 만들기(GalleryRebuildService) 진행 상태. 서버를 다시 띄워도 마지막으로 다 만든 사진 ID 다음부터 재개할 수 있게 남긴다.
+ * 다시 만들기는 한번에 하나라서 문서도 하나뿐이다.
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Document
+public class GalleryRebuildCheckpoint {
+
+	@Id
+	private String id;
+
+	private Constants.REINDEX_STATUS status;
+	private int parallelism;
+	private String lastGalleryId;
+	private long rebuiltCount;
+	private long skippedCount;
+	private long failedCount;
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	private String message;
+
+}
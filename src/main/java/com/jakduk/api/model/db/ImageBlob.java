@@ -0,0 +1,41 @@
+package com.jakduk.api.model.db;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * 내용 해시로 한 번만 저장한 이미지 파일 묶음(ImageBlobStore)의 참조 수.
+ * Gallery, UserPicture 가 blobId({해시}_{세대}) 로 참조한다.
+ */
+
+@NoArgsConstructor
+@Getter
+@Setter
+@Document
+public class ImageBlob {
+
+	/**
+	 * 원본 바이트의 SHA-256
+	 */
+	@Id
+	private String id;
+
+	/**
+	 * 파일 폴더의 세대. 지우는 중인 블롭을 다시 올리면 새 세대의 폴더에 쓴다. 지우는 쪽은 자기 세대의 폴더만 지운다.
+	 */
+	private String generation;
+
+	/**
+	 * 이 블롭을 쓰는 Gallery, UserPicture 수
+	 */
+	private Integer refCount;
+
+	/**
+	 * 참조 수가 0 이 돼서 폴더를 지우는 중
+	 */
+	private Boolean deleting;
+
+}
@@ -6,6 +6,8 @@ import com.jakduk.api.model.embedded.CommonWriter;
 import lombok.Data;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -16,6 +18,9 @@ import java.util.List;
  */
 
 @Document
+@CompoundIndexes({
+        @CompoundIndex(def = "{'jakduScheduleId': 1, '_id': 1}", background = true)
+})
 @Data
 public class JakduComment {
 
@@ -0,0 +1,52 @@
+package com.jakduk.api.model.db;
+
+import com.jakduk.api.common.Constants;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엘라스틱서치 재색인(SearchReindexService) 진행 상태. 서버를 다시 띄워도 마지막으로 색인한 _id 다음부터 재개할 수 있게 남긴다.
+ * 재색인은 한번에 하나라서 문서도 하나뿐이다.
+ */
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@Document
+public class SearchReindexCheckpoint {
+
+	@Id
+	private String id;
+
+	private Constants.REINDEX_STATUS status;
+	private String boardIndex;
+	private String galleryIndex;
+
+	/**
+	 * 새 인덱스별 원래 refresh_interval. 다 넣은 뒤에 되돌린다.
+	 */
+	private Map<String, String> refreshIntervals;
+
+	private String lastArticleId;
+	private String lastCommentId;
+	private String lastGalleryId;
+	private long articleCount;
+	private long commentCount;
+	private long galleryCount;
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	private String message;
+
+	/**
+	 * 복사하는 동안 지워진 문서들. 타입/ID. 별칭을 옮기기 전에 새 인덱스에서 한번 더 지운다.
+	 */
+	private List<String> deletedDocuments;
+
+}
@@ -3,6 +3,7 @@ package com.jakduk.api.model.db;
 import com.jakduk.api.common.Constants;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -17,6 +18,7 @@ public class Token {
 
 	@Id
 	private String email;
+	@Indexed(background = true, useGeneratedName = true)
 	private String code;
 	private String type;
 	private Date expireAt;
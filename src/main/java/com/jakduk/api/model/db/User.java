@@ -4,6 +4,9 @@ import com.jakduk.api.common.Constants;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -15,13 +18,18 @@ import java.util.List;
 @Getter
 @Setter
 @Document
+@CompoundIndexes({
+		@CompoundIndex(def = "{'providerId': 1, 'providerUserId': 1}", background = true)
+})
 public class User {
 
 	@Id
 	private String id;
 	
+	@Indexed(background = true, useGeneratedName = true)
 	private String email;							// 이메일
 	
+	@Indexed(background = true, useGeneratedName = true)
 	private String username;						// 별명
 	
 	private String password;						// 비밀번호
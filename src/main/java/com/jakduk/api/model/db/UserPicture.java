@@ -31,4 +31,6 @@ public class UserPicture {
 
     private Constants.ACCOUNT_TYPE sourceType;
 
+    private String blobId; // 파일을 둔 ImageBlobStore 의 블롭. 예전 사진은 없고 날짜별 폴더에 있다.
+
 }
@@ -2,6 +2,7 @@ package com.jakduk.api.model.embedded;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.springframework.data.mongodb.core.index.Indexed;
 
 /**
  * 관계만 나타내기 위하여 PK 정보만 있음. 변경될 소지가 있는 필드는 없어야 한다.
@@ -16,6 +17,7 @@ import lombok.Getter;
 @AllArgsConstructor
 public class ArticleItem {
 
+	@Indexed(background = true, useGeneratedName = true)
 	private String id;
 	private Integer seq;
 	private String board;
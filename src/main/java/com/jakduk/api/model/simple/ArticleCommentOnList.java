@@ -0,0 +1,42 @@
+package com.jakduk.api.model.simple;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.embedded.ArticleCommentStatus;
+import com.jakduk.api.model.embedded.ArticleItem;
+import com.jakduk.api.model.embedded.BoardLog;
+import com.jakduk.api.model.embedded.CommonWriter;
+import lombok.Getter;
+import org.springframework.data.annotation.Id;
+
+import java.util.List;
+
+/**
+ * 댓글 목록에서 쓰는 댓글. 감정 표현한 회원 목록 대신 DB 에서 센 수와 내 감정만 가져온다.
+ */
+
+@Getter
+public class ArticleCommentOnList {
+
+	@Id
+	private String id;
+
+	private ArticleItem article;
+
+	private ArticleCommentStatus status;
+
+	private CommonWriter writer;
+
+	private String content;
+
+	private Boolean linkedGallery;
+
+	private List<BoardLog> logs;
+
+	private Integer numberOfLike;
+
+	private Integer numberOfDislike;
+
+	// 로그인하지 않았으면 null
+	private Constants.FEELING_TYPE myFeeling;
+
+}
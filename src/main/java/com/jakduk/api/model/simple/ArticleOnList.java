@@ -33,6 +33,13 @@ public class ArticleOnList {
 	private String category;
 	
 	private Integer views;
+
+	// 댓글 수, 감정 수. 필드가 없는 오래된 글은 0으로 읽힌다.
+	private int commentCount;
+
+	private int likingCount;
+
+	private int dislikingCount;
 	
 	private ArticleStatus status;
 
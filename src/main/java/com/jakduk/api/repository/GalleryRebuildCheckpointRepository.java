@@ -0,0 +1,12 @@
+package com.jakduk.api.repository;
+
+import com.jakduk.api.model.db.GalleryRebuildCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface GalleryRebuildCheckpointRepository extends MongoRepository<GalleryRebuildCheckpoint, String> {
+
+	Optional<GalleryRebuildCheckpoint> findOneById(String id);
+
+}
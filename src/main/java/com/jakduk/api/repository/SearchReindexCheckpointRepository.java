@@ -0,0 +1,12 @@
+package com.jakduk.api.repository;
+
+import com.jakduk.api.model.db.SearchReindexCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface SearchReindexCheckpointRepository extends MongoRepository<SearchReindexCheckpoint, String> {
+
+	Optional<SearchReindexCheckpoint> findOneById(String id);
+
+}
@@ -16,4 +16,6 @@ public interface ArticleOnListRepository extends MongoRepository<ArticleOnList,
 	
 	Page<ArticleOnList> findByBoard(String board, Pageable pageable);
 	Page<ArticleOnList> findByBoardAndCategory(String board, String category, Pageable pageable);
+	long countByBoard(String board);
+	long countByBoardAndCategory(String board, String category);
 }
@@ -16,7 +16,6 @@ public interface ArticleRepository extends MongoRepository<Article, String>, Art
 	Optional<Article> findOneByBoardAndSeq(String board, Integer seq);
 
 	List<Article> findByIdInAndLinkedGalleryIsTrue(List<String> ids);
-	List<Article> findByIdInAndBoard(List<String> ids, String board);
 
 	@Query(value="{'seq' : ?0}")
     ArticleSimple findBoardFreeOfMinimumBySeq(Integer seq);
@@ -2,13 +2,17 @@ package com.jakduk.api.repository.article;
 
 import com.jakduk.api.common.Constants;
 import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.BoardLog;
 import com.jakduk.api.model.aggregate.BoardFeelingCount;
 import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.simple.*;
 import org.bson.types.ObjectId;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by pyohwan on 16. 10. 9.
@@ -23,13 +27,12 @@ public interface ArticleRepositoryCustom {
     List<Article> findPostsGreaterThanId(ObjectId objectId, Integer limit);
 
     /**
-     * RSS 용 게시물 목록
+     * RSS 용 게시물 목록. 최신 글부터.
      *
-     * @param objectId 해당 ID 이하의 조건 추가 (null 이면 검사 안함)
-     * @param sort sort
+     * @param objectId 해당 ID 보다 새 글만 (null 이면 검사 안함)
      * @param limit limit
      */
-    List<ArticleOnRSS> findPostsOnRss(ObjectId objectId, Sort sort, Integer limit);
+    List<ArticleOnRSS> findPostsOnRss(ObjectId objectId, Integer limit);
 
     /**
      * id 배열에 해당하는 Article 목록.
@@ -48,13 +51,11 @@ public interface ArticleRepositoryCustom {
     List<ArticleOnList> findLatest(Sort sort, Integer limit);
 
     /**
-     * 사이트맵 용 게시물 목록
+     * 사이트맵 용 글들을 _id 오름차순 커서로 읽는다. 다 쓰면 닫아야 한다.
      *
-     * @param objectId 해당 ID 이하의 조건 추가 (null 이면 검사 안함)
-     * @param sort sort
-     * @param limit limit
+     * @param objectId 해당 ID 초과의 조건 추가 (null 이면 처음부터)
      */
-    List<ArticleOnSitemap> findSitemapArticles(ObjectId objectId, Sort sort, Integer limit);
+    CloseableIterator<ArticleOnSitemap> streamSitemapArticles(ObjectId objectId);
 
     /**
      * 글 보기에서 앞 글, 뒷 글의 정보를 가져온다.
@@ -62,16 +63,88 @@ public interface ArticleRepositoryCustom {
     ArticleSimple findByIdAndCategoryWithOperator(ObjectId id, String category, Constants.CRITERIA_OPERATOR operator);
 
     /**
-     * 게시물의 감정 갯수를 가져온다
+     * 기준 Article ID 초과의 Article 목록에 대해 감정 갯수를 가져온다. (ID 오름차순)
+     *
+     * @param objectId 해당 ID 초과의 조건 추가 (null 이면 검사 안함)
+     * @param limit limit
+     */
+    List<BoardFeelingCount> findUsersFeelingCountGreaterThanId(ObjectId objectId, Integer limit);
+
+    /**
+     * 글의 댓글 수를 증감한다.
+     *
+     * @param id 글 ID
+     * @param amount 증감 값
+     */
+    void increaseCommentCount(ObjectId id, Integer amount);
+
+    /**
+     * 글을 고친 필드만 $set 하고 이력을 붙인다. 댓글 수, 감정 수, 조회수는 덮어쓰지 않는다.
+     *
+     * @param id 글 ID
+     * @param article 고친 제목, 내용, 말머리, 요약, 사진 연동 여부, 마지막 수정 시각을 담은 글
+     * @param device 고친 디바이스
+     * @param log 붙일 이력
+     */
+    void updateEditedFields(ObjectId id, Article article, Constants.DEVICE_TYPE device, BoardLog log);
+
+    /**
+     * 공지 여부만 바꾸고 이력을 붙인다.
+     *
+     * @param id 글 ID
+     * @param notice 공지면 true. 아니면 null 로 지운다.
+     * @param log 붙일 이력
+     */
+    void updateNotice(ObjectId id, Boolean notice, BoardLog log);
+
+    /**
+     * 댓글이 달린 글을 지운 것으로 표시하고 이력을 붙인다. 댓글 수, 감정 수, 조회수는 덮어쓰지 않는다.
+     *
+     * @param id 글 ID
+     * @param log 붙일 이력
+     * @param lastUpdated 마지막 수정 시각
+     */
+    void markDeleted(ObjectId id, BoardLog log, LocalDateTime lastUpdated);
+
+    /**
+     * 글들의 조회수를 한번에 증가한다.
+     *
+     * @param views key : 글 ID, value : 증가 값
+     */
+    void increaseViews(Map<String, Integer> views);
+
+    /**
+     * 글들의 댓글 수, 감정 수를 덮어쓴다.
+     *
+     * @param feelingCounts 글의 감정 수 목록
+     * @param commentCounts 글 ID 별 댓글 수
+     */
+    void updateCounts(List<BoardFeelingCount> feelingCounts, Map<String, Integer> commentCounts);
+
+    /**
+     * 기준 ID 초과 글들의 좋아요 수. 주간 선두 글 후보를 만들 때 쓴다.
+     *
+     * @param board 게시판
+     * @param objectId 해당 ID 초과
+     */
+    List<BoardTop> findLikingCountsGreaterThanId(String board, ObjectId objectId);
+
+    /**
+     * 글 ID 목록의 주간 선두 글 필드만 가져온다. count 는 채우지 않는다.
+     *
+     * @param ids 글 ID 목록
+     * @param board 게시판
      */
-    List<BoardFeelingCount> findUsersFeelingCount(List<ObjectId> ids);
+    List<BoardTop> findBoardTopsByIds(List<ObjectId> ids, String board);
 
     /**
-     * 인기있는 게시물 조회
+     * 기준 ID 앞, 뒤의 글 목록을 가져온다. (_id 범위로 읽는 페이지)
      *
      * @param board 게시판
-     * @param commentId 해당 ID 기준 이상
+     * @param category 말머리. null 이면 전체
+     * @param id 기준 ID
+     * @param operator LT 면 기준보다 오래된 글을 최신순으로, GT 면 기준보다 새 글을 오래된 순으로
      */
-    List<BoardTop> findTopLikes(String board, ObjectId commentId);
+    List<ArticleOnList> findArticlesOnListById(String board, String category, ObjectId id, Constants.CRITERIA_OPERATOR operator, Integer limit);
 
-}
\ No newline at end of file
+}
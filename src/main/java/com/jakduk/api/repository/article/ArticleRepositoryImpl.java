@@ -4,20 +4,28 @@ import com.jakduk.api.common.Constants;
 import com.jakduk.api.model.aggregate.BoardFeelingCount;
 import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.BoardLog;
 import com.jakduk.api.model.simple.*;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.ObjectUtils;
 
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -30,6 +38,10 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    // RSS, 사이트맵, 검색 색인은 조금 늦은 데이터라도 되므로 secondary 에서 읽는다.
+    @Resource
+    private MongoTemplate secondaryPreferredMongoTemplate;
+
     @Override
     public List<ArticleOnList> findByIdAndUserId(ObjectId id, String userId, Integer limit) {
         AggregationOperation match1 = Aggregation.match(Criteria.where("writer.userId").is(userId));
@@ -60,32 +72,31 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
             aggregation = Aggregation.newAggregation(match1, sort, limit1);
         }
 
-        AggregationResults<Article> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE, Article.class);
+        AggregationResults<Article> results = secondaryPreferredMongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE, Article.class);
 
         return results.getMappedResults();
 
     }
 
     /**
-     * RSS 용 게시물 목록
+     * RSS 용 게시물 목록. 최신 글부터.
      *
-     * @param objectId 해당 ID 이하의 조건 추가 (null 이면 검사 안함)
-     * @param sort sort
+     * @param objectId 해당 ID 보다 새 글만 (null 이면 검사 안함)
      * @param limit limit
      */
     @Override
-    public List<ArticleOnRSS> findPostsOnRss(ObjectId objectId, Sort sort, Integer limit) {
+    public List<ArticleOnRSS> findPostsOnRss(ObjectId objectId, Integer limit) {
 
         Query query = new Query();
         query.addCriteria(Criteria.where("status.delete").ne(true));
 
         if (Objects.nonNull(objectId))
-            query.addCriteria(Criteria.where("_id").lt(objectId));
+            query.addCriteria(Criteria.where("_id").gt(objectId));
 
-        query.with(sort);
+        query.with(new Sort(Sort.Direction.DESC, "_id"));
         query.limit(limit);
 
-        return mongoTemplate.find(query, ArticleOnRSS.class);
+        return secondaryPreferredMongoTemplate.find(query, ArticleOnRSS.class);
     }
 
     /**
@@ -128,24 +139,22 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
     }
 
     /**
-     * 사이트맵 용 게시물 목록
+     * 사이트맵 용 글들을 _id 오름차순 커서로 읽는다.
      *
-     * @param objectId 해당 ID 이하의 조건 추가 (null 이면 검사 안함)
-     * @param sort sort
-     * @param limit limit
+     * @param objectId 해당 ID 초과의 조건 추가 (null 이면 처음부터)
      */
     @Override
-    public List<ArticleOnSitemap> findSitemapArticles(ObjectId objectId, Sort sort, Integer limit) {
+    public CloseableIterator<ArticleOnSitemap> streamSitemapArticles(ObjectId objectId) {
         Query query = new Query();
         query.addCriteria(Criteria.where("status.delete").ne(true));
 
         if (Objects.nonNull(objectId))
-            query.addCriteria(Criteria.where("_id").lt(objectId));
+            query.addCriteria(Criteria.where("_id").gt(objectId));
 
-        query.with(sort);
-        query.limit(limit);
+        query.fields().include("board").include("seq").include("lastUpdated");
+        query.with(new Sort(Sort.Direction.ASC, "_id"));
 
-        return mongoTemplate.find(query, ArticleOnSitemap.class);
+        return secondaryPreferredMongoTemplate.stream(query, ArticleOnSitemap.class);
     }
 
     /**
@@ -173,53 +182,207 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
     }
 
     /**
-     * 게시물의 감정 갯수를 가져온다
+     * 기준 Article ID 초과의 Article 목록에 대해 감정 갯수를 가져온다. (ID 오름차순)
      *
-     * db.getCollection('boardFree').aggregate([{$match:{seq:{$in:[9]}}}, {$project:{_id:1, usersLikingCount:{$size:{'$ifNull':['$usersLiking', []]}}, usersDislikingCount:{$size:{'$ifNull':['$usersDisliking', []]}}}}])
+     * @param objectId 해당 ID 초과의 조건 추가 (null 이면 검사 안함)
+     * @param limit limit
      */
     @Override
-    public List<BoardFeelingCount> findUsersFeelingCount(List<ObjectId> ids) {
-        AggregationOperation match1 = Aggregation.match(Criteria.where("_id").in(ids));
-
+    public List<BoardFeelingCount> findUsersFeelingCountGreaterThanId(ObjectId objectId, Integer limit) {
         AggregationExpression usersLikingCount = ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("usersLiking").then(new ArrayList<>()));
         AggregationExpression usersDislikingCount = ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("usersDisliking").then(new ArrayList<>()));
 
-        AggregationOperation project1 = Aggregation.project("_id")
+        List<AggregationOperation> operations = new ArrayList<>();
+
+        if (Objects.nonNull(objectId))
+            operations.add(Aggregation.match(Criteria.where("_id").gt(objectId)));
+
+        operations.add(Aggregation.sort(Sort.Direction.ASC, "_id"));
+        operations.add(Aggregation.limit(limit));
+        operations.add(Aggregation.project("_id")
                 .and(usersLikingCount).as("usersLikingCount")
-                .and(usersDislikingCount).as("usersDislikingCount");
+                .and(usersDislikingCount).as("usersDislikingCount"));
 
-        Aggregation aggregation = Aggregation.newAggregation(match1, project1);
+        Aggregation aggregation = Aggregation.newAggregation(operations);
         AggregationResults<BoardFeelingCount> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE, BoardFeelingCount.class);
 
         return results.getMappedResults();
     }
 
     /**
-     * 인기있는 게시물 조회
+     * 글의 댓글 수를 증감한다.
      *
-     * db.boardFree.aggregate(
-     *  {$match:{_id:{$gt:ObjectId("5947f1b8479fff0441f1b95b")}}},
-     *  {$project:{_id:1, seq:1, status:1, subject:1, views:1, count:{$size:{'$ifNull':['$usersLiking', []]}}}},
-     *  {$sort:{count:-1, views:-1}},
-     *  {$limit:3})
+     * @param id 글 ID
+     * @param amount 증감 값
      */
     @Override
-    public List<BoardTop> findTopLikes(String board, ObjectId objectId) {
-        AggregationOperation match1 = Aggregation.match(Criteria.where("_id").gt(objectId).and("board").is(board));
+    public void increaseCommentCount(ObjectId id, Integer amount) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        Update update = new Update().inc("commentCount", amount);
 
-        AggregationExpression usersLikingCount = ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("usersLiking").then(new ArrayList<>()));
+        mongoTemplate.updateFirst(query, update, Article.class);
+    }
 
-        AggregationOperation project1 = Aggregation.project("_id", "seq", "status", "subject", "views")
-                .and(usersLikingCount).as("count");
+    /**
+     * 글을 고친 필드만 $set 하고 이력을 붙인다. 댓글 수, 감정 수, 조회수는 덮어쓰지 않는다.
+     */
+    @Override
+    public void updateEditedFields(ObjectId id, Article article, Constants.DEVICE_TYPE device, BoardLog log) {
+        Query query = new Query(Criteria.where("_id").is(id));
+
+        Update update = new Update()
+                .set("subject", article.getSubject())
+                .set("content", article.getContent())
+                .set("category", article.getCategory())
+                .set("shortContent", article.getShortContent())
+                .set("linkedGallery", article.getLinkedGallery())
+                .set("lastUpdated", article.getLastUpdated())
+                .set("status.device", device)
+                .push("logs", log);
+
+        mongoTemplate.updateFirst(query, update, Article.class);
+    }
+
+    /**
+     * 공지 여부만 바꾸고 이력을 붙인다.
+     */
+    @Override
+    public void updateNotice(ObjectId id, Boolean notice, BoardLog log) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        Update update = new Update().push("logs", log);
+
+        if (BooleanUtils.isTrue(notice)) {
+            update.set("status.notice", true);
+        } else {
+            update.unset("status.notice");
+        }
+
+        mongoTemplate.updateFirst(query, update, Article.class);
+    }
 
-        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.DESC, "count");
-        AggregationOperation sort2 = Aggregation.sort(Sort.Direction.DESC, "views");
-        AggregationOperation limit1 = Aggregation.limit(Constants.BOARD_TOP_LIMIT);
+    /**
+     * 댓글이 달린 글을 지운 것으로 표시하고 이력을 붙인다.
+     */
+    @Override
+    public void markDeleted(ObjectId id, BoardLog log, LocalDateTime lastUpdated) {
+        Query query = new Query(Criteria.where("_id").is(id));
+
+        Update update = new Update()
+                .set("subject", null)
+                .set("content", null)
+                .set("writer", null)
+                .set("status.delete", true)
+                .set("linkedGallery", false)
+                .set("lastUpdated", lastUpdated)
+                .push("logs", log);
+
+        mongoTemplate.updateFirst(query, update, Article.class);
+    }
 
-        Aggregation aggregation = Aggregation.newAggregation(match1, project1, sort1, sort2, limit1);
+    /**
+     * 글들의 조회수를 한번에 증가한다.
+     *
+     * @param views key : 글 ID, value : 증가 값
+     */
+    @Override
+    public void increaseViews(Map<String, Integer> views) {
+        if (views.isEmpty())
+            return;
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Article.class);
+
+        views.forEach((id, amount) ->
+                bulkOperations.updateOne(new Query(Criteria.where("_id").is(new ObjectId(id))), new Update().inc("views", amount)));
+
+        bulkOperations.execute();
+    }
+
+    /**
+     * 글들의 댓글 수, 감정 수를 덮어쓴다.
+     *
+     * @param feelingCounts 글의 감정 수 목록
+     * @param commentCounts 글 ID 별 댓글 수
+     */
+    @Override
+    public void updateCounts(List<BoardFeelingCount> feelingCounts, Map<String, Integer> commentCounts) {
+        if (feelingCounts.isEmpty())
+            return;
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Article.class);
+
+        feelingCounts.forEach(feelingCount -> {
+            Query query = new Query(Criteria.where("_id").is(new ObjectId(feelingCount.getId())));
+            Update update = new Update()
+                    .set("commentCount", commentCounts.getOrDefault(feelingCount.getId(), 0))
+                    .set("likingCount", feelingCount.getUsersLikingCount())
+                    .set("dislikingCount", feelingCount.getUsersDislikingCount());
+
+            bulkOperations.updateOne(query, update);
+        });
+
+        bulkOperations.execute();
+    }
+
+    /**
+     * 기준 ID 초과 글들의 좋아요 수. 미리 세어둔 likingCount 를 쓴다.
+     *
+     * db.article.aggregate(
+     *  {$match:{_id:{$gt:ObjectId("5947f1b8479fff0441f1b95b")}, board:'FREE'}},
+     *  {$project:{_id:1, seq:1, status:1, subject:1, views:1, count:'$likingCount'}})
+     */
+    @Override
+    public List<BoardTop> findLikingCountsGreaterThanId(String board, ObjectId objectId) {
+        AggregationOperation match1 = Aggregation.match(Criteria.where("_id").gt(objectId).and("board").is(board));
+        AggregationOperation project1 = Aggregation.project("_id", "seq", "status", "subject", "views")
+                .and("likingCount").as("count");
+
+        Aggregation aggregation = Aggregation.newAggregation(match1, project1);
         AggregationResults<BoardTop> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE, BoardTop.class);
 
         return results.getMappedResults();
     }
 
+    /**
+     * 글 ID 목록의 주간 선두 글 필드만 가져온다. 감정 표현한 회원 목록, 본문은 읽지 않는다.
+     *
+     * db.article.find({_id:{$in:[...]}, board:'FREE'}, {seq:1, status:1, subject:1, views:1})
+     */
+    @Override
+    public List<BoardTop> findBoardTopsByIds(List<ObjectId> ids, String board) {
+        Query query = new Query();
+        query.addCriteria(Criteria.where("_id").in(ids).and("board").is(board));
+        query.fields().include("seq").include("status").include("subject").include("views");
+
+        return mongoTemplate.find(query, BoardTop.class, Constants.COLLECTION_ARTICLE);
+    }
+
+    /**
+     * 기준 ID 앞, 뒤의 글 목록을 가져온다. (_id 범위로 읽는 페이지)
+     *
+     * db.article.find({board:'FREE', _id:{$lt:ObjectId("5947f1b8479fff0441f1b95b")}}).sort({_id:-1}).limit(21)
+     */
+    @Override
+    public List<ArticleOnList> findArticlesOnListById(String board, String category, ObjectId id, Constants.CRITERIA_OPERATOR operator,
+                                                      Integer limit) {
+        Query query = new Query();
+        query.addCriteria(Criteria.where("board").is(board));
+        query.limit(limit);
+
+        if (Objects.nonNull(category))
+            query.addCriteria(Criteria.where("category").is(category));
+
+        switch (operator) {
+            case GT:
+                query.addCriteria(Criteria.where("_id").gt(id));
+                query.with(new Sort(Sort.Direction.ASC, "_id"));
+                break;
+            case LT:
+                query.addCriteria(Criteria.where("_id").lt(id));
+                query.with(new Sort(Sort.Direction.DESC, "_id"));
+                break;
+        }
+
+        return mongoTemplate.find(query, ArticleOnList.class);
+    }
+
 }
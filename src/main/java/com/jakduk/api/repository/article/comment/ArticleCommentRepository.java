@@ -3,8 +3,6 @@ package com.jakduk.api.repository.article.comment;
 import com.jakduk.api.model.db.ArticleComment;
 import com.jakduk.api.model.embedded.ArticleItem;
 import org.bson.types.ObjectId;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
@@ -20,7 +18,7 @@ public interface ArticleCommentRepository extends MongoRepository<ArticleComment
 	Optional<ArticleComment> findOneById(String id);
 
 	Integer countByArticle(ArticleItem articleItem);
-	Page<ArticleComment> findByArticleBoard(String board, Pageable pageable);
+	long countByArticleBoard(String board);
 	long count();
 
 	// for JUnit
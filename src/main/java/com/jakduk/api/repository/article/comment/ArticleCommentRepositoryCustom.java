@@ -1,8 +1,11 @@
 package com.jakduk.api.repository.article.comment;
 
+import com.jakduk.api.common.Constants;
 import com.jakduk.api.model.db.ArticleComment;
 import com.jakduk.api.model.aggregate.CommonCount;
+import com.jakduk.api.model.simple.ArticleCommentOnList;
 import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
@@ -36,4 +39,31 @@ public interface ArticleCommentRepositoryCustom {
      */
     List<CommonCount> findCommentsCountGreaterThanBoardIdAndBoard(ObjectId boardId, String board);
 
+    /**
+     * 게시판의 기준 댓글 ID 앞, 뒤의 댓글 목록을 가져온다. (_id 범위로 읽는 페이지)
+     *
+     * @param board 게시판
+     * @param id 기준 댓글 ID
+     * @param operator LT 면 기준보다 오래된 댓글을 최신순으로, GT 면 기준보다 새 댓글을 오래된 순으로
+     * @param userId 로그인한 회원 ID. null 이면 myFeeling 을 계산하지 않는다.
+     */
+    List<ArticleCommentOnList> findCommentsOnListByBoardAndId(String board, ObjectId id, Constants.CRITERIA_OPERATOR operator,
+                                                              Integer limit, String userId);
+
+    /**
+     * 게시판의 댓글 목록 한 페이지
+     *
+     * @param userId 로그인한 회원 ID. null 이면 myFeeling 을 계산하지 않는다.
+     */
+    List<ArticleCommentOnList> findCommentsOnListByBoard(String board, Pageable pageable, String userId);
+
+    /**
+     * 글의 기준 댓글 ID(null 가능) 이후 댓글 목록
+     *
+     * @param articleSeq 게시물 seq
+     * @param commentId 댓글 ID
+     * @param userId 로그인한 회원 ID. null 이면 myFeeling 을 계산하지 않는다.
+     */
+    List<ArticleCommentOnList> findCommentsOnListByBoardSeqAndGTId(String board, Integer articleSeq, ObjectId commentId, String userId);
+
 }
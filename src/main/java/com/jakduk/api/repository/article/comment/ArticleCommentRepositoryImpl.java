@@ -3,8 +3,12 @@ package com.jakduk.api.repository.article.comment;
 import com.jakduk.api.common.Constants;
 import com.jakduk.api.model.aggregate.CommonCount;
 import com.jakduk.api.model.db.ArticleComment;
+import com.jakduk.api.model.simple.ArticleCommentOnList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
@@ -15,6 +19,9 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.ObjectUtils;
 
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -28,6 +35,10 @@ public class ArticleCommentRepositoryImpl implements ArticleCommentRepositoryCus
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    // 검색 색인용으로 처음부터 훑는 읽기는 secondary 로 보낸다.
+    @Resource
+    private MongoTemplate secondaryPreferredMongoTemplate;
+
     /**
      * 기준 ArticleComment ID 이상의 ArticleComment 목록을 가져온다.
      */
@@ -46,7 +57,7 @@ public class ArticleCommentRepositoryImpl implements ArticleCommentRepositoryCus
             aggregation = Aggregation.newAggregation(sort, limit1);
         }
 
-        AggregationResults<ArticleComment> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE_COMMENT, ArticleComment.class);
+        AggregationResults<ArticleComment> results = secondaryPreferredMongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE_COMMENT, ArticleComment.class);
 
         return results.getMappedResults();
     }
@@ -57,7 +68,7 @@ public class ArticleCommentRepositoryImpl implements ArticleCommentRepositoryCus
     @Override
     public List<CommonCount> findCommentsCountByIds(List<ObjectId> ids) {
         AggregationOperation match = Aggregation.match(Criteria.where("article._id").in(ids));
-        AggregationOperation group = Aggregation.group("article").count().as("count");
+        AggregationOperation group = Aggregation.group("article._id").count().as("count");
         //AggregationOperation sort = Aggregation.sort(Direction.ASC, "_id");
         //AggregationOperation limit = Aggregation.limit(Constants.BOARD_LINE_NUMBER);
         Aggregation aggregation = Aggregation.newAggregation(match, group/*, sort, limit*/);
@@ -94,7 +105,7 @@ public class ArticleCommentRepositoryImpl implements ArticleCommentRepositoryCus
     @Override
     public List<CommonCount> findCommentsCountGreaterThanBoardIdAndBoard(ObjectId boardId, String board) {
         AggregationOperation match1 = Aggregation.match(Criteria.where("article._id").gt(boardId).and("article.board").is(board));
-        AggregationOperation group = Aggregation.group("article").count().as("count");
+        AggregationOperation group = Aggregation.group("article._id").count().as("count");
         AggregationOperation sort = Aggregation.sort(Sort.Direction.DESC, "count");
         //AggregationOperation limit = Aggregation.limit(Constants.BOARD_TOP_LIMIT);
         Aggregation aggregation = Aggregation.newAggregation(match1, group, sort/*, limit*/);
@@ -103,4 +114,121 @@ public class ArticleCommentRepositoryImpl implements ArticleCommentRepositoryCus
         return results.getMappedResults();
     }
 
+    /**
+     * 게시판의 기준 댓글 ID 앞, 뒤의 댓글 목록을 가져온다. (_id 범위로 읽는 페이지)
+     *
+     * db.articleComment.aggregate(
+     *  {$match:{'article.board':'FREE', _id:{$lt:ObjectId("5947f1b8479fff0441f1b95b")}}},
+     *  {$sort:{_id:-1}},
+     *  {$limit:21},
+     *  {$project:...})
+     */
+    @Override
+    public List<ArticleCommentOnList> findCommentsOnListByBoardAndId(String board, ObjectId id, Constants.CRITERIA_OPERATOR operator,
+                                                                     Integer limit, String userId) {
+        AggregationOperation match1 = Aggregation.match(Criteria.where("article.board").is(board));
+        AggregationOperation match2;
+        AggregationOperation sort1;
+
+        switch (operator) {
+            case GT:
+                match2 = Aggregation.match(Criteria.where("_id").gt(id));
+                sort1 = Aggregation.sort(Sort.Direction.ASC, "_id");
+                break;
+            case LT:
+                match2 = Aggregation.match(Criteria.where("_id").lt(id));
+                sort1 = Aggregation.sort(Sort.Direction.DESC, "_id");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operator. " + operator);
+        }
+
+        AggregationOperation limit1 = Aggregation.limit(limit);
+        Aggregation aggregation = Aggregation.newAggregation(match1, match2, sort1, limit1, projectOnList(userId));
+        AggregationResults<ArticleCommentOnList> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE_COMMENT, ArticleCommentOnList.class);
+
+        return results.getMappedResults();
+    }
+
+    /**
+     * 게시판의 댓글 목록 한 페이지
+     */
+    @Override
+    public List<ArticleCommentOnList> findCommentsOnListByBoard(String board, Pageable pageable, String userId) {
+        AggregationOperation match1 = Aggregation.match(Criteria.where("article.board").is(board));
+        AggregationOperation sort1 = Aggregation.sort(pageable.getSort());
+        AggregationOperation skip1 = Aggregation.skip((long) pageable.getOffset());
+        AggregationOperation limit1 = Aggregation.limit(pageable.getPageSize());
+        Aggregation aggregation = Aggregation.newAggregation(match1, sort1, skip1, limit1, projectOnList(userId));
+        AggregationResults<ArticleCommentOnList> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE_COMMENT, ArticleCommentOnList.class);
+
+        return results.getMappedResults();
+    }
+
+    /**
+     * 글의 기준 댓글 ID(null 가능) 이후 댓글 목록
+     */
+    @Override
+    public List<ArticleCommentOnList> findCommentsOnListByBoardSeqAndGTId(String board, Integer articleSeq, ObjectId commentId, String userId) {
+        Criteria criteria = Criteria.where("article.seq").is(articleSeq).and("article.board").is(board);
+
+        if (Objects.nonNull(commentId))
+            criteria.and("_id").gt(commentId);
+
+        AggregationOperation match1 = Aggregation.match(criteria);
+        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.ASC, "_id");
+        AggregationOperation limit1 = Aggregation.limit(Constants.COMMENT_MAX_LIMIT);
+        Aggregation aggregation = Aggregation.newAggregation(match1, sort1, limit1, projectOnList(userId));
+        AggregationResults<ArticleCommentOnList> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE_COMMENT, ArticleCommentOnList.class);
+
+        return results.getMappedResults();
+    }
+
+    /**
+     * 댓글 목록에 필요한 필드만 남긴다. 감정 표현한 회원 목록은 보내지 않고 수와 내 감정을 DB 에서 계산한다.
+     * 파이프라인의 마지막 단계로만 쓴다.
+     *
+     * {$project:{article:1, status:1, writer:1, content:1, linkedGallery:1, logs:1,
+     *  numberOfLike:{$size:{$ifNull:['$usersLiking', []]}},
+     *  numberOfDislike:{$size:{$ifNull:['$usersDisliking', []]}},
+     *  myFeeling:{$cond:[{$setIsSubset:[['userId'], {$ifNull:['$usersLiking.userId', []]}]}, 'LIKE',
+     *   {$cond:[{$setIsSubset:[['userId'], {$ifNull:['$usersDisliking.userId', []]}]}, 'DISLIKE', null]}]}}}
+     *
+     * @param userId 로그인한 회원 ID. null 이면 myFeeling 은 없다.
+     */
+    private static AggregationOperation projectOnList(String userId) {
+        DBObject fields = new BasicDBObject("article", 1)
+                .append("status", 1)
+                .append("writer", 1)
+                .append("content", 1)
+                .append("linkedGallery", 1)
+                .append("logs", 1)
+                .append("numberOfLike", sizeOf("$usersLiking"))
+                .append("numberOfDislike", sizeOf("$usersDisliking"));
+
+        if (Objects.nonNull(userId)) {
+            fields.put("myFeeling", new BasicDBObject("$cond", Arrays.asList(
+                    contains("$usersLiking.userId", userId),
+                    Constants.FEELING_TYPE.LIKE.name(),
+                    new BasicDBObject("$cond", Arrays.asList(
+                            contains("$usersDisliking.userId", userId),
+                            Constants.FEELING_TYPE.DISLIKE.name(),
+                            null)))));
+        }
+
+        return context -> new BasicDBObject("$project", fields);
+    }
+
+    private static DBObject sizeOf(String arrayField) {
+        return new BasicDBObject("$size", ifNullEmpty(arrayField));
+    }
+
+    private static DBObject contains(String arrayField, String value) {
+        return new BasicDBObject("$setIsSubset", Arrays.asList(Collections.singletonList(value), ifNullEmpty(arrayField)));
+    }
+
+    private static DBObject ifNullEmpty(String arrayField) {
+        return new BasicDBObject("$ifNull", Arrays.asList(arrayField, Collections.emptyList()));
+    }
+
 }
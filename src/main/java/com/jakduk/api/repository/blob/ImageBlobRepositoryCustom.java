@@ -0,0 +1,42 @@
+package com.jakduk.api.repository.blob;
+
+import com.jakduk.api.model.db.ImageBlob;
+
+import java.util.Optional;
+
+public interface ImageBlobRepositoryCustom {
+
+    /**
+     * 참조 수를 하나 늘린다. 없으면 새 세대로 1 로 만든다.
+     *
+     * @return 늘린 블롭. 지우는 중이면 늘리지 않고 empty
+     */
+    Optional<ImageBlob> increaseRefCount(String id);
+
+    /**
+     * 지우는 중인 블롭을 새 세대, 참조 수 1 로 바꾼다.
+     *
+     * @return 바꾼 블롭. 그 사이에 지우기가 끝났거나 다른 쪽이 먼저 바꿨으면 empty
+     */
+    Optional<ImageBlob> replaceDeleting(String id);
+
+    /**
+     * 해당 세대의 참조 수를 하나 줄인다.
+     *
+     * @return 줄인 뒤 참조 수. 없는 블롭이면 0
+     */
+    Integer decreaseRefCount(String id, String generation);
+
+    /**
+     * 해당 세대의 참조 수가 0 이하일 때만 지우는 중으로 표시한다. 그 사이에 다시 참조됐으면 표시하지 않는다.
+     *
+     * @return 표시했으면 true. 이 쪽이 폴더를 지운다.
+     */
+    Boolean markDeleting(String id, String generation);
+
+    /**
+     * 폴더를 다 지운 뒤 지우는 중인 해당 세대를 지운다. 새 세대로 바뀌었으면 그대로 둔다.
+     */
+    void removeDeleting(String id, String generation);
+
+}
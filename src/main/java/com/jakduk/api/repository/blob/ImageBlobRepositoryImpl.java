@@ -0,0 +1,80 @@
+package com.jakduk.api.repository.blob;
+
+import com.jakduk.api.model.db.ImageBlob;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Objects;
+import java.util.Optional;
+
+@Repository
+public class ImageBlobRepositoryImpl implements ImageBlobRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * 지우는 중인 블롭이 있으면 조건에 맞지 않아 upsert 가 같은 _id 를 넣으려다 중복 키로 실패한다.
+     */
+    @Override
+    public Optional<ImageBlob> increaseRefCount(String id) {
+        Query query = new Query(Criteria.where("_id").is(id).and("deleting").ne(true));
+
+        Update update = new Update()
+                .inc("refCount", 1)
+                .setOnInsert("generation", new ObjectId().toHexString());
+
+        try {
+            return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true).upsert(true), ImageBlob.class));
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<ImageBlob> replaceDeleting(String id) {
+        Query query = new Query(Criteria.where("_id").is(id).and("deleting").is(true));
+
+        Update update = new Update()
+                .set("refCount", 1)
+                .set("generation", new ObjectId().toHexString())
+                .unset("deleting");
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), ImageBlob.class));
+    }
+
+    @Override
+    public Integer decreaseRefCount(String id, String generation) {
+        Query query = new Query(Criteria.where("_id").is(id).and("generation").is(generation));
+
+        ImageBlob imageBlob = mongoTemplate.findAndModify(query, new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true), ImageBlob.class);
+
+        return Objects.isNull(imageBlob) ? 0 : imageBlob.getRefCount();
+    }
+
+    @Override
+    public Boolean markDeleting(String id, String generation) {
+        Query query = new Query(Criteria.where("_id").is(id).and("generation").is(generation)
+                .and("refCount").lte(0).and("deleting").ne(true));
+
+        return mongoTemplate.updateFirst(query, new Update().set("deleting", true), ImageBlob.class).getN() > 0;
+    }
+
+    @Override
+    public void removeDeleting(String id, String generation) {
+        Query query = new Query(Criteria.where("_id").is(id).and("generation").is(generation).and("deleting").is(true));
+
+        mongoTemplate.remove(query, ImageBlob.class);
+    }
+
+}
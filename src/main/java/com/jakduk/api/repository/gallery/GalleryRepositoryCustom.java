@@ -6,6 +6,7 @@ import com.jakduk.api.model.simple.GallerySimple;
 import org.bson.types.ObjectId;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by pyohwan on 16. 11. 30.
@@ -22,9 +23,35 @@ public interface GalleryRepositoryCustom {
      */
     List<Gallery> findByItemIdAndFromType(ObjectId itemId, Constants.GALLERY_FROM_TYPE fromType, Integer limit);
 
+    /**
+     * ItemID 목록과 FromType에 해당하는 Gallery 중에서 ItemID 별로 첫번째 Gallery를 가져온다.
+     *
+     * @return key : ItemID, value : 첫번째 Gallery
+     */
+    Map<String, Gallery> findFirstByItemIdInAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType);
+
+    /**
+     * ItemID 목록과 FromType에 해당하는 Gallery ID 목록을 ItemID 별로 가져온다.
+     *
+     * @return key : ItemID, value : Gallery ID 목록
+     */
+    Map<String, List<String>> findIdsByItemIdInAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType);
+
+    /**
+     * 기준 Gallery ID 초과의 Gallery 목록을 ID 오름차순으로 가져온다.
+     *
+     * @param id 해당 ID 초과의 조건 추가 (null 이면 검사 안함)
+     */
+    List<Gallery> findGalleriesGreaterThanId(ObjectId id, Integer limit);
+
     /**
      * ItemID이 있으면 그 이전부터 최신순으로 GallerySimple 목록을 가져온다.
      */
     List<GallerySimple> findSimpleById(ObjectId id, Integer limit);
 
+    /**
+     * 줄인 사진 파일 크기만 바꾼다. 그 사이에 바뀐 상태, 연결된 글을 덮어쓰지 않는다.
+     */
+    void updateSize(String id, Long size);
+
 }
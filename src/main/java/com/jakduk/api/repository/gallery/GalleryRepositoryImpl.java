@@ -1,18 +1,31 @@
 package com.jakduk.api.repository.gallery;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.aggregate.LinkedItemGallery;
+import com.jakduk.api.model.aggregate.LinkedItemGalleryIds;
 import com.jakduk.api.model.db.Gallery;
 import com.jakduk.api.model.simple.GallerySimple;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.CollectionUtils;
 
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Created by pyohwan on 16. 11. 30.
@@ -24,6 +37,10 @@ public class GalleryRepositoryImpl implements GalleryRepositoryCustom {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    // 검색 색인 때 읽는 사진 목록은 secondary 에서 읽어도 된다.
+    @Resource
+    private MongoTemplate secondaryPreferredMongoTemplate;
+
     /**
      * 사진첩 보기의 앞, 뒤 사진을 가져온다.
      */
@@ -65,6 +82,106 @@ public class GalleryRepositoryImpl implements GalleryRepositoryCustom {
         return mongoTemplate.find(query, Gallery.class);
     }
 
+    /**
+     * ItemID 목록과 FromType에 해당하는 Gallery 중에서 ItemID 별로 첫번째 Gallery를 가져온다.
+     *
+     * db.gallery.aggregate([
+     *  {$match:{'status.status':'ENABLE', linkedItems:{$elemMatch:{_id:{$in:[ObjectId("58b7b9dd716dce06b10e449a")]}, from:'ARTICLE'}}}},
+     *  {$unwind:'$linkedItems'},
+     *  {$match:{'linkedItems._id':{$in:[ObjectId("58b7b9dd716dce06b10e449a")]}, 'linkedItems.from':'ARTICLE'}},
+     *  {$sort:{_id:-1}},
+     *  {$project:{_id:1, name:1, fileName:1, writer:1, size:1, fileSize:1, contentType:1, status:1, hash:1, itemId:'$linkedItems._id'}},
+     *  {$group:{_id:'$itemId', gallery:{$first:'$$ROOT'}}}])
+     */
+    @Override
+    public Map<String, Gallery> findFirstByItemIdInAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType) {
+
+        if (CollectionUtils.isEmpty(itemIds))
+            return Collections.emptyMap();
+
+        List<AggregationOperation> operations = unwindLinkedItems(itemIds, fromType);
+        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.DESC, "_id");
+        AggregationOperation project1 = Aggregation.project("name", "fileName", "writer", "size", "fileSize", "contentType", "status", "hash", "blobId")
+                .and("linkedItems._id").as("itemId");
+        AggregationOperation group1 = Aggregation.group("itemId").first(Aggregation.ROOT).as("gallery");
+
+        operations.addAll(Arrays.asList(sort1, project1, group1));
+
+        Aggregation aggregation = Aggregation.newAggregation(operations);
+        AggregationResults<LinkedItemGallery> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_GALLERY, LinkedItemGallery.class);
+
+        return results.getMappedResults().stream()
+                .collect(Collectors.toMap(LinkedItemGallery::getId, LinkedItemGallery::getGallery));
+    }
+
+    /**
+     * ItemID 목록과 FromType에 해당하는 Gallery ID 목록을 ItemID 별로 가져온다.
+     *
+     * db.gallery.aggregate([
+     *  {$match:{'status.status':'ENABLE', linkedItems:{$elemMatch:{_id:{$in:[ObjectId("58b7b9dd716dce06b10e449a")]}, from:'ARTICLE'}}}},
+     *  {$unwind:'$linkedItems'},
+     *  {$match:{'linkedItems._id':{$in:[ObjectId("58b7b9dd716dce06b10e449a")]}, 'linkedItems.from':'ARTICLE'}},
+     *  {$sort:{_id:1}},
+     *  {$project:{_id:1, itemId:'$linkedItems._id'}},
+     *  {$group:{_id:'$itemId', galleryIds:{$push:'$_id'}}}])
+     */
+    @Override
+    public Map<String, List<String>> findIdsByItemIdInAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType) {
+
+        if (CollectionUtils.isEmpty(itemIds))
+            return Collections.emptyMap();
+
+        List<AggregationOperation> operations = unwindLinkedItems(itemIds, fromType);
+        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.ASC, "_id");
+        AggregationOperation project1 = Aggregation.project("_id")
+                .and("linkedItems._id").as("itemId");
+        AggregationOperation group1 = Aggregation.group("itemId").push("_id").as("galleryIds");
+
+        operations.addAll(Arrays.asList(sort1, project1, group1));
+
+        Aggregation aggregation = Aggregation.newAggregation(operations);
+        AggregationResults<LinkedItemGalleryIds> results = secondaryPreferredMongoTemplate.aggregate(aggregation, Constants.COLLECTION_GALLERY, LinkedItemGalleryIds.class);
+
+        return results.getMappedResults().stream()
+                .collect(Collectors.toMap(LinkedItemGalleryIds::getId, LinkedItemGalleryIds::getGalleryIds));
+    }
+
+    /**
+     * ItemID 목록에 연결된 사진을 연결 하나당 한 줄로 펼친다. ItemID 별로 묶는 쿼리들의 앞부분.
+     */
+    private static List<AggregationOperation> unwindLinkedItems(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType) {
+
+        Criteria linkedItemCriteria = Criteria.where("_id").in(itemIds).and("from").is(fromType.name());
+
+        AggregationOperation match1 = Aggregation.match(Criteria.where("status.status").is(Constants.GALLERY_STATUS_TYPE.ENABLE.name())
+                .and("linkedItems").elemMatch(linkedItemCriteria));
+        AggregationOperation unwind1 = Aggregation.unwind("linkedItems");
+        AggregationOperation match2 = Aggregation.match(Criteria.where("linkedItems._id").in(itemIds)
+                .and("linkedItems.from").is(fromType.name()));
+
+        return new ArrayList<>(Arrays.asList(match1, unwind1, match2));
+    }
+
+    /**
+     * 기준 Gallery ID 초과의 Gallery 목록을 ID 오름차순으로 가져온다.
+     *
+     * @param id 해당 ID 초과의 조건 추가 (null 이면 검사 안함)
+     */
+    @Override
+    public List<Gallery> findGalleriesGreaterThanId(ObjectId id, Integer limit) {
+
+        Query query = new Query();
+        query.addCriteria(Criteria.where("status.status").is(Constants.GALLERY_STATUS_TYPE.ENABLE.name()));
+        query.limit(limit);
+
+        if (Objects.nonNull(id))
+            query.addCriteria(Criteria.where("_id").gt(id));
+
+        query.with(new Sort(Sort.Direction.ASC, "_id"));
+
+        return secondaryPreferredMongoTemplate.find(query, Gallery.class);
+    }
+
     @Override
     public List<GallerySimple> findSimpleById(ObjectId id, Integer limit) {
 
@@ -80,4 +197,11 @@ public class GalleryRepositoryImpl implements GalleryRepositoryCustom {
 
         return mongoTemplate.find(query, GallerySimple.class);
     }
+
+    @Override
+    public void updateSize(String id, Long size) {
+        Query query = new Query(Criteria.where("_id").is(new ObjectId(id)));
+
+        mongoTemplate.updateFirst(query, new Update().set("size", size), Gallery.class);
+    }
 }
@@ -9,6 +9,8 @@ import com.jakduk.api.restcontroller.vo.admin.*;
 import com.jakduk.api.service.AdminService;
 import com.jakduk.api.service.CommonService;
 import com.jakduk.api.service.CompetitionService;
+import com.jakduk.api.service.GalleryRebuildService;
+import com.jakduk.api.service.SearchReindexService;
 import com.jakduk.api.service.StatsService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -45,6 +47,12 @@ public class AdminRestController {
 	@Autowired
 	private CompetitionService competitionService;
 
+	@Autowired
+	private SearchReindexService searchReindexService;
+
+	@Autowired
+	private GalleryRebuildService galleryRebuildService;
+
 	@ApiOperation(value = "알림판 목록")
 	@RequestMapping(value = "/home/descriptions", method = RequestMethod.GET)
 	public Map<String, Object> getHomeDescriptions() {
@@ -542,21 +550,70 @@ public class AdminRestController {
 		return EmptyJsonResponse.newInstance();
 	}
 
-	@RequestMapping(value = "/thumbnail/size", method = RequestMethod.GET)
-	public Map<String, Object> thumbnailSizeWrite() {
+	@ApiOperation(value = "가로 길이별 사진, 썸네일 다시 만들기 시작")
+	@RequestMapping(value = "/gallery/rebuild", method = RequestMethod.POST)
+	public GalleryRebuildProgress startGalleryRebuild() {
+		return galleryRebuildService.startRebuild();
+	}
+
+	@ApiOperation(value = "실패한 사진 다시 만들기 이어서 하기")
+	@RequestMapping(value = "/gallery/rebuild/resume", method = RequestMethod.POST)
+	public GalleryRebuildProgress resumeGalleryRebuild() {
+		return galleryRebuildService.resumeRebuild();
+	}
 
+	@ApiOperation(value = "사진 다시 만들기 진행 상황")
+	@RequestMapping(value = "/gallery/rebuild", method = RequestMethod.GET)
+	public Map<String, Object> getGalleryRebuildProgress() {
 		Map<String, Object> data = new HashMap<>();
-		data.put("resWidth", Constants.GALLERY_THUMBNAIL_SIZE_WIDTH);
-		data.put("resHeight", Constants.GALLERY_THUMBNAIL_SIZE_HEIGHT);
+		data.put("progress", galleryRebuildService.getProgress());
+		return data;
+	}
 
+	@ApiOperation(value = "이미지 캐시 통계")
+	@RequestMapping(value = "/image-cache", method = RequestMethod.GET)
+	public Map<String, Object> getImageCacheStats() {
+		return adminService.getImageCacheStats();
+	}
+
+	@ApiOperation(value = "Mongo 인덱스, 쿼리 실행 계획 확인")
+	@RequestMapping(value = "/mongo/indexes", method = RequestMethod.GET)
+	public Map<String, Object> getMongoIndexReport() {
+		return adminService.getMongoIndexReport();
+	}
+
+	@ApiOperation(value = "Mongo 연결 풀 통계")
+	@RequestMapping(value = "/mongo/pool", method = RequestMethod.GET)
+	public Map<String, Object> getMongoPoolStats() {
+		return adminService.getMongoPoolStats();
+	}
+
+	@ApiOperation(value = "글의 댓글 수, 감정 수 다시 계산")
+	@RequestMapping(value = "/article/counts", method = RequestMethod.POST)
+	public Map<String, Object> initArticleCounts() {
+		Map<String, Object> data = new HashMap<>();
+		data.put("count", adminService.initArticleCounts());
 		return data;
 	}
 
-	@ApiOperation(value = "썸네일 크기 지정")
-	@RequestMapping(value = "/thumbnail/size", method = RequestMethod.POST)
-	public EmptyJsonResponse thumbnailSizeWrite(@RequestBody ThumbnailSizeWrite thumbnailSizeWrite) {
-		adminService.thumbnailSizeWrite(thumbnailSizeWrite);
-		return EmptyJsonResponse.newInstance();
+	@ApiOperation(value = "엘라스틱서치 재색인 시작")
+	@RequestMapping(value = "/search/reindex", method = RequestMethod.POST)
+	public ReindexProgress startSearchReindex() {
+		return searchReindexService.startReindex();
+	}
+
+	@ApiOperation(value = "실패한 엘라스틱서치 재색인 이어서 하기")
+	@RequestMapping(value = "/search/reindex/resume", method = RequestMethod.POST)
+	public ReindexProgress resumeSearchReindex() {
+		return searchReindexService.resumeReindex();
+	}
+
+	@ApiOperation(value = "엘라스틱서치 재색인 진행 상황")
+	@RequestMapping(value = "/search/reindex", method = RequestMethod.GET)
+	public Map<String, Object> getSearchReindexProgress() {
+		Map<String, Object> data = new HashMap<>();
+		data.put("progress", searchReindexService.getProgress());
+		return data;
 	}
 
 	@ApiOperation(value = "경기 목록")
@@ -6,7 +6,6 @@ import com.jakduk.api.common.annotation.SecuredUser;
 import com.jakduk.api.common.board.category.BoardCategory;
 import com.jakduk.api.common.board.category.BoardCategoryGenerator;
 import com.jakduk.api.common.util.AuthUtils;
-import com.jakduk.api.common.util.DateUtils;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
@@ -24,7 +23,6 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.apache.commons.lang3.StringUtils;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mobile.device.Device;
@@ -35,9 +33,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.time.LocalDate;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -53,14 +49,24 @@ public class BoardRestController {
     @Autowired private ArticleService articleService;
     @Autowired private GalleryService galleryService;
     @Autowired private AuthHelper authHelper;
+    @Autowired private BoardCategoryGenerator boardCategoryGenerator;
 
     @ApiOperation("게시판 글 목록")
     @GetMapping("/{board}/articles")
     public GetArticlesResponse getArticles(
             @ApiParam(value = "게시판", required = true) @PathVariable Constants.BOARD_TYPE_LOWERCASE board,
             @ApiParam(value = "페이지 번호(1부터 시작)") @RequestParam(required = false, defaultValue = "1") Integer page,
-            @ApiParam(value = "페이지 사이즈") @RequestParam(required = false, defaultValue = "20") Integer size,
-            @ApiParam(value = "말머리") @RequestParam(required = false, defaultValue = "ALL") String categoryCode) {
+            @ApiParam(value = "페이지 사이즈(최대 100)") @RequestParam(required = false, defaultValue = "20") Integer size,
+            @ApiParam(value = "말머리") @RequestParam(required = false, defaultValue = "ALL") String categoryCode,
+            @ApiParam(value = "이 글 ID 다음(더 오래된) 글들. 주면 page 는 무시") @RequestParam(required = false) String after,
+            @ApiParam(value = "이 글 ID 이전(더 새) 글들. 주면 page 는 무시") @RequestParam(required = false) String before,
+            @ApiParam(value = "after, before 를 쓸 때 전체 글 수를 셀지") @RequestParam(required = false, defaultValue = "true") Boolean includeTotal) {
+
+        if (size <= 0) size = Constants.BOARD_MAX_LIMIT;
+        if (size > Constants.BOARD_MAX_PAGE_SIZE) size = Constants.BOARD_MAX_PAGE_SIZE;
+
+        if (StringUtils.isNotBlank(after) || StringUtils.isNotBlank(before))
+            return articleService.getArticlesByCursor(StringUtils.upperCase(board.name()), categoryCode, after, before, size, includeTotal);
 
         return articleService.getArticles(StringUtils.upperCase(board.name()), categoryCode, page, size);
     }
@@ -70,11 +76,8 @@ public class BoardRestController {
     public GetBoardTopsResponse getBoardTops(
             @ApiParam(value = "게시판", required = true) @PathVariable Constants.BOARD_TYPE_LOWERCASE board) {
 
-        LocalDate localDate = LocalDate.now().minusWeeks(1);
-        ObjectId objectId = new ObjectId(DateUtils.localDateToDate(localDate));
-
-        List<BoardTop> topLikes = articleService.getFreeTopLikes(StringUtils.upperCase(board.name()), objectId);
-        List<BoardTop> topComments = articleService.getFreeTopComments(StringUtils.upperCase(board.name()), objectId);
+        List<BoardTop> topLikes = articleService.getFreeTopLikes(StringUtils.upperCase(board.name()));
+        List<BoardTop> topComments = articleService.getFreeTopComments(StringUtils.upperCase(board.name()));
 
         return GetBoardTopsResponse.builder()
                 .topLikes(topLikes)
@@ -87,10 +90,20 @@ public class BoardRestController {
     public GetArticleCommentsResponse getArticleComments(
             @ApiParam(value = "게시판", required = true) @PathVariable Constants.BOARD_TYPE_LOWERCASE board,
             @ApiParam(value = "페이지 번호(1부터 시작)") @RequestParam(required = false, defaultValue = "1") Integer page,
-            @ApiParam(value = "페이지 사이즈") @RequestParam(required = false, defaultValue = "20") Integer size) {
+            @ApiParam(value = "페이지 사이즈(최대 100)") @RequestParam(required = false, defaultValue = "20") Integer size,
+            @ApiParam(value = "이 댓글 ID 다음(더 오래된) 댓글들. 주면 page 는 무시") @RequestParam(required = false) String after,
+            @ApiParam(value = "이 댓글 ID 이전(더 새) 댓글들. 주면 page 는 무시") @RequestParam(required = false) String before,
+            @ApiParam(value = "after, before 를 쓸 때 전체 댓글 수를 셀지") @RequestParam(required = false, defaultValue = "true") Boolean includeTotal) {
+
+        if (size <= 0) size = Constants.BOARD_MAX_LIMIT;
+        if (size > Constants.BOARD_MAX_PAGE_SIZE) size = Constants.BOARD_MAX_PAGE_SIZE;
 
         CommonWriter commonWriter = AuthUtils.getCommonWriter();
 
+        if (StringUtils.isNotBlank(after) || StringUtils.isNotBlank(before))
+            return articleService.getArticleCommentsByCursor(commonWriter, StringUtils.upperCase(board.name()), after, before, size,
+                    includeTotal);
+
         return articleService.getArticleComments(commonWriter, StringUtils.upperCase(board.name()), page, size);
     }
 
@@ -114,7 +127,7 @@ public class BoardRestController {
 
         Constants.BOARD_TYPE boardType = Constants.BOARD_TYPE.valueOf(StringUtils.upperCase(board.name()));
 
-        List<BoardCategory> categories = new BoardCategoryGenerator().getCategories(boardType, JakdukUtils.getLocale());
+        List<BoardCategory> categories = boardCategoryGenerator.getCategories(boardType, JakdukUtils.getLocale());
 
         return GetBoardCategoriesResponse.builder()
                 .categories(categories)
@@ -332,17 +345,7 @@ public class BoardRestController {
 
         CommonWriter commonWriter = AuthUtils.getCommonWriter();
 
-        Article article = articleService.setFreeFeelings(commonWriter, StringUtils.upperCase(board.name()), seq, feelingType);
-
-        UserFeelingResponse response = UserFeelingResponse.builder()
-                .numberOfLike(CollectionUtils.isEmpty(article.getUsersLiking()) ? 0 : article.getUsersLiking().size())
-                .numberOfDislike(CollectionUtils.isEmpty(article.getUsersDisliking()) ? 0 : article.getUsersDisliking().size())
-                .build();
-
-        if (Objects.nonNull(commonWriter))
-            response.setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, article.getUsersLiking(), article.getUsersDisliking()));
-
-        return response;
+        return articleService.setFreeFeelings(commonWriter, StringUtils.upperCase(board.name()), seq, feelingType);
     }
 
     @ApiOperation(value = "자유게시판 글의 감정 표현 회원 목록")
@@ -369,17 +372,7 @@ public class BoardRestController {
 
         CommonWriter commonWriter = AuthUtils.getCommonWriter();
 
-        ArticleComment boardComment = articleService.setFreeCommentFeeling(commonWriter, commentId, feeling);
-
-        UserFeelingResponse response = UserFeelingResponse.builder()
-                .numberOfLike(CollectionUtils.isEmpty(boardComment.getUsersLiking()) ? 0 : boardComment.getUsersLiking().size())
-                .numberOfDislike(CollectionUtils.isEmpty(boardComment.getUsersDisliking()) ? 0 : boardComment.getUsersDisliking().size())
-                .build();
-
-        if (Objects.nonNull(commonWriter))
-            response.setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, boardComment.getUsersLiking(), boardComment.getUsersDisliking()));
-
-        return response;
+        return articleService.setFreeCommentFeeling(commonWriter, commentId, feeling);
     }
 
     @ApiOperation(value = "게시판 글의 공지 활성화")
@@ -77,6 +77,7 @@ public class GalleryRestController {
 
         BeanUtils.copyProperties(gallery, response);
         response.setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()));
+        response.setImageSrcset(urlGenerationUtils.generateGallerySrcset(gallery.getId()));
         response.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
 
         return response;
@@ -1,23 +1,15 @@
 package com.jakduk.api.restcontroller;
 
-import com.jakduk.api.common.Constants;
 import com.jakduk.api.common.util.JakdukUtils;
-import com.jakduk.api.common.util.UrlGenerationUtils;
 import com.jakduk.api.model.db.Encyclopedia;
-import com.jakduk.api.model.simple.GallerySimple;
-import com.jakduk.api.restcontroller.vo.home.GalleryOnHome;
 import com.jakduk.api.restcontroller.vo.home.HomeResponse;
-import com.jakduk.api.service.ArticleService;
-import com.jakduk.api.service.GalleryService;
+import com.jakduk.api.service.HomeLatestCache;
 import com.jakduk.api.service.HomeService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * @author pyohwan
  * 16. 3. 20 오후 9:13
@@ -28,10 +20,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/api")
 public class HomeRestController {
 
-    @Autowired private UrlGenerationUtils urlGenerationUtils;
     @Autowired private HomeService homeService;
-    @Autowired private ArticleService articleService;
-    @Autowired private GalleryService galleryService;
+    @Autowired private HomeLatestCache homeLatestCache;
 
     @ApiOperation(value = "랜덤하게 백과사전 하나 가져오기")
     @RequestMapping(value = "/home/encyclopedia", method = RequestMethod.GET)
@@ -49,27 +39,7 @@ public class HomeRestController {
 
         String language = JakdukUtils.getLanguageCode(lang);
 
-        HomeResponse response = new HomeResponse();
-        response.setHomeDescription(homeService.getHomeDescription());
-        response.setUsers(homeService.getUsersLatest(language));
-        response.setComments(homeService.getBoardCommentsLatest());
-        response.setArticles(articleService.getLatestArticles());
-
-        // 최근 사진
-        List<GallerySimple> galleries = galleryService.findSimpleById(null, Constants.HOME_SIZE_GALLERY);
-
-        // 사진 경로 붙히기.
-        List<GalleryOnHome> galleriesOfHome = galleries.stream()
-                .map(GalleryOnHome::new)
-                .peek(gallery -> {
-                    gallery.setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()));
-                    gallery.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
-                })
-                .collect(Collectors.toList());
-
-        response.setGalleries(galleriesOfHome);
-
-        return response;
+        return homeLatestCache.getLatest(language);
     }
 }
 
@@ -165,15 +165,6 @@ public class JakduRestController {
 
         CommonWriter commonWriter = AuthUtils.getCommonWriter();
 
-        JakduComment jakduComment = jakduService.setJakduCommentFeeling(commonWriter, commentId, feeling);
-
-        Integer numberOfLike = Objects.nonNull(jakduComment.getUsersLiking()) ? jakduComment.getUsersLiking().size() : 0;
-        Integer numberOfDisLike = Objects.nonNull(jakduComment.getUsersDisliking()) ? jakduComment.getUsersDisliking().size() : 0;
-
-        return UserFeelingResponse.builder()
-                .myFeeling(feeling)
-                .numberOfLike(numberOfLike)
-                .numberOfDislike(numberOfDisLike)
-                .build();
+        return jakduService.setJakduCommentFeeling(commonWriter, commentId, feeling);
     }
 }
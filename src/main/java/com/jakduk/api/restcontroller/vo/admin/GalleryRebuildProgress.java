@@ -0,0 +1,28 @@
+package com.jakduk.api.restcontroller.vo.admin;
+
+import com.jakduk.api.common.Constants;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 가로 길이별 사진, 썸네일 다시 만들기 진행 상황
+ */
+
+@Builder
+@Getter
+public class GalleryRebuildProgress {
+
+	private Constants.REINDEX_STATUS status;
+	private String lastGalleryId;			// 마지막으로 다 만든 묶음의 마지막 사진 ID. 재개할 때 이 다음부터 한다.
+	private long rebuiltCount;
+	private long skippedCount;				// 사진 파일이 없어서 건너뛴 수
+	private long failedCount;				// 디코딩, 쓰기에 실패한 수. 작업은 멈추지 않는다.
+	private int parallelism;
+	private double galleriesPerSecond;
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	private String message;					// 실패 사유
+
+}
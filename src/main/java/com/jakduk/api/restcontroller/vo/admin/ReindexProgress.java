@@ -0,0 +1,31 @@
+package com.jakduk.api.restcontroller.vo.admin;
+
+import com.jakduk.api.common.Constants;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 엘라스틱서치 재색인 진행 상황
+ */
+
+@Builder
+@Getter
+public class ReindexProgress {
+
+	private Constants.REINDEX_STATUS status;
+	private String boardIndex;				// 새로 만든 게시판 인덱스
+	private String galleryIndex;			// 새로 만든 사진첩 인덱스
+	private String lastArticleId;			// 마지막으로 색인한 글 ID. 재개할 때 이 다음부터 한다.
+	private String lastCommentId;
+	private String lastGalleryId;
+	private long articleCount;
+	private long commentCount;
+	private long galleryCount;
+	private double docsPerSecond;
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	private String message;					// 실패 사유
+
+}
@@ -30,18 +30,18 @@ public class GetArticleCommentsResponse {
     @ApiModelProperty(value = "첫 페이지 여부")
     boolean first;
 
-    @ApiModelProperty(value = "전체 페이지 수")
-    int totalPages;
+    @ApiModelProperty(value = "전체 페이지 수. 세지 않았으면 없음")
+    Integer totalPages;
 
     @ApiModelProperty(value = "페이지당 글 수")
     int size;
 
-    @ApiModelProperty(value = "현재 페이지(0부터 시작)")
-    int number;
+    @ApiModelProperty(value = "현재 페이지(0부터 시작). after, before 로 읽었으면 없음")
+    Integer number;
 
     @ApiModelProperty(value = "현제 페이지에서 글 수")
     int numberOfElements;
 
-    @ApiModelProperty(value = "전체 글 수")
-    long totalElements;
+    @ApiModelProperty(value = "전체 글 수. 세지 않았으면 없음")
+    Long totalElements;
 }
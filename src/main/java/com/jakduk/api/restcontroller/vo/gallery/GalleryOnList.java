@@ -27,6 +27,9 @@ public class GalleryOnList {
     @ApiModelProperty(example = "https://staging.jakduk.com:8080/gallery/58b9050b807d714eaf50a111", value = "사진 풀 URL")
     private String imageUrl;
 
+    @ApiModelProperty(example = "https://staging.jakduk.com:8080/gallery/58b9050b807d714eaf50a111?w=320 320w, https://staging.jakduk.com:8080/gallery/58b9050b807d714eaf50a111?w=640 640w", value = "사진 가로 길이별 URL (srcset)")
+    private String imageSrcset;
+
     @ApiModelProperty(example = "https://staging.jakduk.com:8080/gallery/thumbnail/58b9050b807d714eaf50a111", value = "사진 썸네일 URL")
     private String thumbnailUrl;
 
@@ -29,8 +29,8 @@ public class GalleryUploadResponse {
     @ApiModelProperty(value = "글쓴이")
     private CommonWriter writer;
 
-    @ApiModelProperty(value = "사진 크기")
-    private long size;
+    @ApiModelProperty(value = "줄인 사진 크기. 아직 줄이고 있으면 없다")
+    private Long size;
 
     @ApiModelProperty(value = "사진 파일 크기")
     private long fileSize;
@@ -44,6 +44,9 @@ public class GalleryUploadResponse {
     @ApiModelProperty(value = "사진 URL")
     private String imageUrl;
 
+    @ApiModelProperty(value = "사진 가로 길이별 URL (srcset)")
+    private String imageSrcset;
+
     @ApiModelProperty(value = "썸네일 URL")
     private String thumbnailUrl;
 
@@ -29,6 +29,9 @@ public class GalleryOnHome {
     @ApiModelProperty(value = "사진 URL")
     private String imageUrl;
 
+    @ApiModelProperty(value = "사진 가로 길이별 URL (srcset)")
+    private String imageSrcset;
+
     @ApiModelProperty(value = "썸네일 URL")
     private String thumbnailUrl;
 
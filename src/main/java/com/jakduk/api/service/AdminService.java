@@ -2,10 +2,14 @@ package com.jakduk.api.service;
 
 
 import com.jakduk.api.common.Constants;
-import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.common.ImageCache;
+import com.jakduk.api.common.mongodb.MongoIndexVerifier;
+import com.jakduk.api.common.mongodb.MongoPoolMetrics;
 import com.jakduk.api.dao.JakdukDAO;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.aggregate.BoardFeelingCount;
+import com.jakduk.api.model.aggregate.CommonCount;
 import com.jakduk.api.model.db.*;
 import com.jakduk.api.model.embedded.JakduScheduleScore;
 import com.jakduk.api.model.embedded.LocalName;
@@ -13,15 +17,15 @@ import com.jakduk.api.repository.AttendanceClubRepository;
 import com.jakduk.api.repository.CompetitionRepository;
 import com.jakduk.api.repository.EncyclopediaRepository;
 import com.jakduk.api.repository.HomeDescriptionRepository;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.repository.article.comment.ArticleCommentRepository;
 import com.jakduk.api.repository.footballclub.FootballClubOriginRepository;
 import com.jakduk.api.repository.footballclub.FootballClubRepository;
-import com.jakduk.api.repository.gallery.GalleryRepository;
 import com.jakduk.api.repository.jakdu.JakduScheduleGroupRepository;
 import com.jakduk.api.repository.jakdu.JakduScheduleRepository;
 import com.jakduk.api.restcontroller.vo.admin.CompetitionWrite;
 import com.jakduk.api.restcontroller.vo.admin.JakduScheduleGroupWrite;
 import com.jakduk.api.restcontroller.vo.admin.JakduScheduleWrite;
-import com.jakduk.api.restcontroller.vo.admin.ThumbnailSizeWrite;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.bson.types.ObjectId;
@@ -29,22 +33,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.Resource;
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.BufferedInputStream;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.*;
-import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:phjang1983@daum.net">Jang,Pyohwan</a>
@@ -54,14 +44,16 @@ import java.util.List;
 @Service
 public class AdminService {
 
-	@Resource private JakdukProperties.Storage storageProperties;
-
 	@Autowired private JakdukDAO jakdukDAO;
 	@Autowired private CommonService commonService;
+	@Autowired private ImageCache imageCache;
+	@Autowired private MongoIndexVerifier mongoIndexVerifier;
+	@Autowired private MongoPoolMetrics mongoPoolMetrics;
 	@Autowired private EncyclopediaRepository encyclopediaRepository;
 	@Autowired private FootballClubRepository footballClubRepository;
 	@Autowired private FootballClubOriginRepository footballClubOriginRepository;
-	@Autowired private GalleryRepository galleryRepository;
+	@Autowired private ArticleRepository articleRepository;
+	@Autowired private ArticleCommentRepository articleCommentRepository;
 	@Autowired private HomeDescriptionRepository homeDescriptionReposotiry;
 	@Autowired private AttendanceClubRepository attendanceClubRepository;
 	@Autowired private JakduScheduleRepository jakduScheduleRepository;
@@ -152,66 +144,62 @@ public class AdminService {
 		return attendanceClubs;
 	}
 	
-	public void thumbnailSizeWrite(ThumbnailSizeWrite thumbnailSizeWrite) {
-		
-		List<Gallery> galleries;
-		
-		if (thumbnailSizeWrite.getGalleryId() != null && !thumbnailSizeWrite.getGalleryId().isEmpty()) {
-			galleries = new ArrayList<>();
-			galleries.add(galleryRepository.findOne(thumbnailSizeWrite.getGalleryId()));
-		} else {
-			galleries = galleryRepository.findAll();
-		}
-		
-		for (Gallery gallery : galleries) {
-			ObjectId objId = new ObjectId(gallery.getId());
-			Instant instant = Instant.ofEpochMilli(objId.getDate().getTime());
-			LocalDateTime timePoint = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-			
-			Path imageDirPath = Paths.get(storageProperties.getImagePath(), String.valueOf(timePoint.getYear()),
-					String.valueOf(timePoint.getMonthValue()), String.valueOf(timePoint.getDayOfMonth()));
-			
-			Path thumbDirPath = Paths.get(storageProperties.getThumbnailPath(), String.valueOf(timePoint.getYear()),
-					String.valueOf(timePoint.getMonthValue()), String.valueOf(timePoint.getDayOfMonth()));
-			
-			// 사진 경로.
-			Path imageFilePath = imageDirPath.resolve(gallery.getId());
-			Path thumbFilePath = thumbDirPath.resolve(gallery.getId());
-			
-			// 사진 포맷.
-			String formatName = "jpg";
-			
-			String splitContentType[] = gallery.getContentType().split("/");
-			if (!splitContentType[1].equals("octet-stream")) {
-				formatName = splitContentType[1];
-			}
-			
-			if (Files.exists(imageFilePath, LinkOption.NOFOLLOW_LINKS)) {
-				
-				try {
-					
-					if (Files.exists(thumbFilePath, LinkOption.NOFOLLOW_LINKS)) {
-						Files.delete(thumbFilePath);
-					}
-
-					log.debug("gallery=" + gallery);
-					
-					BufferedInputStream in = new BufferedInputStream(new FileInputStream(imageFilePath.toString()));
-					
-					BufferedImage bi = ImageIO.read(in);
-					BufferedImage bufferIm = new BufferedImage(thumbnailSizeWrite.getWidth(), thumbnailSizeWrite.getHeight(), BufferedImage.TYPE_INT_RGB);
-					Image tempImg = bi.getScaledInstance(thumbnailSizeWrite.getWidth(), thumbnailSizeWrite.getHeight(), Image.SCALE_AREA_AVERAGING);
-					Graphics2D g2 = bufferIm.createGraphics();
-					g2.drawImage(tempImg, 0, 0, thumbnailSizeWrite.getWidth(), thumbnailSizeWrite.getHeight(), null);
-					
-					ImageIO.write(bufferIm, formatName, thumbFilePath.toFile());				
-					
-					in.close();					
-				} catch (IOException e) {
-					log.warn(e.getMessage(), e);
-				}
-			}				
-		}
+	/**
+	 * 이미지 캐시 통계
+	 */
+	public Map<String, Object> getImageCacheStats() {
+		return imageCache.getStats();
+	}
+
+	/**
+	 * 선언한 Mongo 인덱스가 있는지, 자주 쓰는 쿼리가 인덱스를 타는지
+	 */
+	public Map<String, Object> getMongoIndexReport() {
+		return mongoIndexVerifier.getReport();
+	}
+
+	/**
+	 * Mongo 연결 풀 사용량, 대기 시간, 실패 수
+	 */
+	public Map<String, Object> getMongoPoolStats() {
+		return mongoPoolMetrics.getStats();
+	}
+
+	/**
+	 * 글의 댓글 수, 감정 수를 다시 계산해서 저장한다.
+	 * 카운터 필드가 없는 기존 글들을 채우거나, 어긋난 카운터를 바로잡을 때 쓴다.
+	 *
+	 * @return 처리한 글 수
+	 */
+	public Integer initArticleCounts() {
+
+		Integer total = 0;
+		ObjectId lastId = null;
+		List<BoardFeelingCount> feelingCounts;
+
+		do {
+			feelingCounts = articleRepository.findUsersFeelingCountGreaterThanId(lastId, Constants.NUMBER_OF_ITEMS_EACH_PAGES);
+
+			if (feelingCounts.isEmpty())
+				break;
+
+			List<ObjectId> ids = feelingCounts.stream()
+					.map(feelingCount -> new ObjectId(feelingCount.getId()))
+					.collect(Collectors.toList());
+
+			Map<String, Integer> commentCounts = articleCommentRepository.findCommentsCountByIds(ids).stream()
+					.collect(Collectors.toMap(CommonCount::getId, CommonCount::getCount));
+
+			articleRepository.updateCounts(feelingCounts, commentCounts);
+
+			total += feelingCounts.size();
+			lastId = ids.get(ids.size() - 1);
+
+			log.info("Article counts initialized. total=" + total + ", lastId=" + lastId);
+
+		} while (feelingCounts.size() == Constants.NUMBER_OF_ITEMS_EACH_PAGES);
+
+		return total;
 	}
 
 	public void saveAttendanceClub(String id, String origin, String league, Integer season, Integer games, Integer total, Integer average) {
@@ -0,0 +1,218 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.util.JakdukUtils;
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.simple.ArticleOnRSS;
+import com.rometools.rome.feed.rss.Channel;
+import com.rometools.rome.feed.rss.Content;
+import com.rometools.rome.feed.rss.Description;
+import com.rometools.rome.feed.rss.Item;
+import com.rometools.rome.io.FeedException;
+import com.rometools.rome.io.WireFeedOutput;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * RSS 피드를 언어별로 직렬화해 둔다. 요청에는 만들어 둔 바이트를 ETag, Last-Modified 와 함께 그대로 준다.
+ *
+ * 최근 글 jakduk.rss.max-items 개만 담는다. jakduk.rss.refresh-interval-millis 마다, 또 글이 생기면
+ * 지난번 가장 새 글보다 새 글만 가져와 앞에 붙인다. 글을 고치거나 지우면 최근 글을 다시 가져온다.
+ */
+
+@Slf4j
+@Component
+public class ArticleRssFeed {
+
+	private final static List<Locale> LOCALES = Arrays.asList(Locale.KOREAN, Locale.ENGLISH);
+
+	@Resource private JakdukProperties jakdukProperties;
+	@Resource private JakdukProperties.Rss rssProperties;
+
+	@Autowired private UrlGenerationUtils urlGenerationUtils;
+	@Autowired private ArticleService articleService;
+
+	private volatile Snapshot snapshot;
+
+	// 다시 만들기는 한 쓰레드에서 차례로 한다. 먼저 시작한 것이 나중 것을 덮어쓰지 않게.
+	private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "article-rss-refresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// 이미 다시 만들기를 걸어 뒀으면 또 걸지 않는다.
+	private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+	// 담아 둔 글이 바뀌었을 수 있어서 새 글만 붙이지 않고 최근 글을 다시 가져와야 한다.
+	private final AtomicBoolean reloadRequired = new AtomicBoolean();
+
+	/**
+	 * 언어별 RSS 피드. 처음에만 요청 쓰레드에서 만든다.
+	 *
+	 * @param language 언어 코드. 없는 언어면 영어.
+	 */
+	public CachedFeed getFeed(String language) {
+		Snapshot current = snapshot;
+
+		if (Objects.isNull(current))
+			current = this.load();
+
+		return current.getFeeds().getOrDefault(language, current.getFeeds().get(Locale.ENGLISH.getLanguage()));
+	}
+
+	/**
+	 * 글이 생겼을 때
+	 */
+	public void articleAdded() {
+		this.schedule();
+	}
+
+	/**
+	 * 글을 고치거나 지웠을 때
+	 */
+	public void articleChanged() {
+		reloadRequired.set(true);
+		this.schedule();
+	}
+
+	@Scheduled(fixedDelayString = "${jakduk.rss.refresh-interval-millis:60000}")
+	public void refresh() {
+		this.schedule();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		refreshExecutor.shutdownNow();
+	}
+
+	private void schedule() {
+		if (Objects.isNull(snapshot) || ! refreshScheduled.compareAndSet(false, true))
+			return;
+
+		refreshExecutor.execute(() -> {
+			// 다시 만드는 동안 생긴 변경은 다음 번에 반영되게 먼저 푼다.
+			refreshScheduled.set(false);
+
+			try {
+				this.update();
+			} catch (Exception e) {
+				log.warn("Failed to refresh rss feed.", e);
+			}
+		});
+	}
+
+	private synchronized Snapshot load() {
+		if (Objects.isNull(snapshot))
+			this.update();
+
+		return snapshot;
+	}
+
+	private synchronized void update() {
+		Snapshot current = snapshot;
+		Boolean reload = reloadRequired.getAndSet(false) || Objects.isNull(current);
+		Integer maxItems = rssProperties.getMaxItems();
+
+		ObjectId lastId = reload ? null : current.getLastId();
+		List<ArticleOnRSS> articles = articleService.getBoardFreeOnRss(lastId, maxItems);
+
+		// 새 글이 없으면 바이트도 ETag 도 그대로 둔다.
+		if (! reload && articles.isEmpty())
+			return;
+
+		List<Item> items = articles.stream()
+				.map(this::toItem)
+				.collect(Collectors.toList());
+
+		if (! reload)
+			items.addAll(current.getItems());
+
+		if (items.size() > maxItems)
+			items = new ArrayList<>(items.subList(0, maxItems));
+
+		ObjectId newLastId = articles.isEmpty() ? lastId : new ObjectId(articles.get(0).getId());
+		long lastModified = System.currentTimeMillis();
+
+		Map<String, CachedFeed> feeds = new HashMap<>();
+
+		for (Locale locale : LOCALES)
+			feeds.put(locale.getLanguage(), this.serialize(items, locale, lastModified));
+
+		snapshot = new Snapshot(newLastId, Collections.unmodifiableList(items), feeds);
+	}
+
+	private Item toItem(ArticleOnRSS article) {
+		String url = urlGenerationUtils.generateArticleDetailUrl(article.getBoard(), article.getSeq());
+
+		Description description = new Description();
+		description.setType(Content.HTML);
+		description.setValue(JakdukUtils.stripHtmlTag(article.getContent()));
+
+		Item item = new Item();
+		item.setAuthor(article.getWriter().getUsername());
+		item.setTitle(article.getSubject());
+		item.setUri(url);
+		item.setLink(url);
+		item.setDescription(description);
+		item.setPubDate(new ObjectId(article.getId()).getDate());
+
+		return item;
+	}
+
+	private CachedFeed serialize(List<Item> items, Locale locale, long lastModified) {
+		Channel channel = new Channel("rss_2.0");
+		channel.setEncoding(StandardCharsets.UTF_8.name());
+		channel.setLink(String.format("%s/%s", jakdukProperties.getWebServerUrl(), "rss"));
+		channel.setTitle(JakdukUtils.getResourceBundleMessage(locale, "messages.common", "common.jakduk"));
+		channel.setDescription(JakdukUtils.getResourceBundleMessage(locale, "messages.common", "common.jakduk.rss.description"));
+		channel.setLastBuildDate(new Date(lastModified));
+		channel.setItems(items);
+
+		try {
+			byte[] body = new WireFeedOutput().outputString(channel).getBytes(StandardCharsets.UTF_8);
+
+			return new CachedFeed(body, DigestUtils.md5DigestAsHex(body), lastModified);
+
+		} catch (FeedException e) {
+			throw new ServiceException(ServiceError.INTERNAL_SERVER_ERROR, e);
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class Snapshot {
+		private final ObjectId lastId; // 담아 둔 가장 새 글
+		private final List<Item> items;
+		private final Map<String, CachedFeed> feeds;
+	}
+
+	/**
+	 * 직렬화해 둔 피드. 고치지 말아야 한다.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class CachedFeed {
+		private final byte[] body;
+		private final String hash;
+		private final long lastModified;
+	}
+
+}
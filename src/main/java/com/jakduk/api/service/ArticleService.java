@@ -3,38 +3,41 @@ package com.jakduk.api.service;
 import com.jakduk.api.common.Constants;
 import com.jakduk.api.common.board.category.BoardCategory;
 import com.jakduk.api.common.board.category.BoardCategoryGenerator;
+import com.jakduk.api.common.mongodb.UsersFeelingUpdater;
 import com.jakduk.api.common.rabbitmq.RabbitMQPublisher;
 import com.jakduk.api.common.util.AuthUtils;
-import com.jakduk.api.common.util.DateUtils;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.aggregate.BoardFeelingCount;
 import com.jakduk.api.model.aggregate.BoardTop;
-import com.jakduk.api.model.aggregate.CommonCount;
 import com.jakduk.api.model.db.Article;
 import com.jakduk.api.model.db.ArticleComment;
 import com.jakduk.api.model.db.Gallery;
-import com.jakduk.api.model.db.UsersFeeling;
 import com.jakduk.api.model.embedded.*;
 import com.jakduk.api.model.simple.*;
 import com.jakduk.api.repository.article.ArticleOnListRepository;
 import com.jakduk.api.repository.article.ArticleRepository;
 import com.jakduk.api.repository.article.comment.ArticleCommentRepository;
 import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
 import com.jakduk.api.restcontroller.vo.board.*;
 import com.jakduk.api.restcontroller.vo.home.LatestHomeArticle;
+import com.jakduk.api.service.mapper.ArticleMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.bson.types.ObjectId;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -42,11 +45,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 
+import javax.annotation.Resource;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.Map.Entry;
-import java.util.function.Consumer;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -55,6 +58,7 @@ import java.util.stream.Collectors;
 public class ArticleService {
 
 	@Autowired private UrlGenerationUtils urlGenerationUtils;
+	@Autowired private BoardCategoryGenerator boardCategoryGenerator;
 	@Autowired private ArticleRepository articleRepository;
 	@Autowired private ArticleOnListRepository articleOnListRepository;
 	@Autowired private ArticleCommentRepository articleCommentRepository;
@@ -62,6 +66,14 @@ public class ArticleService {
 	@Autowired private CommonService commonService;
 	@Autowired private CommonGalleryService commonGalleryService;
 	@Autowired private RabbitMQPublisher rabbitMQPublisher;
+	@Autowired private ArticleViewsCounter articleViewsCounter;
+	@Autowired private BoardTopsLeaderboard boardTopsLeaderboard;
+	@Autowired private HomeLatestCache homeLatestCache;
+	@Autowired private ArticleRssFeed articleRssFeed;
+	@Autowired private UsersFeelingUpdater usersFeelingUpdater;
+
+	@Resource private JakdukProperties.ArticleDetail articleDetailProperties;
+	@Resource private AsyncTaskExecutor articleDetailExecutor;
 
 	public Article findOneBySeq(String board, Integer seq) {
         return articleRepository.findOneByBoardAndSeq(board, seq)
@@ -80,7 +92,7 @@ public class ArticleService {
 	public Article insertArticle(CommonWriter writer, Constants.BOARD_TYPE board, String subject, String content, String categoryCode,
 								 List<Gallery> galleries, Constants.DEVICE_TYPE device) {
 
-		if (! new BoardCategoryGenerator().existCategory(board, categoryCode))
+		if (! boardCategoryGenerator.existCategory(board, categoryCode))
 			throw new ServiceException(ServiceError.NOT_FOUND_CATEGORY);
 
 		// shortContent 만듦
@@ -118,6 +130,10 @@ public class ArticleService {
 
 		articleRepository.save(article);
 
+		boardTopsLeaderboard.articleChanged(article);
+		homeLatestCache.changed();
+		articleRssFeed.articleAdded();
+
 	 	// 엘라스틱서치 색인 요청
 		rabbitMQPublisher.indexDocumentBoard(article.getId(), article.getSeq(), article.getWriter(), article.getSubject(),
 				article.getContent(), article.getBoard(), article.getCategory(), galleryIds);
@@ -180,7 +196,12 @@ public class ArticleService {
 		// lastUpdated
 		article.setLastUpdated(LocalDateTime.ofInstant(logId.getDate().toInstant(), ZoneId.systemDefault()));
 
-		articleRepository.save(article);
+		// 통째로 저장하면 그 사이에 $inc 한 댓글 수, 감정 수를 덮어쓴다. 고친 필드만 $set 한다.
+		articleRepository.updateEditedFields(new ObjectId(article.getId()), article, device, log);
+
+		boardTopsLeaderboard.articleChanged(article);
+		homeLatestCache.changed();
+		articleRssFeed.articleChanged();
 
 		ArticleService.log.info("post was edited. post seq={}, subject=", article.getSeq(), article.getSubject());
 
@@ -238,7 +259,12 @@ public class ArticleService {
 			// lastUpdated
 			article.setLastUpdated(LocalDateTime.ofInstant(boardHistoryId.getDate().toInstant(), ZoneId.systemDefault()));
 
-			articleRepository.save(article);
+			// 읽어 둔 뒤에 바뀐 댓글 수, 감정 수, 조회수를 덮어쓰지 않도록 지운 표시만 한다.
+			articleRepository.markDeleted(new ObjectId(article.getId()), history, article.getLastUpdated());
+
+			boardTopsLeaderboard.articleChanged(article);
+			homeLatestCache.changed();
+			articleRssFeed.articleChanged();
 
 			log.info("A post was deleted(post only). post seq={}, subject={}", article.getSeq(), article.getSubject());
         }
@@ -246,6 +272,10 @@ public class ArticleService {
         else {
             articleRepository.delete(article);
 
+			boardTopsLeaderboard.articleDeleted(article.getBoard(), article.getId());
+			homeLatestCache.changed();
+			articleRssFeed.articleChanged();
+
 			log.info("A post was deleted(all). post seq={}, subject={}", article.getSeq(), article.getSubject());
         }
 
@@ -274,97 +304,105 @@ public class ArticleService {
 			postsPage = articleOnListRepository.findByBoardAndCategory(board, categoryCode, pageable);
 		}
 
-		// 자유 게시판 공지글 목록
-		List<ArticleOnList> notices = articleRepository.findNotices(board, sort);
+		return this.getArticlesResponseBuilder(board, postsPage.getContent())
+				.first(postsPage.isFirst())
+				.last(postsPage.isLast())
+				.totalPages(postsPage.getTotalPages())
+				.totalElements(postsPage.getTotalElements())
+				.numberOfElements(postsPage.getNumberOfElements())
+				.size(postsPage.getSize())
+				.number(postsPage.getNumber())
+				.build();
+	}
 
-		// 게시물 VO 변환 및 썸네일 URL 추가
-		Function<ArticleOnList, GetArticle> convertToFreePost = post -> {
-			GetArticle freePosts = new GetArticle();
-			BeanUtils.copyProperties(post, freePosts);
+	/**
+	 * 자유게시판 글 목록. 기준 글 ID 의 앞, 뒤 페이지를 가져온다.
+	 * skip 없이 _id 범위로 읽으므로 뒤쪽 페이지도 앞쪽 페이지만큼 빠르다.
+	 *
+	 * @param after 이 글 다음(더 오래된) 글들
+	 * @param before 이 글 이전(더 새) 글들. after 가 있으면 무시
+	 * @param includeTotal false 면 전체 글 수를 세지 않는다.
+	 */
+	public GetArticlesResponse getArticlesByCursor(String board, String categoryCode, String after, String before, Integer size,
+												   Boolean includeTotal) {
 
-			if (post.getLinkedGallery()) {
-				List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
-						new ObjectId(post.getId()), Constants.GALLERY_FROM_TYPE.ARTICLE, 1);
+		boolean isBefore = StringUtils.isBlank(after);
+		ObjectId cursorId = this.toCursorId(isBefore ? before : after);
+		String category = "ALL".equals(categoryCode) ? null : categoryCode;
 
-				if (! CollectionUtils.isEmpty(galleries)) {
-					List<BoardGallerySimple> boardGalleries = galleries.stream()
-							.map(gallery -> BoardGallerySimple.builder()
-									.id(gallery.getId())
-									.thumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()))
-									.build())
-							.collect(Collectors.toList());
+		// 하나 더 읽어서 그 방향으로 더 있는지 본다.
+		List<ArticleOnList> posts = new ArrayList<>(articleRepository.findArticlesOnListById(board, category, cursorId,
+				isBefore ? Constants.CRITERIA_OPERATOR.GT : Constants.CRITERIA_OPERATOR.LT, size + 1));
 
-					freePosts.setGalleries(boardGalleries);
-				}
-			}
+		boolean hasMore = posts.size() > size;
 
-			return freePosts;
-		};
+		if (hasMore)
+			posts = new ArrayList<>(posts.subList(0, size));
 
-		List<GetArticle> getArticles = postsPage.getContent().stream()
-				.map(convertToFreePost)
-				.collect(Collectors.toList());
+		// 이전 페이지는 오래된 순으로 읽었으므로 뒤집는다.
+		if (isBefore)
+			Collections.reverse(posts);
 
-		List<GetArticle> freeNotices = notices.stream()
-				.map(convertToFreePost)
-				.collect(Collectors.toList());
+		GetArticlesResponse.GetArticlesResponseBuilder builder = this.getArticlesResponseBuilder(board, posts)
+				.first(isBefore && ! hasMore)
+				.last(! isBefore && ! hasMore)
+				.numberOfElements(posts.size())
+				.size(size);
 
-		// Board ID 뽑아내기.
-		ArrayList<ObjectId> ids = new ArrayList<>();
+		if (includeTotal) {
+			long totalElements = Objects.isNull(category) ? articleOnListRepository.countByBoard(board)
+					: articleOnListRepository.countByBoardAndCategory(board, category);
 
-		getArticles.forEach(post -> ids.add(new ObjectId(post.getId())));
-		freeNotices.forEach(post -> ids.add(new ObjectId(post.getId())));
+			builder.totalElements(totalElements)
+					.totalPages((int) Math.ceil((double) totalElements / size));
+		}
 
-		// 게시물의 댓글수
-		Map<String, Integer> commentCounts = articleCommentRepository.findCommentsCountByIds(ids).stream()
-				.collect(Collectors.toMap(CommonCount::getId, CommonCount::getCount));
+		return builder.build();
+	}
 
-		// 게시물의 감정수
-		Map<String, BoardFeelingCount> feelingCounts = articleRepository.findUsersFeelingCount(ids).stream()
-				.collect(Collectors.toMap(BoardFeelingCount::getId, Function.identity()));
+	/**
+	 * 글 목록 응답에 글, 공지글, 말머리를 채운다. 페이지 정보는 부르는 쪽에서 채운다.
+	 */
+	private GetArticlesResponse.GetArticlesResponseBuilder getArticlesResponseBuilder(String board, List<ArticleOnList> posts) {
 
-		// 댓글수, 감정 표현수 합치기.
-		Consumer<GetArticle> applyCounts = post -> {
-			String boardId = post.getId();
-			Integer commentCount = commentCounts.get(boardId);
+		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
 
-			if (Objects.nonNull(commentCount))
-				post.setCommentCount(commentCount);
+		// 자유 게시판 공지글 목록
+		List<ArticleOnList> notices = articleRepository.findNotices(board, sort);
 
-			BoardFeelingCount feelingCount = feelingCounts.get(boardId);
+		// 글과 엮인 첫번째 사진들
+		List<ArticleOnList> postsAndNotices = new ArrayList<>(posts);
+		postsAndNotices.addAll(notices);
 
-			if (Objects.nonNull(feelingCount)) {
-				post.setLikingCount(feelingCount.getUsersLikingCount());
-				post.setDislikingCount(feelingCount.getUsersDislikingCount());
-			}
-		};
+		Map<String, Gallery> linkedGalleries = this.getFirstLinkedGalleries(postsAndNotices);
 
-		getArticles.forEach(applyCounts);
-		freeNotices.forEach(applyCounts);
+		// 게시물 VO 변환 및 썸네일 URL 추가
+		Function<ArticleOnList, GetArticle> convertToFreePost = post -> {
+			GetArticle freePosts = ArticleMapper.toGetArticle(post);
 
-		// 말머리
-		List<BoardCategory> categories = new BoardCategoryGenerator().getCategories(Constants.BOARD_TYPE.valueOf(board), JakdukUtils.getLocale());
-		Map<String, String> categoriesMap = null;
+			Gallery gallery = linkedGalleries.get(post.getId());
 
-		if (! CollectionUtils.isEmpty(categories)) {
-			categoriesMap = categories.stream()
-					.collect(Collectors.toMap(BoardCategory::getCode, boardCategory -> boardCategory.getNames().get(0).getName()));
+			if (Objects.nonNull(gallery))
+				freePosts.setGalleries(Collections.singletonList(this.toBoardGallerySimple(gallery)));
 
-			categoriesMap.put("ALL", JakdukUtils.getResourceBundleMessage("messages.board", "board.category.all"));
-		}
+			return freePosts;
+		};
+
+		List<GetArticle> getArticles = posts.stream()
+				.map(convertToFreePost)
+				.collect(Collectors.toList());
+
+		List<GetArticle> freeNotices = notices.stream()
+				.map(convertToFreePost)
+				.collect(Collectors.toList());
+
+		// 말머리
+		Map<String, String> categoriesMap = boardCategoryGenerator.getCategoriesMap(Constants.BOARD_TYPE.valueOf(board), JakdukUtils.getLocale());
 
 		return GetArticlesResponse.builder()
 				.categories(categoriesMap)
 				.articles(getArticles)
-				.notices(freeNotices)
-				.first(postsPage.isFirst())
-				.last(postsPage.isLast())
-				.totalPages(postsPage.getTotalPages())
-				.totalElements(postsPage.getTotalElements())
-				.numberOfElements(postsPage.getNumberOfElements())
-				.size(postsPage.getSize())
-				.number(postsPage.getNumber())
-				.build();
+				.notices(freeNotices);
 	}
 
 	/**
@@ -376,25 +414,18 @@ public class ArticleService {
 
 		List<ArticleOnList> posts = articleRepository.findLatest(sort, Constants.HOME_SIZE_POST);
 
-		// 게시물 VO 변환 및 썸네일 URL 추가
+		// 글과 엮인 첫번째 사진들
+		Map<String, Gallery> linkedGalleries = this.getFirstLinkedGalleries(posts);
 
+		// 게시물 VO 변환 및 썸네일 URL 추가
 		return posts.stream()
 				.map(post -> {
-					LatestHomeArticle latestHomeArticle = new LatestHomeArticle();
-					BeanUtils.copyProperties(post, latestHomeArticle);
+					LatestHomeArticle latestHomeArticle = ArticleMapper.toLatestHomeArticle(post);
 
-					if (post.getLinkedGallery()) {
-						List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
-								new ObjectId(post.getId()), Constants.GALLERY_FROM_TYPE.ARTICLE, 1);
-
-						List<BoardGallerySimple> boardGalleries = galleries.stream()
-								.sorted(Comparator.comparing(Gallery::getId))
-								.limit(1)
-								.map(gallery -> BoardGallerySimple.builder()
-										.id(gallery.getId())
-										.thumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()))
-										.build())
-								.collect(Collectors.toList());
+					if (BooleanUtils.isTrue(post.getLinkedGallery())) {
+						List<BoardGallerySimple> boardGalleries = Optional.ofNullable(linkedGalleries.get(post.getId()))
+								.map(gallery -> Collections.singletonList(this.toBoardGallerySimple(gallery)))
+								.orElseGet(Collections::emptyList);
 
 						latestHomeArticle.setGalleries(boardGalleries);
 					}
@@ -407,25 +438,20 @@ public class ArticleService {
     /**
      * 글 감정 표현.
      */
-	public Article setFreeFeelings(CommonWriter writer, String board, Integer seq, Constants.FEELING_TYPE feeling) {
-
-		Article article = articleRepository.findOneByBoardAndSeq(board, seq)
-                .orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_ARTICLE));
+	public UserFeelingResponse setFreeFeelings(CommonWriter writer, String board, Integer seq, Constants.FEELING_TYPE feeling) {
 
-        String userId = writer.getUserId();
-        String username = writer.getUsername();
+		// 글 전체를 읽어서 저장하지 않고, 감정 표현과 감정 수만 한 번에 바꾼다.
+		Article article = usersFeelingUpdater.toggle(Article.class, Criteria.where("board").is(board).and("seq").is(seq),
+				writer, feeling, ServiceError.NOT_FOUND_ARTICLE, true,
+				"seq", "board", "status", "subject", "views", "likingCount", "dislikingCount");
 
-		CommonWriter postWriter = article.getWriter();
+		boardTopsLeaderboard.articleChanged(article);
 
-		// 이 게시물의 작성자라서 감정 표현을 할 수 없음
-		if (userId.equals(postWriter.getUserId()))
-			throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
-
-		this.setUsersFeeling(userId, username, feeling, article);
-
-		articleRepository.save(article);
-
-		return article;
+		return UserFeelingResponse.builder()
+				.myFeeling(JakdukUtils.getMyFeeling(writer, article.getUsersLiking(), article.getUsersDisliking()))
+				.numberOfLike(article.getLikingCount())
+				.numberOfDislike(article.getDislikingCount())
+				.build();
 	}
 
 	/**
@@ -453,6 +479,11 @@ public class ArticleService {
 
 		articleCommentRepository.save(articleComment);
 
+		// 글의 댓글 수 증가
+		articleRepository.increaseCommentCount(new ObjectId(article.getId()), 1);
+		boardTopsLeaderboard.commentAdded(article);
+		homeLatestCache.changed();
+
 		// 엘라스틱서치 색인 요청
 		rabbitMQPublisher.indexDocumentComment(articleComment.getId(), articleComment.getArticle(), articleComment.getWriter(),
 				articleComment.getContent(), galleryIds);
@@ -514,6 +545,11 @@ public class ArticleService {
 
 		articleCommentRepository.delete(id);
 
+		// 글의 댓글 수 감소
+		articleRepository.increaseCommentCount(new ObjectId(articleComment.getArticle().getId()), -1);
+		boardTopsLeaderboard.commentDeleted(articleComment.getArticle(), id);
+		homeLatestCache.changed();
+
 		// 색인 지움
 		rabbitMQPublisher.deleteDocumentComment(id);
 
@@ -525,16 +561,18 @@ public class ArticleService {
 	 */
 	public GetArticleDetailCommentsResponse getArticleDetailComments(String board, Integer seq, String commentId) {
 
-		List<ArticleComment> comments;
+		CommonWriter commonWriter = AuthUtils.getCommonWriter();
+		String userId = Objects.nonNull(commonWriter) ? commonWriter.getUserId() : null;
+
+		// 감정 수와 내 감정은 DB 에서 계산한다.
+		List<ArticleCommentOnList> comments;
 
 		if (StringUtils.isNotBlank(commentId)) {
-			comments  = articleCommentRepository.findByBoardSeqAndGTId(board, seq, new ObjectId(commentId));
+			comments  = articleCommentRepository.findCommentsOnListByBoardSeqAndGTId(board, seq, new ObjectId(commentId), userId);
 		} else {
-			comments  = articleCommentRepository.findByBoardSeqAndGTId(board, seq, null);
+			comments  = articleCommentRepository.findCommentsOnListByBoardSeqAndGTId(board, seq, null, userId);
 		}
 
-		CommonWriter commonWriter = AuthUtils.getCommonWriter();
-
 		ArticleSimple articleSimple = articleRepository.findBoardFreeOfMinimumBySeq(seq);
 		ArticleItem articleItem = new ArticleItem(articleSimple.getId(), articleSimple.getSeq(), articleSimple.getBoard());
 
@@ -542,29 +580,12 @@ public class ArticleService {
 
 		List<FreePostDetailComment> postComments = comments.stream()
 				.map(boardFreeComment -> {
-					FreePostDetailComment freePostDetailComment = new FreePostDetailComment();
-					BeanUtils.copyProperties(boardFreeComment, freePostDetailComment);
-
-					List<CommonFeelingUser> usersLiking = boardFreeComment.getUsersLiking();
-					List<CommonFeelingUser> usersDisliking = boardFreeComment.getUsersDisliking();
+					FreePostDetailComment freePostDetailComment = ArticleMapper.toFreePostDetailComment(boardFreeComment);
 
-					freePostDetailComment.setNumberOfLike(CollectionUtils.isEmpty(usersLiking) ? 0 : usersLiking.size());
-					freePostDetailComment.setNumberOfDislike(CollectionUtils.isEmpty(usersDisliking) ? 0 : usersDisliking.size());
-
-					if (Objects.nonNull(commonWriter))
-						freePostDetailComment.setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, usersLiking, usersDisliking));
-
-					if (! ObjectUtils.isEmpty(boardFreeComment.getLogs())) {
+					// 이력이 빈 목록이면 빈 목록으로 준다.
+					if (Objects.nonNull(boardFreeComment.getLogs())) {
 						List<BoardFreeCommentLog> logs = boardFreeComment.getLogs().stream()
-								.map(boardLog -> {
-									BoardFreeCommentLog boardFreeCommentLog = new BoardFreeCommentLog();
-									BeanUtils.copyProperties(boardLog, boardFreeCommentLog);
-									LocalDateTime timestamp = DateUtils.dateToLocalDateTime(new ObjectId(boardFreeCommentLog.getId()).getDate());
-									boardFreeCommentLog.setType(Constants.ARTICLE_COMMENT_HISTORY_TYPE.valueOf(boardLog.getType()));
-									boardFreeCommentLog.setTimestamp(timestamp);
-
-									return boardFreeCommentLog;
-								})
+								.map(ArticleMapper::toBoardFreeCommentLog)
 								.sorted(Comparator.comparing(BoardFreeCommentLog::getId).reversed())
 								.collect(Collectors.toList());
 
@@ -582,6 +603,7 @@ public class ArticleService {
 											.id(gallery.getId())
 											.name(StringUtils.isNotBlank(gallery.getName()) ? gallery.getName() : gallery.getFileName())
 											.imageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()))
+											.imageSrcset(urlGenerationUtils.generateGallerySrcset(gallery.getId()))
 											.thumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()))
 											.build())
 									.collect(Collectors.toList());
@@ -605,27 +627,23 @@ public class ArticleService {
 	 *
 	 * @param commentId 댓글 ID
 	 * @param feeling 감정표현 종류
-     * @return 자유게시판 댓글 객체
+     * @return 감정 표현 결과
      */
-	public ArticleComment setFreeCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
-
-		ArticleComment boardComment = articleCommentRepository.findOneById(commentId)
-				.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_COMMENT));
+	public UserFeelingResponse setFreeCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
 
-		String userId = writer.getUserId();
-		String username = writer.getUsername();
+		if (! ObjectId.isValid(commentId))
+			throw new ServiceException(ServiceError.NOT_FOUND_COMMENT);
 
-		CommonWriter postWriter = boardComment.getWriter();
+		ArticleComment articleComment = usersFeelingUpdater.toggle(ArticleComment.class, Criteria.where("_id").is(new ObjectId(commentId)),
+				writer, feeling, ServiceError.NOT_FOUND_COMMENT, false);
 
-		// 이 게시물의 작성자라서 감정 표현을 할 수 없음
-		if (userId.equals(postWriter.getUserId()))
-			throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
+		BoardFeelingCount feelingCount = usersFeelingUpdater.count(ArticleComment.class, commentId);
 
-		this.setUsersFeeling(userId, username, feeling, boardComment);
-
-		articleCommentRepository.save(boardComment);
-
-		return boardComment;
+		return UserFeelingResponse.builder()
+				.myFeeling(JakdukUtils.getMyFeeling(writer, articleComment.getUsersLiking(), articleComment.getUsersDisliking()))
+				.numberOfLike(feelingCount.getUsersLikingCount())
+				.numberOfDislike(feelingCount.getUsersDislikingCount())
+				.build();
 	}
 
 	/**
@@ -675,7 +693,8 @@ public class ArticleService {
 
 		getArticle.setLogs(histories);
 
-		articleRepository.save(getArticle);
+		// 공지 여부만 바꾼다. 다른 필드는 덮어쓰지 않는다.
+		articleRepository.updateNotice(new ObjectId(getArticle.getId()), status.getNotice(), history);
 
 		if (log.isInfoEnabled())
 			log.info("Set notice. post seq=" + getArticle.getSeq() + ", type=" + status.getNotice());
@@ -685,40 +704,15 @@ public class ArticleService {
 	/**
 	 * 자유게시판 주간 좋아요수 선두
      */
-	public List<BoardTop> getFreeTopLikes(String board, ObjectId objectId) {
-		return articleRepository.findTopLikes(board, objectId);
+	public List<BoardTop> getFreeTopLikes(String board) {
+		return boardTopsLeaderboard.getTopLikes(board);
 	}
 
 	/**
 	 * 자유게시판 주간 댓글수 선두
 	 */
-	public List<BoardTop> getFreeTopComments(String board, ObjectId objectId) {
-
-		// 게시물의 댓글수
-		Map<String, Integer> commentCounts = articleCommentRepository.findCommentsCountGreaterThanBoardIdAndBoard(objectId, board).stream()
-				.collect(Collectors.toMap(CommonCount::getId, CommonCount::getCount));
-
-		List<String> postIds = commentCounts.entrySet().stream()
-				.map(Entry::getKey)
-				.collect(Collectors.toList());
-
-		// commentIds를 파라미터로 다시 글을 가져온다.
-		List<Article> posts = articleRepository.findByIdInAndBoard(postIds, board);
-
-		// sort
-		Comparator<BoardTop> byCount = (b1, b2) -> b2.getCount() - b1.getCount();
-		Comparator<BoardTop> byView = (b1, b2) -> b2.getViews() - b1.getViews();
-
-		return posts.stream()
-				.map(boardFree -> {
-					BoardTop boardTop = new BoardTop();
-					BeanUtils.copyProperties(boardFree, boardTop);
-					boardTop.setCount(commentCounts.get(boardTop.getId()));
-					return boardTop;
-				})
-				.sorted(byCount.thenComparing(byView))
-				.limit(Constants.BOARD_TOP_LIMIT)
-				.collect(Collectors.toList());
+	public List<BoardTop> getFreeTopComments(String board) {
+		return boardTopsLeaderboard.getTopComments(board);
 	}
 
 	/**
@@ -729,10 +723,75 @@ public class ArticleService {
 		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
 		Pageable pageable = new PageRequest(page - 1, size, sort);
 
-		Page<ArticleComment> commentsPage = articleCommentRepository.findByArticleBoard(board, pageable);
+		String userId = Objects.nonNull(commonWriter) ? commonWriter.getUserId() : null;
+
+		Page<ArticleCommentOnList> commentsPage = new PageImpl<>(articleCommentRepository.findCommentsOnListByBoard(board, pageable, userId),
+				pageable, articleCommentRepository.countByArticleBoard(board));
+
+		return GetArticleCommentsResponse.builder()
+				.comments(this.toGetArticleComments(commentsPage.getContent()))
+				.first(commentsPage.isFirst())
+				.last(commentsPage.isLast())
+				.totalPages(commentsPage.getTotalPages())
+				.totalElements(commentsPage.getTotalElements())
+				.numberOfElements(commentsPage.getNumberOfElements())
+				.size(commentsPage.getSize())
+				.number(commentsPage.getNumber())
+				.build();
+	}
+
+	/**
+	 * 자유게시판 댓글 목록. 기준 댓글 ID 의 앞, 뒤 페이지를 가져온다.
+	 *
+	 * @param after 이 댓글 다음(더 오래된) 댓글들
+	 * @param before 이 댓글 이전(더 새) 댓글들. after 가 있으면 무시
+	 * @param includeTotal false 면 전체 댓글 수를 세지 않는다.
+	 */
+	public GetArticleCommentsResponse getArticleCommentsByCursor(CommonWriter commonWriter, String board, String after, String before,
+																 Integer size, Boolean includeTotal) {
+
+		boolean isBefore = StringUtils.isBlank(after);
+		ObjectId cursorId = this.toCursorId(isBefore ? before : after);
+
+		String userId = Objects.nonNull(commonWriter) ? commonWriter.getUserId() : null;
+
+		// 하나 더 읽어서 그 방향으로 더 있는지 본다.
+		List<ArticleCommentOnList> comments = new ArrayList<>(articleCommentRepository.findCommentsOnListByBoardAndId(board, cursorId,
+				isBefore ? Constants.CRITERIA_OPERATOR.GT : Constants.CRITERIA_OPERATOR.LT, size + 1, userId));
+
+		boolean hasMore = comments.size() > size;
+
+		if (hasMore)
+			comments = new ArrayList<>(comments.subList(0, size));
+
+		// 이전 페이지는 오래된 순으로 읽었으므로 뒤집는다.
+		if (isBefore)
+			Collections.reverse(comments);
+
+		GetArticleCommentsResponse.GetArticleCommentsResponseBuilder builder = GetArticleCommentsResponse.builder()
+				.comments(this.toGetArticleComments(comments))
+				.first(isBefore && ! hasMore)
+				.last(! isBefore && ! hasMore)
+				.numberOfElements(comments.size())
+				.size(size);
+
+		if (includeTotal) {
+			long totalElements = articleCommentRepository.countByArticleBoard(board);
+
+			builder.totalElements(totalElements)
+					.totalPages((int) Math.ceil((double) totalElements / size));
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * 댓글들에 글 정보, 사진을 붙인다.
+	 */
+	private List<GetArticleComment> toGetArticleComments(List<ArticleCommentOnList> comments) {
 
 		// board id 뽑아내기.
-		List<ObjectId> boardIds = commentsPage.getContent().stream()
+		List<ObjectId> boardIds = comments.stream()
 				.map(comment -> new ObjectId(comment.getArticle().getId()))
 				.distinct()
 				.collect(Collectors.toList());
@@ -743,23 +802,15 @@ public class ArticleService {
 		Map<String, ArticleOnSearch> postsHavingComments = posts.stream()
 				.collect(Collectors.toMap(ArticleOnSearch::getId, Function.identity()));
 
-		List<GetArticleComment> getArticleComments = commentsPage.getContent().stream()
+		return comments.stream()
 				.map(boardFreeComment -> {
-							GetArticleComment comment = new GetArticleComment();
-							BeanUtils.copyProperties(boardFreeComment, comment);
+							GetArticleComment comment = ArticleMapper.toGetArticleComment(boardFreeComment);
 
 							comment.setArticle(
 									Optional.ofNullable(postsHavingComments.get(boardFreeComment.getArticle().getId()))
 											.orElse(new ArticleOnSearch())
 							);
 
-							comment.setNumberOfLike(CollectionUtils.isEmpty(boardFreeComment.getUsersLiking()) ? 0 : boardFreeComment.getUsersLiking().size());
-							comment.setNumberOfDislike(CollectionUtils.isEmpty(boardFreeComment.getUsersDisliking()) ? 0 : boardFreeComment.getUsersDisliking().size());
-
-							if (Objects.nonNull(commonWriter))
-								comment.setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, boardFreeComment.getUsersLiking(),
-										boardFreeComment.getUsersDisliking()));
-
 							if (boardFreeComment.getLinkedGallery()) {
 								List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
 										new ObjectId(boardFreeComment.getId()), Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT, 100);
@@ -780,37 +831,25 @@ public class ArticleService {
 						}
 				)
 				.collect(Collectors.toList());
-
-		return GetArticleCommentsResponse.builder()
-				.comments(getArticleComments)
-				.first(commentsPage.isFirst())
-				.last(commentsPage.isLast())
-				.totalPages(commentsPage.getTotalPages())
-				.totalElements(commentsPage.getTotalElements())
-				.numberOfElements(commentsPage.getNumberOfElements())
-				.size(commentsPage.getSize())
-				.number(commentsPage.getNumber())
-				.build();
 	}
 
 	/**
-	 * RSS 용 게시물 목록
+	 * 페이지 기준 ID. 잘못된 ID 면 예외
 	 */
-	public List<ArticleOnRSS> getBoardFreeOnRss(ObjectId objectId, Integer limit) {
-		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
-
-		return articleRepository.findPostsOnRss(objectId, sort, limit);
+	private ObjectId toCursorId(String id) {
+		if (StringUtils.isBlank(id) || ! ObjectId.isValid(id))
+			throw new ServiceException(ServiceError.INVALID_PARAMETER);
 
+		return new ObjectId(id);
 	}
 
 	/**
-	 * 사이트맵 용 게시물 목록
+	 * RSS 용 게시물 목록. 최신 글부터.
+	 *
+	 * @param objectId 해당 ID 보다 새 글만 (null 이면 최신 글부터)
 	 */
-	public List<ArticleOnSitemap> getBoardFreeOnSitemap(ObjectId objectId, Integer limit) {
-		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
-
-		return articleRepository.findSitemapArticles(objectId, sort, limit);
-
+	public List<ArticleOnRSS> getBoardFreeOnRss(ObjectId objectId, Integer limit) {
+		return articleRepository.findPostsOnRss(objectId, limit);
 	}
 
 	/**
@@ -830,99 +869,82 @@ public class ArticleService {
 		if (isAddCookie)
 			this.increaseViews(article);
 
+		BoardCategory boardCategory = boardCategoryGenerator.getCategory(Constants.BOARD_TYPE.valueOf(board), article.getCategory(), JakdukUtils.getLocale());
+
+		// 엮인 사진들, 앞, 뒤 글, 글쓴이의 최근 글은 서로 기대지 않으므로 동시에 가져온다.
+		ObjectId articleId = new ObjectId(article.getId());
+		String categoryCode = Objects.nonNull(boardCategory) ? boardCategory.getCode() : null;
+		long deadline = System.currentTimeMillis() + articleDetailProperties.getSubqueryTimeoutMillis();
+
+		Future<List<Gallery>> galleriesFuture = BooleanUtils.isTrue(article.getLinkedGallery())
+				? articleDetailExecutor.submit(() -> galleryRepository.findByItemIdAndFromType(articleId, Constants.GALLERY_FROM_TYPE.ARTICLE, 100))
+				: CompletableFuture.completedFuture(Collections.emptyList());
+
+		Future<ArticleSimple> prevPostFuture = articleDetailExecutor.submit(() ->
+				articleRepository.findByIdAndCategoryWithOperator(articleId, categoryCode, Constants.CRITERIA_OPERATOR.GT));
+		Future<ArticleSimple> nextPostFuture = articleDetailExecutor.submit(() ->
+				articleRepository.findByIdAndCategoryWithOperator(articleId, categoryCode, Constants.CRITERIA_OPERATOR.LT));
+
+		// 글쓴이의 최근 글과 그 글들의 첫번째 사진들
+		Future<List<LatestArticle>> latestArticlesFuture = CompletableFuture.completedFuture(null);
+
+		if (Objects.isNull(article.getStatus()) || BooleanUtils.isNotTrue(article.getStatus().getDelete())) {
+			latestArticlesFuture = articleDetailExecutor.submit(() ->
+					this.toLatestArticles(articleRepository.findByIdAndUserId(articleId, article.getWriter().getUserId(), 3)));
+		}
+
 		CommonWriter commonWriter = AuthUtils.getCommonWriter();
 
         // 글 상세
-		ArticleDetail articleDetail = new ArticleDetail();
-		BeanUtils.copyProperties(article, articleDetail);
+		ArticleDetail articleDetail = ArticleMapper.toArticleDetail(article);
 
-		if (! CollectionUtils.isEmpty(article.getLogs())) {
+		// 이력이 빈 목록이면 빈 목록으로 준다.
+		if (Objects.nonNull(article.getLogs())) {
 			List<ArticleLog> logs = article.getLogs().stream()
-					.map(boardLog -> {
-						ArticleLog articleLog = new ArticleLog();
-						BeanUtils.copyProperties(boardLog, articleLog);
-						LocalDateTime timestamp = DateUtils.dateToLocalDateTime(new ObjectId(articleLog.getId()).getDate());
-						articleLog.setType(Constants.ARTICLE_HISTORY_TYPE.valueOf(boardLog.getType()));
-						articleLog.setTimestamp(timestamp);
-
-						return articleLog;
-					})
+					.map(ArticleMapper::toArticleLog)
 					.sorted(Comparator.comparing(ArticleLog::getId).reversed())
 					.collect(Collectors.toList());
 
 			articleDetail.setLogs(logs);
 		}
 
-		BoardCategory boardCategory = new BoardCategoryGenerator().getCategory(Constants.BOARD_TYPE.valueOf(board), article.getCategory(), JakdukUtils.getLocale());
-
 		articleDetail.setCategory(boardCategory);
 		articleDetail.setNumberOfLike(CollectionUtils.isEmpty(article.getUsersLiking()) ? 0 : article.getUsersLiking().size());
 		articleDetail.setNumberOfDislike(CollectionUtils.isEmpty(article.getUsersDisliking()) ? 0 : article.getUsersDisliking().size());
 
-		// 엮인 사진들
-		if (article.getLinkedGallery()) {
-            List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
-                    new ObjectId(article.getId()), Constants.GALLERY_FROM_TYPE.ARTICLE, 100);
-
-            if (! CollectionUtils.isEmpty(galleries)) {
-                List<ArticleGallery> postDetailGalleries = galleries.stream()
-                        .map(gallery -> ArticleGallery.builder()
-                                .id(gallery.getId())
-                                .name(StringUtils.isNoneBlank(gallery.getName()) ? gallery.getName() : gallery.getFileName())
-                                .imageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()))
-                                .thumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()))
-                                .build())
-                        .collect(Collectors.toList());
-
-                articleDetail.setGalleries(postDetailGalleries);
-            }
-        }
-
         // 나의 감정 상태
 		if (Objects.nonNull(commonWriter))
 			articleDetail.setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, article.getUsersLiking(), article.getUsersDisliking()));
 
-		// 앞, 뒤 글
-		ArticleSimple prevPost = articleRepository.findByIdAndCategoryWithOperator(new ObjectId(articleDetail.getId()),
-				Objects.nonNull(boardCategory) ? boardCategory.getCode() : null, Constants.CRITERIA_OPERATOR.GT);
-		ArticleSimple nextPost = articleRepository.findByIdAndCategoryWithOperator(new ObjectId(articleDetail.getId()),
-				Objects.nonNull(boardCategory) ? boardCategory.getCode() : null, Constants.CRITERIA_OPERATOR.LT);
-
-        // 글쓴이의 최근 글
-		List<LatestArticle> latestArticles = null;
-
-		if (Objects.isNull(articleDetail.getStatus()) || BooleanUtils.isNotTrue(articleDetail.getStatus().getDelete())) {
+		// 엮인 사진들. 글 본문의 일부라서 늦거나 실패하면 글 상세도 실패한다. 나머지는 더 돌지 않게 취소한다.
+		List<Gallery> galleries;
 
-			List<ArticleOnList> latestPostsByWriter = articleRepository.findByIdAndUserId(
-					new ObjectId(articleDetail.getId()), articleDetail.getWriter().getUserId(), 3);
-
-			// 게시물 VO 변환 및 썸네일 URL 추가
-			latestArticles = latestPostsByWriter.stream()
-					.map(post -> {
-						LatestArticle latestArticle = new LatestArticle();
-						BeanUtils.copyProperties(post, latestArticle);
-
-						if (! post.getLinkedGallery()) {
-							List<Gallery> latestPostGalleries = galleryRepository.findByItemIdAndFromType(new ObjectId(post.getId()),
-									Constants.GALLERY_FROM_TYPE.ARTICLE, 1);
-
-							if (! ObjectUtils.isEmpty(latestPostGalleries)) {
-								List<BoardGallerySimple> boardGalleries = latestPostGalleries.stream()
-										.map(gallery -> BoardGallerySimple.builder()
-												.id(gallery.getId())
-												.thumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()))
-												.build())
-										.collect(Collectors.toList());
-
-								latestArticle.setGalleries(boardGalleries);
-							}
-						}
+		try {
+			galleries = this.getOrThrow(galleriesFuture, deadline);
+		} catch (ServiceException e) {
+			Arrays.asList(prevPostFuture, nextPostFuture, latestArticlesFuture).forEach(future -> future.cancel(true));
+			throw e;
+		}
 
-						return latestArticle;
-					})
+		if (! CollectionUtils.isEmpty(galleries)) {
+			List<ArticleGallery> postDetailGalleries = galleries.stream()
+					.map(gallery -> ArticleGallery.builder()
+							.id(gallery.getId())
+							.name(StringUtils.isNoneBlank(gallery.getName()) ? gallery.getName() : gallery.getFileName())
+							.imageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()))
+							.imageSrcset(urlGenerationUtils.generateGallerySrcset(gallery.getId()))
+							.thumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()))
+							.build())
 					.collect(Collectors.toList());
+
+			articleDetail.setGalleries(postDetailGalleries);
 		}
 
+		// 앞, 뒤 글, 글쓴이의 최근 글은 늦거나 실패하면 빼고 준다.
+		ArticleSimple prevPost = this.getOrNull(prevPostFuture, deadline, "prevArticle");
+		ArticleSimple nextPost = this.getOrNull(nextPostFuture, deadline, "nextArticle");
+		List<LatestArticle> latestArticles = this.getOrNull(latestArticlesFuture, deadline, "latestArticlesByWriter");
+
 		return ResponseEntity.ok()
 				.body(GetArticleDetailResponse.builder()
 						.article(articleDetail)
@@ -932,13 +954,101 @@ public class ArticleService {
 						.build());
 	}
 
+	/**
+	 * 글쓴이의 최근 글 VO 변환 및 썸네일 URL 추가
+	 */
+	private List<LatestArticle> toLatestArticles(List<ArticleOnList> latestPostsByWriter) {
+
+		// 글과 엮인 첫번째 사진들
+		Map<String, Gallery> linkedGalleries = this.getFirstLinkedGalleries(latestPostsByWriter);
+
+		return latestPostsByWriter.stream()
+				.map(post -> {
+					LatestArticle latestArticle = ArticleMapper.toLatestArticle(post);
+
+					Gallery gallery = linkedGalleries.get(post.getId());
+
+					if (Objects.nonNull(gallery))
+						latestArticle.setGalleries(Collections.singletonList(this.toBoardGallerySimple(gallery)));
+
+					return latestArticle;
+				})
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * deadline 까지 기다린다. 늦거나 실패하면 ServiceException.
+	 * 늦으면 취소한다. 전용 쓰레드 풀에서 도는 중이면 인터럽트하고, 아직 큐에 있으면 돌지 않는다.
+	 */
+	private <T> T getOrThrow(Future<T> future, long deadline) {
+		try {
+			return future.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new ServiceException(ServiceError.INTERNAL_SERVER_ERROR, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ServiceException)
+				throw (ServiceException) e.getCause();
+
+			throw new ServiceException(ServiceError.INTERNAL_SERVER_ERROR, e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ServiceException(ServiceError.INTERNAL_SERVER_ERROR, e);
+		}
+	}
+
+	/**
+	 * deadline 까지 기다린다. 늦거나 실패하면 취소하고 null.
+	 */
+	private <T> T getOrNull(Future<T> future, long deadline, String section) {
+		try {
+			return future.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			log.warn("Article detail section timed out. section={}", section);
+		} catch (ExecutionException e) {
+			log.warn("Article detail section failed. section={}", section, e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return null;
+	}
+
 	/**
 	 * 읽음수 1 증가
 	 */
 	private void increaseViews(Article article) {
-		int views = article.getViews();
-		article.setViews(++views);
-		articleRepository.save(article);
+		articleViewsCounter.increase(article.getId());
+		boardTopsLeaderboard.articleViewed(article);
+
+		// DB 반영은 늦게 되더라도 응답에는 증가된 조회수를 보여준다.
+		article.setViews(article.getViews() + 1);
+	}
+
+	/**
+	 * 글 목록 중 사진이 엮인 글들의 첫번째 사진을 한번에 가져온다.
+	 *
+	 * @return key : 글 ID, value : 첫번째 사진
+	 */
+	private Map<String, Gallery> getFirstLinkedGalleries(List<ArticleOnList> posts) {
+		List<ObjectId> ids = posts.stream()
+				.filter(post -> BooleanUtils.isTrue(post.getLinkedGallery()))
+				.map(post -> new ObjectId(post.getId()))
+				.distinct()
+				.collect(Collectors.toList());
+
+		return galleryRepository.findFirstByItemIdInAndFromType(ids, Constants.GALLERY_FROM_TYPE.ARTICLE);
+	}
+
+	/**
+	 * Gallery -> BoardGallerySimple (썸네일 URL 추가)
+	 */
+	private BoardGallerySimple toBoardGallerySimple(Gallery gallery) {
+		return BoardGallerySimple.builder()
+				.id(gallery.getId())
+				.thumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()))
+				.build();
 	}
 
 	/**
@@ -952,77 +1062,4 @@ public class ArticleService {
 		return logs;
 	}
 
-	/**
-	 * 감정 표현 CRUD
-	 *
-	 * @param userId 회원 ID
-	 * @param username 회원 별명
-	 * @param feeling 입력받은 감정
-	 * @param usersFeeling 편집할 객체
-	 */
-	private void setUsersFeeling(String userId, String username, Constants.FEELING_TYPE feeling, UsersFeeling usersFeeling) {
-
-		List<CommonFeelingUser> usersLiking = usersFeeling.getUsersLiking();
-		List<CommonFeelingUser> usersDisliking = usersFeeling.getUsersDisliking();
-
-		if (CollectionUtils.isEmpty(usersLiking)) usersLiking = new ArrayList<>();
-		if (CollectionUtils.isEmpty(usersDisliking)) usersDisliking = new ArrayList<>();
-
-		// 해당 회원이 좋아요를 이미 했는지 검사
-		Optional<CommonFeelingUser> alreadyLike = usersLiking.stream()
-				.filter(commonFeelingUser -> commonFeelingUser.getUserId().equals(userId))
-				.findFirst();
-
-		// 해당 회원이 싫어요를 이미 했는지 검사
-		Optional<CommonFeelingUser> alreadyDislike = usersDisliking.stream()
-				.filter(commonFeelingUser -> commonFeelingUser.getUserId().equals(userId))
-				.findFirst();
-
-		CommonFeelingUser feelingUser = new CommonFeelingUser(new ObjectId().toString(), userId, username);
-
-		switch (feeling) {
-			case LIKE:
-				// 이미 좋아요를 했을 때, 좋아요를 취소
-				if (alreadyLike.isPresent()) {
-					usersLiking.remove(alreadyLike.get());
-				}
-				// 이미 싫어요를 했을 때, 싫어요를 없애고 좋아요로 바꿈
-				else if (alreadyDislike.isPresent()) {
-					usersDisliking.remove(alreadyDislike.get());
-					usersLiking.add(feelingUser);
-
-					usersFeeling.setUsersDisliking(usersDisliking);
-				}
-				// 아직 감정 표현을 하지 않아 좋아요로 등록
-				else {
-					usersLiking.add(feelingUser);
-				}
-
-				usersFeeling.setUsersLiking(usersLiking);
-
-				break;
-
-			case DISLIKE:
-				// 이미 싫어요를 했을 때, 싫어요를 취소
-				if (alreadyDislike.isPresent()) {
-					usersDisliking.remove(alreadyDislike.get());
-				}
-				// 이미 좋아요를 했을 때, 좋아요를 없애고 싫어요로 바꿈
-				else if (alreadyLike.isPresent()) {
-					usersLiking.remove(alreadyLike.get());
-					usersDisliking.add(feelingUser);
-
-					usersFeeling.setUsersLiking(usersLiking);
-				}
-				// 아직 감정 표현을 하지 않아 싫어요로 등록
-				else {
-					usersDisliking.add(feelingUser);
-				}
-
-				usersFeeling.setUsersDisliking(usersDisliking);
-
-				break;
-		}
-	}
-
 }
@@ -0,0 +1,275 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.common.util.ObjectMapperUtils;
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.simple.ArticleOnSitemap;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.redfin.sitemapgenerator.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * 글 사이트맵을 jakduk.storage.sitemap-path 에 파일로 만들어 둔다. 요청에서는 만들어 둔 파일만 준다.
+ *
+ * 글을 _id 오름차순 커서로 읽어서 50,000 개씩 gzip 조각(articles-N.xml.gz)으로 쓰고, 조각들을 가리키는 sitemap.xml 을 쓴다.
+ * jakduk.sitemap.refresh-interval-millis 마다 덜 찬 마지막 조각부터 새 글만 이어 쓰고,
+ * 고친 글, 지운 글은 jakduk.sitemap.full-rebuild-interval-millis 마다 전부 다시 쓸 때 반영된다.
+ */
+
+@Slf4j
+@Component
+public class ArticleSitemap {
+
+	public final static String INDEX_FILE_NAME = "sitemap.xml";
+
+	// 사이트맵 파일 하나에 넣을 수 있는 최대 URL 수
+	private final static Integer MAX_URLS_PER_SHARD = 50_000;
+	private final static String SHARD_PREFIX = "articles-";
+	private final static String SHARD_SUFFIX = ".xml.gz";
+	private final static Pattern SHARD_FILE_NAME = Pattern.compile("articles-\\d+\\.xml\\.gz");
+	private final static String STATE_FILE_NAME = "sitemap-state.json";
+
+	@Resource private JakdukProperties jakdukProperties;
+	@Resource private JakdukProperties.Storage storageProperties;
+	@Resource private JakdukProperties.Sitemap sitemapProperties;
+
+	@Autowired private UrlGenerationUtils urlGenerationUtils;
+	@Autowired private ArticleRepository articleRepository;
+
+	// 다 읽는 데 오래 걸리므로 @Scheduled 쓰레드를 잡고 있지 않게 따로 돈다.
+	private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "article-sitemap-build");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicBoolean buildScheduled = new AtomicBoolean();
+
+	@Scheduled(fixedDelayString = "${jakduk.sitemap.refresh-interval-millis:600000}")
+	public void refresh() {
+		if (! buildScheduled.compareAndSet(false, true))
+			return;
+
+		buildExecutor.execute(() -> {
+			try {
+				this.build();
+			} catch (Exception e) {
+				log.warn("Failed to build sitemap.", e);
+			} finally {
+				buildScheduled.set(false);
+			}
+		});
+	}
+
+	@PreDestroy
+	public void destroy() {
+		buildExecutor.shutdownNow();
+	}
+
+	/**
+	 * 만들어 둔 사이트맵 파일. sitemap.xml 과 조각 파일 이름만 받는다.
+	 */
+	public Optional<Path> getFile(String fileName) {
+		if (! INDEX_FILE_NAME.equals(fileName) && ! SHARD_FILE_NAME.matcher(fileName).matches())
+			return Optional.empty();
+
+		Path path = Paths.get(storageProperties.getSitemapPath(), fileName);
+
+		return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+	}
+
+	/**
+	 * 사이트맵을 만든다. 새 글이 없으면 파일을 건드리지 않아 Last-Modified 가 그대로다.
+	 */
+	public synchronized void build() throws IOException {
+		Path directory = Paths.get(storageProperties.getSitemapPath());
+		Files.createDirectories(directory);
+
+		long now = System.currentTimeMillis();
+		SitemapState state = this.readState(directory);
+
+		boolean fullRebuild = Objects.isNull(state)
+				|| now - state.getLastFullRebuild() >= sitemapProperties.getFullRebuildIntervalMillis();
+
+		if (fullRebuild) {
+			state = new SitemapState(now, new ArrayList<>());
+		} else {
+			List<SitemapShard> shards = state.getShards();
+
+			if (! this.existsArticleAfter(lastIdOf(shards)))
+				return;
+
+			// 덜 찬 마지막 조각은 앞 조각 다음 글부터 다시 쓴다.
+			if (! shards.isEmpty() && shards.get(shards.size() - 1).getCount() < MAX_URLS_PER_SHARD)
+				shards.remove(shards.size() - 1);
+		}
+
+		List<SitemapShard> shards = state.getShards();
+		Integer unchangedShards = shards.size();
+		Path buildDirectory = Files.createTempDirectory(directory, ".build-");
+
+		try {
+			try (CloseableIterator<ArticleOnSitemap> articles = articleRepository.streamSitemapArticles(lastIdOf(shards))) {
+				while (articles.hasNext())
+					shards.add(this.writeShard(buildDirectory, shards.size() + 1, articles, now));
+			}
+
+			this.writeIndex(buildDirectory, shards);
+
+			// 조각을 먼저 옮기고 색인을 옮겨야 색인이 없는 조각을 가리키지 않는다.
+			for (SitemapShard shard : shards.subList(unchangedShards, shards.size()))
+				moveTo(buildDirectory.resolve(shard.getFileName()), directory.resolve(shard.getFileName()));
+
+			moveTo(buildDirectory.resolve(INDEX_FILE_NAME), directory.resolve(INDEX_FILE_NAME));
+
+			Files.write(buildDirectory.resolve(STATE_FILE_NAME), ObjectMapperUtils.getObjectMapper().writeValueAsBytes(state));
+			moveTo(buildDirectory.resolve(STATE_FILE_NAME), directory.resolve(STATE_FILE_NAME));
+
+			// 전부 다시 쓰면서 줄어든 조각은 지운다.
+			this.deleteShardsAfter(directory, shards.size());
+
+			log.info("Sitemap built. fullRebuild={}, shards={}, rewrittenShards={}", fullRebuild, shards.size(),
+					shards.size() - unchangedShards);
+
+		} finally {
+			FileUtils.deleteDirectory(buildDirectory.toFile());
+		}
+	}
+
+	private SitemapShard writeShard(Path buildDirectory, Integer number, Iterator<ArticleOnSitemap> articles, long now)
+			throws IOException {
+
+		String fileName = SHARD_PREFIX + number + SHARD_SUFFIX;
+		File shardDirectory = Files.createDirectory(buildDirectory.resolve(SHARD_PREFIX + number)).toFile();
+
+		WebSitemapGenerator generator = WebSitemapGenerator.builder(jakdukProperties.getWebServerUrl(), shardDirectory)
+				.fileNamePrefix(SHARD_PREFIX + number)
+				.gzip(true)
+				.dateFormat(new W3CDateFormat(W3CDateFormat.Pattern.SECOND))
+				.build();
+
+		Integer count = 0;
+		String lastId = null;
+
+		while (count < MAX_URLS_PER_SHARD && articles.hasNext()) {
+			ArticleOnSitemap article = articles.next();
+
+			// 예전 글은 lastUpdated 가 없어서 글 쓴 시각을 쓴다.
+			Date lastModified = Objects.nonNull(article.getLastUpdated())
+					? DateUtils.localDateTimeToDate(article.getLastUpdated())
+					: new ObjectId(article.getId()).getDate();
+
+			generator.addUrl(new WebSitemapUrl.Options(urlGenerationUtils.generateArticleDetailUrl(article.getBoard(), article.getSeq()))
+					.lastMod(lastModified)
+					.priority(0.5)
+					.changeFreq(ChangeFreq.DAILY)
+					.build());
+
+			count++;
+			lastId = article.getId();
+		}
+
+		List<File> files = generator.write();
+
+		moveTo(files.get(0).toPath(), buildDirectory.resolve(fileName));
+
+		return new SitemapShard(fileName, lastId, count, now);
+	}
+
+	private void writeIndex(Path buildDirectory, List<SitemapShard> shards) throws IOException {
+		String baseUrl = jakdukProperties.getApiServerUrl() + "/sitemap/";
+
+		SitemapIndexGenerator generator = new SitemapIndexGenerator.Options(baseUrl, buildDirectory.resolve(INDEX_FILE_NAME).toFile())
+				.dateFormat(new W3CDateFormat(W3CDateFormat.Pattern.SECOND))
+				.allowEmptyIndex(true)
+				.build();
+
+		for (SitemapShard shard : shards)
+			generator.addUrl(new SitemapIndexUrl(baseUrl + shard.getFileName(), new Date(shard.getLastModified())));
+
+		generator.write();
+	}
+
+	private Boolean existsArticleAfter(ObjectId objectId) {
+		try (CloseableIterator<ArticleOnSitemap> articles = articleRepository.streamSitemapArticles(objectId)) {
+			return articles.hasNext();
+		}
+	}
+
+	private SitemapState readState(Path directory) {
+		Path path = directory.resolve(STATE_FILE_NAME);
+
+		if (! Files.isRegularFile(path) || ! Files.isRegularFile(directory.resolve(INDEX_FILE_NAME)))
+			return null;
+
+		try {
+			return ObjectMapperUtils.readValue(Files.readAllBytes(path), SitemapState.class);
+		} catch (IOException e) {
+			log.warn("Failed to read sitemap state. rebuild all.", e);
+			return null;
+		}
+	}
+
+	private void deleteShardsAfter(Path directory, Integer size) throws IOException {
+		for (int number = size + 1; Files.deleteIfExists(directory.resolve(SHARD_PREFIX + number + SHARD_SUFFIX)); number++) {
+			// 이어지는 번호가 없을 때까지 지운다.
+		}
+	}
+
+	private static ObjectId lastIdOf(List<SitemapShard> shards) {
+		return shards.isEmpty() ? null : new ObjectId(shards.get(shards.size() - 1).getLastId());
+	}
+
+	private static void moveTo(Path source, Path target) throws IOException {
+		Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * 지난번에 만든 조각들. 다음에 어디서부터 이어 쓸지 안다.
+	 */
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	static class SitemapState {
+		private Long lastFullRebuild;
+		private List<SitemapShard> shards;
+	}
+
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	static class SitemapShard {
+		private String fileName;
+		private String lastId; // 조각의 마지막 글 ID
+		private Integer count;
+		private Long lastModified;
+	}
+
+}
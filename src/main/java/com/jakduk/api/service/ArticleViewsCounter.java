@@ -0,0 +1,83 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.repository.article.ArticleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 글 조회수 누적기.
+ *
+ * 조회 때마다 글 전체를 저장하지 않고, 글 ID 별로 메모리에 쌓아 두었다가 주기적으로 $inc 를 한번에 반영한다.
+ * jakduk.article-views.write-behind 가 false 이면 조회 때마다 바로 $inc 한다.
+ */
+
+@Slf4j
+@Component
+public class ArticleViewsCounter {
+
+	@Resource private JakdukProperties.ArticleViews articleViewsProperties;
+
+	@Autowired private ArticleRepository articleRepository;
+
+	// key : 글 ID, value : 아직 DB 에 반영되지 않은 조회수. 반영할 때 꺼내서 지운다.
+	private final ConcurrentMap<String, Long> pendingViews = new ConcurrentHashMap<>();
+
+	/**
+	 * 글 조회수 1 증가
+	 *
+	 * @param articleId 글 ID
+	 */
+	public void increase(String articleId) {
+		if (BooleanUtils.isTrue(articleViewsProperties.getWriteBehind())) {
+			pendingViews.merge(articleId, 1L, Long::sum);
+		} else {
+			articleRepository.increaseViews(Collections.singletonMap(articleId, 1));
+		}
+	}
+
+	/**
+	 * 쌓인 조회수를 DB 에 반영한다.
+	 * 글마다 꺼내면서 지우므로, 반영하는 사이에 들어온 조회수는 새 항목에 쌓여 다음 반영때 나간다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.article-views.flush-interval-millis:5000}")
+	public synchronized void flush() {
+		Map<String, Integer> views = new HashMap<>();
+
+		for (String id : pendingViews.keySet()) {
+			Long sum = pendingViews.remove(id);
+
+			if (Objects.nonNull(sum) && sum > 0)
+				views.put(id, sum.intValue());
+		}
+
+		if (views.isEmpty())
+			return;
+
+		try {
+			articleRepository.increaseViews(views);
+		} catch (RuntimeException e) {
+			// 반영에 실패하면 다음 반영때 다시 시도한다.
+			views.forEach((id, amount) -> pendingViews.merge(id, amount.longValue(), Long::sum));
+			log.warn("Failed to flush article views. size=" + views.size(), e);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		this.flush();
+	}
+
+}
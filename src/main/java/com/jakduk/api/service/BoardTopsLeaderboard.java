@@ -0,0 +1,367 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.aggregate.BoardTop;
+import com.jakduk.api.model.aggregate.CommonCount;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.ArticleItem;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.repository.article.comment.ArticleCommentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 게시판별 주간 선두 글(좋아요수, 댓글수).
+ *
+ * 한 주 동안의 후보 글들을 메모리에 들고, 글, 댓글, 감정 표현이 생길 때마다 고친다.
+ * 순위는 jakduk.board-tops.refresh-interval-millis 마다 다시 매겨두고, 요청에는 그 결과를 그대로 준다.
+ * 날짜가 바뀌어 주간 범위가 밀리거나 reload-interval-millis 가 지나면 Mongo 에서 후보를 다시 읽는다.
+ */
+
+@Slf4j
+@Component
+public class BoardTopsLeaderboard {
+
+	@Resource private JakdukProperties.BoardTops boardTopsProperties;
+
+	@Autowired private ArticleRepository articleRepository;
+	@Autowired private ArticleCommentRepository articleCommentRepository;
+
+	private final Map<String, BoardCandidates> boards = new ConcurrentHashMap<>();
+
+	/**
+	 * 주간 좋아요수 선두
+	 */
+	public List<BoardTop> getTopLikes(String board) {
+		return this.getCandidates(board).getTopLikes();
+	}
+
+	/**
+	 * 주간 댓글수 선두
+	 */
+	public List<BoardTop> getTopComments(String board) {
+		return this.getCandidates(board).getTopComments();
+	}
+
+	/**
+	 * 글이 새로 써지거나 고쳐졌을 때. 감정 표현 후에도 부른다.
+	 */
+	public void articleChanged(Article article) {
+		BoardCandidates candidates = boards.get(article.getBoard());
+
+		if (Objects.nonNull(candidates))
+			candidates.articleChanged(article);
+	}
+
+	/**
+	 * 글이 몽땅 지워졌을 때
+	 */
+	public void articleDeleted(String board, String articleId) {
+		BoardCandidates candidates = boards.get(board);
+
+		if (Objects.nonNull(candidates))
+			candidates.articleDeleted(articleId);
+	}
+
+	/**
+	 * 글에 댓글이 달렸을 때
+	 */
+	public void commentAdded(Article article) {
+		BoardCandidates candidates = boards.get(article.getBoard());
+
+		if (Objects.nonNull(candidates))
+			candidates.commentAdded(article);
+	}
+
+	/**
+	 * 댓글이 지워졌을 때
+	 */
+	public void commentDeleted(ArticleItem article, String commentId) {
+		BoardCandidates candidates = boards.get(article.getBoard());
+
+		if (Objects.nonNull(candidates))
+			candidates.commentDeleted(article.getId(), commentId);
+	}
+
+	/**
+	 * 글을 읽었을 때. 같은 수일 때 읽음수로 순위를 매긴다.
+	 */
+	public void articleViewed(Article article) {
+		BoardCandidates candidates = boards.get(article.getBoard());
+
+		if (Objects.nonNull(candidates))
+			candidates.articleViewed(article.getId());
+	}
+
+	/**
+	 * 순위를 다시 매긴다. 주간 범위가 밀렸거나 오래된 후보는 Mongo 에서 다시 읽는다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.board-tops.refresh-interval-millis:10000}")
+	public void refresh() {
+		LocalDate windowStart = getWindowStart();
+		long now = System.currentTimeMillis();
+
+		boards.forEach((board, candidates) -> {
+			try {
+				if (! windowStart.equals(candidates.getWindowStart())
+						|| now - candidates.getLoadedAt() > boardTopsProperties.getReloadIntervalMillis()) {
+					boards.put(board, this.load(board));
+				} else {
+					candidates.rank();
+				}
+			} catch (Exception e) {
+				log.warn("Failed to refresh board tops. board={}", board, e);
+			}
+		});
+	}
+
+	// 처음 읽을 때 동시에 들어와도 Mongo 에서 한 번만 읽는다.
+	private BoardCandidates getCandidates(String board) {
+		return boards.computeIfAbsent(board, this::load);
+	}
+
+	/**
+	 * 주간 후보를 Mongo 에서 읽는다. 바꿔 끼우는 것은 부르는 쪽에서.
+	 */
+	private BoardCandidates load(String board) {
+		LocalDate windowStart = getWindowStart();
+		ObjectId windowStartId = new ObjectId(DateUtils.localDateToDate(windowStart));
+
+		BoardCandidates candidates = new BoardCandidates(windowStart, windowStartId);
+
+		articleRepository.findLikingCountsGreaterThanId(board, windowStartId)
+				.forEach(candidates::putLikes);
+
+		// 한 주 동안 달린 댓글 수. 글은 그 전에 써졌을 수 있다.
+		Map<String, Integer> commentCounts = articleCommentRepository.findCommentsCountGreaterThanBoardIdAndBoard(windowStartId, board).stream()
+				.collect(Collectors.toMap(CommonCount::getId, CommonCount::getCount));
+
+		if (! commentCounts.isEmpty()) {
+			List<ObjectId> ids = commentCounts.keySet().stream()
+					.map(ObjectId::new)
+					.collect(Collectors.toList());
+
+			articleRepository.findBoardTopsByIds(ids, board)
+					.forEach(boardTop -> {
+						boardTop.setCount(commentCounts.get(boardTop.getId()));
+						candidates.putComments(boardTop);
+					});
+		}
+
+		candidates.rank();
+
+		log.debug("Board tops loaded. board={}, windowStart={}", board, windowStart);
+
+		return candidates;
+	}
+
+	/**
+	 * 주간 범위의 시작. 일주일 전 0시부터.
+	 */
+	private static LocalDate getWindowStart() {
+		return LocalDate.now().minusWeeks(1);
+	}
+
+	private static BoardTop newBoardTop(Article article, Integer count) {
+		return BoardTop.builder()
+				.id(article.getId())
+				.seq(article.getSeq())
+				.status(article.getStatus())
+				.subject(article.getSubject())
+				.count(count)
+				.views(article.getViews())
+				.build();
+	}
+
+	private static BoardTop copyOf(BoardTop boardTop) {
+		return BoardTop.builder()
+				.id(boardTop.getId())
+				.seq(boardTop.getSeq())
+				.status(boardTop.getStatus())
+				.subject(boardTop.getSubject())
+				.count(boardTop.getCount())
+				.views(boardTop.getViews())
+				.build();
+	}
+
+	/**
+	 * 한 게시판의 주간 후보와 매겨둔 순위.
+	 * 후보는 이 객체로 동기화해서 고치고, 순위는 복사본을 통째로 바꿔 끼운다.
+	 * 읽음수는 가장 잦아서 잠그지 않는다. 글마다 AtomicLong 에 세고 순위를 매길 때 옮긴다.
+	 */
+	private static class BoardCandidates {
+
+		private final static Comparator<BoardTop> BY_COUNT_AND_VIEWS = Comparator.comparing(BoardTop::getCount, Comparator.reverseOrder())
+				.thenComparing(BoardTop::getViews, Comparator.reverseOrder());
+
+		private final LocalDate windowStart;
+		private final ObjectId windowStartId;
+		private final long loadedAt = System.currentTimeMillis();
+
+		private final Map<String, BoardTop> likes = new HashMap<>();		// 주간에 써진 글
+		private final Map<String, BoardTop> comments = new HashMap<>();		// 주간에 댓글이 달린 글
+		private final Map<String, AtomicLong> views = new ConcurrentHashMap<>();		// 후보 글의 읽음수
+		private volatile boolean dirty;
+
+		private volatile List<BoardTop> topLikes = Collections.emptyList();
+		private volatile List<BoardTop> topComments = Collections.emptyList();
+
+		BoardCandidates(LocalDate windowStart, ObjectId windowStartId) {
+			this.windowStart = windowStart;
+			this.windowStartId = windowStartId;
+		}
+
+		LocalDate getWindowStart() {
+			return windowStart;
+		}
+
+		long getLoadedAt() {
+			return loadedAt;
+		}
+
+		List<BoardTop> getTopLikes() {
+			return topLikes;
+		}
+
+		List<BoardTop> getTopComments() {
+			return topComments;
+		}
+
+		synchronized void putLikes(BoardTop boardTop) {
+			likes.put(boardTop.getId(), this.withViews(withDefaults(boardTop)));
+			dirty = true;
+		}
+
+		synchronized void putComments(BoardTop boardTop) {
+			comments.put(boardTop.getId(), this.withViews(withDefaults(boardTop)));
+			dirty = true;
+		}
+
+		synchronized void articleChanged(Article article) {
+			if (this.isInWindow(article.getId()))
+				likes.put(article.getId(), this.withViews(newBoardTop(article, article.getLikingCount())));
+
+			BoardTop commented = comments.get(article.getId());
+
+			if (Objects.nonNull(commented)) {
+				commented.setSubject(article.getSubject());
+				commented.setStatus(article.getStatus());
+			}
+
+			dirty = true;
+		}
+
+		synchronized void articleDeleted(String articleId) {
+			likes.remove(articleId);
+			comments.remove(articleId);
+			views.remove(articleId);
+			dirty = true;
+		}
+
+		synchronized void commentAdded(Article article) {
+			BoardTop commented = comments.get(article.getId());
+
+			if (Objects.nonNull(commented)) {
+				commented.setCount(commented.getCount() + 1);
+			} else {
+				comments.put(article.getId(), this.withViews(newBoardTop(article, 1)));
+			}
+
+			dirty = true;
+		}
+
+		synchronized void commentDeleted(String articleId, String commentId) {
+			BoardTop commented = comments.get(articleId);
+
+			// 주간 범위 전에 달린 댓글은 애초에 세지 않았다.
+			if (Objects.isNull(commented) || ! this.isInWindow(commentId))
+				return;
+
+			if (commented.getCount() > 1) {
+				commented.setCount(commented.getCount() - 1);
+			} else {
+				comments.remove(articleId);
+
+				if (! likes.containsKey(articleId))
+					views.remove(articleId);
+			}
+
+			dirty = true;
+		}
+
+		// 잠그지 않는다. 후보가 아닌 글이면 아무것도 안 한다.
+		void articleViewed(String articleId) {
+			AtomicLong viewed = views.get(articleId);
+
+			if (Objects.nonNull(viewed)) {
+				viewed.incrementAndGet();
+				dirty = true;
+			}
+		}
+
+		synchronized void rank() {
+			if (! dirty)
+				return;
+
+			// 매기는 동안 바뀐 것은 다음에 다시 매긴다.
+			dirty = false;
+
+			likes.values().forEach(this::copyViews);
+			comments.values().forEach(this::copyViews);
+
+			topLikes = this.rank(likes.values());
+			topComments = this.rank(comments.values());
+		}
+
+		private List<BoardTop> rank(Collection<BoardTop> boardTops) {
+			return Collections.unmodifiableList(boardTops.stream()
+					.sorted(BY_COUNT_AND_VIEWS)
+					.limit(Constants.BOARD_TOP_LIMIT)
+					.map(BoardTopsLeaderboard::copyOf)
+					.collect(Collectors.toList()));
+		}
+
+		// 읽음수 카운터를 만들어 둔다. 이미 있으면 더 큰 쪽을 남긴다. 새로 읽어 온 글의 읽음수는 아직 DB 에 반영되지 않은 만큼 작을 수 있다.
+		private BoardTop withViews(BoardTop boardTop) {
+			views.computeIfAbsent(boardTop.getId(), id -> new AtomicLong())
+					.accumulateAndGet(boardTop.getViews(), Math::max);
+
+			return boardTop;
+		}
+
+		private void copyViews(BoardTop boardTop) {
+			AtomicLong viewed = views.get(boardTop.getId());
+
+			if (Objects.nonNull(viewed))
+				boardTop.setViews((int) viewed.get());
+		}
+
+		// 예전 글은 likingCount, views 가 없을 수 있다.
+		private static BoardTop withDefaults(BoardTop boardTop) {
+			if (Objects.isNull(boardTop.getCount()))
+				boardTop.setCount(0);
+
+			if (Objects.isNull(boardTop.getViews()))
+				boardTop.setViews(0);
+
+			return boardTop;
+		}
+
+		private boolean isInWindow(String id) {
+			return new ObjectId(id).compareTo(windowStartId) > 0;
+		}
+	}
+
+}
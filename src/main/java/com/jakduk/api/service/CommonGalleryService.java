@@ -1,9 +1,12 @@
 package com.jakduk.api.service;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.ImageCache;
 import com.jakduk.api.common.rabbitmq.RabbitMQPublisher;
 import com.jakduk.api.common.util.FileUtils;
 import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.db.Gallery;
 import com.jakduk.api.model.embedded.LinkedItem;
 import com.jakduk.api.repository.gallery.GalleryRepository;
@@ -27,25 +30,45 @@ public class CommonGalleryService {
     @Resource private JakdukProperties.Storage storageProperties;
     @Autowired private GalleryRepository galleryRepository;
     @Autowired private RabbitMQPublisher rabbitMQPublisher;
+    @Autowired private ImageCache imageCache;
+    @Autowired private GalleryRenditions galleryRenditions;
+    @Autowired private ImageBlobStore imageBlobStore;
 
     /**
      * Gallery와 사진 파일 지움
+     * 블롭에 저장한 사진은 참조만 줄이고, 더 쓰는 곳이 없을 때만 파일을 지운다.
      *
-     * @param id Gallery ID
-     * @param contentType contentType
+     * @param gallery Gallery
      */
-    public void deleteGallery(String id, String contentType) {
-        ObjectId objectId = new ObjectId(id);
-        LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    public void deleteGallery(Gallery gallery) {
+        String id = gallery.getId();
 
-        // 사진 포맷.
-        String formatName = StringUtils.split(contentType, "/")[1];
-        String fileName = id + "." + formatName;
+        if (StringUtils.isNotBlank(gallery.getBlobId())) {
+            galleryRepository.delete(id);
+            imageBlobStore.release(gallery.getBlobId());
+        } else {
+            LocalDate localDate = new ObjectId(id).getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
 
-        FileUtils.removeImageFile(storageProperties.getImagePath(), localDate, fileName);
-        FileUtils.removeImageFile(storageProperties.getThumbnailPath(), localDate, fileName);
+            // 사진 포맷.
+            String formatName = StringUtils.split(gallery.getContentType(), "/")[1];
+            String fileName = id + "." + formatName;
 
-        galleryRepository.delete(id);
+            FileUtils.removeImageFile(storageProperties.getImagePath(), localDate, fileName);
+
+            // 방금 올려서 썸네일을 아직 만들고 있으면 없다.
+            try {
+                FileUtils.removeImageFile(storageProperties.getThumbnailPath(), localDate, fileName);
+            } catch (ServiceException e) {
+                if (e.getServiceError() != ServiceError.NOT_FOUND_GALLERY_FILE)
+                    throw e;
+            }
+
+            galleryRenditions.delete(gallery);
+
+            galleryRepository.delete(id);
+        }
+
+        imageCache.evict(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, id);
     }
 
     /**
@@ -66,7 +89,7 @@ public class CommonGalleryService {
                 gallery.setLinkedItems(linkedItems);
                 galleryRepository.save(gallery);
             } else if (removed && linkedItems.size() < 1) {
-                this.deleteGallery(gallery.getId(), gallery.getContentType());
+                this.deleteGallery(gallery);
                 rabbitMQPublisher.deleteDocumentGallery(gallery.getId());
             }
         });
@@ -0,0 +1,241 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.ImageCache;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import lombok.extern.slf4j.Slf4j;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.geometry.Positions;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 올린 사진을 요청 쓰레드 밖에서 줄이고 썸네일을 만든다.
+ *
+ * 원본은 올릴 때 사진 경로에 그대로 저장된다. 원본을 한 번만 디코딩해서 그 BufferedImage 로 줄인 사진,
+ * 가로 길이별 사진(GalleryRenditions), 썸네일을 만든다.
+ * 다 쓴 파일을 옮겨서 바꾸므로 만드는 동안에도 원본이나 이전 파일을 읽을 수 있다.
+ *
+ * 다 줄이면 Gallery.size 에 줄인 크기를 넣는다. size 가 없으면 아직 줄이지 않은 사진이다.
+ * 쓰레드 풀에서 실패하면 썸네일을 처음 요청할 때 processMissing 으로 다시 만든다.
+ */
+
+@Slf4j
+@Component
+public class GalleryImageProcessor {
+
+	@Resource private Executor galleryUploadExecutor;
+
+	@Autowired private GalleryService galleryService;
+	@Autowired private GalleryRepository galleryRepository;
+	@Autowired private ImageCache imageCache;
+	@Autowired private GalleryRenditions galleryRenditions;
+
+	// 쓰레드 풀에 걸려 있는 사진 ID. 그동안은 요청 쓰레드에서 또 만들지 않는다.
+	private final Set<String> processing = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * 줄이기, 썸네일 만들기를 쓰레드 풀에 건다.
+	 *
+	 * @param gallery 원본이 저장된 사진
+	 */
+	public void process(Gallery gallery) {
+		this.execute(gallery, () -> this.resize(gallery));
+	}
+
+	/**
+	 * 이미 있는 블롭을 같이 쓰는 사진. 프로필 사진이 만든 블롭에는 썸네일, 가로 길이별 사진이 없으니 없으면 만든다.
+	 *
+	 * @param gallery 블롭에 줄인 사진이 있는 사진
+	 */
+	public void fillMissing(Gallery gallery) {
+		this.execute(gallery, () -> {
+			if (! galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL))
+				this.rebuild(gallery);
+		});
+	}
+
+	/**
+	 * 썸네일이 없는데 쓰레드 풀에서 만들고 있지도 않으면(실패했거나 서버가 내려갔으면) 요청 쓰레드에서 바로 만든다.
+	 * 아직 줄이지 않은 사진이면 줄이기부터 한다.
+	 *
+	 * @param gallery 썸네일이 없는 사진
+	 * @return 썸네일을 만들었으면 true. 쓰레드 풀에서 만들고 있거나 또 실패하면 false
+	 */
+	public Boolean processMissing(Gallery gallery) {
+		if (! processing.add(gallery.getId()))
+			return false;
+
+		try {
+			if (Objects.isNull(gallery.getSize()))
+				this.resize(gallery);
+			else
+				this.rebuild(gallery);
+
+			return galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL);
+
+		} catch (Exception e) {
+			log.warn("Failed to process gallery image. id={}", gallery.getId(), e);
+			return false;
+
+		} finally {
+			processing.remove(gallery.getId());
+		}
+	}
+
+	/**
+	 * 이미 줄여 둔 사진으로 가로 길이별 사진과 썸네일을 다시 만든다. 사진 자체는 다시 줄이지 않는다.
+	 * 요청 쓰레드 밖의 일괄 작업(GalleryRebuildService)에서 부른다.
+	 *
+	 * @param gallery 사진
+	 * @return 사진 파일이 없어서 건너뛰었으면 false
+	 */
+	public Boolean rebuild(Gallery gallery) throws IOException {
+		Path imageFilePath = galleryService.resolveGalleryFilePath(gallery, Constants.IMAGE_TYPE.FULL);
+
+		if (Files.notExists(imageFilePath, LinkOption.NOFOLLOW_LINKS))
+			return false;
+
+		BufferedImage image = Thumbnails.of(imageFilePath.toFile())
+				.scale(1)
+				.asBufferedImage();
+
+		this.writeDerived(gallery, image);
+
+		return true;
+	}
+
+	private void resize(Gallery gallery) throws IOException {
+		String id = gallery.getId();
+		String contentType = gallery.getContentType();
+
+		Path imageFilePath = galleryService.resolveGalleryFilePath(gallery, Constants.IMAGE_TYPE.FULL);
+
+		// 다 만들기 전에 지워진 사진
+		if (Files.notExists(imageFilePath, LinkOption.NOFOLLOW_LINKS))
+			return;
+
+		String formatName = StringUtils.split(contentType, "/")[1];
+
+		// Thumbnailator 로 읽어야 EXIF 회전이 반영된다. 한 번만 디코딩한다.
+		BufferedImage image = Thumbnails.of(imageFilePath.toFile())
+				.scale(1)
+				.asBufferedImage();
+
+		// gif 는 움직이는 그대로 둔다.
+		if (! "gif".equals(formatName)) {
+			// 올린 크기가 아니라 지금 파일 크기로 정한다. 줄인 뒤 크기를 남기기 전에 실패해서 다시 와도 또 줄이지 않는다.
+			long size = Files.size(imageFilePath);
+			double scale = Constants.GALLERY_MAXIMUM_CAPACITY < size ?
+					Constants.GALLERY_MAXIMUM_CAPACITY / (double) size : 1;
+
+			BufferedImage scaled = Thumbnails.of(image)
+					.scale(scale)
+					.asBufferedImage();
+
+			writeAtomically(imageFilePath, outputStream -> GalleryRenditions.encode(scaled, formatName, outputStream));
+		}
+
+		this.writeDerived(gallery, image);
+
+		// 썸네일까지 다 만든 뒤에 남긴다. 중간에 실패하면 다음에 줄이기부터 다시 한다.
+		Long resizedSize = Files.size(imageFilePath);
+
+		galleryRepository.updateSize(id, resizedSize);
+		gallery.setSize(resizedSize);
+
+		log.debug("gallery image processed. id={}", id);
+	}
+
+	/**
+	 * 디코딩한 원본으로 가로 길이별 사진과 썸네일을 만든다.
+	 */
+	private void writeDerived(Gallery gallery, BufferedImage image) throws IOException {
+		String id = gallery.getId();
+		Path thumbFilePath = galleryService.resolveGalleryFilePath(gallery, Constants.IMAGE_TYPE.THUMBNAIL);
+		String formatName = StringUtils.split(gallery.getContentType(), "/")[1];
+
+		// 가로 길이별 사진. 원본보다 크게 늘리지는 않는다. gif 는 만들지 않는다.
+		if (! "gif".equals(formatName)) {
+			for (Integer width : galleryRenditions.getWidths()) {
+				if (width >= image.getWidth())
+					break;
+
+				BufferedImage rendition = Thumbnails.of(image)
+						.width(width)
+						.asBufferedImage();
+
+				for (String outputFormat : GalleryRenditions.getOutputFormats(formatName))
+					writeAtomically(galleryRenditions.resolvePath(gallery, width, outputFormat),
+							outputStream -> GalleryRenditions.encode(rendition, outputFormat, outputStream));
+			}
+		}
+
+		Files.createDirectories(thumbFilePath.getParent());
+
+		BufferedImage thumbnail = Thumbnails.of(image)
+				.size(Constants.GALLERY_THUMBNAIL_SIZE_WIDTH, Constants.GALLERY_THUMBNAIL_SIZE_HEIGHT)
+				.crop(Positions.TOP_CENTER)
+				.asBufferedImage();
+
+		writeAtomically(thumbFilePath, outputStream -> GalleryRenditions.encode(thumbnail, formatName, outputStream));
+
+		// 예전 썸네일이 캐시에 있으면 버린다.
+		imageCache.evict(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, id);
+	}
+
+	private void execute(Gallery gallery, GalleryTask task) {
+		processing.add(gallery.getId());
+
+		galleryUploadExecutor.execute(() -> {
+			try {
+				task.run();
+			} catch (Exception e) {
+				log.warn("Failed to process gallery image. it will be made on the first thumbnail request. id={}", gallery.getId(), e);
+			} finally {
+				processing.remove(gallery.getId());
+			}
+		});
+	}
+
+	private static void writeAtomically(Path target, ImageWriter writer) throws IOException {
+		Path temp = Files.createTempFile(target.getParent(), ".", ".tmp");
+
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(temp)) {
+				writer.write(outputStream);
+			}
+
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	@FunctionalInterface
+	private interface GalleryTask {
+		void run() throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface ImageWriter {
+		void write(OutputStream outputStream) throws IOException;
+	}
+
+}
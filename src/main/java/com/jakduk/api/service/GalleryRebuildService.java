@@ -0,0 +1,301 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.model.db.GalleryRebuildCheckpoint;
+import com.jakduk.api.repository.GalleryRebuildCheckpointRepository;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.restcontroller.vo.admin.GalleryRebuildProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 사진을 _id 순으로 jakduk.gallery-rebuild.batch-size 개씩 읽어서 가로 길이별 사진과 썸네일을 다시 만든다.
+ *
+ * 한 묶음은 jakduk.gallery-rebuild.parallelism 크기의 ForkJoinPool 에서 나눠 만들고, 묶음을 다 만들 때마다
+ * 마지막 사진 ID 를 MongoDB 에 기록한다. 실패하거나 서버가 다시 떠도 그 다음부터 재개할 수 있다.
+ * 사진 하나가 깨져 있어도 실패 수만 세고 계속한다.
+ */
+
+@Slf4j
+@Service
+public class GalleryRebuildService {
+
+	private final static String CHECKPOINT_ID = "gallery";
+
+	@Resource private JakdukProperties.GalleryRebuild galleryRebuildProperties;
+
+	@Autowired private GalleryRepository galleryRepository;
+	@Autowired private GalleryImageProcessor galleryImageProcessor;
+	@Autowired private GalleryRebuildCheckpointRepository galleryRebuildCheckpointRepository;
+
+	// 다시 만들기는 한번에 하나만 돈다.
+	private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+
+	private volatile RebuildJob job;
+
+	/**
+	 * 남겨둔 진행 상태를 읽는다. 돌던 중에 서버가 내려갔으면 재개할 수 있게 실패로 바꾼다.
+	 */
+	@PostConstruct
+	public void loadCheckpoint() {
+		galleryRebuildCheckpointRepository.findOneById(CHECKPOINT_ID).ifPresent(checkpoint -> {
+			RebuildJob savedJob = RebuildJob.fromCheckpoint(checkpoint);
+
+			if (savedJob.getStatus() == Constants.REINDEX_STATUS.RUNNING) {
+				savedJob.fail("Interrupted by server restart.");
+				this.saveCheckpoint(savedJob);
+			}
+
+			job = savedJob;
+		});
+	}
+
+	@PreDestroy
+	public void destroy() {
+		jobExecutor.shutdownNow();
+	}
+
+	/**
+	 * 처음 사진부터 다시 만들기를 시작한다.
+	 */
+	public synchronized GalleryRebuildProgress startRebuild() {
+
+		if (Objects.nonNull(job) && job.getStatus() == Constants.REINDEX_STATUS.RUNNING)
+			throw new ServiceException(ServiceError.GALLERY_REBUILD_ALREADY_RUNNING);
+
+		RebuildJob newJob = new RebuildJob(galleryRebuildProperties.getParallelism());
+
+		job = newJob;
+		this.saveCheckpoint(newJob);
+		jobExecutor.submit(() -> this.run(newJob));
+
+		return newJob.toProgress();
+	}
+
+	/**
+	 * 실패한 다시 만들기를 마지막으로 다 만든 사진 ID 다음부터 이어서 한다.
+	 */
+	public synchronized GalleryRebuildProgress resumeRebuild() {
+
+		RebuildJob failedJob = job;
+
+		if (Objects.isNull(failedJob) || failedJob.getStatus() != Constants.REINDEX_STATUS.FAILED)
+			throw new ServiceException(ServiceError.GALLERY_REBUILD_NOT_RESUMABLE);
+
+		failedJob.resume();
+		this.saveCheckpoint(failedJob);
+		jobExecutor.submit(() -> this.run(failedJob));
+
+		return failedJob.toProgress();
+	}
+
+	/**
+	 * 다시 만들기 진행 상황. 한번도 안 돌렸으면 null
+	 */
+	public GalleryRebuildProgress getProgress() {
+		RebuildJob currentJob = job;
+
+		return Objects.isNull(currentJob) ? null : currentJob.toProgress();
+	}
+
+	private void run(RebuildJob job) {
+
+		ForkJoinPool pool = new ForkJoinPool(job.getParallelism());
+
+		try {
+			while (true) {
+				List<Gallery> galleries = galleryRepository.findGalleriesGreaterThanId(toObjectId(job.getLastGalleryId()),
+						galleryRebuildProperties.getBatchSize());
+
+				if (galleries.isEmpty())
+					break;
+
+				// 병렬 스트림을 이 풀 안에서 돌리면 공용 풀 대신 이 풀의 쓰레드로 나눠 돈다.
+				pool.submit(() -> galleries.parallelStream().forEach(gallery -> this.rebuild(job, gallery))).get();
+
+				job.batchRebuilt(galleries.get(galleries.size() - 1).getId());
+				this.saveCheckpoint(job);
+			}
+
+			job.complete();
+			this.saveCheckpoint(job);
+
+			log.info("Gallery rebuild completed. lastGalleryId={}", job.getLastGalleryId());
+
+		} catch (Exception e) {
+			if (e instanceof InterruptedException)
+				Thread.currentThread().interrupt();
+
+			log.error("Gallery rebuild failed. lastGalleryId={}", job.getLastGalleryId(), e);
+			job.fail(e.getMessage());
+			this.saveCheckpoint(job);
+
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void rebuild(RebuildJob job, Gallery gallery) {
+		try {
+			if (galleryImageProcessor.rebuild(gallery))
+				job.rebuilt();
+			else
+				job.skipped();
+
+		} catch (Exception e) {
+			log.warn("Failed to rebuild gallery image. id={}", gallery.getId(), e);
+			job.failed();
+		}
+	}
+
+	private void saveCheckpoint(RebuildJob job) {
+		galleryRebuildCheckpointRepository.save(job.toCheckpoint(CHECKPOINT_ID));
+	}
+
+	private static ObjectId toObjectId(String id) {
+		return Objects.isNull(id) ? null : new ObjectId(id);
+	}
+
+	/**
+	 * 다시 만들기 작업 상태. 작업 쓰레드들이 갱신하고 관리자 API 가 읽는다.
+	 */
+	private static class RebuildJob {
+
+		private final int parallelism;
+
+		private Constants.REINDEX_STATUS status = Constants.REINDEX_STATUS.RUNNING;
+		private String lastGalleryId;
+		private long rebuiltCount;
+		private long skippedCount;
+		private long failedCount;
+		private LocalDateTime startedAt = LocalDateTime.now();
+		private LocalDateTime finishedAt;
+		private String message;
+
+		// 이번 실행(시작 또는 재개)의 처리 속도 계산용
+		private long runStartedMillis = System.currentTimeMillis();
+		private long runFinishedMillis;
+		private long runGalleries;
+
+		RebuildJob(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		static RebuildJob fromCheckpoint(GalleryRebuildCheckpoint checkpoint) {
+			RebuildJob job = new RebuildJob(checkpoint.getParallelism());
+
+			job.status = checkpoint.getStatus();
+			job.lastGalleryId = checkpoint.getLastGalleryId();
+			job.rebuiltCount = checkpoint.getRebuiltCount();
+			job.skippedCount = checkpoint.getSkippedCount();
+			job.failedCount = checkpoint.getFailedCount();
+			job.startedAt = checkpoint.getStartedAt();
+			job.finishedAt = checkpoint.getFinishedAt();
+			job.message = checkpoint.getMessage();
+
+			return job;
+		}
+
+		int getParallelism() {
+			return parallelism;
+		}
+
+		synchronized Constants.REINDEX_STATUS getStatus() {
+			return status;
+		}
+
+		synchronized String getLastGalleryId() {
+			return lastGalleryId;
+		}
+
+		synchronized void rebuilt() {
+			rebuiltCount++;
+			runGalleries++;
+		}
+
+		synchronized void skipped() {
+			skippedCount++;
+			runGalleries++;
+		}
+
+		synchronized void failed() {
+			failedCount++;
+			runGalleries++;
+		}
+
+		synchronized void batchRebuilt(String lastId) {
+			lastGalleryId = lastId;
+		}
+
+		synchronized void resume() {
+			status = Constants.REINDEX_STATUS.RUNNING;
+			finishedAt = null;
+			message = null;
+			runStartedMillis = System.currentTimeMillis();
+			runGalleries = 0;
+		}
+
+		synchronized void complete() {
+			status = Constants.REINDEX_STATUS.COMPLETED;
+			finishedAt = LocalDateTime.now();
+			runFinishedMillis = System.currentTimeMillis();
+		}
+
+		synchronized void fail(String message) {
+			status = Constants.REINDEX_STATUS.FAILED;
+			finishedAt = LocalDateTime.now();
+			runFinishedMillis = System.currentTimeMillis();
+			this.message = message;
+		}
+
+		synchronized GalleryRebuildCheckpoint toCheckpoint(String id) {
+			return GalleryRebuildCheckpoint.builder()
+					.id(id)
+					.status(status)
+					.parallelism(parallelism)
+					.lastGalleryId(lastGalleryId)
+					.rebuiltCount(rebuiltCount)
+					.skippedCount(skippedCount)
+					.failedCount(failedCount)
+					.startedAt(startedAt)
+					.finishedAt(finishedAt)
+					.message(message)
+					.build();
+		}
+
+		synchronized GalleryRebuildProgress toProgress() {
+			long endMillis = status == Constants.REINDEX_STATUS.RUNNING ? System.currentTimeMillis() : runFinishedMillis;
+			long elapsedMillis = Math.max(1, endMillis - runStartedMillis);
+
+			return GalleryRebuildProgress.builder()
+					.status(status)
+					.lastGalleryId(lastGalleryId)
+					.rebuiltCount(rebuiltCount)
+					.skippedCount(skippedCount)
+					.failedCount(failedCount)
+					.parallelism(parallelism)
+					.galleriesPerSecond(runGalleries * 1000d / elapsedMillis)
+					.startedAt(startedAt)
+					.finishedAt(finishedAt)
+					.message(message)
+					.build();
+		}
+	}
+
+}
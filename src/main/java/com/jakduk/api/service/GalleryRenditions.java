@@ -0,0 +1,180 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.Gallery;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * 사진을 가로 길이별(jakduk.gallery-upload.rendition-widths)로 미리 줄여 둔 파일들.
+ *
+ * 사진과 같은 곳(블롭 또는 날짜 폴더)에 둔다. 원본 포맷으로 하나씩 두고,
+ * WebP 를 쓰는 ImageIO 플러그인이 있으면 .webp 도 둔다. JPEG 는 프로그레시브로 쓴다.
+ */
+
+@Slf4j
+@Component
+public class GalleryRenditions {
+
+	public final static String WEBP = "webp";
+	public final static String WEBP_CONTENT_TYPE = "image/webp";
+
+	private final static Float JPEG_QUALITY = 0.85f;
+
+	// 순수 자바 WebP 인코더가 classpath 에 없으면 원본 포맷만 만든다.
+	private final static Boolean WEBP_WRITABLE = ImageIO.getImageWritersByFormatName(WEBP).hasNext();
+
+	@Resource private JakdukProperties.Storage storageProperties;
+	@Resource private JakdukProperties.GalleryUpload galleryUploadProperties;
+
+	@Autowired private ImageBlobStore imageBlobStore;
+
+	/**
+	 * 만들 가로 길이들. 작은 것부터.
+	 */
+	public List<Integer> getWidths() {
+		List<Integer> widths = new ArrayList<>(galleryUploadProperties.getRenditionWidths());
+		Collections.sort(widths);
+
+		return widths;
+	}
+
+	/**
+	 * w 를 주지 않은 모바일 요청에 줄 가로 길이
+	 */
+	public Integer getMobileWidth() {
+		return galleryUploadProperties.getMobileWidth();
+	}
+
+	/**
+	 * 원본 포맷에 더해 만들 수 있으면 webp 도.
+	 */
+	public static List<String> getOutputFormats(String formatName) {
+		return WEBP_WRITABLE ? Arrays.asList(formatName, WEBP) : Collections.singletonList(formatName);
+	}
+
+	/**
+	 * 블롭에 저장한 사진은 블롭 안의 w{가로}.{포맷}, 예전 사진은 날짜별 폴더의 {id}_w{가로}.{포맷}
+	 */
+	public Path resolvePath(Gallery gallery, Integer width, String formatName) {
+		if (StringUtils.isNotBlank(gallery.getBlobId()))
+			return imageBlobStore.resolve(gallery.getBlobId(), "w" + width + "." + formatName);
+
+		String id = gallery.getId();
+		LocalDate localDate = new ObjectId(id).getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+
+		return Paths.get(storageProperties.getImagePath(), String.valueOf(localDate.getYear()), String.valueOf(localDate.getMonthValue()),
+				String.valueOf(localDate.getDayOfMonth()), id + "_w" + width + "." + formatName);
+	}
+
+	/**
+	 * 원하는 가로 길이 이상인 것 중 가장 작은 것. 없으면 원본을 줘야 한다.
+	 *
+	 * @param gallery 사진
+	 * @param width 원하는 가로 길이. null 이면 원본.
+	 * @param acceptWebp 클라이언트가 webp 를 받는지
+	 */
+	public Optional<Rendition> select(Gallery gallery, Integer width, Boolean acceptWebp) {
+		if (Objects.isNull(width))
+			return Optional.empty();
+
+		String formatName = StringUtils.split(gallery.getContentType(), "/")[1];
+
+		Optional<Integer> selectedWidth = this.getWidths().stream()
+				.filter(renditionWidth -> renditionWidth >= width)
+				.findFirst();
+
+		if (! selectedWidth.isPresent())
+			return Optional.empty();
+
+		if (acceptWebp) {
+			Path webpPath = this.resolvePath(gallery, selectedWidth.get(), WEBP);
+
+			if (Files.exists(webpPath, LinkOption.NOFOLLOW_LINKS))
+				return Optional.of(new Rendition(webpPath, WEBP_CONTENT_TYPE, selectedWidth.get()));
+		}
+
+		// 원본보다 넓은 것은 만들지 않아서 없을 수 있다.
+		Path path = this.resolvePath(gallery, selectedWidth.get(), formatName);
+
+		return Files.exists(path, LinkOption.NOFOLLOW_LINKS)
+				? Optional.of(new Rendition(path, gallery.getContentType(), selectedWidth.get()))
+				: Optional.empty();
+	}
+
+	/**
+	 * 사진을 지울 때 같이 지운다. 블롭에 저장한 사진은 블롭을 지울 때 같이 지워진다.
+	 */
+	public void delete(Gallery gallery) {
+		if (StringUtils.isNotBlank(gallery.getBlobId()))
+			return;
+
+		String formatName = StringUtils.split(gallery.getContentType(), "/")[1];
+
+		for (Integer width : this.getWidths()) {
+			for (String outputFormat : getOutputFormats(formatName)) {
+				try {
+					Files.deleteIfExists(this.resolvePath(gallery, width, outputFormat));
+				} catch (IOException e) {
+					log.warn("Failed to delete gallery rendition. id={}, width={}", gallery.getId(), width, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 이미지를 포맷에 맞게 쓴다. JPEG 는 프로그레시브로.
+	 */
+	public static void encode(BufferedImage image, String formatName, OutputStream outputStream) throws IOException {
+		if (! "jpeg".equals(formatName) && ! "jpg".equals(formatName)) {
+			if (! ImageIO.write(image, formatName, outputStream))
+				throw new IOException("No image writer for " + formatName);
+
+			return;
+		}
+
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(JPEG_QUALITY);
+
+		try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+			writer.setOutput(imageOutputStream);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class Rendition {
+		private final Path path;
+		private final String contentType;
+		private final Integer width;
+	}
+
+}
@@ -18,12 +18,11 @@ import com.jakduk.api.repository.article.ArticleRepository;
 import com.jakduk.api.repository.gallery.GalleryRepository;
 import com.jakduk.api.restcontroller.vo.board.GalleryOnBoard;
 import com.jakduk.api.restcontroller.vo.gallery.*;
+import com.jakduk.api.service.mapper.ArticleMapper;
+import com.jakduk.api.service.mapper.GalleryMapper;
 import lombok.extern.slf4j.Slf4j;
-import net.coobird.thumbnailator.Thumbnails;
-import net.coobird.thumbnailator.geometry.Positions;
 import org.apache.commons.lang3.StringUtils;
 import org.bson.types.ObjectId;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
@@ -31,12 +30,12 @@ import org.springframework.util.DigestUtils;
 import org.springframework.util.ObjectUtils;
 
 import javax.annotation.Resource;
-import java.io.*;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -66,6 +65,9 @@ public class GalleryService {
 	@Autowired private JakdukDAO jakdukDAO;
 	@Autowired private CommonGalleryService commonGalleryService;
 	@Autowired private RabbitMQPublisher rabbitMQPublisher;
+	@Autowired private HomeLatestCache homeLatestCache;
+	@Autowired private GalleryImageProcessor galleryImageProcessor;
+	@Autowired private ImageBlobStore imageBlobStore;
 
 	public Gallery findOneById(String id) {
 		return galleryRepository.findOneById(id).orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_GALLERY));
@@ -91,11 +93,11 @@ public class GalleryService {
 
 		return galleryRepository.findGalleriesById(objectId, Constants.CRITERIA_OPERATOR.LT, size).stream()
 				.map(gallery -> {
-					GalleryOnList galleryOnList = new GalleryOnList();
-					BeanUtils.copyProperties(gallery, galleryOnList);
+					GalleryOnList galleryOnList = GalleryMapper.toGalleryOnList(gallery);
 
 					galleryOnList.setName(StringUtils.isNotBlank(gallery.getName()) ? gallery.getName() : gallery.getFileName());
 					galleryOnList.setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()));
+					galleryOnList.setImageSrcset(urlGenerationUtils.generateGallerySrcset(gallery.getId()));
 					galleryOnList.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
 
 					return galleryOnList;
@@ -108,11 +110,11 @@ public class GalleryService {
 		Gallery gallery = galleryRepository.findOneById(id)
 				.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_GALLERY));
 
-		GalleryDetail galleryDetail = new GalleryDetail();
-		BeanUtils.copyProperties(gallery, galleryDetail);
+		GalleryDetail galleryDetail = GalleryMapper.toGalleryDetail(gallery);
 
 		galleryDetail.setName(StringUtils.isNoneBlank(gallery.getName()) ? gallery.getName() : gallery.getFileName());
 		galleryDetail.setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()));
+		galleryDetail.setImageSrcset(urlGenerationUtils.generateGallerySrcset(gallery.getId()));
 		galleryDetail.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
 
 		// 사진첩 보기의 앞, 뒤 사진을 가져온다.
@@ -128,10 +130,10 @@ public class GalleryService {
 
 		// Gallery -> SurroundingsGallery
 		Consumer<Gallery> extractSurroundingsGalleries = surroundingsPrevGallery -> {
-			SurroundingsGallery surroundingsGallery = new SurroundingsGallery();
-			BeanUtils.copyProperties(surroundingsPrevGallery, surroundingsGallery);
+			SurroundingsGallery surroundingsGallery = GalleryMapper.toSurroundingsGallery(surroundingsPrevGallery);
 
 			surroundingsGallery.setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, surroundingsPrevGallery.getId()));
+			surroundingsGallery.setImageSrcset(urlGenerationUtils.generateGallerySrcset(surroundingsPrevGallery.getId()));
 			surroundingsGallery.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, surroundingsPrevGallery.getId()));
 
 			surroundingsGalleries.add(surroundingsGallery);
@@ -164,10 +166,10 @@ public class GalleryService {
 				.limit(prevGalleriesLimit)
 				.forEach(extractSurroundingsGalleries);
 
-		SurroundingsGallery surroundingsViewingGallery = new SurroundingsGallery();
-		BeanUtils.copyProperties(gallery, surroundingsViewingGallery);
+		SurroundingsGallery surroundingsViewingGallery = GalleryMapper.toSurroundingsGallery(gallery);
 
 		surroundingsViewingGallery.setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, surroundingsViewingGallery.getId()));
+		surroundingsViewingGallery.setImageSrcset(urlGenerationUtils.generateGallerySrcset(surroundingsViewingGallery.getId()));
 		surroundingsViewingGallery.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, surroundingsViewingGallery.getId()));
 
 		surroundingsGalleries.add(surroundingsViewingGallery);
@@ -191,12 +193,7 @@ public class GalleryService {
             List<Article> posts = articleRepository.findByIdInAndLinkedGalleryIsTrue(ids);
 
             linkedPosts = posts.stream()
-                    .map(post -> {
-                        ArticleSimple articleSimple = new ArticleSimple();
-                        BeanUtils.copyProperties(post, articleSimple);
-
-                        return articleSimple;
-                    })
+                    .map(ArticleMapper::toArticleSimple)
                     .collect(Collectors.toList());
         }
 
@@ -209,6 +206,8 @@ public class GalleryService {
 
 	/**
 	 * 사진 올리기
+	 * 원본만 저장하고 TEMP 사진을 바로 돌려준다. 줄이기, 썸네일 만들기는 GalleryImageProcessor 가 요청 쓰레드 밖에서 한다.
+	 * 같은 내용의 파일이 이미 있으면(ImageBlobStore) 새로 쓰지 않고 참조만 늘린다.
      */
 	public Gallery uploadImage(CommonWriter writer, String fileName, long size, String contentType, byte[] bytes) {
 
@@ -219,6 +218,28 @@ public class GalleryService {
 		if (oGallery.isPresent())
 			return oGallery.get();
 
+		ImageBlobStore.Acquired acquired;
+		Long storedSize = null;
+
+		try {
+			// 원본 저장. 블롭 키는 SHA-256 이다. md5 hash 는 위의 같은 사진 찾기에만 쓴다.
+			acquired = imageBlobStore.acquire(ImageBlobStore.hash(bytes),
+					imageFilePath -> Files.write(imageFilePath, bytes, StandardOpenOption.CREATE_NEW));
+
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.GALLERY_IO_ERROR, e);
+		}
+
+		// 새로 쓴 사진은 다 줄인 뒤에 크기를 넣는다(GalleryImageProcessor). 이미 있던 블롭은 지금 크기를 쓴다.
+		if (! acquired.getWritten()) {
+			try {
+				storedSize = Files.size(imageBlobStore.resolve(acquired.getBlobId(), ImageBlobStore.FULL));
+			} catch (IOException e) {
+				imageBlobStore.release(acquired.getBlobId());
+				throw new ServiceException(ServiceError.GALLERY_IO_ERROR, e);
+			}
+		}
+
 		Gallery gallery = Gallery.builder()
 				.contentType(contentType)
 				.writer(writer)
@@ -227,86 +248,62 @@ public class GalleryService {
 								.status(Constants.GALLERY_STATUS_TYPE.TEMP)
 								.build())
 				.fileName(fileName)
-				.size(size)
+				.size(storedSize)
 				.fileSize(size)
-				.hash(DigestUtils.md5DigestAsHex(bytes))
+				.hash(hash)
+				.blobId(acquired.getBlobId())
 				.build();
 
-		galleryRepository.save(gallery);
-
-		// 사진 포맷.
-		String splitContentType[] = StringUtils.split(contentType, "/");
-		String formatName = splitContentType[1];
-
 		try {
-			// 폴더 생성.
-			ObjectId objId = new ObjectId(gallery.getId());
-			Instant instant = Instant.ofEpochMilli(objId.getDate().getTime());
-			LocalDateTime timePoint = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
-
-			Path imageDirPath = Paths.get(storageProperties.getImagePath(), String.valueOf(timePoint.getYear()),
-					String.valueOf(timePoint.getMonthValue()), String.valueOf(timePoint.getDayOfMonth()));
-
-			Path thumbDirPath = Paths.get(storageProperties.getThumbnailPath(), String.valueOf(timePoint.getYear()),
-					String.valueOf(timePoint.getMonthValue()), String.valueOf(timePoint.getDayOfMonth()));
-
-			if (Files.notExists(imageDirPath, LinkOption.NOFOLLOW_LINKS))
-				Files.createDirectories(imageDirPath);
-
-			if (Files.notExists(thumbDirPath, LinkOption.NOFOLLOW_LINKS))
-				Files.createDirectories(thumbDirPath);
-
-			// 사진 경로.
-			Path imageFilePath = imageDirPath.resolve(gallery.getId() + "." + formatName);
-			Path thumbFilePath = thumbDirPath.resolve(gallery.getId() + "." + formatName);
-
-			// 사진 저장.
-			if (Files.notExists(imageFilePath, LinkOption.NOFOLLOW_LINKS)) {
-				if ("gif".equals(formatName)) {
-					Files.write(imageFilePath, bytes);
-				} else {
-
-					double scale = Constants.GALLERY_MAXIMUM_CAPACITY < size ?
-							Constants.GALLERY_MAXIMUM_CAPACITY / (double) size : 1;
-
-                    InputStream originalInputStream = new ByteArrayInputStream(bytes);
-
-					Thumbnails.of(originalInputStream)
-							.scale(scale)
-							.toFile(imageFilePath.toFile());
+			galleryRepository.save(gallery);
+		} catch (RuntimeException e) {
+			imageBlobStore.release(acquired.getBlobId());
+			throw e;
+		}
 
-					BasicFileAttributes attr = Files.readAttributes(imageFilePath, BasicFileAttributes.class);
+		if (acquired.getWritten())
+			galleryImageProcessor.process(gallery);
+		else
+			galleryImageProcessor.fillMissing(gallery);
 
-					gallery.setSize(attr.size());
+		log.debug("gallery=\n{}", gallery);
 
-					galleryRepository.save(gallery);
-				}
-			}
+		return gallery;
 
-			// 썸네일 만들기.
-			if (Files.notExists(thumbFilePath, LinkOption.NOFOLLOW_LINKS)) {
-				InputStream thumbInputStream = new ByteArrayInputStream(bytes);
+	}
 
-				Thumbnails.of(thumbInputStream)
-						.size(Constants.GALLERY_THUMBNAIL_SIZE_WIDTH, Constants.GALLERY_THUMBNAIL_SIZE_HEIGHT)
-                        .crop(Positions.TOP_CENTER)
-						.toFile(thumbFilePath.toFile());
-			}
+	/**
+	 * 이미지 파일 경로 가져오기.
+	 * 파일을 읽지는 않는다. 응답시 파일을 그대로 흘려 보내기 위함.
+	 */
+	public Path getGalleryFilePath(Gallery gallery, Constants.IMAGE_TYPE imageType) {
 
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.GALLERY_IO_ERROR, e);
-		}
+		Path filePath = this.resolveGalleryFilePath(gallery, imageType);
 
-		log.debug("gallery=\n{}", gallery);
+		if (Files.notExists(filePath, LinkOption.NOFOLLOW_LINKS))
+			throw new ServiceException(ServiceError.NOT_FOUND_GALLERY);
 
-		return gallery;
+		return filePath;
+	}
 
+	/**
+	 * 썸네일을 아직 만들고 있으면 false.
+	 */
+	public Boolean existsGalleryFile(Gallery gallery, Constants.IMAGE_TYPE imageType) {
+		return Files.exists(this.resolveGalleryFilePath(gallery, imageType), LinkOption.NOFOLLOW_LINKS);
 	}
 
-	// 이미지 가져오기.
-	public ByteArrayOutputStream getGalleryOutStream(String id, String contentType, Constants.IMAGE_TYPE imageType) {
+	/**
+	 * 이미지 파일 경로. 파일이 있는지는 보지 않는다.
+	 * 블롭에 저장한 사진은 블롭 안의 파일, 예전 사진은 날짜별 폴더의 {id}.{포맷} 이다.
+	 */
+	public Path resolveGalleryFilePath(Gallery gallery, Constants.IMAGE_TYPE imageType) {
+
+		if (StringUtils.isNotBlank(gallery.getBlobId()))
+			return imageBlobStore.resolve(gallery.getBlobId(),
+					imageType == Constants.IMAGE_TYPE.FULL ? ImageBlobStore.FULL : ImageBlobStore.THUMBNAIL);
 
-		ObjectId objId = new ObjectId(id);
+		ObjectId objId = new ObjectId(gallery.getId());
 		Instant instant = Instant.ofEpochMilli(objId.getDate().getTime());
 		LocalDateTime timePoint = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
 
@@ -321,31 +318,10 @@ public class GalleryService {
 				break;
 		}
 
-		String formatName = StringUtils.split(contentType, "/")[1];
-
-		Path filePath = Paths.get(imagePath, String.valueOf(timePoint.getYear()), String.valueOf(timePoint.getMonthValue()),
-				String.valueOf(timePoint.getDayOfMonth()), id + "." + formatName);
-
-		if (Files.exists(filePath, LinkOption.NOFOLLOW_LINKS)) {
-			try {
-				BufferedInputStream in = new BufferedInputStream(new FileInputStream(filePath.toString()));
-				ByteArrayOutputStream byteStream = new ByteArrayOutputStream(512);
-
-				int imageByte;
-
-				while ((imageByte = in.read()) != -1){
-					byteStream.write(imageByte);
-				}
+		String formatName = StringUtils.split(gallery.getContentType(), "/")[1];
 
-				in.close();
-				return byteStream;
-
-			} catch (IOException e) {
-				throw new ServiceException(ServiceError.GALLERY_IO_ERROR, e);
-			}
-		} else {
-			throw new ServiceException(ServiceError.NOT_FOUND_GALLERY);
-		}
+		return Paths.get(imagePath, String.valueOf(timePoint.getYear()), String.valueOf(timePoint.getMonthValue()),
+				String.valueOf(timePoint.getDayOfMonth()), gallery.getId() + "." + formatName);
 	}
 
 	/**
@@ -364,7 +340,7 @@ public class GalleryService {
 			if (! userId.equals(gallery.getWriter().getUserId()))
 				throw new ServiceException(ServiceError.FORBIDDEN);
 
-			commonGalleryService.deleteGallery(id, gallery.getContentType());
+			commonGalleryService.deleteGallery(gallery);
 		}
 	}
 
@@ -443,7 +419,7 @@ public class GalleryService {
 
 					// 모두 지움.
 					if (linkedItems.size() < 1) {
-						commonGalleryService.deleteGallery(gallery.getId(), gallery.getContentType());
+						commonGalleryService.deleteGallery(gallery);
 						// 엘라스틱 서치 document 삭제.
 						rabbitMQPublisher.deleteDocumentGallery(gallery.getId());
 					}
@@ -455,6 +431,9 @@ public class GalleryService {
 				}
 			});
 		}
+
+		// 임시 사진이 활성화되거나 지워졌을 수 있다.
+		homeLatestCache.changed();
 	}
 
 }
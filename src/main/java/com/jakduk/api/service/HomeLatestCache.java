@@ -0,0 +1,134 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.model.simple.GallerySimple;
+import com.jakduk.api.restcontroller.vo.home.GalleryOnHome;
+import com.jakduk.api.restcontroller.vo.home.HomeResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 홈에서 보여줄 최근 데이터(HomeResponse)를 언어별로 만들어 둔다.
+ *
+ * 글, 댓글, 사진, 회원이 생기거나 지워지면 changed() 를 불러서 요청 쓰레드 밖에서 다시 만든다.
+ * 그런 일이 없어도 jakduk.home-latest.max-staleness-millis 마다 다시 만든다.
+ * 요청에는 만들어 둔 것을 그대로 주므로 고치지 말아야 한다.
+ */
+
+@Slf4j
+@Component
+public class HomeLatestCache {
+
+	@Autowired private UrlGenerationUtils urlGenerationUtils;
+	@Autowired private HomeService homeService;
+	@Autowired private ArticleService articleService;
+	@Autowired private GalleryService galleryService;
+
+	private final Map<String, HomeResponse> snapshots = new ConcurrentHashMap<>();
+
+	// 다시 만들기는 한 쓰레드에서 차례로 한다. 먼저 시작한 것이 나중 것을 덮어쓰지 않게.
+	private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "home-latest-rebuild");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// 이미 다시 만들기를 걸어 뒀으면 또 걸지 않는다.
+	private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+	/**
+	 * 언어별 홈 최근 데이터. 처음 찾는 언어만 요청 쓰레드에서 만든다.
+	 */
+	public HomeResponse getLatest(String language) {
+		HomeResponse snapshot = snapshots.get(language);
+
+		return Objects.nonNull(snapshot) ? snapshot : this.load(language);
+	}
+
+	/**
+	 * 홈에 보이는 글, 댓글, 사진, 회원이 바뀌었을 때
+	 */
+	public void changed() {
+		if (snapshots.isEmpty() || ! rebuildScheduled.compareAndSet(false, true))
+			return;
+
+		rebuildExecutor.execute(() -> {
+			// 다시 만드는 동안 생긴 변경은 다음 번에 반영되게 먼저 푼다.
+			rebuildScheduled.set(false);
+			this.rebuildAll();
+		});
+	}
+
+	/**
+	 * 변경이 없어도 너무 오래된 데이터를 주지 않도록 주기적으로 다시 만든다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.home-latest.max-staleness-millis:60000}")
+	public void refresh() {
+		this.changed();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		rebuildExecutor.shutdownNow();
+	}
+
+	private synchronized HomeResponse load(String language) {
+		HomeResponse snapshot = snapshots.get(language);
+
+		if (Objects.isNull(snapshot)) {
+			snapshot = this.build(language);
+			snapshots.put(language, snapshot);
+		}
+
+		return snapshot;
+	}
+
+	private void rebuildAll() {
+		snapshots.keySet().forEach(language -> {
+			try {
+				snapshots.put(language, this.build(language));
+			} catch (Exception e) {
+				log.warn("Failed to rebuild home latest. language={}", language, e);
+			}
+		});
+	}
+
+	private HomeResponse build(String language) {
+		HomeResponse response = new HomeResponse();
+		response.setHomeDescription(homeService.getHomeDescription());
+		response.setUsers(homeService.getUsersLatest(language));
+		response.setComments(homeService.getBoardCommentsLatest());
+		response.setArticles(articleService.getLatestArticles());
+
+		// 최근 사진
+		List<GallerySimple> galleries = galleryService.findSimpleById(null, Constants.HOME_SIZE_GALLERY);
+
+		// 사진 경로 붙히기.
+		List<GalleryOnHome> galleriesOfHome = galleries.stream()
+				.map(GalleryOnHome::new)
+				.peek(gallery -> {
+					gallery.setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()));
+					gallery.setImageSrcset(urlGenerationUtils.generateGallerySrcset(gallery.getId()));
+					gallery.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
+				})
+				.collect(Collectors.toList());
+
+		response.setGalleries(galleriesOfHome);
+
+		return response;
+	}
+
+}
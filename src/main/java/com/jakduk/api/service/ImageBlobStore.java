@@ -0,0 +1,174 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.ImageBlob;
+import com.jakduk.api.repository.blob.ImageBlobRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 같은 내용의 이미지를 해시로 한 번만 저장한다.
+ *
+ * jakduk.storage.blob-path/{해시 앞 2자}/{다음 2자}/{해시}_{세대}/ 폴더에 줄인 사진(full), 썸네일, 가로 길이별 사진,
+ * 프로필 작은 사진을 둔다. 파일 이름에 포맷을 붙이지 않는다. 포맷은 참조하는 Gallery, UserPicture 의 contentType 을 따른다.
+ *
+ * 참조 수와 지울지 말지는 Mongo(ImageBlob)의 조건부 갱신으로 정한다. 서버가 여러 대여도 된다.
+ * 참조 수가 0 이 되면 지우는 중으로 표시한 쪽만 폴더를 지운다. 지우는 중에 같은 사진을 올리면 새 세대의 폴더에 다시 쓴다.
+ * 해시는 SHA-256 이다. 다른 사람의 사진과 일부러 같은 해시를 만들어 바꿔치기할 수 없게.
+ */
+
+@Slf4j
+@Component
+public class ImageBlobStore {
+
+	public final static String FULL = "full";
+	public final static String THUMBNAIL = "thumbnail";
+	public final static String SMALL = "small";
+
+	private final static String BLOB_ID_SEPARATOR = "_";
+
+	// 지우는 중인 블롭을 새 세대로 바꾸다가 다른 쪽과 부딪히면 다시 해 본다.
+	private final static Integer ACQUIRE_RETRIES = 3;
+
+	@Resource private JakdukProperties.Storage storageProperties;
+
+	@Autowired private ImageBlobRepository imageBlobRepository;
+
+	/**
+	 * 블롭 키로 쓰는 원본 바이트의 해시
+	 */
+	public static String hash(byte[] bytes) {
+		return DigestUtils.sha256Hex(bytes);
+	}
+
+	/**
+	 * 블롭 안의 파일 경로. 파일이 있는지는 보지 않는다.
+	 *
+	 * @param blobId acquire 가 준 블롭 ID
+	 * @param fileName FULL, THUMBNAIL, SMALL 또는 가로 길이별 사진 이름
+	 */
+	public Path resolve(String blobId, String fileName) {
+		return this.getDirectory(blobId).resolve(fileName);
+	}
+
+	/**
+	 * 참조를 하나 늘린다. 줄인 사진(full)이 아직 없으면 writer 로 쓴다.
+	 *
+	 * @param hash 원본 바이트의 hash(bytes)
+	 * @param writer 빈 full 경로에 사진을 쓴다.
+	 * @return 참조할 블롭 ID 와 full 을 새로 썼는지
+	 */
+	public Acquired acquire(String hash, BlobWriter writer) throws IOException {
+		ImageBlob imageBlob = this.increaseRefCount(hash);
+		String blobId = hash + BLOB_ID_SEPARATOR + imageBlob.getGeneration();
+
+		try {
+			return new Acquired(blobId, this.write(blobId, FULL, writer));
+		} catch (IOException | RuntimeException e) {
+			this.release(blobId);
+			throw e;
+		}
+	}
+
+	/**
+	 * 참조하고 있는 블롭에 파일이 없으면 쓴다. 프로필 작은 사진처럼 쓰는 곳마다 필요한 파일이 다를 때.
+	 *
+	 * @return 새로 썼으면 true
+	 */
+	public Boolean writeIfAbsent(String blobId, String fileName, BlobWriter writer) throws IOException {
+		return this.write(blobId, fileName, writer);
+	}
+
+	/**
+	 * 참조를 하나 줄인다. 더 쓰는 곳이 없으면 블롭 폴더를 지운다.
+	 */
+	public void release(String blobId) {
+		String hash = StringUtils.substringBefore(blobId, BLOB_ID_SEPARATOR);
+		String generation = StringUtils.substringAfter(blobId, BLOB_ID_SEPARATOR);
+
+		if (imageBlobRepository.decreaseRefCount(hash, generation) > 0 || ! imageBlobRepository.markDeleting(hash, generation))
+			return;
+
+		Path directory = this.getDirectory(blobId);
+
+		if (Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+			try (Stream<Path> paths = Files.walk(directory)) {
+				paths.sorted(Comparator.reverseOrder())
+						.forEach(path -> path.toFile().delete());
+			} catch (IOException e) {
+				log.warn("Failed to delete image blob. blobId={}", blobId, e);
+			}
+		}
+
+		imageBlobRepository.removeDeleting(hash, generation);
+	}
+
+	private ImageBlob increaseRefCount(String hash) throws IOException {
+		for (int i = 0; i < ACQUIRE_RETRIES; i++) {
+			Optional<ImageBlob> imageBlob = imageBlobRepository.increaseRefCount(hash);
+
+			// 지우는 중이면 새 세대로 바꾼다. 지우는 쪽은 예전 세대의 폴더만 지운다.
+			if (! imageBlob.isPresent())
+				imageBlob = imageBlobRepository.replaceDeleting(hash);
+
+			if (imageBlob.isPresent())
+				return imageBlob.get();
+		}
+
+		throw new IOException("Failed to acquire image blob. hash=" + hash);
+	}
+
+	/**
+	 * 옆의 임시 파일에 쓰고 옮긴다. 같은 사진을 동시에 올려도 반쯤 쓴 파일을 읽지 않게.
+	 */
+	private Boolean write(String blobId, String fileName, BlobWriter writer) throws IOException {
+		Path filePath = this.resolve(blobId, fileName);
+
+		if (Files.exists(filePath, LinkOption.NOFOLLOW_LINKS))
+			return false;
+
+		Files.createDirectories(filePath.getParent());
+
+		Path tempPath = filePath.resolveSibling(fileName + "." + new ObjectId().toHexString() + ".tmp");
+
+		try {
+			writer.write(tempPath);
+			Files.move(tempPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+
+			return true;
+
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	private Path getDirectory(String blobId) {
+		return Paths.get(storageProperties.getBlobPath(), blobId.substring(0, 2), blobId.substring(2, 4), blobId);
+	}
+
+	@FunctionalInterface
+	public interface BlobWriter {
+		void write(Path filePath) throws IOException;
+	}
+
+	@AllArgsConstructor
+	@Getter
+	public static class Acquired {
+		private String blobId;
+		private Boolean written;		// full 을 새로 썼으면 true. 이미 있었으면 false
+	}
+
+}
@@ -2,18 +2,20 @@ package com.jakduk.api.service;
 
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.mongodb.UsersFeelingUpdater;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.dao.JakdukDAO;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.aggregate.BoardFeelingCount;
 import com.jakduk.api.model.db.Jakdu;
 import com.jakduk.api.model.db.JakduComment;
 import com.jakduk.api.model.db.JakduSchedule;
 import com.jakduk.api.model.elasticsearch.EsJakduComment;
 import com.jakduk.api.model.embedded.ArticleCommentStatus;
-import com.jakduk.api.model.embedded.CommonFeelingUser;
 import com.jakduk.api.model.embedded.CommonWriter;
 import com.jakduk.api.model.simple.JakduOnSchedule;
+import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
 import com.jakduk.api.restcontroller.vo.admin.JakduCommentWriteRequest;
 import com.jakduk.api.restcontroller.vo.admin.JakduCommentsResponse;
 import com.jakduk.api.restcontroller.vo.admin.MyJakduRequest;
@@ -25,9 +27,9 @@ import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -46,6 +48,7 @@ public class JakduService {
     @Autowired private JakduCommentRepository jakduCommentRepository;
     @Autowired private JakdukDAO jakdukDAO;
     @Autowired private SearchService searchService;
+    @Autowired private UsersFeelingUpdater usersFeelingUpdater;
 
     public JakduSchedule findScheduleById(String id) {
         return jakduScheduleRepository.findOne(id);
@@ -114,9 +117,7 @@ public class JakduService {
         EsJakduComment.setId(jakduComment.getId());
         EsJakduComment.setWriter(jakduComment.getWriter());
         EsJakduComment.setJakduScheduleId(jakduComment.getJakduScheduleId());
-        EsJakduComment.setContents(jakduComment.getContents()
-                .replaceAll("<(/)?([a-zA-Z0-9]*)(\\s[a-zA-Z0-9]*=[^>]*)?(\\s)*(/)?>","")
-                .replaceAll("\r|\n|&nbsp;",""));
+        EsJakduComment.setContents(JakdukUtils.stripHtmlTag(jakduComment.getContents()));
 
         searchService.createDocumentJakduComment(EsJakduComment);
 
@@ -149,55 +150,22 @@ public class JakduService {
     }
 
     /**
-     * 작두 댓글 감정 표현
+     * 작두 댓글 감정 표현. 한 번 하면 취소하거나 바꿀 수 없다.
      */
-    public JakduComment setJakduCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
+    public UserFeelingResponse setJakduCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
 
-        String userId = writer.getUserId();
-        String username = writer.getUsername();
+        if (! ObjectId.isValid(commentId))
+            throw new ServiceException(ServiceError.NOT_FOUND_COMMENT);
 
-        JakduComment jakduComment = jakduCommentRepository.findOne(commentId);
-        CommonWriter jakdukWriter = jakduComment.getWriter();
+        usersFeelingUpdater.addOnce(JakduComment.class, Criteria.where("_id").is(new ObjectId(commentId)),
+                writer, feeling, ServiceError.NOT_FOUND_COMMENT);
 
-        List<CommonFeelingUser> usersLiking = jakduComment.getUsersLiking();
-        List<CommonFeelingUser> usersDisliking = jakduComment.getUsersDisliking();
+        BoardFeelingCount feelingCount = usersFeelingUpdater.count(JakduComment.class, commentId);
 
-        if (Objects.isNull(usersLiking)) usersLiking = new ArrayList<>();
-        if (Objects.isNull(usersDisliking)) usersDisliking = new ArrayList<>();
-
-        // 이 게시물의 작성자라서 감정 표현을 할 수 없음
-        if (userId.equals(jakdukWriter.getUserId()))
-            throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
-
-        // 해당 회원이 좋아요를 이미 했는지 검사
-        for (CommonFeelingUser feelingUser : usersLiking) {
-            if (Objects.nonNull(feelingUser) && userId.equals(feelingUser.getUserId()))
-                throw new ServiceException(ServiceError.FEELING_SELECT_ALREADY_LIKE);
-        }
-
-        // 해당 회원이 싫어요를 이미 했는지 검사
-        for (CommonFeelingUser feelingUser : usersDisliking) {
-            if (Objects.nonNull(feelingUser) && userId.equals(feelingUser.getUserId()))
-                throw new ServiceException(ServiceError.FEELING_SELECT_ALREADY_LIKE);
-        }
-
-        CommonFeelingUser feelingUser = new CommonFeelingUser(new ObjectId().toString(), userId, username);
-
-        switch (feeling) {
-            case LIKE:
-                usersLiking.add(feelingUser);
-                jakduComment.setUsersLiking(usersLiking);
-                break;
-            case DISLIKE:
-                usersDisliking.add(feelingUser);
-                jakduComment.setUsersDisliking(usersDisliking);
-                break;
-            default:
-                break;
-        }
-
-        jakduCommentRepository.save(jakduComment);
-
-        return jakduComment;
+        return UserFeelingResponse.builder()
+                .myFeeling(feeling)
+                .numberOfLike(feelingCount.getUsersLikingCount())
+                .numberOfDislike(feelingCount.getUsersDislikingCount())
+                .build();
     }
 }
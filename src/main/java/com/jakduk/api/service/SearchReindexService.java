@@ -0,0 +1,780 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.JakdukUtils;
+import com.jakduk.api.common.util.ObjectMapperUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.db.ArticleComment;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.model.db.SearchReindexCheckpoint;
+import com.jakduk.api.model.elasticsearch.EsBoard;
+import com.jakduk.api.model.elasticsearch.EsComment;
+import com.jakduk.api.model.elasticsearch.EsGallery;
+import com.jakduk.api.repository.SearchReindexCheckpointRepository;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.repository.article.comment.ArticleCommentRepository;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.restcontroller.vo.admin.ReindexProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
+import org.elasticsearch.action.admin.indices.get.GetIndexResponse;
+import org.elasticsearch.action.bulk.*;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mongo 의 글, 댓글, 사진을 _id 순으로 읽어서 새 버전의 엘라스틱서치 인덱스에 다시 색인한다.
+ *
+ * 다 넣으면 별칭(jakduk.elasticsearch.index-board, index-gallery)을 새 인덱스로 한번에 옮긴다.
+ * 실패하면 마지막으로 색인한 _id 다음부터 재개할 수 있다. 진행 상태는 Mongo 에 남겨서 서버를 다시 띄워도 재개할 수 있다.
+ *
+ * 별칭을 옮길 때까지 들어온 색인, 삭제 요청은 새 인덱스에도 보낸다(mirror). 복사는 없는 문서만 만들어서 더 늦은 변경을 덮지 않고,
+ * 복사 중에 지워진 문서는 별칭을 옮기기 전에 새 인덱스에서 한번 더 지운다.
+ *
+ * 별칭 이름이 아직 실제 인덱스 이름이면 재색인하지 않는다. 엘라스틱서치 2.x 에는 인덱스를 지우고 같은 이름의 별칭을 붙이는 걸
+ * 한번에 하는 방법이 없어서, 그 사이에 검색과 색인이 모두 실패한다. 처음 한번은 손으로 옮긴다.
+ * (예: _reindex 로 jakduk_board_v1 에 복사하고, jakduk_board 를 지우고, jakduk_board_v1 에 jakduk_board 별칭을 붙인다.)
+ */
+
+@Slf4j
+@Service
+public class SearchReindexService {
+
+	private final static DateTimeFormatter INDEX_VERSION_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+	// 새 인덱스로 복사하면 안되는 설정
+	private final static String[] NOT_COPYABLE_SETTINGS = {"index.uuid", "index.version.created", "index.creation_date"};
+
+	private final static String REFRESH_INTERVAL = "index.refresh_interval";
+
+	private final static String CHECKPOINT_ID = "elasticsearch";
+
+	@Resource private JakdukProperties.Elasticsearch elasticsearchProperties;
+
+	@Autowired private Client client;
+	@Autowired private ArticleRepository articleRepository;
+	@Autowired private ArticleCommentRepository articleCommentRepository;
+	@Autowired private GalleryRepository galleryRepository;
+	@Autowired private SearchReindexCheckpointRepository searchReindexCheckpointRepository;
+
+	// 재색인은 한번에 하나만 돈다.
+	private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+
+	// Mongo 문서를 색인 요청으로 바꾸는 일꾼들
+	private final int mapperThreads = Runtime.getRuntime().availableProcessors();
+	private final ExecutorService mapperExecutor = Executors.newFixedThreadPool(mapperThreads);
+
+	private volatile ReindexJob job;
+
+	// 새 인덱스에 보내는 요청들. 별칭을 옮길 때까지만 연다.
+	private volatile BulkProcessor mirrorProcessor;
+
+	/**
+	 * 남겨둔 진행 상태를 읽는다. 돌던 중에 서버가 내려갔으면 재개할 수 있게 실패로 바꾼다.
+	 */
+	@PostConstruct
+	public void loadCheckpoint() {
+		searchReindexCheckpointRepository.findOneById(CHECKPOINT_ID).ifPresent(checkpoint -> {
+			ReindexJob savedJob = ReindexJob.fromCheckpoint(checkpoint);
+
+			if (savedJob.getStatus() == Constants.REINDEX_STATUS.RUNNING) {
+				savedJob.fail("Interrupted by server restart.");
+				this.saveCheckpoint(savedJob);
+			}
+
+			job = savedJob;
+
+			// 재개할 때까지의 변경도 새 인덱스에 넣는다.
+			if (savedJob.getStatus() != Constants.REINDEX_STATUS.COMPLETED)
+				this.openMirror();
+		});
+	}
+
+	@PreDestroy
+	public void destroy() {
+		jobExecutor.shutdownNow();
+		mapperExecutor.shutdownNow();
+		this.closeMirror();
+	}
+
+	/**
+	 * 새 버전의 인덱스를 만들고 재색인을 시작한다.
+	 */
+	public synchronized ReindexProgress startReindex() {
+
+		if (Objects.nonNull(job) && job.getStatus() == Constants.REINDEX_STATUS.RUNNING)
+			throw new ServiceException(ServiceError.ELASTICSEARCH_REINDEX_ALREADY_RUNNING);
+
+		this.checkAliasMigrated(elasticsearchProperties.getIndexBoard());
+		this.checkAliasMigrated(elasticsearchProperties.getIndexGallery());
+
+		String version = LocalDateTime.now().format(INDEX_VERSION_FORMATTER);
+		Map<String, String> refreshIntervals = new HashMap<>();
+
+		String boardIndex = createVersionedIndex(elasticsearchProperties.getIndexBoard(), version, refreshIntervals);
+		String galleryIndex = createVersionedIndex(elasticsearchProperties.getIndexGallery(), version, refreshIntervals);
+
+		ReindexJob newJob = new ReindexJob(boardIndex, galleryIndex, refreshIntervals);
+
+		job = newJob;
+		this.saveCheckpoint(newJob);
+		this.openMirror();
+		jobExecutor.submit(() -> this.run(newJob));
+
+		return newJob.toProgress();
+	}
+
+	/**
+	 * 실패한 재색인을 마지막으로 색인한 _id 다음부터 이어서 한다.
+	 */
+	public synchronized ReindexProgress resumeReindex() {
+
+		ReindexJob failedJob = job;
+
+		if (Objects.isNull(failedJob) || failedJob.getStatus() != Constants.REINDEX_STATUS.FAILED)
+			throw new ServiceException(ServiceError.ELASTICSEARCH_REINDEX_NOT_RESUMABLE);
+
+		failedJob.resume();
+		this.saveCheckpoint(failedJob);
+
+		if (Objects.isNull(mirrorProcessor))
+			this.openMirror();
+
+		jobExecutor.submit(() -> this.run(failedJob));
+
+		return failedJob.toProgress();
+	}
+
+	/**
+	 * 재색인 진행 상황. 한번도 안 돌렸으면 null
+	 */
+	public ReindexProgress getProgress() {
+		ReindexJob currentJob = job;
+
+		return Objects.isNull(currentJob) ? null : currentJob.toProgress();
+	}
+
+	/**
+	 * 별칭으로 보낸 색인, 삭제 요청을 재색인 중인 새 인덱스에도 보낸다. 재색인 중이 아니면 아무것도 안한다.
+	 */
+	public void mirror(ActionRequest<?> request) {
+
+		ReindexJob currentJob = job;
+		BulkProcessor processor = mirrorProcessor;
+
+		if (Objects.isNull(currentJob) || Objects.isNull(processor))
+			return;
+
+		try {
+			if (request instanceof IndexRequest) {
+				IndexRequest indexRequest = (IndexRequest) request;
+				String index = this.getNewIndex(currentJob, indexRequest.index());
+
+				if (Objects.nonNull(index))
+					processor.add(new IndexRequest(index, indexRequest.type(), indexRequest.id())
+							.routing(indexRequest.routing())
+							.parent(indexRequest.parent())
+							.source(indexRequest.source()));
+
+			} else if (request instanceof DeleteRequest) {
+				DeleteRequest deleteRequest = (DeleteRequest) request;
+				String index = this.getNewIndex(currentJob, deleteRequest.index());
+
+				if (Objects.nonNull(index)) {
+					// 복사 중인 페이지에 이미 읽혀 있을 수 있다.
+					currentJob.documentDeleted(deleteRequest.type(), deleteRequest.id());
+
+					processor.add(new DeleteRequest(index, deleteRequest.type(), deleteRequest.id())
+							.routing(deleteRequest.routing()));
+				}
+			}
+		} catch (IllegalStateException e) {
+			// 별칭을 옮긴 뒤에 닫혔다. 이제 별칭이 새 인덱스를 가리킨다.
+			log.debug("Mirror processor is already closed.", e);
+		}
+	}
+
+	private void run(ReindexJob job) {
+		try {
+			this.reindexArticles(job);
+			this.reindexComments(job);
+			this.reindexGalleries(job);
+			this.deleteDocumentsDeletedWhileCopying(job);
+
+			this.finishIndex(job.getBoardIndex(), job.getRefreshIntervals());
+			this.finishIndex(job.getGalleryIndex(), job.getRefreshIntervals());
+
+			BulkProcessor processor = mirrorProcessor;
+
+			if (Objects.nonNull(processor))
+				processor.flush();
+
+			this.swapAlias(elasticsearchProperties.getIndexBoard(), job.getBoardIndex());
+			this.swapAlias(elasticsearchProperties.getIndexGallery(), job.getGalleryIndex());
+
+			job.complete();
+			this.saveCheckpoint(job);
+			this.closeMirror();
+
+			log.info("Reindex completed. boardIndex={}, galleryIndex={}", job.getBoardIndex(), job.getGalleryIndex());
+
+		} catch (Exception e) {
+			log.error("Reindex failed. boardIndex={}, galleryIndex={}", job.getBoardIndex(), job.getGalleryIndex(), e);
+			job.fail(e.getMessage());
+			this.saveCheckpoint(job);
+		}
+	}
+
+	private void reindexArticles(ReindexJob job) {
+		while (true) {
+			List<Article> articles = articleRepository.findPostsGreaterThanId(toObjectId(job.getLastArticleId()),
+					Constants.NUMBER_OF_ITEMS_EACH_PAGES);
+
+			if (articles.isEmpty())
+				break;
+
+			Map<String, List<String>> galleryIds = galleryRepository.findIdsByItemIdInAndFromType(
+					articles.stream().map(article -> new ObjectId(article.getId())).collect(Collectors.toList()),
+					Constants.GALLERY_FROM_TYPE.ARTICLE);
+
+			this.bulkIndex(articles, article -> this.getBoardIndexRequest(job.getBoardIndex(), article,
+					galleryIds.get(article.getId())));
+
+			job.articlesIndexed(articles.get(articles.size() - 1).getId(), articles.size());
+			this.saveCheckpoint(job);
+		}
+	}
+
+	private void reindexComments(ReindexJob job) {
+		while (true) {
+			List<ArticleComment> comments = articleCommentRepository.findCommentsGreaterThanId(toObjectId(job.getLastCommentId()),
+					Constants.NUMBER_OF_ITEMS_EACH_PAGES);
+
+			if (comments.isEmpty())
+				break;
+
+			Map<String, List<String>> galleryIds = galleryRepository.findIdsByItemIdInAndFromType(
+					comments.stream().map(comment -> new ObjectId(comment.getId())).collect(Collectors.toList()),
+					Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT);
+
+			this.bulkIndex(comments, comment -> this.getCommentIndexRequest(job.getBoardIndex(), comment,
+					galleryIds.get(comment.getId())));
+
+			job.commentsIndexed(comments.get(comments.size() - 1).getId(), comments.size());
+			this.saveCheckpoint(job);
+		}
+	}
+
+	private void reindexGalleries(ReindexJob job) {
+		while (true) {
+			List<Gallery> galleries = galleryRepository.findGalleriesGreaterThanId(toObjectId(job.getLastGalleryId()),
+					Constants.NUMBER_OF_ITEMS_EACH_PAGES);
+
+			if (galleries.isEmpty())
+				break;
+
+			this.bulkIndex(galleries, gallery -> this.getGalleryIndexRequest(job.getGalleryIndex(), gallery));
+
+			job.galleriesIndexed(galleries.get(galleries.size() - 1).getId(), galleries.size());
+			this.saveCheckpoint(job);
+		}
+	}
+
+	/**
+	 * 복사하는 동안 지워진 문서를 새 인덱스에서 지운다. 이미 없으면 그냥 넘어간다.
+	 */
+	private void deleteDocumentsDeletedWhileCopying(ReindexJob job) {
+
+		List<String> documents = job.getDeletedDocuments();
+
+		if (documents.isEmpty())
+			return;
+
+		BulkRequestBuilder bulkRequestBuilder = client.prepareBulk();
+
+		for (String document : documents) {
+			String type = StringUtils.substringBefore(document, "/");
+			String id = StringUtils.substringAfter(document, "/");
+			String index = Constants.ES_TYPE_GALLERY.equals(type) ? job.getGalleryIndex() : job.getBoardIndex();
+
+			bulkRequestBuilder.add(client.prepareDelete(index, type, id));
+		}
+
+		BulkResponse bulkResponse = bulkRequestBuilder.get();
+
+		// 별칭으로 보낸 삭제도 같은 이유로 실패했을 것이라 재색인을 멈추지 않는다.
+		if (bulkResponse.hasFailures())
+			log.warn("Failed to delete documents deleted while copying. {}", bulkResponse.buildFailureMessage());
+	}
+
+	/**
+	 * 문서들을 일꾼들에게 나눠서 색인 요청으로 바꾸고, 한번의 벌크로 보낸다.
+	 * 요청 순서는 문서 순서와 같다.
+	 *
+	 * 이미 있는 문서는 mirror 로 들어온 더 새 버전이라 덮지 않는다.
+	 */
+	private <T> void bulkIndex(List<T> documents, Function<T, IndexRequest> toIndexRequest) {
+
+		int chunkSize = (documents.size() + mapperThreads - 1) / mapperThreads;
+		List<CompletableFuture<List<IndexRequest>>> futures = new ArrayList<>();
+
+		for (int from = 0 ; from < documents.size() ; from += chunkSize) {
+			List<T> chunk = documents.subList(from, Math.min(from + chunkSize, documents.size()));
+
+			futures.add(CompletableFuture.supplyAsync(
+					() -> chunk.stream().map(toIndexRequest).collect(Collectors.toList()), mapperExecutor));
+		}
+
+		BulkRequestBuilder bulkRequestBuilder = client.prepareBulk();
+
+		futures.stream()
+				.map(CompletableFuture::join)
+				.flatMap(List::stream)
+				.forEach(bulkRequestBuilder::add);
+
+		BulkResponse bulkResponse = bulkRequestBuilder.get();
+
+		List<String> failures = Arrays.stream(bulkResponse.getItems())
+				.filter(BulkItemResponse::isFailed)
+				.filter(item -> item.getFailure().getStatus() != RestStatus.CONFLICT)
+				.map(BulkItemResponse::getFailureMessage)
+				.collect(Collectors.toList());
+
+		if (! failures.isEmpty())
+			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, String.join(", ", failures));
+	}
+
+	private IndexRequest getBoardIndexRequest(String index, Article article, List<String> galleryIds) {
+
+		EsBoard esBoard = EsBoard.builder()
+				.id(article.getId())
+				.seq(article.getSeq())
+				.writer(article.getWriter())
+				.subject(JakdukUtils.stripHtmlTag(article.getSubject()))
+				.content(JakdukUtils.stripHtmlTag(article.getContent()))
+				.board(article.getBoard())
+				.category(article.getCategory())
+				.galleries(galleryIds)
+				.build();
+
+		return client.prepareIndex()
+				.setIndex(index)
+				.setType(Constants.ES_TYPE_BOARD)
+				.setCreate(true)
+				.setId(esBoard.getId())
+				.setSource(this.writeValueAsString(esBoard))
+				.request();
+	}
+
+	private IndexRequest getCommentIndexRequest(String index, ArticleComment comment, List<String> galleryIds) {
+
+		EsComment esComment = EsComment.builder()
+				.id(comment.getId())
+				.article(comment.getArticle())
+				.writer(comment.getWriter())
+				.content(JakdukUtils.stripHtmlTag(comment.getContent()))
+				.galleries(galleryIds)
+				.build();
+
+		return client.prepareIndex()
+				.setIndex(index)
+				.setType(Constants.ES_TYPE_COMMENT)
+				.setCreate(true)
+				.setId(esComment.getId())
+				.setParent(esComment.getArticle().getId())
+				.setSource(this.writeValueAsString(esComment))
+				.request();
+	}
+
+	private IndexRequest getGalleryIndexRequest(String index, Gallery gallery) {
+
+		EsGallery esGallery = EsGallery.builder()
+				.id(gallery.getId())
+				.name(gallery.getName())
+				.writer(gallery.getWriter())
+				.build();
+
+		return client.prepareIndex()
+				.setIndex(index)
+				.setType(Constants.ES_TYPE_GALLERY)
+				.setCreate(true)
+				.setId(esGallery.getId())
+				.setSource(this.writeValueAsString(esGallery))
+				.request();
+	}
+
+	private String writeValueAsString(Object document) {
+		try {
+			return ObjectMapperUtils.writeValueAsString(document);
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e);
+		}
+	}
+
+	/**
+	 * 지금 별칭(또는 인덱스)의 설정과 매핑을 복사해서 새 버전의 인덱스를 만든다.
+	 * 다 넣을 때까지는 refresh 하지 않는다.
+	 *
+	 * @param alias 별칭. 처음에는 실제 인덱스 이름일 수 있다.
+	 * @param refreshIntervals 새 인덱스별 원래 refresh_interval 을 담는다.
+	 * @return 새 인덱스 이름
+	 */
+	private String createVersionedIndex(String alias, String version, Map<String, String> refreshIntervals) {
+
+		IndicesAdminClient indices = client.admin().indices();
+		GetIndexResponse getIndexResponse;
+
+		try {
+			getIndexResponse = indices.prepareGetIndex().addIndices(alias).get();
+		} catch (IndexNotFoundException e) {
+			throw new ServiceException(ServiceError.ELASTICSEARCH_NOT_FOUND_INDEX, e);
+		}
+
+		String currentIndex = getIndexResponse.getIndices()[0];
+		String newIndex = alias + "_" + version;
+
+		Settings.Builder settingsBuilder = Settings.settingsBuilder().put(getIndexResponse.getSettings().get(currentIndex));
+
+		for (String key : NOT_COPYABLE_SETTINGS)
+			settingsBuilder.remove(key);
+
+		refreshIntervals.put(newIndex, settingsBuilder.get(REFRESH_INTERVAL));
+		settingsBuilder.put(REFRESH_INTERVAL, "-1");
+
+		CreateIndexRequestBuilder createIndexRequestBuilder = indices.prepareCreate(newIndex).setSettings(settingsBuilder);
+
+		ImmutableOpenMap<String, MappingMetaData> mappings = getIndexResponse.getMappings().get(currentIndex);
+
+		try {
+			Iterator<String> types = mappings.keysIt();
+
+			while (types.hasNext()) {
+				String type = types.next();
+				createIndexRequestBuilder.addMapping(type, mappings.get(type).sourceAsMap());
+			}
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e);
+		}
+
+		createIndexRequestBuilder.get();
+
+		log.info("Created index {} from {}", newIndex, currentIndex);
+
+		return newIndex;
+	}
+
+	/**
+	 * refresh_interval 을 원래대로 돌리고 refresh 해서 검색되게 한다.
+	 */
+	private void finishIndex(String index, Map<String, String> refreshIntervals) {
+
+		IndicesAdminClient indices = client.admin().indices();
+		String refreshInterval = refreshIntervals.get(index);
+
+		// 원래 설정이 없었으면 엘라스틱서치 기본값
+		Settings settings = Settings.settingsBuilder()
+				.put(REFRESH_INTERVAL, Objects.isNull(refreshInterval) ? "1s" : refreshInterval)
+				.build();
+
+		indices.prepareUpdateSettings(index).setSettings(settings).get();
+		indices.prepareRefresh(index).get();
+	}
+
+	/**
+	 * 별칭 이름이 아직 실제 인덱스 이름이면 별칭을 옮길 수 없다.
+	 */
+	private void checkAliasMigrated(String alias) {
+		if (! client.admin().indices().prepareAliasesExist(alias).get().exists()) {
+			log.warn("{} is not an alias yet. Move it behind an alias once before reindexing.", alias);
+			throw new ServiceException(ServiceError.ELASTICSEARCH_ALIAS_NOT_MIGRATED);
+		}
+	}
+
+	/**
+	 * 별칭을 새 인덱스로 한번의 요청으로 옮긴다. 예전 인덱스는 되돌릴 때를 위해 남겨둔다.
+	 */
+	private void swapAlias(String alias, String newIndex) {
+
+		this.checkAliasMigrated(alias);
+
+		IndicesAdminClient indices = client.admin().indices();
+		IndicesAliasesRequestBuilder aliasesRequestBuilder = indices.prepareAliases();
+
+		ImmutableOpenMap<String, List<AliasMetaData>> aliases = indices.prepareGetAliases(alias).get().getAliases();
+		aliases.keysIt().forEachRemaining(index -> aliasesRequestBuilder.removeAlias(index, alias));
+
+		aliasesRequestBuilder.addAlias(newIndex, alias).get();
+
+		log.info("Alias {} now points to {}", alias, newIndex);
+	}
+
+	/**
+	 * 별칭 -> 재색인 중인 새 인덱스. 재색인하지 않는 별칭이면 null
+	 */
+	private String getNewIndex(ReindexJob job, String alias) {
+		if (elasticsearchProperties.getIndexBoard().equals(alias))
+			return job.getBoardIndex();
+
+		if (elasticsearchProperties.getIndexGallery().equals(alias))
+			return job.getGalleryIndex();
+
+		return null;
+	}
+
+	/**
+	 * 요청 순서가 바뀌지 않게 벌크는 하나씩 보낸다.
+	 */
+	private synchronized void openMirror() {
+		this.closeMirror();
+
+		mirrorProcessor = BulkProcessor.builder(client, new BulkProcessor.Listener() {
+			@Override
+			public void beforeBulk(long executionId, BulkRequest request) {
+			}
+
+			@Override
+			public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+				if (response.hasFailures())
+					log.warn("Mirror bulk has failures. {}", response.buildFailureMessage());
+			}
+
+			@Override
+			public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+				log.warn("Mirror bulk failed. actions={}", request.numberOfActions(), failure);
+			}
+		})
+				.setConcurrentRequests(1)
+				.setFlushInterval(TimeValue.timeValueSeconds(elasticsearchProperties.getBulkFlushIntervalSeconds()))
+				.setBackoffPolicy(BackoffPolicy.exponentialBackoff())
+				.build();
+	}
+
+	private synchronized void closeMirror() {
+		BulkProcessor processor = mirrorProcessor;
+		mirrorProcessor = null;
+
+		if (Objects.isNull(processor))
+			return;
+
+		try {
+			processor.awaitClose(elasticsearchProperties.getBulkFlushIntervalSeconds(), TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void saveCheckpoint(ReindexJob job) {
+		searchReindexCheckpointRepository.save(job.toCheckpoint(CHECKPOINT_ID));
+	}
+
+	private static ObjectId toObjectId(String id) {
+		return Objects.isNull(id) ? null : new ObjectId(id);
+	}
+
+	/**
+	 * 재색인 작업 상태. 작업 쓰레드가 갱신하고 관리자 API 가 읽는다.
+	 */
+	private static class ReindexJob {
+
+		private final String boardIndex;
+		private final String galleryIndex;
+		private final Map<String, String> refreshIntervals;
+
+		private Constants.REINDEX_STATUS status = Constants.REINDEX_STATUS.RUNNING;
+		private String lastArticleId;
+		private String lastCommentId;
+		private String lastGalleryId;
+
+		// 복사하는 동안 지워진 문서들. 타입/ID
+		private final Set<String> deletedDocuments = new LinkedHashSet<>();
+
+		private long articleCount;
+		private long commentCount;
+		private long galleryCount;
+		private LocalDateTime startedAt = LocalDateTime.now();
+		private LocalDateTime finishedAt;
+		private String message;
+
+		// 이번 실행(시작 또는 재개)의 색인 속도 계산용
+		private long runStartedMillis = System.currentTimeMillis();
+		private long runFinishedMillis;
+		private long runDocs;
+
+		ReindexJob(String boardIndex, String galleryIndex, Map<String, String> refreshIntervals) {
+			this.boardIndex = boardIndex;
+			this.galleryIndex = galleryIndex;
+			this.refreshIntervals = refreshIntervals;
+		}
+
+		static ReindexJob fromCheckpoint(SearchReindexCheckpoint checkpoint) {
+			ReindexJob job = new ReindexJob(checkpoint.getBoardIndex(), checkpoint.getGalleryIndex(),
+					Optional.ofNullable(checkpoint.getRefreshIntervals()).orElseGet(HashMap::new));
+
+			job.status = checkpoint.getStatus();
+			job.lastArticleId = checkpoint.getLastArticleId();
+			job.lastCommentId = checkpoint.getLastCommentId();
+			job.lastGalleryId = checkpoint.getLastGalleryId();
+
+			if (Objects.nonNull(checkpoint.getDeletedDocuments()))
+				job.deletedDocuments.addAll(checkpoint.getDeletedDocuments());
+
+			job.articleCount = checkpoint.getArticleCount();
+			job.commentCount = checkpoint.getCommentCount();
+			job.galleryCount = checkpoint.getGalleryCount();
+			job.startedAt = checkpoint.getStartedAt();
+			job.finishedAt = checkpoint.getFinishedAt();
+			job.message = checkpoint.getMessage();
+
+			return job;
+		}
+
+		String getBoardIndex() {
+			return boardIndex;
+		}
+
+		String getGalleryIndex() {
+			return galleryIndex;
+		}
+
+		Map<String, String> getRefreshIntervals() {
+			return refreshIntervals;
+		}
+
+		synchronized Constants.REINDEX_STATUS getStatus() {
+			return status;
+		}
+
+		synchronized String getLastArticleId() {
+			return lastArticleId;
+		}
+
+		synchronized String getLastCommentId() {
+			return lastCommentId;
+		}
+
+		synchronized String getLastGalleryId() {
+			return lastGalleryId;
+		}
+
+		synchronized List<String> getDeletedDocuments() {
+			return new ArrayList<>(deletedDocuments);
+		}
+
+		synchronized void documentDeleted(String type, String id) {
+			deletedDocuments.add(type + "/" + id);
+		}
+
+		synchronized void articlesIndexed(String lastId, int count) {
+			lastArticleId = lastId;
+			articleCount += count;
+			runDocs += count;
+		}
+
+		synchronized void commentsIndexed(String lastId, int count) {
+			lastCommentId = lastId;
+			commentCount += count;
+			runDocs += count;
+		}
+
+		synchronized void galleriesIndexed(String lastId, int count) {
+			lastGalleryId = lastId;
+			galleryCount += count;
+			runDocs += count;
+		}
+
+		synchronized void resume() {
+			status = Constants.REINDEX_STATUS.RUNNING;
+			finishedAt = null;
+			message = null;
+			runStartedMillis = System.currentTimeMillis();
+			runDocs = 0;
+		}
+
+		synchronized void complete() {
+			status = Constants.REINDEX_STATUS.COMPLETED;
+			finishedAt = LocalDateTime.now();
+			runFinishedMillis = System.currentTimeMillis();
+		}
+
+		synchronized void fail(String message) {
+			status = Constants.REINDEX_STATUS.FAILED;
+			finishedAt = LocalDateTime.now();
+			runFinishedMillis = System.currentTimeMillis();
+			this.message = message;
+		}
+
+		synchronized SearchReindexCheckpoint toCheckpoint(String id) {
+			return SearchReindexCheckpoint.builder()
+					.id(id)
+					.status(status)
+					.boardIndex(boardIndex)
+					.galleryIndex(galleryIndex)
+					.refreshIntervals(refreshIntervals)
+					.lastArticleId(lastArticleId)
+					.lastCommentId(lastCommentId)
+					.lastGalleryId(lastGalleryId)
+					.deletedDocuments(new ArrayList<>(deletedDocuments))
+					.articleCount(articleCount)
+					.commentCount(commentCount)
+					.galleryCount(galleryCount)
+					.startedAt(startedAt)
+					.finishedAt(finishedAt)
+					.message(message)
+					.build();
+		}
+
+		synchronized ReindexProgress toProgress() {
+			long endMillis = status == Constants.REINDEX_STATUS.RUNNING ? System.currentTimeMillis() : runFinishedMillis;
+			long elapsedMillis = Math.max(1, endMillis - runStartedMillis);
+
+			return ReindexProgress.builder()
+					.status(status)
+					.boardIndex(boardIndex)
+					.galleryIndex(galleryIndex)
+					.lastArticleId(lastArticleId)
+					.lastCommentId(lastCommentId)
+					.lastGalleryId(lastGalleryId)
+					.articleCount(articleCount)
+					.commentCount(commentCount)
+					.galleryCount(galleryCount)
+					.docsPerSecond(runDocs * 1000d / elapsedMillis)
+					.startedAt(startedAt)
+					.finishedAt(finishedAt)
+					.message(message)
+					.build();
+		}
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.jakduk.api.service;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.elasticsearch.ElasticsearchBulkProcessor;
 import com.jakduk.api.common.util.ObjectMapperUtils;
 import com.jakduk.api.common.util.UrlGenerationUtils;
 import com.jakduk.api.configuration.JakdukProperties;
@@ -9,25 +10,25 @@ import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.elasticsearch.*;
 import com.jakduk.api.restcontroller.vo.board.BoardGallerySimple;
 import com.jakduk.api.restcontroller.vo.search.*;
+import com.jakduk.api.service.mapper.SearchMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexRequestBuilder;
-import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.MultiSearchRequestBuilder;
 import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
-import org.elasticsearch.common.text.Text;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.support.QueryInnerHitBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
-import org.elasticsearch.search.highlight.HighlightField;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
@@ -50,6 +51,8 @@ public class SearchService {
 
 	@Autowired private UrlGenerationUtils urlGenerationUtils;
 	@Autowired private Client client;
+	@Autowired private ElasticsearchBulkProcessor elasticsearchBulkProcessor;
+	@Autowired private SearchReindexService searchReindexService;
 
 	/**
 	 * 통합 검색
@@ -148,110 +151,127 @@ public class SearchService {
 				.build();
 	}
 
-	public void indexDocumentBoard(EsBoard esBoard) {
+	/*
+	 * 아래 색인, 삭제 요청들은 바로 보내지 않고 벌크에 넣는다.
+	 * listener 는 벌크 응답에서 해당 요청의 결과가 나왔을 때 불린다.
+	 * 재색인 중이면 새 인덱스에도 보낸다.
+	 */
+
+	public void indexDocumentBoard(EsBoard esBoard, ActionListener<BulkItemResponse> listener) {
 
 		String id = esBoard.getId();
 
 		try {
-			IndexResponse response = client.prepareIndex()
+			IndexRequest request = client.prepareIndex()
 					.setIndex(elasticsearchProperties.getIndexBoard())
 					.setType(Constants.ES_TYPE_BOARD)
 					.setId(id)
 					.setSource(ObjectMapperUtils.writeValueAsString(esBoard))
-					.get();
+					.request();
+
+			elasticsearchBulkProcessor.add(request, listener);
+			searchReindexService.mirror(request);
 
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
 	}
 
-	public void deleteDocumentBoard(String id) {
-		DeleteResponse response = client.prepareDelete()
+	public void deleteDocumentBoard(String id, ActionListener<BulkItemResponse> listener) {
+		DeleteRequest request = client.prepareDelete()
 				.setIndex(elasticsearchProperties.getIndexBoard())
 				.setType(Constants.ES_TYPE_BOARD)
 				.setId(id)
-				.get();
+				.request();
 
-		if (! response.isFound())
-			log.info("board id {} is not found. so can't delete it!", id);
+		elasticsearchBulkProcessor.add(request, listener);
+		searchReindexService.mirror(request);
 	}
 
-	public void indexDocumentBoardComment(EsComment esComment) {
+	public void indexDocumentBoardComment(EsComment esComment, ActionListener<BulkItemResponse> listener) {
 
 		String id = esComment.getId();
 		String parentBoardId = esComment.getArticle().getId();
 
 		try {
-			IndexResponse response = client.prepareIndex()
+			IndexRequest request = client.prepareIndex()
 					.setIndex(elasticsearchProperties.getIndexBoard())
 					.setType(Constants.ES_TYPE_COMMENT)
 					.setId(id)
 					.setParent(parentBoardId)
 					.setSource(ObjectMapperUtils.writeValueAsString(esComment))
-					.get();
+					.request();
+
+			elasticsearchBulkProcessor.add(request, listener);
+			searchReindexService.mirror(request);
 
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
 	}
 
-	public void deleteDocumentBoardComment(String id) {
+	public void deleteDocumentBoardComment(String id, ActionListener<BulkItemResponse> listener) {
 
-		DeleteResponse response = client.prepareDelete()
+		DeleteRequest request = client.prepareDelete()
 				.setIndex(elasticsearchProperties.getIndexBoard())
 				.setType(Constants.ES_TYPE_COMMENT)
 				.setId(id)
-				.get();
+				.request();
 
-		if (! response.isFound())
-			log.info("comment id {} is not found. so can't delete it!", id);
+		elasticsearchBulkProcessor.add(request, listener);
+		searchReindexService.mirror(request);
 	}
 
 	// TODO : 구현 해야 함
 	public void createDocumentJakduComment(EsJakduComment EsJakduComment) {}
 
-	public void indexDocumentGallery(EsGallery esGallery) {
+	public void indexDocumentGallery(EsGallery esGallery, ActionListener<BulkItemResponse> listener) {
 
 		String id = esGallery.getId();
 
 		try {
-			IndexResponse response = client.prepareIndex()
+			IndexRequest request = client.prepareIndex()
 					.setIndex(elasticsearchProperties.getIndexGallery())
 					.setType(Constants.ES_TYPE_GALLERY)
 					.setId(id)
 					.setSource(ObjectMapperUtils.writeValueAsString(esGallery))
-					.get();
+					.request();
+
+			elasticsearchBulkProcessor.add(request, listener);
+			searchReindexService.mirror(request);
 
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
 	}
 
-	public void deleteDocumentGallery(String id) {
+	public void deleteDocumentGallery(String id, ActionListener<BulkItemResponse> listener) {
 
-		DeleteResponse response = client.prepareDelete()
+		DeleteRequest request = client.prepareDelete()
 				.setIndex(elasticsearchProperties.getIndexGallery())
 				.setType(Constants.ES_TYPE_GALLERY)
 				.setId(id)
-				.get();
+				.request();
 
-		if (! response.isFound())
-			log.info("gallery id {} is not found. so can't delete it!", id);
+		elasticsearchBulkProcessor.add(request, listener);
+		searchReindexService.mirror(request);
 	}
 
-	public void indexDocumentSearchWord(EsSearchWord esSearchWord) {
+	public void indexDocumentSearchWord(EsSearchWord esSearchWord, ActionListener<BulkItemResponse> listener) {
 
 		try {
 			IndexRequestBuilder indexRequestBuilder = client.prepareIndex();
 
-			IndexResponse response = indexRequestBuilder
+			IndexRequest request = indexRequestBuilder
 					.setIndex(elasticsearchProperties.getIndexSearchWord())
 					.setType(Constants.ES_TYPE_SEARCH_WORD)
 					.setSource(ObjectMapperUtils.writeValueAsString(esSearchWord))
-					.get();
+					.request();
 
 			log.debug("indexDocumentSearchWord Source:\n {}", indexRequestBuilder.request().getDescription());
 
+			elasticsearchBulkProcessor.add(request, listener);
+
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
@@ -295,16 +315,16 @@ public class SearchService {
 					EsBoardSource esBoardSource = ObjectMapperUtils.convertValue(sourceMap, EsBoardSource.class);
 					esBoardSource.setScore(searchHit.getScore());
 
-					Map<String, List<String>> highlight = this.getHighlight(searchHit.getHighlightFields().entrySet());
+					Map<String, List<String>> highlight = SearchMapper.toHighlight(searchHit.getHighlightFields().entrySet());
 					esBoardSource.setHighlight(highlight);
 
 					return esBoardSource;
 				})
 				.map(esBoardSource -> {
-					BoardSource boardSource = new BoardSource();
-					BeanUtils.copyProperties(esBoardSource, boardSource);
+					BoardSource boardSource = SearchMapper.toBoardSource(esBoardSource);
 
-					if (! ObjectUtils.isEmpty(esBoardSource.getGalleries())) {
+					// 사진이 빈 목록이면 빈 목록으로 준다.
+					if (Objects.nonNull(esBoardSource.getGalleries())) {
 						List<BoardGallerySimple> boardGalleries = esBoardSource.getGalleries().stream()
 								.sorted(Comparator.comparing(String::toString))
 								.limit(1)
@@ -378,7 +398,7 @@ public class SearchService {
 						esCommentSource.setParentBoard(esParentBoard);
 					}
 
-					Map<String, List<String>> highlight = this.getHighlight(searchHit.getHighlightFields().entrySet());
+					Map<String, List<String>> highlight = SearchMapper.toHighlight(searchHit.getHighlightFields().entrySet());
 					esCommentSource.setHighlight(highlight);
 
 					return esCommentSource;
@@ -420,7 +440,7 @@ public class SearchService {
 					EsGallerySource esGallerySource = ObjectMapperUtils.convertValue(sourceMap, EsGallerySource.class);
 					esGallerySource.setScore(searchHit.getScore());
 
-					Map<String, List<String>> highlight = this.getHighlight(searchHit.getHighlightFields().entrySet());
+					Map<String, List<String>> highlight = SearchMapper.toHighlight(searchHit.getHighlightFields().entrySet());
 					esGallerySource.setHighlight(highlight);
 
 					return esGallerySource;
@@ -434,18 +454,4 @@ public class SearchService {
 				.build();
 	}
 
-	private Map<String, List<String>> getHighlight(Set<Map.Entry<String, HighlightField>> entrySet) {
-		Map<String, List<String>> highlight = new HashMap<>();
-
-		for (Map.Entry<String, HighlightField> highlightField : entrySet) {
-			List<String> fragments = new ArrayList<>();
-			for (Text text : highlightField.getValue().fragments()) {
-				fragments.add(text.string());
-			}
-			highlight.put(highlightField.getKey(), fragments);
-		}
-
-		return highlight;
-	}
-
 }
@@ -1,12 +1,22 @@
 package com.jakduk.api.service;
 
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.FileUtils;
+import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.db.UserPicture;
 import com.jakduk.api.repository.user.UserPictureRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Resource;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
 /**
  * Created by pyohwan on 17. 2. 16.
  */
@@ -14,11 +24,35 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserPictureService {
 
+    @Resource
+    private JakdukProperties.Storage storageProperties;
+
     @Autowired
     private UserPictureRepository userPictureRepository;
 
+    @Autowired
+    private ImageBlobStore imageBlobStore;
+
     public UserPicture findOneById(String id) {
         return userPictureRepository.findOneById(id)
                 .orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_USER_IMAGE));
     }
+
+    /**
+     * 프로필 사진 파일 경로. 블롭에 저장하기 전에 올린 사진은 날짜 폴더에 있다.
+     */
+    public Path getPictureFilePath(UserPicture userPicture, Constants.IMAGE_SIZE_TYPE sizeType) {
+
+        if (StringUtils.isNotBlank(userPicture.getBlobId()))
+            return imageBlobStore.resolve(userPicture.getBlobId(),
+                    sizeType == Constants.IMAGE_SIZE_TYPE.LARGE ? ImageBlobStore.FULL : ImageBlobStore.SMALL);
+
+        ObjectId objectId = new ObjectId(userPicture.getId());
+        LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+
+        String storagePath = sizeType == Constants.IMAGE_SIZE_TYPE.LARGE ? storageProperties.getUserPictureLargePath()
+                : storageProperties.getUserPictureSmallPath();
+
+        return FileUtils.getImageFilePath(storagePath, localDate, userPicture.getId(), userPicture.getContentType());
+    }
 }
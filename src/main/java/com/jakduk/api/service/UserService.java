@@ -2,11 +2,11 @@ package com.jakduk.api.service;
 
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.ImageCache;
 import com.jakduk.api.configuration.security.JakdukAuthority;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.common.util.AuthUtils;
 import com.jakduk.api.common.util.FileUtils;
-import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.db.FootballClub;
@@ -23,16 +23,13 @@ import com.jakduk.api.repository.user.UserRepository;
 import com.jakduk.api.restcontroller.vo.user.UserProfileResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
 
 import javax.annotation.Resource;
 import java.io.IOException;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.Optional;
@@ -41,13 +38,15 @@ import java.util.Optional;
 @Service
 public class UserService {
 
-	@Resource private JakdukProperties.Storage storageProperties;
 	@Resource private AuthUtils authUtils;
 
 	@Autowired private UserRepository userRepository;
 	@Autowired private FootballClubRepository footballClubRepository;
 	@Autowired private UserProfileRepository userProfileRepository;
 	@Autowired private UserPictureRepository userPictureRepository;
+	@Autowired private ImageCache imageCache;
+	@Autowired private HomeLatestCache homeLatestCache;
+	@Autowired private ImageBlobStore imageBlobStore;
 
 	public Optional<User> findOneByProviderIdAndProviderUserId(Constants.ACCOUNT_TYPE providerId, String providerUserId) {
 		return userRepository.findOneByProviderIdAndProviderUserId(providerId, providerUserId);
@@ -152,6 +151,8 @@ public class UserService {
 			userPictureRepository.save(userPicture);
 		}
 
+		homeLatestCache.changed();
+
 		log.info("JakduK user created. email:{} username:{}", user.getEmail(), user.getUsername());
 
 		return user;
@@ -200,22 +201,17 @@ public class UserService {
 				if (! StringUtils.startsWithIgnoreCase(fileInfo.getContentType(), "image/"))
 					throw new ServiceException(ServiceError.FILE_ONLY_IMAGE_TYPE_CAN_BE_UPLOADED);
 
+				String blobId = this.writeUserPictureFiles(fileInfo.getContentType(), fileInfo.getContentLength(), fileInfo.getBytes());
+
 				userPicture = UserPicture.builder()
 						.status(Constants.GALLERY_STATUS_TYPE.TEMP)
 						.contentType(fileInfo.getContentType())
 						.sourceType(providerId)
+						.blobId(blobId)
 						.build();
 
 				userPictureRepository.save(userPicture);
 
-				ObjectId objectId = new ObjectId(userPicture.getId());
-				LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-
-				FileUtils.writeImageFile(storageProperties.getUserPictureLargePath(), localDate, userPicture.getId(), fileInfo.getContentType(),
-						fileInfo.getContentLength(), fileInfo.getBytes());
-				FileUtils.writeSmallImageFile(storageProperties.getUserPictureSmallPath(), localDate, userPicture.getId(), fileInfo.getContentType(),
-						Constants.USER_SMALL_PICTURE_SIZE_WIDTH, Constants.USER_SMALL_PICTURE_SIZE_HEIGHT, fileInfo.getBytes());
-
 				user.setUserPicture(userPicture);
 
 			} catch (IOException e) {
@@ -232,6 +228,8 @@ public class UserService {
 			userPictureRepository.save(userPicture);
 		}
 
+		homeLatestCache.changed();
+
 		log.info("social user created. email:{} username:{}, providerId:{}", user.getEmail(), user.getUsername(), user.getProviderId());
 
 		return user;
@@ -266,6 +264,12 @@ public class UserService {
 			userPicture = userPictureRepository.findOneById(userPictureId)
 					.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_USER_IMAGE));
 
+			// 바뀌기 전 프로필 사진은 더 이상 불리지 않으므로 캐시에서 뺀다.
+			UserPicture oldUserPicture = user.getUserPicture();
+
+			if (Objects.nonNull(oldUserPicture) && ! StringUtils.equals(oldUserPicture.getId(), userPictureId))
+				imageCache.evict(Constants.IMAGE_CACHE_TYPE.USER_SMALL_PICTURE, oldUserPicture.getId());
+
 			user.setUserPicture(userPicture);
 		}
 
@@ -277,6 +281,8 @@ public class UserService {
 			userPictureRepository.save(userPicture);
 		}
 
+		homeLatestCache.changed();
+
 		log.debug("User edited. user={}", user);
 
 		return user;
@@ -324,27 +330,44 @@ public class UserService {
 	 */
 	public UserPicture uploadUserPicture(String contentType, long size, byte[] bytes) {
 
+		String blobId;
+
+		try {
+			blobId = this.writeUserPictureFiles(contentType, size, bytes);
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.GALLERY_IO_ERROR, e);
+		}
+
 		UserPicture userPicture = UserPicture.builder()
 				.status(Constants.GALLERY_STATUS_TYPE.TEMP)
 				.contentType(contentType)
 				.sourceType(Constants.ACCOUNT_TYPE.JAKDUK)
+				.blobId(blobId)
 				.build();
 
 		userPictureRepository.save(userPicture);
 
-		ObjectId objectId = new ObjectId(userPicture.getId());
-		LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-
-		try {
-			FileUtils.writeImageFile(storageProperties.getUserPictureLargePath(), localDate, userPicture.getId(), contentType, size, bytes);
-			FileUtils.writeSmallImageFile(storageProperties.getUserPictureSmallPath(), localDate, userPicture.getId(), contentType,
-					Constants.USER_SMALL_PICTURE_SIZE_WIDTH, Constants.USER_SMALL_PICTURE_SIZE_HEIGHT, bytes);
+		return userPicture;
+	}
 
-			return userPicture;
+	/**
+	 * 프로필 사진 파일을 블롭에 저장한다. 같은 내용의 사진이 이미 있으면 참조만 늘리고 없는 작은 사진만 만든다.
+	 *
+	 * @return 참조할 블롭 ID
+	 */
+	private String writeUserPictureFiles(String contentType, long size, byte[] bytes) throws IOException {
+		String blobId = imageBlobStore.acquire(ImageBlobStore.hash(bytes),
+				imageFilePath -> FileUtils.writeImageFile(imageFilePath, contentType, size, bytes)).getBlobId();
 
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.GALLERY_IO_ERROR, e);
+		try {
+			imageBlobStore.writeIfAbsent(blobId, ImageBlobStore.SMALL, imageFilePath -> FileUtils.writeSmallImageFile(imageFilePath,
+					contentType, Constants.USER_SMALL_PICTURE_SIZE_WIDTH, Constants.USER_SMALL_PICTURE_SIZE_HEIGHT, bytes));
+		} catch (IOException | RuntimeException e) {
+			imageBlobStore.release(blobId);
+			throw e;
 		}
+
+		return blobId;
 	}
 
 	/**
@@ -397,6 +420,7 @@ public class UserService {
 
 	public void deleteUser(String id) {
 		userRepository.delete(id);
+		homeLatestCache.changed();
 	}
 
 }
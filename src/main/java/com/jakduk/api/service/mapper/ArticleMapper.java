@@ -0,0 +1,166 @@
+package com.jakduk.api.service.mapper;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.BoardLog;
+import com.jakduk.api.model.simple.ArticleCommentOnList;
+import com.jakduk.api.model.simple.ArticleOnList;
+import com.jakduk.api.model.simple.ArticleSimple;
+import com.jakduk.api.restcontroller.vo.board.*;
+import com.jakduk.api.restcontroller.vo.home.LatestHomeArticle;
+import org.bson.types.ObjectId;
+
+import java.util.Objects;
+
+/**
+ * 글, 댓글 도큐먼트를 VO 로 바꾼다. BeanUtils.copyProperties 가 복사하던 필드를 그대로 옮긴다.
+ *
+ * 이름은 같지만 타입이 다른 필드(말머리, 글 이력 목록, 사진 목록 등)는 옮기지 않는다. 부르는 쪽에서 채운다.
+ * VO 에 필드를 더하면 여기도 고쳐야 한다. MapperParityTest 가 빠뜨린 필드를 잡는다.
+ */
+public class ArticleMapper {
+
+	/**
+	 * 글 목록의 글
+	 */
+	public static GetArticle toGetArticle(ArticleOnList article) {
+		GetArticle getArticle = new GetArticle();
+		getArticle.setId(article.getId());
+		getArticle.setWriter(article.getWriter());
+		getArticle.setSubject(article.getSubject());
+		getArticle.setCategory(article.getCategory());
+		getArticle.setStatus(article.getStatus());
+		getArticle.setShortContent(article.getShortContent());
+		getArticle.setCommentCount(article.getCommentCount());
+		getArticle.setLikingCount(article.getLikingCount());
+		getArticle.setDislikingCount(article.getDislikingCount());
+
+		if (Objects.nonNull(article.getSeq()))
+			getArticle.setSeq(article.getSeq());
+
+		if (Objects.nonNull(article.getViews()))
+			getArticle.setViews(article.getViews());
+
+		return getArticle;
+	}
+
+	/**
+	 * 홈의 최근 글
+	 */
+	public static LatestHomeArticle toLatestHomeArticle(ArticleOnList article) {
+		LatestHomeArticle latestHomeArticle = new LatestHomeArticle();
+		latestHomeArticle.setId(article.getId());
+		latestHomeArticle.setWriter(article.getWriter());
+		latestHomeArticle.setSubject(article.getSubject());
+		latestHomeArticle.setSeq(article.getSeq());
+		latestHomeArticle.setBoard(article.getBoard());
+		latestHomeArticle.setCategory(article.getCategory());
+		latestHomeArticle.setViews(article.getViews());
+		latestHomeArticle.setStatus(article.getStatus());
+		latestHomeArticle.setShortContent(article.getShortContent());
+
+		return latestHomeArticle;
+	}
+
+	/**
+	 * 글쓴이의 최근 글
+	 */
+	public static LatestArticle toLatestArticle(ArticleOnList article) {
+		LatestArticle latestArticle = new LatestArticle();
+		latestArticle.setId(article.getId());
+		latestArticle.setSeq(article.getSeq());
+		latestArticle.setWriter(article.getWriter());
+		latestArticle.setSubject(article.getSubject());
+
+		return latestArticle;
+	}
+
+	/**
+	 * 글 상세. 말머리, 이력, 감정 수, 사진은 넣지 않는다.
+	 */
+	public static ArticleDetail toArticleDetail(Article article) {
+		ArticleDetail articleDetail = new ArticleDetail();
+		articleDetail.setId(article.getId());
+		articleDetail.setWriter(article.getWriter());
+		articleDetail.setSubject(article.getSubject());
+		articleDetail.setSeq(article.getSeq());
+		articleDetail.setContent(article.getContent());
+		articleDetail.setViews(article.getViews());
+		articleDetail.setStatus(article.getStatus());
+
+		return articleDetail;
+	}
+
+	/**
+	 * 글 이력. 시각은 이력 ID 에서 뽑는다.
+	 */
+	public static ArticleLog toArticleLog(BoardLog boardLog) {
+		ArticleLog articleLog = new ArticleLog();
+		articleLog.setId(boardLog.getId());
+		articleLog.setType(Constants.ARTICLE_HISTORY_TYPE.valueOf(boardLog.getType()));
+		articleLog.setTimestamp(DateUtils.dateToLocalDateTime(new ObjectId(boardLog.getId()).getDate()));
+
+		return articleLog;
+	}
+
+	/**
+	 * 글 상세의 댓글. 이력, 사진은 넣지 않는다.
+	 */
+	public static FreePostDetailComment toFreePostDetailComment(ArticleCommentOnList articleComment) {
+		FreePostDetailComment freePostDetailComment = new FreePostDetailComment();
+		freePostDetailComment.setId(articleComment.getId());
+		freePostDetailComment.setArticle(articleComment.getArticle());
+		freePostDetailComment.setStatus(articleComment.getStatus());
+		freePostDetailComment.setWriter(articleComment.getWriter());
+		freePostDetailComment.setContent(articleComment.getContent());
+		freePostDetailComment.setNumberOfLike(articleComment.getNumberOfLike());
+		freePostDetailComment.setNumberOfDislike(articleComment.getNumberOfDislike());
+		freePostDetailComment.setMyFeeling(articleComment.getMyFeeling());
+
+		return freePostDetailComment;
+	}
+
+	/**
+	 * 댓글 이력. 시각은 이력 ID 에서 뽑는다.
+	 */
+	public static BoardFreeCommentLog toBoardFreeCommentLog(BoardLog boardLog) {
+		BoardFreeCommentLog boardFreeCommentLog = new BoardFreeCommentLog();
+		boardFreeCommentLog.setId(boardLog.getId());
+		boardFreeCommentLog.setType(Constants.ARTICLE_COMMENT_HISTORY_TYPE.valueOf(boardLog.getType()));
+		boardFreeCommentLog.setTimestamp(DateUtils.dateToLocalDateTime(new ObjectId(boardLog.getId()).getDate()));
+
+		return boardFreeCommentLog;
+	}
+
+	/**
+	 * 댓글 목록의 댓글. 글, 사진은 넣지 않는다.
+	 */
+	public static GetArticleComment toGetArticleComment(ArticleCommentOnList articleComment) {
+		GetArticleComment getArticleComment = new GetArticleComment();
+		getArticleComment.setId(articleComment.getId());
+		getArticleComment.setWriter(articleComment.getWriter());
+		getArticleComment.setContent(articleComment.getContent());
+		getArticleComment.setStatus(articleComment.getStatus());
+		getArticleComment.setNumberOfLike(articleComment.getNumberOfLike());
+		getArticleComment.setNumberOfDislike(articleComment.getNumberOfDislike());
+		getArticleComment.setMyFeeling(articleComment.getMyFeeling());
+
+		return getArticleComment;
+	}
+
+	/**
+	 * 사진과 엮인 글
+	 */
+	public static ArticleSimple toArticleSimple(Article article) {
+		ArticleSimple articleSimple = new ArticleSimple();
+		articleSimple.setId(article.getId());
+		articleSimple.setSeq(article.getSeq());
+		articleSimple.setWriter(article.getWriter());
+		articleSimple.setSubject(article.getSubject());
+		articleSimple.setBoard(article.getBoard());
+
+		return articleSimple;
+	}
+
+}
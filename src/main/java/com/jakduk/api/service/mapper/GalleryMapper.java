@@ -0,0 +1,51 @@
+package com.jakduk.api.service.mapper;
+
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.restcontroller.vo.gallery.GalleryDetail;
+import com.jakduk.api.restcontroller.vo.gallery.GalleryOnList;
+import com.jakduk.api.restcontroller.vo.gallery.SurroundingsGallery;
+
+/**
+ * 사진 도큐먼트를 VO 로 바꾼다. BeanUtils.copyProperties 가 복사하던 필드를 그대로 옮긴다.
+ *
+ * 사진 URL 은 부르는 쪽에서 채운다.
+ */
+public class GalleryMapper {
+
+	/**
+	 * 사진 목록의 사진
+	 */
+	public static GalleryOnList toGalleryOnList(Gallery gallery) {
+		GalleryOnList galleryOnList = new GalleryOnList();
+		galleryOnList.setId(gallery.getId());
+		galleryOnList.setName(gallery.getName());
+		galleryOnList.setWriter(gallery.getWriter());
+
+		return galleryOnList;
+	}
+
+	/**
+	 * 사진 상세
+	 */
+	public static GalleryDetail toGalleryDetail(Gallery gallery) {
+		GalleryDetail galleryDetail = new GalleryDetail();
+		galleryDetail.setId(gallery.getId());
+		galleryDetail.setWriter(gallery.getWriter());
+		galleryDetail.setName(gallery.getName());
+		galleryDetail.setStatus(gallery.getStatus());
+
+		return galleryDetail;
+	}
+
+	/**
+	 * 사진 상세의 앞, 뒤 사진
+	 */
+	public static SurroundingsGallery toSurroundingsGallery(Gallery gallery) {
+		SurroundingsGallery surroundingsGallery = new SurroundingsGallery();
+		surroundingsGallery.setId(gallery.getId());
+		surroundingsGallery.setName(gallery.getName());
+
+		return surroundingsGallery;
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.jakduk.api.service.mapper;
+
+import com.jakduk.api.model.elasticsearch.EsBoardSource;
+import com.jakduk.api.restcontroller.vo.search.BoardSource;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.highlight.HighlightField;
+
+import java.util.*;
+
+/**
+ * 검색 결과 문서를 VO 로 바꾼다. BeanUtils.copyProperties 가 복사하던 필드를 그대로 옮긴다.
+ */
+public class SearchMapper {
+
+	/**
+	 * 글 검색 결과. 사진은 부르는 쪽에서 채운다.
+	 */
+	public static BoardSource toBoardSource(EsBoardSource esBoardSource) {
+		BoardSource boardSource = new BoardSource();
+		boardSource.setId(esBoardSource.getId());
+		boardSource.setWriter(esBoardSource.getWriter());
+		boardSource.setSeq(esBoardSource.getSeq());
+		boardSource.setCategory(esBoardSource.getCategory());
+		boardSource.setScore(esBoardSource.getScore());
+		boardSource.setHighlight(esBoardSource.getHighlight());
+
+		return boardSource;
+	}
+
+	/**
+	 * 검색 결과 하이라이트. 필드 이름별 fragment 목록으로 바꾼다.
+	 */
+	public static Map<String, List<String>> toHighlight(Set<Map.Entry<String, HighlightField>> entrySet) {
+		Map<String, List<String>> highlight = new HashMap<>();
+
+		for (Map.Entry<String, HighlightField> highlightField : entrySet) {
+			List<String> fragments = new ArrayList<>();
+			for (Text text : highlightField.getValue().fragments()) {
+				fragments.add(text.string());
+			}
+			highlight.put(highlightField.getKey(), fragments);
+		}
+
+		return highlight;
+	}
+
+}
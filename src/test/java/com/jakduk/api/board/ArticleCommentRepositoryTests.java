@@ -2,10 +2,14 @@ package com.jakduk.api.board;
 
 
 import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.configuration.MongodbConfig;
 import com.jakduk.api.model.aggregate.CommonCount;
 import com.jakduk.api.model.db.ArticleComment;
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.model.simple.ArticleCommentOnList;
 import com.jakduk.api.repository.article.comment.ArticleCommentRepository;
 import org.bson.types.ObjectId;
 import org.junit.Assert;
@@ -20,10 +24,9 @@ import org.springframework.util.CollectionUtils;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
-import java.util.Random;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Created by pyohwanjang on 2017. 3. 27..
@@ -63,4 +66,35 @@ public class ArticleCommentRepositoryTests {
 
     }
 
+    @Test
+    public void findCommentsOnListByBoardSeqAndGTId() {
+        String board = randomArticleComment.getArticle().getBoard();
+        Integer seq = randomArticleComment.getArticle().getSeq();
+
+        Map<String, ArticleComment> fullComments = repository.findByBoardSeqAndGTId(board, seq, null).stream()
+                .collect(Collectors.toMap(ArticleComment::getId, Function.identity()));
+
+        String userId = Optional.ofNullable(randomArticleComment.getUsersLiking())
+                .flatMap(usersLiking -> usersLiking.stream().findFirst())
+                .map(CommonFeelingUser::getUserId)
+                .orElse("nobody");
+
+        List<ArticleCommentOnList> comments = repository.findCommentsOnListByBoardSeqAndGTId(board, seq, null, userId);
+
+        Assert.assertEquals(fullComments.size(), comments.size());
+
+        // DB 에서 센 감정 수, 내 감정이 도큐먼트를 다 읽어서 계산한 것과 같다.
+        for (ArticleCommentOnList comment : comments) {
+            ArticleComment fullComment = fullComments.get(comment.getId());
+            CommonWriter commonWriter = CommonWriter.builder().userId(userId).build();
+
+            Assert.assertEquals(CollectionUtils.isEmpty(fullComment.getUsersLiking()) ? 0 : fullComment.getUsersLiking().size(),
+                    comment.getNumberOfLike().intValue());
+            Assert.assertEquals(CollectionUtils.isEmpty(fullComment.getUsersDisliking()) ? 0 : fullComment.getUsersDisliking().size(),
+                    comment.getNumberOfDislike().intValue());
+            Assert.assertEquals(JakdukUtils.getMyFeeling(commonWriter, fullComment.getUsersLiking(), fullComment.getUsersDisliking()),
+                    comment.getMyFeeling());
+        }
+    }
+
 }
@@ -0,0 +1,169 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.mongodb.UsersFeelingUpdater;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.MongodbConfig;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.BoardLog;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.model.embedded.SimpleWriter;
+import com.jakduk.api.repository.article.ArticleRepository;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+/**
+ * 글을 고치거나 공지로 바꾸거나 지워도 그 사이에 $inc 한 댓글 수, 감정 수가 그대로인지 확인한다.
+ */
+@RunWith(SpringRunner.class)
+@DataMongoTest
+@Import({JakdukProperties.class, MongodbConfig.class, UsersFeelingUpdater.class})
+public class ArticleCountsSyncTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UsersFeelingUpdater usersFeelingUpdater;
+
+    private CommonWriter writer;
+    private Article article;
+
+    @Before
+    public void setUp() {
+        writer = CommonWriter.builder()
+                .userId(new ObjectId().toString())
+                .username("writer")
+                .providerId(Constants.ACCOUNT_TYPE.JAKDUK)
+                .build();
+
+        article = Article.builder()
+                .writer(writer)
+                .board(Constants.BOARD_TYPE.FREE.name())
+                .seq(-1)
+                .subject("counts test")
+                .content("counts test")
+                .views(0)
+                .commentCount(0)
+                .likingCount(0)
+                .dislikingCount(0)
+                .build();
+
+        mongoTemplate.insert(article);
+    }
+
+    @After
+    public void tearDown() {
+        mongoTemplate.remove(article);
+    }
+
+    @Test
+    public void keepCountsWhenEditedFromStaleCopy() {
+        // 고치려고 읽어 둔 글
+        Article stale = mongoTemplate.findById(article.getId(), Article.class);
+
+        // 그 사이에 댓글이 달리고 좋아요를 받았다.
+        articleRepository.increaseCommentCount(new ObjectId(article.getId()), 1);
+        this.like();
+
+        stale.setSubject("edited");
+        stale.setContent("edited");
+        stale.setShortContent("edited");
+        stale.setLinkedGallery(false);
+        stale.setLastUpdated(LocalDateTime.now());
+
+        articleRepository.updateEditedFields(new ObjectId(article.getId()), stale, Constants.DEVICE_TYPE.MOBILE, this.newLog(Constants.ARTICLE_HISTORY_TYPE.EDIT));
+
+        Article found = mongoTemplate.findById(article.getId(), Article.class);
+
+        Assert.assertEquals("edited", found.getSubject());
+        Assert.assertEquals(Constants.DEVICE_TYPE.MOBILE, found.getStatus().getDevice());
+        Assert.assertEquals(1, found.getLogs().size());
+        Assert.assertEquals(1, found.getCommentCount());
+        Assert.assertEquals(1, found.getLikingCount());
+        Assert.assertEquals(1, found.getUsersLiking().size());
+    }
+
+    @Test
+    public void keepCountsWhenNoticeChanges() {
+        articleRepository.increaseCommentCount(new ObjectId(article.getId()), 2);
+        this.like();
+
+        articleRepository.updateNotice(new ObjectId(article.getId()), true, this.newLog(Constants.ARTICLE_HISTORY_TYPE.ENABLE_NOTICE));
+
+        Article found = mongoTemplate.findById(article.getId(), Article.class);
+
+        Assert.assertTrue(found.getStatus().getNotice());
+        Assert.assertEquals(2, found.getCommentCount());
+        Assert.assertEquals(1, found.getLikingCount());
+
+        articleRepository.increaseCommentCount(new ObjectId(article.getId()), -1);
+        articleRepository.updateNotice(new ObjectId(article.getId()), null, this.newLog(Constants.ARTICLE_HISTORY_TYPE.DISABLE_NOTICE));
+
+        found = mongoTemplate.findById(article.getId(), Article.class);
+
+        Assert.assertNull(found.getStatus().getNotice());
+        Assert.assertEquals(2, found.getLogs().size());
+        Assert.assertEquals(1, found.getCommentCount());
+        Assert.assertEquals(1, found.getLikingCount());
+    }
+
+    @Test
+    public void keepCountsWhenDeletedFromStaleCopy() {
+        // 지우려고 읽어 둔 글
+        Article stale = mongoTemplate.findById(article.getId(), Article.class);
+
+        // 그 사이에 댓글이 달리고 좋아요를 받고 읽혔다.
+        articleRepository.increaseCommentCount(new ObjectId(article.getId()), 1);
+        articleRepository.increaseViews(Collections.singletonMap(article.getId(), 3));
+        this.like();
+
+        articleRepository.markDeleted(new ObjectId(stale.getId()), this.newLog(Constants.ARTICLE_HISTORY_TYPE.DELETE), LocalDateTime.now());
+
+        Article found = mongoTemplate.findById(article.getId(), Article.class);
+
+        Assert.assertNull(found.getSubject());
+        Assert.assertNull(found.getContent());
+        Assert.assertNull(found.getWriter());
+        Assert.assertTrue(found.getStatus().getDelete());
+        Assert.assertFalse(found.getLinkedGallery());
+        Assert.assertNotNull(found.getLastUpdated());
+        Assert.assertEquals(1, found.getLogs().size());
+        Assert.assertEquals(1, found.getCommentCount());
+        Assert.assertEquals(1, found.getLikingCount());
+        Assert.assertEquals(3, found.getViews());
+    }
+
+    private void like() {
+        CommonWriter user = CommonWriter.builder()
+                .userId(new ObjectId().toString())
+                .username("user")
+                .providerId(Constants.ACCOUNT_TYPE.JAKDUK)
+                .build();
+
+        usersFeelingUpdater.toggle(Article.class, Criteria.where("_id").is(new ObjectId(article.getId())), user,
+                Constants.FEELING_TYPE.LIKE, ServiceError.NOT_FOUND_ARTICLE, true, "likingCount", "dislikingCount");
+    }
+
+    private BoardLog newLog(Constants.ARTICLE_HISTORY_TYPE type) {
+        return new BoardLog(new ObjectId().toString(), type.name(), new SimpleWriter(writer));
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.board.category.BoardCategoryGenerator;
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.model.simple.ArticleSimple;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.restcontroller.vo.board.GetArticleDetailResponse;
+import com.jakduk.api.service.ArticleService;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 글 상세의 하위 쿼리 마감 시간과 빼고 주기 (ArticleService.getArticleDetail)
+ */
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleDetailFanOutTest {
+
+    @Mock private ArticleRepository articleRepository;
+    @Mock private GalleryRepository galleryRepository;
+    @Mock private BoardCategoryGenerator boardCategoryGenerator;
+    @Mock private UrlGenerationUtils urlGenerationUtils;
+
+    @InjectMocks private ArticleService sut;
+
+    private ThreadPoolTaskExecutor articleDetailExecutor;
+    private Article article;
+    private ArticleSimple nextArticle;
+
+    // 마감 시간을 넘겨 막혀 있다가 인터럽트되면 내려간다.
+    private CountDownLatch interrupted = new CountDownLatch(1);
+
+    private Answer<Object> blockUntilInterrupted = invocation -> {
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return null;
+    };
+
+    @Before
+    public void setUp() {
+        articleDetailExecutor = new ThreadPoolTaskExecutor();
+        articleDetailExecutor.setCorePoolSize(4);
+        articleDetailExecutor.setMaxPoolSize(4);
+        articleDetailExecutor.initialize();
+
+        JakdukProperties.ArticleDetail articleDetail = new JakdukProperties().new ArticleDetail();
+        articleDetail.setSubqueryTimeoutMillis(200L);
+
+        ReflectionTestUtils.setField(sut, "articleDetailExecutor", articleDetailExecutor);
+        ReflectionTestUtils.setField(sut, "articleDetailProperties", articleDetail);
+
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        article = Article.builder()
+                .id(new ObjectId().toString())
+                .seq(1)
+                .board(Constants.BOARD_TYPE.FREE.name())
+                .writer(CommonWriter.builder().userId("user01").build())
+                .linkedGallery(true)
+                .views(0)
+                .build();
+
+        nextArticle = ArticleSimple.builder().id(new ObjectId().toString()).seq(2).build();
+
+        when(articleRepository.findOneBySeq(1)).thenReturn(Optional.of(article));
+        when(articleRepository.findByIdAndCategoryWithOperator(any(ObjectId.class), anyString(), eq(Constants.CRITERIA_OPERATOR.LT)))
+                .thenReturn(nextArticle);
+        when(articleRepository.findByIdAndUserId(any(ObjectId.class), anyString(), anyInt())).thenReturn(Collections.emptyList());
+        when(galleryRepository.findByItemIdAndFromType(any(ObjectId.class), any(Constants.GALLERY_FROM_TYPE.class), anyInt()))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        articleDetailExecutor.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void leaveOutLateSectionAndInterruptIt() throws InterruptedException {
+        when(articleRepository.findByIdAndCategoryWithOperator(any(ObjectId.class), anyString(), eq(Constants.CRITERIA_OPERATOR.GT)))
+                .thenAnswer(blockUntilInterrupted);
+
+        long started = System.currentTimeMillis();
+        GetArticleDetailResponse response = sut.getArticleDetail(Constants.BOARD_TYPE.FREE.name(), 1, false).getBody();
+
+        // 앞 글만 빼고 준다.
+        Assert.assertNull(response.getPrevArticle());
+        Assert.assertEquals(nextArticle, response.getNextArticle());
+        Assert.assertEquals(article.getId(), response.getArticle().getId());
+        Assert.assertTrue(System.currentTimeMillis() - started < TimeUnit.SECONDS.toMillis(5));
+
+        // 늦은 쿼리는 쓰레드를 계속 잡고 있지 않는다.
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void leaveOutFailedSection() {
+        when(articleRepository.findByIdAndUserId(any(ObjectId.class), anyString(), anyInt()))
+                .thenThrow(new RuntimeException("mongo down"));
+
+        GetArticleDetailResponse response = sut.getArticleDetail(Constants.BOARD_TYPE.FREE.name(), 1, false).getBody();
+
+        Assert.assertNull(response.getLatestArticlesByWriter());
+        Assert.assertEquals(nextArticle, response.getNextArticle());
+    }
+
+    @Test
+    public void giveSrcsetToArticleGalleries() {
+        Gallery gallery = Gallery.builder()
+                .id(new ObjectId().toString())
+                .name("사진")
+                .build();
+
+        when(galleryRepository.findByItemIdAndFromType(any(ObjectId.class), any(Constants.GALLERY_FROM_TYPE.class), anyInt()))
+                .thenReturn(Collections.singletonList(gallery));
+        when(urlGenerationUtils.generateGallerySrcset(gallery.getId())).thenReturn("gallery?w=320 320w, gallery?w=640 640w");
+
+        GetArticleDetailResponse response = sut.getArticleDetail(Constants.BOARD_TYPE.FREE.name(), 1, false).getBody();
+
+        Assert.assertEquals(1, response.getArticle().getGalleries().size());
+        Assert.assertEquals("gallery?w=320 320w, gallery?w=640 640w", response.getArticle().getGalleries().get(0).getImageSrcset());
+    }
+
+    @Test
+    public void failWhenGalleriesAreLateAndCancelTheRest() throws InterruptedException {
+        when(galleryRepository.findByItemIdAndFromType(any(ObjectId.class), any(Constants.GALLERY_FROM_TYPE.class), anyInt()))
+                .thenAnswer(blockUntilInterrupted);
+
+        try {
+            sut.getArticleDetail(Constants.BOARD_TYPE.FREE.name(), 1, false);
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertEquals(ServiceError.INTERNAL_SERVER_ERROR, e.getServiceError());
+        }
+
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -4,8 +4,6 @@ import com.jakduk.api.common.Constants;
 import com.jakduk.api.common.util.DateUtils;
 import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.configuration.MongodbConfig;
-import com.jakduk.api.model.aggregate.BoardFeelingCount;
-import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.db.Article;
 import com.jakduk.api.model.simple.ArticleOnList;
 import com.jakduk.api.model.simple.ArticleOnRSS;
@@ -20,10 +18,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.util.CollectionUtils;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -66,10 +64,16 @@ public class ArticleRepositoryTests {
 
     @Test
     public void findPostsOnRss() {
-        List<ArticleOnRSS> posts = repository.findPostsOnRss(null,
-                new Sort(Sort.Direction.DESC, Collections.singletonList("_id")), 10);
+        List<ArticleOnRSS> posts = repository.findPostsOnRss(null, 10);
 
         Assert.assertTrue(! CollectionUtils.isEmpty(posts));
+
+        // 가장 오래된 것보다 새 글만 최신 순으로
+        ObjectId oldestId = new ObjectId(posts.get(posts.size() - 1).getId());
+        List<ArticleOnRSS> newerPosts = repository.findPostsOnRss(oldestId, 10);
+
+        Assert.assertEquals(posts.size() - 1, newerPosts.size());
+        Assert.assertEquals(posts.get(0).getId(), newerPosts.get(0).getId());
     }
 
     @Test
@@ -79,12 +83,16 @@ public class ArticleRepositoryTests {
     }
 
     @Test
-    public void findPostsOnSitemap() {
+    public void streamSitemapArticles() {
 
-        List<ArticleOnSitemap> posts = repository.findSitemapArticles(null,
-                new Sort(Sort.Direction.DESC, Collections.singletonList("_id")), 10);
+        try (CloseableIterator<ArticleOnSitemap> posts = repository.streamSitemapArticles(null)) {
+            Assert.assertTrue(posts.hasNext());
 
-        Assert.assertTrue(! CollectionUtils.isEmpty(posts));
+            ArticleOnSitemap first = posts.next();
+
+            if (posts.hasNext())
+                Assert.assertTrue(first.getId().compareTo(posts.next().getId()) < 0);
+        }
     }
 
     @Test
@@ -92,24 +100,4 @@ public class ArticleRepositoryTests {
         List<Article> posts = repository.findByIdInAndLinkedGalleryIsTrue(Arrays.asList(randomArticle.getId()));
     }
 
-    @Test
-    public void findUsersFeelingCountTest() {
-        List<BoardFeelingCount> feelingCounts = repository.findUsersFeelingCount(Arrays.asList(new ObjectId(randomArticle.getId())));
-
-        BoardFeelingCount boardFeelingCount = feelingCounts.stream()
-                .findFirst()
-                .orElseThrow(NoSuchElementException::new);
-
-        Assert.assertTrue(boardFeelingCount.getId().equals(randomArticle.getId()));
-        Assert.assertTrue(boardFeelingCount.getUsersLikingCount().equals(CollectionUtils.isEmpty(randomArticle.getUsersLiking()) ? 0 : randomArticle.getUsersLiking().size()));
-        Assert.assertTrue(boardFeelingCount.getUsersDislikingCount().equals(CollectionUtils.isEmpty(randomArticle.getUsersDisliking()) ? 0 : randomArticle.getUsersDisliking().size()));
-    }
-
-    @Test
-    public void findTopLikes() {
-        LocalDate localDate = LocalDate.now().minusWeeks(1);
-
-        List<BoardTop> topLikes = repository.findTopLikes(Constants.BOARD_TYPE.FOOTBALL.name(), new ObjectId(DateUtils.localDateToDate(localDate)));
-    }
-
 }
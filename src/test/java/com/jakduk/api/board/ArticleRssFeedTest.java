@@ -0,0 +1,127 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.model.simple.ArticleOnRSS;
+import com.jakduk.api.service.ArticleRssFeed;
+import com.jakduk.api.service.ArticleService;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleRssFeedTest {
+
+    @Mock private UrlGenerationUtils urlGenerationUtils;
+    @Mock private ArticleService articleService;
+
+    @InjectMocks private ArticleRssFeed sut;
+
+    private ArticleOnRSS first;
+    private ArticleOnRSS second;
+
+    @Before
+    public void setUp() {
+        JakdukProperties jakdukProperties = new JakdukProperties();
+        jakdukProperties.setWebServerUrl("http://localhost:3000");
+
+        JakdukProperties.Rss rss = jakdukProperties.new Rss();
+        rss.setMaxItems(2);
+
+        ReflectionTestUtils.setField(sut, "jakdukProperties", jakdukProperties);
+        ReflectionTestUtils.setField(sut, "rssProperties", rss);
+
+        first = newArticle(1, "first");
+        second = newArticle(2, "second");
+
+        when(urlGenerationUtils.generateArticleDetailUrl(anyString(), anyInt()))
+                .thenAnswer(invocation -> "http://localhost:3000/board/free/" + invocation.getArguments()[1]);
+    }
+
+    @After
+    public void tearDown() {
+        sut.destroy();
+    }
+
+    @Test
+    public void serveSameBytesUntilNewArticle() throws InterruptedException {
+        when(articleService.getBoardFreeOnRss(isNull(ObjectId.class), eq(2))).thenReturn(Collections.singletonList(first));
+
+        ArticleRssFeed.CachedFeed feed = sut.getFeed("ko");
+
+        Assert.assertSame(feed, sut.getFeed("ko"));
+        Assert.assertTrue(new String(feed.getBody(), StandardCharsets.UTF_8).contains("first"));
+
+        // 새 글이 없으면 그대로
+        sut.refresh();
+        verify(articleService, timeout(1000)).getBoardFreeOnRss(new ObjectId(first.getId()), 2);
+        Thread.sleep(100);
+        Assert.assertSame(feed, sut.getFeed("ko"));
+
+        // 새 글만 가져와서 앞에 붙인다.
+        when(articleService.getBoardFreeOnRss(new ObjectId(first.getId()), 2)).thenReturn(Collections.singletonList(second));
+        sut.articleAdded();
+
+        ArticleRssFeed.CachedFeed updated = this.waitForChange("ko", feed);
+        String body = new String(updated.getBody(), StandardCharsets.UTF_8);
+
+        Assert.assertNotEquals(feed.getHash(), updated.getHash());
+        Assert.assertTrue(body.indexOf("second") < body.indexOf("first"));
+        verify(articleService, times(1)).getBoardFreeOnRss(isNull(ObjectId.class), eq(2));
+    }
+
+    @Test
+    public void reloadRecentArticlesWhenChanged() throws InterruptedException {
+        when(articleService.getBoardFreeOnRss(isNull(ObjectId.class), eq(2)))
+                .thenReturn(Arrays.asList(second, first))
+                .thenReturn(Collections.singletonList(first));
+
+        ArticleRssFeed.CachedFeed feed = sut.getFeed("en");
+        Assert.assertTrue(new String(feed.getBody(), StandardCharsets.UTF_8).contains("second"));
+
+        // 지운 글은 최근 글을 다시 가져와야 빠진다.
+        sut.articleChanged();
+
+        ArticleRssFeed.CachedFeed updated = this.waitForChange("en", feed);
+
+        Assert.assertFalse(new String(updated.getBody(), StandardCharsets.UTF_8).contains("second"));
+    }
+
+    private ArticleRssFeed.CachedFeed waitForChange(String language, ArticleRssFeed.CachedFeed feed) throws InterruptedException {
+        for (int i = 0; i < 100 && sut.getFeed(language) == feed; i++)
+            Thread.sleep(10);
+
+        return sut.getFeed(language);
+    }
+
+    private static ArticleOnRSS newArticle(Integer seq, String subject) {
+        ArticleOnRSS article = new ArticleOnRSS();
+        ReflectionTestUtils.setField(article, "id", new ObjectId().toString());
+        ReflectionTestUtils.setField(article, "board", "FREE");
+        ReflectionTestUtils.setField(article, "seq", seq);
+        ReflectionTestUtils.setField(article, "subject", subject);
+        ReflectionTestUtils.setField(article, "content", "<p>" + subject + "</p>");
+        ReflectionTestUtils.setField(article, "writer", CommonWriter.builder().username("writer").build());
+
+        return article;
+    }
+
+}
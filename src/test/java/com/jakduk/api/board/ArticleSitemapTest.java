@@ -0,0 +1,170 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.simple.ArticleOnSitemap;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.service.ArticleSitemap;
+import org.apache.commons.io.IOUtils;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleSitemapTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private UrlGenerationUtils urlGenerationUtils;
+    @Mock private ArticleRepository articleRepository;
+
+    @InjectMocks private ArticleSitemap sut;
+
+    private List<ArticleOnSitemap> articles = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        JakdukProperties jakdukProperties = new JakdukProperties();
+        jakdukProperties.setApiServerUrl("http://localhost:8080");
+        jakdukProperties.setWebServerUrl("http://localhost:3000");
+
+        JakdukProperties.Storage storage = jakdukProperties.new Storage();
+        storage.setSitemapPath(temporaryFolder.newFolder("sitemap").getPath());
+
+        JakdukProperties.Sitemap sitemap = jakdukProperties.new Sitemap();
+        sitemap.setFullRebuildIntervalMillis(86_400_000L);
+
+        ReflectionTestUtils.setField(sut, "jakdukProperties", jakdukProperties);
+        ReflectionTestUtils.setField(sut, "storageProperties", storage);
+        ReflectionTestUtils.setField(sut, "sitemapProperties", sitemap);
+
+        when(urlGenerationUtils.generateArticleDetailUrl(anyString(), anyInt()))
+                .thenAnswer(invocation -> "http://localhost:3000/board/free/" + invocation.getArguments()[1]);
+
+        // 실제 커서처럼 _id 보다 큰 글만 오름차순으로 준다.
+        when(articleRepository.streamSitemapArticles(any(ObjectId.class))).thenAnswer(invocation -> {
+            ObjectId objectId = (ObjectId) invocation.getArguments()[0];
+
+            return closeableIterator(articles.stream()
+                    .filter(article -> Objects.isNull(objectId) || new ObjectId(article.getId()).compareTo(objectId) > 0)
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    @After
+    public void tearDown() {
+        sut.destroy();
+    }
+
+    @Test
+    public void buildIndexAndShard() throws IOException {
+        articles.add(newArticle(1));
+        articles.add(newArticle(2));
+
+        sut.build();
+
+        String index = new String(Files.readAllBytes(sut.getFile(ArticleSitemap.INDEX_FILE_NAME).get()), StandardCharsets.UTF_8);
+        Assert.assertTrue(index.contains("http://localhost:8080/sitemap/articles-1.xml.gz"));
+
+        String shard = readGzip(sut.getFile("articles-1.xml.gz").get());
+        Assert.assertTrue(shard.contains("http://localhost:3000/board/free/1"));
+        Assert.assertTrue(shard.contains("http://localhost:3000/board/free/2"));
+    }
+
+    @Test
+    public void appendOnlyNewArticles() throws IOException {
+        articles.add(newArticle(1));
+        sut.build();
+
+        Path index = sut.getFile(ArticleSitemap.INDEX_FILE_NAME).get();
+        long lastModified = Files.getLastModifiedTime(index).toMillis();
+
+        // 새 글이 없으면 파일을 다시 쓰지 않는다.
+        sut.build();
+        Assert.assertEquals(lastModified, Files.getLastModifiedTime(index).toMillis());
+
+        articles.add(newArticle(2));
+        sut.build();
+
+        String shard = readGzip(sut.getFile("articles-1.xml.gz").get());
+        Assert.assertTrue(shard.contains("http://localhost:3000/board/free/1"));
+        Assert.assertTrue(shard.contains("http://localhost:3000/board/free/2"));
+        Assert.assertFalse(sut.getFile("articles-2.xml.gz").isPresent());
+    }
+
+    @Test
+    public void serveOnlySitemapFiles() throws IOException {
+        articles.add(newArticle(1));
+        sut.build();
+
+        Assert.assertTrue(sut.getFile("articles-1.xml.gz").isPresent());
+        Assert.assertFalse(sut.getFile("sitemap-state.json").isPresent());
+        Assert.assertFalse(sut.getFile("../sitemap/sitemap.xml").isPresent());
+        Assert.assertFalse(sut.getFile("articles-9.xml.gz").isPresent());
+    }
+
+    private static ArticleOnSitemap newArticle(Integer seq) {
+        ArticleOnSitemap article = new ArticleOnSitemap();
+        ReflectionTestUtils.setField(article, "id", new ObjectId().toString());
+        ReflectionTestUtils.setField(article, "board", "FREE");
+        ReflectionTestUtils.setField(article, "seq", seq);
+        ReflectionTestUtils.setField(article, "lastUpdated", LocalDateTime.now());
+
+        return article;
+    }
+
+    private static String readGzip(Path path) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(path))) {
+            return new String(IOUtils.toByteArray(inputStream), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static <T> CloseableIterator<T> closeableIterator(List<T> items) {
+        Iterator<T> iterator = items.iterator();
+
+        return new CloseableIterator<T>() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+        };
+    }
+
+}
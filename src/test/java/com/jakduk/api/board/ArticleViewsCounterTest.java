@@ -0,0 +1,111 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.service.ArticleViewsCounter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleViewsCounterTest {
+
+    @Mock private ArticleRepository articleRepository;
+
+    @InjectMocks private ArticleViewsCounter sut;
+
+    private JakdukProperties.ArticleViews articleViewsProperties;
+
+    @Before
+    public void setUp() {
+        articleViewsProperties = new JakdukProperties().new ArticleViews();
+        ReflectionTestUtils.setField(sut, "articleViewsProperties", articleViewsProperties);
+    }
+
+    @Test
+    public void writeBehind() {
+        articleViewsProperties.setWriteBehind(true);
+
+        sut.increase("article01");
+        sut.increase("article01");
+        sut.increase("article01");
+        sut.increase("article02");
+
+        verify(articleRepository, never()).increaseViews(anyMapOf(String.class, Integer.class));
+
+        sut.flush();
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("article01", 3);
+        expected.put("article02", 1);
+
+        verify(articleRepository, times(1)).increaseViews(expected);
+
+        // 반영할 조회수가 없으면 DB 에 가지 않는다.
+        sut.flush();
+
+        verifyNoMoreInteractions(articleRepository);
+    }
+
+    @Test
+    public void writeBehindRetryOnFailure() {
+        articleViewsProperties.setWriteBehind(true);
+
+        sut.increase("article01");
+
+        doThrow(new RuntimeException("mongo down")).doNothing()
+                .when(articleRepository).increaseViews(anyMapOf(String.class, Integer.class));
+
+        sut.flush();
+        sut.increase("article01");
+        sut.flush();
+
+        verify(articleRepository, times(1)).increaseViews(Collections.singletonMap("article01", 2));
+    }
+
+    @Test
+    public void removeFlushedArticles() {
+        articleViewsProperties.setWriteBehind(true);
+
+        sut.increase("article01");
+        sut.increase("article02");
+
+        Map<String, Long> pendingViews = (Map<String, Long>) ReflectionTestUtils.getField(sut, "pendingViews");
+        Assert.assertEquals(2, pendingViews.size());
+
+        sut.flush();
+
+        // 반영한 글은 남기지 않는다.
+        Assert.assertTrue(pendingViews.isEmpty());
+
+        doThrow(new RuntimeException("mongo down")).when(articleRepository).increaseViews(anyMapOf(String.class, Integer.class));
+
+        sut.increase("article01");
+        sut.flush();
+
+        // 실패하면 다시 넣어 둔다.
+        Assert.assertEquals(Long.valueOf(1), pendingViews.get("article01"));
+    }
+
+    @Test
+    public void synchronous() {
+        articleViewsProperties.setWriteBehind(false);
+
+        sut.increase("article01");
+
+        verify(articleRepository, times(1)).increaseViews(Collections.singletonMap("article01", 1));
+    }
+
+}
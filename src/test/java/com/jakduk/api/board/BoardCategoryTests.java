@@ -3,6 +3,7 @@ package com.jakduk.api.board;
 import com.jakduk.api.common.board.category.BoardCategoryGenerator;
 import com.jakduk.api.common.Constants;
 import com.jakduk.api.common.board.category.BoardCategory;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.List;
@@ -34,5 +35,35 @@ public class BoardCategoryTests {
 
     }
 
+    @Test
+    public void sharedCategoriesKeepOtherLanguages() {
+        BoardCategoryGenerator sut = new BoardCategoryGenerator();
+
+        List<BoardCategory> usCategories = sut.getCategories(Constants.BOARD_TYPE.FOOTBALL, Locale.US);
+        List<BoardCategory> koreaCategories = sut.getCategories(Constants.BOARD_TYPE.FOOTBALL, Locale.KOREA);
+
+        // 다른 언어로 가져와도 먼저 가져온 말머리의 이름이 바뀌지 않는다.
+        Assert.assertEquals("Classic", usCategories.get(0).getNames().get(0).getName());
+        Assert.assertEquals("클래식", koreaCategories.get(0).getNames().get(0).getName());
+        Assert.assertEquals(1, usCategories.get(0).getNames().size());
+
+        // 같은 객체를 돌려준다.
+        Assert.assertSame(usCategories, sut.getCategories(Constants.BOARD_TYPE.FOOTBALL, Locale.US));
+        Assert.assertSame(usCategories.get(0), sut.getCategory(Constants.BOARD_TYPE.FOOTBALL, "CLASSIC", Locale.US));
+        Assert.assertSame(usCategories, sut.getCategories(Constants.BOARD_TYPE.FOOTBALL, Locale.FRANCE));
+
+        Assert.assertEquals("모두", sut.getCategoriesMap(Constants.BOARD_TYPE.FOOTBALL, Locale.KOREA).get("ALL"));
+        Assert.assertEquals("Classic", sut.getCategoriesMap(Constants.BOARD_TYPE.FOOTBALL, Locale.US).get("CLASSIC"));
+
+        Assert.assertTrue(sut.getCategories(Constants.BOARD_TYPE.FREE, Locale.US).isEmpty());
+        Assert.assertNull(sut.getCategoriesMap(Constants.BOARD_TYPE.FREE, Locale.US));
+        Assert.assertTrue(sut.existCategory(Constants.BOARD_TYPE.DEVELOPER, "TIP"));
+        Assert.assertFalse(sut.existCategory(Constants.BOARD_TYPE.DEVELOPER, "CLASSIC"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void categoriesAreReadOnly() {
+        new BoardCategoryGenerator().getCategory(Constants.BOARD_TYPE.FOOTBALL, "CLASSIC", Locale.US).getNames().clear();
+    }
 
 }
@@ -4,6 +4,7 @@ import com.jakduk.api.TestMvcConfig;
 import com.jakduk.api.common.AuthHelper;
 import com.jakduk.api.common.Constants;
 import com.jakduk.api.common.board.category.BoardCategory;
+import com.jakduk.api.common.board.category.BoardCategoryGenerator;
 import com.jakduk.api.common.util.ObjectMapperUtils;
 import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.db.Article;
@@ -18,7 +19,6 @@ import com.jakduk.api.restcontroller.BoardRestController;
 import com.jakduk.api.restcontroller.vo.board.*;
 import com.jakduk.api.service.ArticleService;
 import com.jakduk.api.service.GalleryService;
-import org.bson.types.ObjectId;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -36,10 +36,12 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -48,7 +50,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(BoardRestController.class)
-@Import(TestMvcConfig.class)
+@Import({TestMvcConfig.class, BoardCategoryGenerator.class})
 public class BoardRestControllerTests {
 
     @Autowired
@@ -101,6 +103,64 @@ public class BoardRestControllerTests {
 
     }
 
+    @Test
+    @WithMockUser
+    public void getArticlesByCursorTest() throws Exception {
+
+        GetArticle getArticle = new GetArticle();
+        getArticle.setId("boardFreeId02");
+        getArticle.setSeq(2);
+        getArticle.setSubject("다음 글");
+
+        GetArticlesResponse response = GetArticlesResponse.builder()
+                .articles(Arrays.asList(getArticle))
+                .first(false)
+                .last(true)
+                .size(20)
+                .numberOfElements(1)
+                .build();
+
+        when(articleService.getArticlesByCursor(Constants.BOARD_TYPE.FREE.name(), "ALL", "58b7b9dd716dce06b10e449a", null, 20, false))
+                .thenReturn(response);
+
+        mvc.perform(get("/api/board/free/articles")
+                .param("after", "58b7b9dd716dce06b10e449a")
+                .param("includeTotal", "false")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(ObjectMapperUtils.writeValueAsString(response)));
+    }
+
+    @Test
+    @WithMockUser
+    public void getArticlesByCursorClampSizeTest() throws Exception {
+
+        GetArticlesResponse response = GetArticlesResponse.builder()
+                .articles(Collections.emptyList())
+                .build();
+
+        when(articleService.getArticlesByCursor(anyString(), anyString(), anyString(), any(), anyInt(), anyBoolean()))
+                .thenReturn(response);
+
+        mvc.perform(get("/api/board/free/articles")
+                .param("after", "58b7b9dd716dce06b10e449a")
+                .param("size", "100000")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/board/free/articles")
+                .param("after", "58b7b9dd716dce06b10e449a")
+                .param("size", "-1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(articleService).getArticlesByCursor(Constants.BOARD_TYPE.FREE.name(), "ALL", "58b7b9dd716dce06b10e449a", null,
+                Constants.BOARD_MAX_PAGE_SIZE, true);
+        verify(articleService).getArticlesByCursor(Constants.BOARD_TYPE.FREE.name(), "ALL", "58b7b9dd716dce06b10e449a", null,
+                Constants.BOARD_MAX_LIMIT, true);
+    }
+
     @Test
     @WithMockUser
     public void getFreePostsTopsTest() throws Exception {
@@ -115,7 +175,7 @@ public class BoardRestControllerTests {
                         .build()
         );
 
-        when(articleService.getFreeTopLikes(anyString(), any(ObjectId.class)))
+        when(articleService.getFreeTopLikes(anyString()))
                 .thenReturn(expectTopLikes);
 
         List<BoardTop> expectTopComments = Arrays.asList(
@@ -128,7 +188,7 @@ public class BoardRestControllerTests {
                         .build()
         );
 
-        when(articleService.getFreeTopComments(anyString(), any(ObjectId.class)))
+        when(articleService.getFreeTopComments(anyString()))
                 .thenReturn(expectTopComments);
 
         GetBoardTopsResponse response = GetBoardTopsResponse.builder()
@@ -172,7 +232,7 @@ public class BoardRestControllerTests {
                 .size(10)
                 .number(0)
                 .numberOfElements(1)
-                .totalElements(1)
+                .totalElements(1L)
                 .build();
 
         when(articleService.getArticleComments(any(CommonWriter.class), anyString(), anyInt(), anyInt()))
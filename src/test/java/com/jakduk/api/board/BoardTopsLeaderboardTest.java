@@ -0,0 +1,175 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.aggregate.BoardTop;
+import com.jakduk.api.model.aggregate.CommonCount;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.ArticleItem;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.repository.article.comment.ArticleCommentRepository;
+import com.jakduk.api.service.BoardTopsLeaderboard;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BoardTopsLeaderboardTest {
+
+    private final static String BOARD = Constants.BOARD_TYPE.FREE.name();
+
+    @Mock private ArticleRepository articleRepository;
+    @Mock private ArticleCommentRepository articleCommentRepository;
+
+    @InjectMocks private BoardTopsLeaderboard sut;
+
+    private Article article01;
+    private Article article02;
+
+    @Before
+    public void setUp() {
+        JakdukProperties.BoardTops boardTopsProperties = new JakdukProperties().new BoardTops();
+        boardTopsProperties.setRefreshIntervalMillis(10000L);
+        boardTopsProperties.setReloadIntervalMillis(3600000L);
+        ReflectionTestUtils.setField(sut, "boardTopsProperties", boardTopsProperties);
+
+        article01 = Article.builder().id(new ObjectId().toString()).seq(1).board(BOARD).subject("글01").views(10).build();
+        article02 = Article.builder().id(new ObjectId().toString()).seq(2).board(BOARD).subject("글02").views(20).build();
+
+        when(articleRepository.findLikingCountsGreaterThanId(eq(BOARD), any(ObjectId.class)))
+                .thenReturn(Arrays.asList(
+                        BoardTop.builder().id(article01.getId()).seq(1).subject("글01").count(5).views(10).build(),
+                        BoardTop.builder().id(article02.getId()).seq(2).subject("글02").count(5).views(20).build()));
+
+        when(articleCommentRepository.findCommentsCountGreaterThanBoardIdAndBoard(any(ObjectId.class), eq(BOARD)))
+                .thenReturn(Collections.singletonList(this.newCommonCount(article01.getId(), 2)));
+
+        when(articleRepository.findBoardTopsByIds(anyListOf(ObjectId.class), eq(BOARD)))
+                .thenReturn(Collections.singletonList(BoardTop.builder().id(article01.getId()).seq(1).subject("글01").views(10).build()));
+    }
+
+    @Test
+    public void loadOnceAndServeFromMemory() {
+        // 같은 수면 읽음수가 많은 글이 먼저
+        Assert.assertEquals(Arrays.asList(2, 1), this.getSeqs(sut.getTopLikes(BOARD)));
+        Assert.assertEquals(Collections.singletonList(1), this.getSeqs(sut.getTopComments(BOARD)));
+
+        sut.getTopLikes(BOARD);
+        sut.getTopComments(BOARD);
+
+        verify(articleRepository, times(1)).findLikingCountsGreaterThanId(eq(BOARD), any(ObjectId.class));
+        verify(articleCommentRepository, times(1)).findCommentsCountGreaterThanBoardIdAndBoard(any(ObjectId.class), eq(BOARD));
+    }
+
+    @Test
+    public void rankAfterEvents() {
+        sut.getTopLikes(BOARD);
+
+        article01.setLikingCount(6);
+        sut.articleChanged(article01);
+
+        sut.commentAdded(article02);
+        sut.commentAdded(article02);
+        sut.commentAdded(article02);
+
+        // 순위는 refresh 때 다시 매긴다.
+        Assert.assertEquals(Arrays.asList(2, 1), this.getSeqs(sut.getTopLikes(BOARD)));
+
+        sut.refresh();
+
+        Assert.assertEquals(Arrays.asList(1, 2), this.getSeqs(sut.getTopLikes(BOARD)));
+        Assert.assertEquals(Arrays.asList(2, 1), this.getSeqs(sut.getTopComments(BOARD)));
+        Assert.assertEquals(Integer.valueOf(3), sut.getTopComments(BOARD).get(0).getCount());
+
+        String commentId = new ObjectId().toString();
+        sut.commentDeleted(new ArticleItem(article02.getId(), article02.getSeq(), BOARD), commentId);
+        sut.commentDeleted(new ArticleItem(article02.getId(), article02.getSeq(), BOARD), commentId);
+        sut.articleDeleted(BOARD, article01.getId());
+        sut.refresh();
+
+        Assert.assertEquals(Collections.singletonList(2), this.getSeqs(sut.getTopLikes(BOARD)));
+        Assert.assertEquals(Integer.valueOf(1), sut.getTopComments(BOARD).get(0).getCount());
+
+        // 주간 범위가 그대로면 Mongo 에서 다시 읽지 않는다.
+        verify(articleRepository, times(1)).findLikingCountsGreaterThanId(eq(BOARD), any(ObjectId.class));
+    }
+
+    @Test
+    public void rankByViewsCountedWithoutLock() throws InterruptedException {
+        sut.getTopLikes(BOARD);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        // 글01 이 20 번 넘게 읽혀서 같은 좋아요수의 글02(20) 를 앞지른다.
+        for (int i = 0; i < 15; i++)
+            executorService.execute(() -> sut.articleViewed(article01));
+
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+        sut.refresh();
+
+        List<BoardTop> topLikes = sut.getTopLikes(BOARD);
+
+        Assert.assertEquals(Arrays.asList(1, 2), this.getSeqs(topLikes));
+        Assert.assertEquals(Integer.valueOf(25), topLikes.get(0).getViews());
+        Assert.assertEquals(Integer.valueOf(25), sut.getTopComments(BOARD).get(0).getViews());
+    }
+
+    @Test
+    public void loadOnceOnConcurrentFirstRequests() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 4; i++) {
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                    sut.getTopLikes(BOARD);
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+
+        start.countDown();
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+
+        verify(articleRepository, times(1)).findLikingCountsGreaterThanId(eq(BOARD), any(ObjectId.class));
+    }
+
+    private CommonCount newCommonCount(String id, Integer count) {
+        CommonCount commonCount = new CommonCount();
+        ReflectionTestUtils.setField(commonCount, "id", id);
+        ReflectionTestUtils.setField(commonCount, "count", count);
+
+        return commonCount;
+    }
+
+    private List<Integer> getSeqs(List<BoardTop> boardTops) {
+        return boardTops.stream()
+                .map(BoardTop::getSeq)
+                .collect(Collectors.toList());
+    }
+
+}
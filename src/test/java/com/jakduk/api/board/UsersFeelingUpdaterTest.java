@@ -0,0 +1,194 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.mongodb.UsersFeelingUpdater;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.MongodbConfig;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.aggregate.BoardFeelingCount;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.model.embedded.CommonWriter;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 여러 쓰레드가 동시에 감정 표현을 해도 빠지거나 겹치는 회원이 없는지 확인한다.
+ */
+@RunWith(SpringRunner.class)
+@DataMongoTest
+@Import({JakdukProperties.class, MongodbConfig.class, UsersFeelingUpdater.class})
+public class UsersFeelingUpdaterTest {
+
+    private final static Integer THREADS = 16;
+    private final static Integer USERS = 100;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UsersFeelingUpdater sut;
+
+    private Article article;
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        CommonWriter writer = CommonWriter.builder()
+                .userId(new ObjectId().toString())
+                .username("writer")
+                .providerId(Constants.ACCOUNT_TYPE.JAKDUK)
+                .build();
+
+        article = Article.builder()
+                .writer(writer)
+                .board(Constants.BOARD_TYPE.FREE.name())
+                .seq(-1)
+                .subject("feeling test")
+                .content("feeling test")
+                .views(0)
+                .likingCount(0)
+                .dislikingCount(0)
+                .build();
+
+        mongoTemplate.insert(article);
+
+        executorService = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+        mongoTemplate.remove(article);
+    }
+
+    @Test
+    public void noLostFeelingsUnderContention() throws Exception {
+        List<CommonWriter> likers = newUsers(USERS);
+        List<CommonWriter> dislikers = newUsers(USERS);
+
+        List<Callable<Article>> tasks = new ArrayList<>();
+        likers.forEach(user -> tasks.add(() -> this.toggle(user, Constants.FEELING_TYPE.LIKE)));
+        dislikers.forEach(user -> tasks.add(() -> this.toggle(user, Constants.FEELING_TYPE.DISLIKE)));
+
+        this.runAll(tasks);
+
+        Article found = mongoTemplate.findById(article.getId(), Article.class);
+
+        Assert.assertEquals(USERS.intValue(), distinctUserIds(found.getUsersLiking()));
+        Assert.assertEquals(USERS.intValue(), distinctUserIds(found.getUsersDisliking()));
+        Assert.assertEquals(USERS.intValue(), found.getUsersLiking().size());
+        Assert.assertEquals(USERS.intValue(), found.getUsersDisliking().size());
+        Assert.assertEquals(USERS.intValue(), found.getLikingCount());
+        Assert.assertEquals(USERS.intValue(), found.getDislikingCount());
+
+        BoardFeelingCount feelingCount = sut.count(Article.class, article.getId());
+
+        Assert.assertEquals(USERS, feelingCount.getUsersLikingCount());
+        Assert.assertEquals(USERS, feelingCount.getUsersDislikingCount());
+    }
+
+    @Test
+    public void sameUserTogglesWithoutDuplicates() throws Exception {
+        CommonWriter user = newUsers(1).get(0);
+
+        // 홀수 번 누르면 좋아요가 하나만 남는다.
+        List<Callable<Article>> tasks = IntStream.range(0, 31)
+                .mapToObj(i -> (Callable<Article>) () -> this.toggle(user, Constants.FEELING_TYPE.LIKE))
+                .collect(Collectors.toList());
+
+        this.runAll(tasks);
+
+        Article found = mongoTemplate.findById(article.getId(), Article.class);
+
+        Assert.assertEquals(1, found.getUsersLiking().size());
+        Assert.assertEquals(user.getUserId(), found.getUsersLiking().get(0).getUserId());
+        Assert.assertEquals(1, found.getLikingCount());
+    }
+
+    @Test
+    public void switchFeeling() {
+        CommonWriter user = newUsers(1).get(0);
+
+        Article liked = this.toggle(user, Constants.FEELING_TYPE.LIKE);
+        Assert.assertEquals(1, liked.getUsersLiking().size());
+        Assert.assertEquals(1, liked.getLikingCount());
+
+        Article disliked = this.toggle(user, Constants.FEELING_TYPE.DISLIKE);
+        Assert.assertNull(disliked.getUsersLiking());
+        Assert.assertEquals(1, disliked.getUsersDisliking().size());
+        Assert.assertEquals(0, disliked.getLikingCount());
+        Assert.assertEquals(1, disliked.getDislikingCount());
+
+        Article cancelled = this.toggle(user, Constants.FEELING_TYPE.DISLIKE);
+        Assert.assertNull(cancelled.getUsersDisliking());
+        Assert.assertEquals(0, cancelled.getDislikingCount());
+    }
+
+    @Test
+    public void rejectWriterAndRepeat() {
+        try {
+            this.toggle(article.getWriter(), Constants.FEELING_TYPE.LIKE);
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertEquals(ServiceError.FEELING_YOU_ARE_WRITER, e.getServiceError());
+        }
+
+        CommonWriter user = newUsers(1).get(0);
+        Criteria target = Criteria.where("_id").is(new ObjectId(article.getId()));
+
+        sut.addOnce(Article.class, target, user, Constants.FEELING_TYPE.LIKE, ServiceError.NOT_FOUND_ARTICLE);
+
+        try {
+            sut.addOnce(Article.class, target, user, Constants.FEELING_TYPE.DISLIKE, ServiceError.NOT_FOUND_ARTICLE);
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertEquals(ServiceError.FEELING_SELECT_ALREADY_LIKE, e.getServiceError());
+        }
+    }
+
+    private Article toggle(CommonWriter user, Constants.FEELING_TYPE feeling) {
+        return sut.toggle(Article.class, Criteria.where("_id").is(new ObjectId(article.getId())), user, feeling,
+                ServiceError.NOT_FOUND_ARTICLE, true, "likingCount", "dislikingCount");
+    }
+
+    private void runAll(List<Callable<Article>> tasks) throws InterruptedException, ExecutionException {
+        for (Future<Article> future : executorService.invokeAll(tasks))
+            future.get();
+    }
+
+    private static List<CommonWriter> newUsers(Integer size) {
+        return IntStream.range(0, size)
+                .mapToObj(i -> CommonWriter.builder()
+                        .userId(new ObjectId().toString())
+                        .username("user" + i)
+                        .providerId(Constants.ACCOUNT_TYPE.JAKDUK)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static long distinctUserIds(List<CommonFeelingUser> users) {
+        return users.stream()
+                .map(CommonFeelingUser::getUserId)
+                .distinct()
+                .count();
+    }
+
+}
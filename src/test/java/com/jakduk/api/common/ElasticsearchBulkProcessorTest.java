@@ -0,0 +1,111 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.common.elasticsearch.ElasticsearchBulkProcessor;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ElasticsearchBulkProcessorTest {
+
+    @Mock private BulkProcessor bulkProcessor;
+
+    @Mock private ActionListener<BulkItemResponse> listenerA;
+    @Mock private ActionListener<BulkItemResponse> listenerB;
+    @Mock private ActionListener<BulkItemResponse> listenerC;
+
+    @InjectMocks private ElasticsearchBulkProcessor sut;
+
+    private IndexRequest requestA;
+    private DeleteRequest requestB;
+    private IndexRequest requestC;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(sut, "bulkProcessor", bulkProcessor);
+
+        requestA = new IndexRequest("jakduk_board", "board", "a").source("{}");
+        requestB = new DeleteRequest("jakduk_board", "board", "b");
+        requestC = new IndexRequest("jakduk_board", "comment", "c").source("{}");
+
+        sut.add(requestA, listenerA);
+        sut.add(requestB, listenerB);
+        sut.add(requestC, listenerC);
+    }
+
+    @Test
+    public void matchItemsByDocumentAfterPartialRetry() {
+        BulkRequest request = new BulkRequest().add(requestA).add(requestB).add(requestC);
+
+        // b, c 만 다시 보내서 성공했다. 두 항목의 itemId 는 다시 보낸 요청 기준(0, 1)이고, 인덱스는 별칭이 아닌 실제 이름이다.
+        BulkItemResponse itemA = new BulkItemResponse(0, "index", new IndexResponse("jakduk_board_v2", "board", "a", 1, true));
+        BulkItemResponse itemB = new BulkItemResponse(0, "delete", new DeleteResponse("jakduk_board_v2", "board", "b", 2, true));
+        BulkItemResponse itemC = new BulkItemResponse(1, "index", new IndexResponse("jakduk_board_v2", "comment", "c", 1, true));
+
+        sut.afterBulk(1L, request, new BulkResponse(new BulkItemResponse[]{itemA, itemB, itemC}, 10L));
+
+        verify(listenerA).onResponse(itemA);
+        verify(listenerB).onResponse(itemB);
+        verify(listenerC).onResponse(itemC);
+        verify(listenerA, never()).onFailure(any(Throwable.class));
+        verify(listenerB, never()).onFailure(any(Throwable.class));
+        verify(listenerC, never()).onFailure(any(Throwable.class));
+    }
+
+    @Test
+    public void failOnlyTheFailedDocument() {
+        BulkRequest request = new BulkRequest().add(requestA).add(requestB).add(requestC);
+
+        BulkItemResponse itemA = new BulkItemResponse(0, "index", new IndexResponse("jakduk_board_v2", "board", "a", 1, true));
+        BulkItemResponse itemB = new BulkItemResponse(0, "delete", new DeleteResponse("jakduk_board_v2", "board", "b", 2, true));
+        BulkItemResponse itemC = new BulkItemResponse(1, "index",
+                new BulkItemResponse.Failure("jakduk_board_v2", "comment", "c", new RuntimeException("rejected")));
+
+        sut.afterBulk(1L, request, new BulkResponse(new BulkItemResponse[]{itemC, itemA, itemB}, 10L));
+
+        verify(listenerA).onResponse(itemA);
+        verify(listenerB).onResponse(itemB);
+        verify(listenerC).onFailure(any(Throwable.class));
+        verify(listenerC, never()).onResponse(any(BulkItemResponse.class));
+    }
+
+    @Test
+    public void giveIdToRequestWithoutId() {
+        IndexRequest request = new IndexRequest("jakduk_search_word", "search_word").source("{}");
+        ActionListener<BulkItemResponse> listener = mock(ActionListener.class);
+
+        sut.add(request, listener);
+
+        ArgumentCaptor<ActionRequest> added = ArgumentCaptor.forClass(ActionRequest.class);
+        verify(bulkProcessor, times(4)).add(added.capture());
+
+        String id = ((IndexRequest) added.getValue()).id();
+        Assert.assertNotNull(id);
+
+        BulkItemResponse item = new BulkItemResponse(0, "index", new IndexResponse("jakduk_search_word", "search_word", id, 1, true));
+
+        sut.afterBulk(2L, new BulkRequest().add(request), new BulkResponse(new BulkItemResponse[]{item}, 1L));
+
+        verify(listener).onResponse(item);
+    }
+
+}
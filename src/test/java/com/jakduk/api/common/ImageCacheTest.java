@@ -0,0 +1,124 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+public class ImageCacheTest {
+
+    private ImageCache sut;
+
+    private Path tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        JakdukProperties.ImageCache imageCacheProperties = new JakdukProperties().new ImageCache();
+        imageCacheProperties.setMaxSizeMb(1);
+        imageCacheProperties.setMaxEntrySizeKb(400);
+
+        sut = new ImageCache(imageCacheProperties);
+
+        tempDir = Files.createTempDirectory("image-cache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        org.apache.commons.io.FileUtils.deleteDirectory(tempDir.toFile());
+    }
+
+    @Test
+    public void putAndGet() throws IOException {
+        Path filePath = this.writeFile("thumb01.jpg", 1000);
+
+        Assert.assertFalse(sut.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01").isPresent());
+
+        sut.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01", sut.getGeneration(), filePath, "image/jpeg", "hash01");
+
+        Optional<ImageCache.CachedImage> cachedImage = sut.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01");
+
+        Assert.assertTrue(cachedImage.isPresent());
+        Assert.assertEquals("image/jpeg", cachedImage.get().getContentType());
+        Assert.assertEquals("hash01", cachedImage.get().getHash());
+
+        // 같은 ID 라도 종류가 다르면 다른 이미지
+        Assert.assertFalse(sut.get(Constants.IMAGE_CACHE_TYPE.USER_SMALL_PICTURE, "thumb01").isPresent());
+
+        // 여러번 읽어도 같은 내용
+        for (int i = 0 ; i < 2 ; i++) {
+            try (InputStream in = cachedImage.get().toResource().getInputStream()) {
+                Assert.assertArrayEquals(Files.readAllBytes(filePath), IOUtils.toByteArray(in));
+            }
+        }
+
+        Map<String, Object> stats = sut.getStats();
+
+        Assert.assertEquals(1L, stats.get("hitCount"));
+        Assert.assertEquals(2L, stats.get("missCount"));
+        Assert.assertEquals(1000L, stats.get("sizeBytes"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws IOException {
+        // 300KB * 3 = 900KB 까지는 1MB 안에 들어간다.
+        for (int i = 1 ; i <= 3 ; i++)
+            sut.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb0" + i, sut.getGeneration(), this.writeFile("thumb0" + i + ".jpg", 300 * 1024), "image/jpeg", null);
+
+        // thumb01 을 최근에 쓴 것으로 만든다.
+        Assert.assertTrue(sut.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01").isPresent());
+
+        sut.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb04", sut.getGeneration(), this.writeFile("thumb04.jpg", 300 * 1024), "image/jpeg", null);
+
+        Assert.assertTrue(sut.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01").isPresent());
+        Assert.assertFalse(sut.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb02").isPresent());
+        Assert.assertTrue(sut.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb04").isPresent());
+        Assert.assertEquals(1L, sut.getStats().get("evictionCount"));
+    }
+
+    @Test
+    public void skipLargeImageAndEvict() throws IOException {
+        Assert.assertFalse(sut.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "large01", sut.getGeneration(),
+                this.writeFile("large01.jpg", 500 * 1024), "image/jpeg", null).isPresent());
+
+        sut.put(Constants.IMAGE_CACHE_TYPE.USER_SMALL_PICTURE, "user01", sut.getGeneration(), this.writeFile("user01.jpg", 100), "image/jpeg", null);
+        sut.evict(Constants.IMAGE_CACHE_TYPE.USER_SMALL_PICTURE, "user01");
+
+        Assert.assertFalse(sut.get(Constants.IMAGE_CACHE_TYPE.USER_SMALL_PICTURE, "user01").isPresent());
+        Assert.assertEquals(0L, sut.getStats().get("sizeBytes"));
+    }
+
+    @Test
+    public void skipPutAfterEvictSinceLookup() throws IOException {
+        Path filePath = this.writeFile("thumb01.jpg", 100);
+
+        // 캐시에 없어서 찾아보는 사이에 사진이 지워졌다.
+        long generation = sut.getGeneration();
+        sut.evict(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01");
+
+        Assert.assertFalse(sut.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01", generation, filePath, "image/jpeg", null).isPresent());
+        Assert.assertFalse(sut.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01").isPresent());
+        Assert.assertEquals(0L, sut.getStats().get("sizeBytes"));
+
+        // 다음 요청은 다시 캐시한다.
+        Assert.assertTrue(sut.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, "thumb01", sut.getGeneration(), filePath, "image/jpeg", null).isPresent());
+    }
+
+    private Path writeFile(String fileName, int size) throws IOException {
+        byte[] bytes = new byte[size];
+
+        for (int i = 0 ; i < size ; i++)
+            bytes[i] = (byte) i;
+
+        return Files.write(tempDir.resolve(fileName), bytes);
+    }
+
+}
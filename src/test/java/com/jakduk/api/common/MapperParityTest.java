@@ -0,0 +1,200 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.model.elasticsearch.EsBoardSource;
+import com.jakduk.api.model.embedded.*;
+import com.jakduk.api.model.simple.ArticleCommentOnList;
+import com.jakduk.api.model.simple.ArticleOnList;
+import com.jakduk.api.model.simple.ArticleSimple;
+import com.jakduk.api.restcontroller.vo.board.*;
+import com.jakduk.api.restcontroller.vo.gallery.GalleryDetail;
+import com.jakduk.api.restcontroller.vo.gallery.GalleryOnList;
+import com.jakduk.api.restcontroller.vo.gallery.SurroundingsGallery;
+import com.jakduk.api.restcontroller.vo.home.LatestHomeArticle;
+import com.jakduk.api.restcontroller.vo.search.BoardSource;
+import com.jakduk.api.service.mapper.ArticleMapper;
+import com.jakduk.api.service.mapper.GalleryMapper;
+import com.jakduk.api.service.mapper.SearchMapper;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.beans.PropertyDescriptor;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 매퍼가 BeanUtils.copyProperties 와 같은 필드를 옮기는지 확인한다.
+ */
+public class MapperParityTest {
+
+    private ArticleOnList articleOnList;
+    private Article article;
+    private ArticleCommentOnList articleComment;
+    private BoardLog boardLog;
+    private Gallery gallery;
+    private EsBoardSource esBoardSource;
+
+    @Before
+    public void setUp() {
+        CommonWriter writer = CommonWriter.builder()
+                .userId(new ObjectId().toString())
+                .username("jakduk")
+                .providerId(Constants.ACCOUNT_TYPE.JAKDUK)
+                .build();
+
+        List<CommonFeelingUser> usersLiking = Collections.singletonList(new CommonFeelingUser(new ObjectId().toString(), "liker", "liker"));
+        ArticleStatus articleStatus = ArticleStatus.builder().notice(true).device(Constants.DEVICE_TYPE.MOBILE).build();
+
+        boardLog = new BoardLog(new ObjectId().toString(), Constants.ARTICLE_HISTORY_TYPE.EDIT.name(),
+                new SimpleWriter(writer.getUserId(), writer.getUsername()));
+
+        articleOnList = new ArticleOnList();
+        ReflectionTestUtils.setField(articleOnList, "id", new ObjectId().toString());
+        ReflectionTestUtils.setField(articleOnList, "writer", writer);
+        ReflectionTestUtils.setField(articleOnList, "subject", "subject");
+        ReflectionTestUtils.setField(articleOnList, "seq", 10);
+        ReflectionTestUtils.setField(articleOnList, "board", Constants.BOARD_TYPE.FOOTBALL.name());
+        ReflectionTestUtils.setField(articleOnList, "category", "CLASSIC");
+        ReflectionTestUtils.setField(articleOnList, "views", 20);
+        ReflectionTestUtils.setField(articleOnList, "commentCount", 3);
+        ReflectionTestUtils.setField(articleOnList, "likingCount", 4);
+        ReflectionTestUtils.setField(articleOnList, "dislikingCount", 5);
+        ReflectionTestUtils.setField(articleOnList, "status", articleStatus);
+        ReflectionTestUtils.setField(articleOnList, "shortContent", "short content");
+        ReflectionTestUtils.setField(articleOnList, "linkedGallery", true);
+
+        article = Article.builder()
+                .id(new ObjectId().toString())
+                .writer(writer)
+                .subject("subject")
+                .content("<p>content</p>")
+                .seq(10)
+                .board(Constants.BOARD_TYPE.FOOTBALL.name())
+                .category("CLASSIC")
+                .views(20)
+                .usersLiking(usersLiking)
+                .usersDisliking(Collections.emptyList())
+                .commentCount(3)
+                .likingCount(1)
+                .status(articleStatus)
+                .logs(Collections.singletonList(boardLog))
+                .shortContent("short content")
+                .linkedGallery(true)
+                .build();
+
+        articleComment = new ArticleCommentOnList();
+        ReflectionTestUtils.setField(articleComment, "id", new ObjectId().toString());
+        ReflectionTestUtils.setField(articleComment, "article", new ArticleItem(article.getId(), article.getSeq(), article.getBoard()));
+        ReflectionTestUtils.setField(articleComment, "status", new ArticleCommentStatus(Constants.DEVICE_TYPE.TABLET));
+        ReflectionTestUtils.setField(articleComment, "writer", writer);
+        ReflectionTestUtils.setField(articleComment, "content", "<p>comment</p>");
+        ReflectionTestUtils.setField(articleComment, "linkedGallery", true);
+        ReflectionTestUtils.setField(articleComment, "logs", Collections.singletonList(boardLog));
+        ReflectionTestUtils.setField(articleComment, "numberOfLike", 1);
+        ReflectionTestUtils.setField(articleComment, "numberOfDislike", 0);
+        ReflectionTestUtils.setField(articleComment, "myFeeling", Constants.FEELING_TYPE.LIKE);
+
+        gallery = Gallery.builder()
+                .id(new ObjectId().toString())
+                .name("name")
+                .fileName("file.jpg")
+                .writer(writer)
+                .size(100L)
+                .fileSize(200L)
+                .contentType("image/jpeg")
+                .status(GalleryStatus.builder().status(Constants.GALLERY_STATUS_TYPE.ENABLE).build())
+                .hash("hash")
+                .build();
+
+        esBoardSource = new EsBoardSource();
+        esBoardSource.setId(new ObjectId().toString());
+        esBoardSource.setWriter(writer);
+        esBoardSource.setSubject("subject");
+        esBoardSource.setContent("content");
+        esBoardSource.setSeq(10);
+        esBoardSource.setCategory("CLASSIC");
+        esBoardSource.setScore(1.5f);
+        esBoardSource.setHighlight(Collections.singletonMap("subject", Collections.singletonList("<em>subject</em>")));
+    }
+
+    @Test
+    public void articleMapper() {
+        assertParity(articleOnList, GetArticle::new, ArticleMapper::toGetArticle);
+        assertParity(articleOnList, LatestHomeArticle::new, ArticleMapper::toLatestHomeArticle);
+        assertParity(articleOnList, LatestArticle::new, ArticleMapper::toLatestArticle);
+        assertParity(article, ArticleSimple::new, ArticleMapper::toArticleSimple);
+        assertParity(articleComment, GetArticleComment::new, ArticleMapper::toGetArticleComment);
+
+        // BeanUtils 는 제네릭을 안 보고 List<BoardLog> 를 이력 목록에 넣었다. 이력은 따로 바꾼다.
+        assertParity(article, ArticleDetail::new, ArticleMapper::toArticleDetail, "logs");
+        assertParity(articleComment, FreePostDetailComment::new, ArticleMapper::toFreePostDetailComment, "logs");
+    }
+
+    @Test
+    public void articleLog() {
+        ArticleLog expected = new ArticleLog();
+        BeanUtils.copyProperties(boardLog, expected);
+        expected.setType(Constants.ARTICLE_HISTORY_TYPE.valueOf(boardLog.getType()));
+        expected.setTimestamp(DateUtils.dateToLocalDateTime(new ObjectId(boardLog.getId()).getDate()));
+
+        assertSameProperties(expected, ArticleMapper.toArticleLog(boardLog));
+
+        BoardLog commentLog = new BoardLog(new ObjectId().toString(), Constants.ARTICLE_COMMENT_HISTORY_TYPE.CREATE.name(), null);
+
+        BoardFreeCommentLog expectedCommentLog = new BoardFreeCommentLog();
+        BeanUtils.copyProperties(commentLog, expectedCommentLog);
+        expectedCommentLog.setType(Constants.ARTICLE_COMMENT_HISTORY_TYPE.valueOf(commentLog.getType()));
+        expectedCommentLog.setTimestamp(DateUtils.dateToLocalDateTime(new ObjectId(commentLog.getId()).getDate()));
+
+        assertSameProperties(expectedCommentLog, ArticleMapper.toBoardFreeCommentLog(commentLog));
+    }
+
+    @Test
+    public void galleryMapper() {
+        assertParity(gallery, GalleryOnList::new, GalleryMapper::toGalleryOnList);
+        assertParity(gallery, GalleryDetail::new, GalleryMapper::toGalleryDetail);
+        assertParity(gallery, SurroundingsGallery::new, GalleryMapper::toSurroundingsGallery);
+    }
+
+    @Test
+    public void searchMapper() {
+        assertParity(esBoardSource, BoardSource::new, SearchMapper::toBoardSource);
+
+        // 사진은 BoardGallerySimple 로 따로 바꾼다.
+        esBoardSource.setGalleries(Collections.singletonList(new ObjectId().toString()));
+        assertParity(esBoardSource, BoardSource::new, SearchMapper::toBoardSource, "galleries");
+    }
+
+    private static <S, T> void assertParity(S source, Supplier<T> target, Function<S, T> mapper, String... ignoredProperties) {
+        T expected = target.get();
+        BeanUtils.copyProperties(source, expected, ignoredProperties);
+
+        assertSameProperties(expected, mapper.apply(source), ignoredProperties);
+    }
+
+    private static void assertSameProperties(Object expected, Object actual, String... ignoredProperties) {
+        List<String> ignored = Arrays.asList(ignoredProperties);
+        BeanWrapper expectedWrapper = new BeanWrapperImpl(expected);
+        BeanWrapper actualWrapper = new BeanWrapperImpl(actual);
+
+        for (PropertyDescriptor descriptor : expectedWrapper.getPropertyDescriptors()) {
+            String name = descriptor.getName();
+
+            if ("class".equals(name) || ignored.contains(name) || Objects.isNull(descriptor.getReadMethod()))
+                continue;
+
+            Assert.assertEquals(expected.getClass().getSimpleName() + "." + name,
+                    expectedWrapper.getPropertyValue(name), actualWrapper.getPropertyValue(name));
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.common.mongodb.MongoPoolMetrics;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class MongoPoolMetricsTest {
+
+    private MongoPoolMetrics sut;
+    private ServerId serverId;
+    private ConnectionId connectionId;
+
+    @Before
+    public void setUp() {
+        sut = new MongoPoolMetrics();
+        serverId = new ServerId(new ClusterId(), new ServerAddress("localhost", 27017));
+        connectionId = new ConnectionId(serverId);
+    }
+
+    @Test
+    public void countInUseAndWait() throws InterruptedException {
+        sut.connectionAdded(new ConnectionAddedEvent(connectionId));
+        sut.connectionAdded(new ConnectionAddedEvent(connectionId));
+
+        sut.waitQueueEntered(new ConnectionPoolWaitQueueEnteredEvent(serverId));
+        Thread.sleep(20);
+        sut.waitQueueExited(new ConnectionPoolWaitQueueExitedEvent(serverId));
+        sut.connectionCheckedOut(new ConnectionCheckedOutEvent(connectionId));
+
+        Map<String, Object> stats = sut.getStats();
+
+        Assert.assertEquals(2, stats.get("size"));
+        Assert.assertEquals(1, stats.get("inUse"));
+        Assert.assertEquals(0, stats.get("waitQueueSize"));
+        Assert.assertEquals(1L, stats.get("checkoutCount"));
+        Assert.assertEquals(0L, stats.get("checkoutFailureCount"));
+        Assert.assertTrue((Long) stats.get("maxWaitMillis") >= 20);
+
+        sut.connectionCheckedIn(new ConnectionCheckedInEvent(connectionId));
+
+        Assert.assertEquals(0, sut.getStats().get("inUse"));
+    }
+
+    @Test
+    public void countCheckoutFailure() {
+        // 대기열에서 나왔는데 연결을 못 받음 (maxWaitTime 초과)
+        sut.waitQueueEntered(new ConnectionPoolWaitQueueEnteredEvent(serverId));
+        sut.waitQueueExited(new ConnectionPoolWaitQueueExitedEvent(serverId));
+
+        Assert.assertEquals(1L, sut.getStats().get("checkoutFailureCount"));
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+public class UrlGenerationUtilsTest {
+
+    private UrlGenerationUtils sut = new UrlGenerationUtils();
+
+    @Before
+    public void setUp() {
+        JakdukProperties jakdukProperties = new JakdukProperties();
+        jakdukProperties.setApiServerUrl("https://api.jakduk.com");
+
+        JakdukProperties.ApiUrlPath apiUrlPath = jakdukProperties.new ApiUrlPath();
+        apiUrlPath.setGalleryImage("gallery");
+
+        JakdukProperties.GalleryUpload galleryUpload = jakdukProperties.new GalleryUpload();
+        galleryUpload.setRenditionWidths(Arrays.asList(640, 320));
+
+        ReflectionTestUtils.setField(sut, "jakdukProperties", jakdukProperties);
+        ReflectionTestUtils.setField(sut, "apiUrlPathProperties", apiUrlPath);
+        ReflectionTestUtils.setField(sut, "galleryUploadProperties", galleryUpload);
+    }
+
+    @Test
+    public void generateGallerySrcset() {
+        Assert.assertEquals("https://api.jakduk.com/gallery/gallery01?w=320 320w, https://api.jakduk.com/gallery/gallery01?w=640 640w",
+                sut.generateGallerySrcset("gallery01"));
+
+        Assert.assertNull(sut.generateGallerySrcset(null));
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.jakduk.api.gallery;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.ImageCache;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.service.GalleryImageProcessor;
+import com.jakduk.api.service.GalleryRenditions;
+import com.jakduk.api.service.GalleryService;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GalleryImageProcessorTest {
+
+    // 줄이도록 1MB 넘는 PNG 를 만든다.
+    private final static int ORIGINAL_WIDTH = 1000;
+    private final static int ORIGINAL_HEIGHT = 750;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private GalleryService galleryService;
+    @Mock private GalleryRepository galleryRepository;
+    @Mock private ImageCache imageCache;
+    @Mock private GalleryRenditions galleryRenditions;
+
+    @InjectMocks private GalleryImageProcessor sut;
+
+    private Gallery gallery;
+    private Path imageFilePath;
+    private Path thumbFilePath;
+    private Path renditionFilePath;
+
+    @Before
+    public void setUp() throws IOException {
+        // 요청 쓰레드에서 바로 돌려서 끝난 뒤에 확인한다.
+        ReflectionTestUtils.setField(sut, "galleryUploadExecutor", (Executor) Runnable::run);
+
+        gallery = Gallery.builder()
+                .id(new ObjectId().toString())
+                .contentType("image/png")
+                .fileSize(Constants.GALLERY_MAXIMUM_CAPACITY * 2)
+                .build();
+
+        imageFilePath = temporaryFolder.newFolder("image").toPath().resolve(gallery.getId() + ".png");
+        thumbFilePath = temporaryFolder.getRoot().toPath().resolve("thumbnail").resolve(gallery.getId() + ".png");
+
+        renditionFilePath = imageFilePath.resolveSibling(gallery.getId() + "_w320.png");
+
+        ImageIO.write(this.noiseImage(), "png", imageFilePath.toFile());
+        Assert.assertTrue(Files.size(imageFilePath) > Constants.GALLERY_MAXIMUM_CAPACITY);
+
+        // 원본(1000)보다 넓은 1280 은 만들지 않는다.
+        when(galleryRenditions.getWidths()).thenReturn(Arrays.asList(320, 1280));
+        when(galleryRenditions.resolvePath(gallery, 320, "png")).thenReturn(renditionFilePath);
+
+        when(galleryService.resolveGalleryFilePath(gallery, Constants.IMAGE_TYPE.FULL))
+                .thenReturn(imageFilePath);
+        when(galleryService.resolveGalleryFilePath(gallery, Constants.IMAGE_TYPE.THUMBNAIL))
+                .thenReturn(thumbFilePath);
+    }
+
+    @Test
+    public void resizeAndMakeThumbnailFromOneDecode() throws IOException {
+        sut.process(gallery);
+
+        BufferedImage resized = ImageIO.read(imageFilePath.toFile());
+        BufferedImage thumbnail = ImageIO.read(thumbFilePath.toFile());
+
+        Assert.assertTrue(resized.getWidth() < ORIGINAL_WIDTH);
+        Assert.assertTrue(Files.size(imageFilePath) <= Constants.GALLERY_MAXIMUM_CAPACITY);
+        Assert.assertEquals(Constants.GALLERY_THUMBNAIL_SIZE_WIDTH.intValue(), thumbnail.getWidth());
+        Assert.assertEquals(Constants.GALLERY_THUMBNAIL_SIZE_HEIGHT.intValue(), thumbnail.getHeight());
+        Assert.assertEquals(320, ImageIO.read(renditionFilePath.toFile()).getWidth());
+        verify(galleryRenditions, never()).resolvePath(eq(gallery), eq(1280), anyString());
+
+        verify(galleryRepository).updateSize(gallery.getId(), Files.size(imageFilePath));
+        verify(imageCache).evict(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, gallery.getId());
+        Assert.assertEquals(Long.valueOf(Files.size(imageFilePath)), gallery.getSize());
+    }
+
+    @Test
+    public void processOnThumbnailMissAfterFailure() throws IOException {
+        byte[] original = Files.readAllBytes(imageFilePath);
+
+        // 쓰레드 풀에서는 깨진 파일이라 실패했다.
+        Files.write(imageFilePath, new byte[]{1, 2, 3});
+        sut.process(gallery);
+
+        Assert.assertTrue(Files.notExists(thumbFilePath));
+        Assert.assertNull(gallery.getSize());
+        verify(galleryRepository, never()).updateSize(eq(gallery.getId()), anyLong());
+
+        // 썸네일을 처음 요청할 때 줄이기부터 다시 한다.
+        Files.write(imageFilePath, original);
+        when(galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenAnswer(invocation -> Files.exists(thumbFilePath));
+
+        Assert.assertTrue(sut.processMissing(gallery));
+
+        Assert.assertTrue(ImageIO.read(imageFilePath.toFile()).getWidth() < ORIGINAL_WIDTH);
+        Assert.assertTrue(Files.exists(thumbFilePath));
+        verify(galleryRepository).updateSize(gallery.getId(), Files.size(imageFilePath));
+    }
+
+    @Test
+    public void resizeOnlyOnceWhenSizeWasNotSaved() throws IOException {
+        sut.process(gallery);
+
+        int resizedWidth = ImageIO.read(imageFilePath.toFile()).getWidth();
+
+        // 사진은 줄였는데 줄인 크기를 남기기 전에 내려갔다.
+        gallery.setSize(null);
+        when(galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenAnswer(invocation -> Files.exists(thumbFilePath));
+
+        Assert.assertTrue(sut.processMissing(gallery));
+
+        // 또 줄이지 않는다.
+        Assert.assertEquals(resizedWidth, ImageIO.read(imageFilePath.toFile()).getWidth());
+    }
+
+    @Test
+    public void processMissingWithoutResizingAgain() throws IOException {
+        gallery.setSize(Files.size(imageFilePath));
+        when(galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenAnswer(invocation -> Files.exists(thumbFilePath));
+
+        Assert.assertTrue(sut.processMissing(gallery));
+
+        // 이미 줄인 사진이면 썸네일만 다시 만든다.
+        Assert.assertEquals(ORIGINAL_WIDTH, ImageIO.read(imageFilePath.toFile()).getWidth());
+        Assert.assertTrue(Files.exists(thumbFilePath));
+        verify(galleryRepository, never()).updateSize(eq(gallery.getId()), anyLong());
+    }
+
+    @Test
+    public void skipProcessMissingWhileQueued() {
+        List<Runnable> queued = new ArrayList<>();
+        ReflectionTestUtils.setField(sut, "galleryUploadExecutor", (Executor) queued::add);
+
+        sut.process(gallery);
+
+        // 쓰레드 풀에 걸려 있으면 요청 쓰레드에서 또 만들지 않는다.
+        Assert.assertFalse(sut.processMissing(gallery));
+        Assert.assertTrue(Files.notExists(thumbFilePath));
+
+        queued.forEach(Runnable::run);
+
+        Assert.assertTrue(Files.exists(thumbFilePath));
+    }
+
+    @Test
+    public void rebuildWithoutResizingAgain() throws IOException {
+        long size = Files.size(imageFilePath);
+
+        Assert.assertTrue(sut.rebuild(gallery));
+
+        Assert.assertEquals(size, Files.size(imageFilePath));
+        Assert.assertEquals(ORIGINAL_WIDTH, ImageIO.read(imageFilePath.toFile()).getWidth());
+        Assert.assertEquals(320, ImageIO.read(renditionFilePath.toFile()).getWidth());
+        Assert.assertEquals(Constants.GALLERY_THUMBNAIL_SIZE_WIDTH.intValue(), ImageIO.read(thumbFilePath.toFile()).getWidth());
+
+        verify(galleryRepository, never()).updateSize(eq(gallery.getId()), anyLong());
+        verify(imageCache).evict(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, gallery.getId());
+    }
+
+    @Test
+    public void skipDeletedGallery() throws IOException {
+        Files.delete(imageFilePath);
+
+        sut.process(gallery);
+
+        Assert.assertTrue(Files.notExists(thumbFilePath));
+        verify(galleryRepository, never()).updateSize(eq(gallery.getId()), anyLong());
+        Assert.assertFalse(sut.rebuild(gallery));
+    }
+
+    private BufferedImage noiseImage() {
+        BufferedImage image = new BufferedImage(ORIGINAL_WIDTH, ORIGINAL_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(1);
+
+        for (int y = 0 ; y < ORIGINAL_HEIGHT ; y++)
+            for (int x = 0 ; x < ORIGINAL_WIDTH ; x++)
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+
+        return image;
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.jakduk.api.gallery;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.ImageCache;
+import com.jakduk.api.controller.DefaultViewController;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.service.GalleryImageProcessor;
+import com.jakduk.api.service.GalleryRenditions;
+import com.jakduk.api.service.GalleryService;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mobile.device.Device;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+/**
+ * 사진 응답의 ETag, Vary, Cache-Control (DefaultViewController)
+ */
+
+@RunWith(MockitoJUnitRunner.class)
+public class GalleryImageResponseTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private GalleryService galleryService;
+    @Mock private GalleryRenditions galleryRenditions;
+    @Mock private GalleryImageProcessor galleryImageProcessor;
+    @Mock private ImageCache imageCache;
+
+    @InjectMocks private DefaultViewController sut;
+
+    private Gallery gallery;
+    private Path fullFilePath;
+    private Path renditionFilePath;
+
+    @Before
+    public void setUp() throws IOException {
+        gallery = Gallery.builder()
+                .id(new ObjectId().toString())
+                .contentType("image/jpeg")
+                .hash("md5hash")
+                .blobId("sha256hash_g1")
+                .build();
+
+        fullFilePath = temporaryFolder.newFile("full").toPath();
+        renditionFilePath = temporaryFolder.newFile("w640.webp").toPath();
+
+        when(galleryService.findOneById(gallery.getId())).thenReturn(gallery);
+        when(galleryService.getGalleryFilePath(gallery, Constants.IMAGE_TYPE.FULL)).thenReturn(fullFilePath);
+        when(galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenReturn(true);
+        when(galleryRenditions.select(any(Gallery.class), any(), anyBoolean())).thenReturn(Optional.empty());
+        when(galleryRenditions.getMobileWidth()).thenReturn(640);
+    }
+
+    @Test
+    public void renditionVariesByAcceptAndUserAgent() {
+        when(galleryRenditions.select(gallery, 600, true)).thenReturn(
+                Optional.of(new GalleryRenditions.Rendition(renditionFilePath, GalleryRenditions.WEBP_CONTENT_TYPE, 640)));
+
+        ResponseEntity<AbstractResource> response = sut.getGallery(gallery.getId(), 600, "image/webp,image/*", null);
+
+        Assert.assertEquals(GalleryRenditions.WEBP_CONTENT_TYPE, response.getHeaders().getContentType().toString());
+        Assert.assertEquals("\"md5hash-w640-image-webp\"", response.getHeaders().getETag());
+        Assert.assertEquals(Arrays.asList(HttpHeaders.ACCEPT, HttpHeaders.USER_AGENT), response.getHeaders().getVary());
+    }
+
+    @Test
+    public void mobileGetsMobileWidthWithoutW() {
+        Device device = mock(Device.class);
+        when(device.isMobile()).thenReturn(true);
+
+        sut.getGallery(gallery.getId(), null, null, device);
+
+        verify(galleryRenditions).select(gallery, 640, false);
+    }
+
+    @Test
+    public void desktopGetsOriginalWithoutW() {
+        Device device = mock(Device.class);
+
+        sut.getGallery(gallery.getId(), null, null, device);
+
+        verify(galleryRenditions).select(gallery, null, false);
+    }
+
+    @Test
+    public void fullImageUsesBlobIdAsETag() {
+        ResponseEntity<AbstractResource> response = sut.getGallery(gallery.getId(), 2000, null, null);
+
+        Assert.assertEquals("image/jpeg", response.getHeaders().getContentType().toString());
+        Assert.assertEquals("\"sha256hash_g1\"", response.getHeaders().getETag());
+        Assert.assertEquals(Arrays.asList(HttpHeaders.ACCEPT, HttpHeaders.USER_AGENT), response.getHeaders().getVary());
+    }
+
+    @Test
+    public void legacyFullImageUsesHashAsETag() {
+        gallery.setBlobId(null);
+
+        ResponseEntity<AbstractResource> response = sut.getGallery(gallery.getId(), null, null, null);
+
+        Assert.assertEquals("\"md5hash\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void doNotCacheFullImageWhileProcessing() {
+        when(galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenReturn(false);
+
+        ResponseEntity<AbstractResource> response = sut.getGallery(gallery.getId(), null, null, null);
+
+        Assert.assertNull(response.getHeaders().getETag());
+        Assert.assertEquals(-1, response.getHeaders().getLastModified());
+        Assert.assertEquals("no-store", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void makeThumbnailOnMiss() throws IOException {
+        Path thumbFilePath = temporaryFolder.newFile("thumbnail").toPath();
+        Files.write(thumbFilePath, new byte[]{1});
+
+        when(imageCache.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, gallery.getId())).thenReturn(Optional.empty());
+        when(galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenReturn(false);
+        when(galleryImageProcessor.processMissing(gallery)).thenReturn(true);
+        when(galleryService.getGalleryFilePath(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenReturn(thumbFilePath);
+        when(imageCache.put(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, gallery.getId(), 0L, thumbFilePath, "image/jpeg", "md5hash"))
+                .thenReturn(Optional.empty());
+
+        ResponseEntity<AbstractResource> response = sut.getGalleyThumbnail(gallery.getId());
+
+        Assert.assertEquals("\"md5hash\"", response.getHeaders().getETag());
+        verify(galleryImageProcessor).processMissing(gallery);
+    }
+
+    @Test
+    public void serveFullImageUncachedWhileThumbnailIsQueued() {
+        when(imageCache.get(Constants.IMAGE_CACHE_TYPE.GALLERY_THUMBNAIL, gallery.getId())).thenReturn(Optional.empty());
+        when(galleryService.existsGalleryFile(gallery, Constants.IMAGE_TYPE.THUMBNAIL)).thenReturn(false);
+        when(galleryImageProcessor.processMissing(gallery)).thenReturn(false);
+
+        ResponseEntity<AbstractResource> response = sut.getGalleyThumbnail(gallery.getId());
+
+        Assert.assertEquals("no-store", response.getHeaders().getCacheControl());
+        verify(imageCache, never()).put(any(), any(), anyLong(), any(), any(), any());
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.jakduk.api.gallery;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.model.db.GalleryRebuildCheckpoint;
+import com.jakduk.api.repository.GalleryRebuildCheckpointRepository;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.restcontroller.vo.admin.GalleryRebuildProgress;
+import com.jakduk.api.service.GalleryImageProcessor;
+import com.jakduk.api.service.GalleryRebuildService;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GalleryRebuildServiceTest {
+
+    @Mock private GalleryRepository galleryRepository;
+    @Mock private GalleryImageProcessor galleryImageProcessor;
+    @Mock private GalleryRebuildCheckpointRepository galleryRebuildCheckpointRepository;
+
+    @InjectMocks private GalleryRebuildService sut;
+
+    private Gallery first;
+    private Gallery second;
+    private Gallery third;
+
+    @Before
+    public void setUp() {
+        JakdukProperties.GalleryRebuild galleryRebuild = new JakdukProperties().new GalleryRebuild();
+        galleryRebuild.setParallelism(2);
+        galleryRebuild.setBatchSize(2);
+
+        ReflectionTestUtils.setField(sut, "galleryRebuildProperties", galleryRebuild);
+
+        first = Gallery.builder().id(new ObjectId().toString()).contentType("image/png").build();
+        second = Gallery.builder().id(new ObjectId().toString()).contentType("image/png").build();
+        third = Gallery.builder().id(new ObjectId().toString()).contentType("image/png").build();
+    }
+
+    @After
+    public void tearDown() {
+        sut.destroy();
+    }
+
+    @Test
+    public void rebuildAllAndCountBrokenImages() throws IOException, InterruptedException {
+        when(galleryRepository.findGalleriesGreaterThanId(isNull(ObjectId.class), eq(2))).thenReturn(Arrays.asList(first, second));
+        when(galleryRepository.findGalleriesGreaterThanId(new ObjectId(second.getId()), 2)).thenReturn(Collections.singletonList(third));
+        when(galleryRepository.findGalleriesGreaterThanId(new ObjectId(third.getId()), 2)).thenReturn(Collections.emptyList());
+
+        when(galleryImageProcessor.rebuild(first)).thenReturn(true);
+        when(galleryImageProcessor.rebuild(second)).thenReturn(false);
+        when(galleryImageProcessor.rebuild(third)).thenThrow(new IOException("broken"));
+
+        sut.startRebuild();
+
+        GalleryRebuildProgress progress = this.waitForFinish();
+
+        // 깨진 사진이 있어도 끝까지 간다.
+        Assert.assertEquals(Constants.REINDEX_STATUS.COMPLETED, progress.getStatus());
+        Assert.assertEquals(third.getId(), progress.getLastGalleryId());
+        Assert.assertEquals(1, progress.getRebuiltCount());
+        Assert.assertEquals(1, progress.getSkippedCount());
+        Assert.assertEquals(1, progress.getFailedCount());
+        Assert.assertEquals(2, progress.getParallelism());
+    }
+
+    @Test
+    public void resumeAfterLastRebuiltBatch() throws IOException, InterruptedException {
+        when(galleryRepository.findGalleriesGreaterThanId(isNull(ObjectId.class), eq(2))).thenReturn(Arrays.asList(first, second));
+        when(galleryRepository.findGalleriesGreaterThanId(new ObjectId(second.getId()), 2))
+                .thenThrow(new RuntimeException("mongo down"))
+                .thenReturn(Collections.singletonList(third));
+        when(galleryRepository.findGalleriesGreaterThanId(new ObjectId(third.getId()), 2)).thenReturn(Collections.emptyList());
+
+        when(galleryImageProcessor.rebuild(any(Gallery.class))).thenReturn(true);
+
+        sut.startRebuild();
+
+        GalleryRebuildProgress failed = this.waitForFinish();
+
+        Assert.assertEquals(Constants.REINDEX_STATUS.FAILED, failed.getStatus());
+        Assert.assertEquals(second.getId(), failed.getLastGalleryId());
+
+        sut.resumeRebuild();
+
+        GalleryRebuildProgress completed = this.waitForFinish();
+
+        Assert.assertEquals(Constants.REINDEX_STATUS.COMPLETED, completed.getStatus());
+        Assert.assertEquals(3, completed.getRebuiltCount());
+
+        // 다 만든 묶음은 다시 만들지 않는다.
+        verify(galleryImageProcessor, times(1)).rebuild(first);
+        verify(galleryImageProcessor, times(1)).rebuild(third);
+
+        // 묶음마다 남겨서 서버가 다시 떠도 이어서 할 수 있다.
+        ArgumentCaptor<GalleryRebuildCheckpoint> checkpoint = ArgumentCaptor.forClass(GalleryRebuildCheckpoint.class);
+        verify(galleryRebuildCheckpointRepository, atLeast(4)).save(checkpoint.capture());
+
+        List<GalleryRebuildCheckpoint> checkpoints = checkpoint.getAllValues();
+        Assert.assertEquals(Constants.REINDEX_STATUS.COMPLETED, checkpoints.get(checkpoints.size() - 1).getStatus());
+        Assert.assertEquals(third.getId(), checkpoints.get(checkpoints.size() - 1).getLastGalleryId());
+    }
+
+    @Test
+    public void resumableAfterRestartWhileRunning() throws InterruptedException {
+        GalleryRebuildCheckpoint checkpoint = GalleryRebuildCheckpoint.builder()
+                .id("gallery")
+                .status(Constants.REINDEX_STATUS.RUNNING)
+                .parallelism(2)
+                .lastGalleryId(second.getId())
+                .rebuiltCount(2)
+                .build();
+
+        when(galleryRebuildCheckpointRepository.findOneById("gallery")).thenReturn(Optional.of(checkpoint));
+
+        sut.loadCheckpoint();
+
+        GalleryRebuildProgress failed = sut.getProgress();
+
+        // 돌던 중에 내려갔으면 실패로 바꿔서 이어서 할 수 있게 한다.
+        Assert.assertEquals(Constants.REINDEX_STATUS.FAILED, failed.getStatus());
+        Assert.assertEquals(second.getId(), failed.getLastGalleryId());
+        Assert.assertEquals(2, failed.getRebuiltCount());
+        verify(galleryRebuildCheckpointRepository).save(any(GalleryRebuildCheckpoint.class));
+
+        when(galleryRepository.findGalleriesGreaterThanId(new ObjectId(second.getId()), 2)).thenReturn(Collections.singletonList(third));
+        when(galleryRepository.findGalleriesGreaterThanId(new ObjectId(third.getId()), 2)).thenReturn(Collections.emptyList());
+        when(galleryImageProcessor.rebuild(third)).thenReturn(true);
+
+        sut.resumeRebuild();
+
+        GalleryRebuildProgress completed = this.waitForFinish();
+
+        Assert.assertEquals(Constants.REINDEX_STATUS.COMPLETED, completed.getStatus());
+        Assert.assertEquals(3, completed.getRebuiltCount());
+        verify(galleryImageProcessor, never()).rebuild(first);
+        verify(galleryImageProcessor, never()).rebuild(second);
+    }
+
+    private GalleryRebuildProgress waitForFinish() throws InterruptedException {
+        for (int i = 0; i < 100 && sut.getProgress().getStatus() == Constants.REINDEX_STATUS.RUNNING; i++)
+            Thread.sleep(10);
+
+        return sut.getProgress();
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.jakduk.api.gallery;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.service.GalleryRenditions;
+import com.jakduk.api.service.ImageBlobStore;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GalleryRenditionsTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private ImageBlobStore imageBlobStore;
+
+    @InjectMocks private GalleryRenditions sut;
+
+    private Gallery gallery;
+
+    @Before
+    public void setUp() {
+        JakdukProperties.Storage storage = new JakdukProperties().new Storage();
+        storage.setImagePath(temporaryFolder.getRoot().getAbsolutePath());
+
+        JakdukProperties.GalleryUpload galleryUpload = new JakdukProperties().new GalleryUpload();
+        galleryUpload.setRenditionWidths(Arrays.asList(1280, 320, 640));
+        galleryUpload.setMobileWidth(640);
+
+        ReflectionTestUtils.setField(sut, "storageProperties", storage);
+        ReflectionTestUtils.setField(sut, "galleryUploadProperties", galleryUpload);
+
+        gallery = Gallery.builder()
+                .id(new ObjectId().toString())
+                .contentType("image/jpeg")
+                .build();
+    }
+
+    @Test
+    public void sortWidths() {
+        Assert.assertEquals(Arrays.asList(320, 640, 1280), sut.getWidths());
+        Assert.assertEquals(Integer.valueOf(640), sut.getMobileWidth());
+    }
+
+    @Test
+    public void selectSmallestWiderRendition() throws IOException {
+        this.givenRendition(320, "jpeg");
+        this.givenRendition(640, "jpeg");
+
+        Optional<GalleryRenditions.Rendition> rendition = sut.select(gallery, 400, false);
+
+        Assert.assertTrue(rendition.isPresent());
+        Assert.assertEquals(Integer.valueOf(640), rendition.get().getWidth());
+        Assert.assertEquals("image/jpeg", rendition.get().getContentType());
+        Assert.assertEquals(sut.resolvePath(gallery, 640, "jpeg"), rendition.get().getPath());
+
+        Assert.assertEquals(Integer.valueOf(320), sut.select(gallery, 320, false).get().getWidth());
+
+        // w 가 없으면 원본
+        Assert.assertFalse(sut.select(gallery, null, false).isPresent());
+    }
+
+    @Test
+    public void selectWebpOnlyWhenAccepted() throws IOException {
+        this.givenRendition(640, "jpeg");
+        this.givenRendition(640, GalleryRenditions.WEBP);
+
+        Assert.assertEquals(GalleryRenditions.WEBP_CONTENT_TYPE, sut.select(gallery, 640, true).get().getContentType());
+        Assert.assertEquals("image/jpeg", sut.select(gallery, 640, false).get().getContentType());
+    }
+
+    @Test
+    public void selectOriginalFormatWhenWebpWasNotMade() throws IOException {
+        this.givenRendition(640, "jpeg");
+
+        Optional<GalleryRenditions.Rendition> rendition = sut.select(gallery, 640, true);
+
+        Assert.assertTrue(rendition.isPresent());
+        Assert.assertEquals("image/jpeg", rendition.get().getContentType());
+    }
+
+    @Test
+    public void fallBackToOriginalWhenWidthWasNotMade() throws IOException {
+        // 원본이 800 이라 1280 은 만들지 않았다.
+        this.givenRendition(320, "jpeg");
+        this.givenRendition(640, "jpeg");
+
+        Assert.assertFalse(sut.select(gallery, 1000, true).isPresent());
+
+        // 가장 넓은 것보다 넓게 달라면 원본
+        Assert.assertFalse(sut.select(gallery, 2000, false).isPresent());
+    }
+
+    @Test
+    public void encodeProgressiveJpeg() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        GalleryRenditions.encode(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "jpeg", outputStream);
+
+        // 프로그레시브 JPEG 은 SOF2(0xFFC2) 마커로 시작한다.
+        Assert.assertTrue(containsMarker(outputStream.toByteArray(), (byte) 0xC2));
+        Assert.assertFalse(containsMarker(outputStream.toByteArray(), (byte) 0xC0));
+    }
+
+    @Test
+    public void encodeOtherFormatsAsIs() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        GalleryRenditions.encode(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "png", outputStream);
+
+        byte[] bytes = outputStream.toByteArray();
+
+        Assert.assertEquals((byte) 0x89, bytes[0]);
+        Assert.assertEquals('P', bytes[1]);
+        Assert.assertEquals('N', bytes[2]);
+        Assert.assertEquals('G', bytes[3]);
+    }
+
+    private void givenRendition(Integer width, String formatName) throws IOException {
+        Path path = sut.resolvePath(gallery, width, formatName);
+
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[]{1});
+    }
+
+    private static boolean containsMarker(byte[] bytes, byte marker) {
+        for (int i = 0; i < bytes.length - 1; i++) {
+            if (bytes[i] == (byte) 0xFF && bytes[i + 1] == marker)
+                return true;
+        }
+
+        return false;
+    }
+
+}
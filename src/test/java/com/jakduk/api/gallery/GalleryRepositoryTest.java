@@ -10,7 +10,9 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -34,5 +36,19 @@ public class GalleryRepositoryTest extends ApiApplicationTests {
 
         Assert.assertTrue(Objects.nonNull(galleries));
     }
-    
+
+    @Test
+    public void findFirstByItemIdInAndFromType() {
+        ObjectId itemId = new ObjectId("58ee422be846b60526cd3382");
+
+        Map<String, Gallery> galleries = sut.findFirstByItemIdInAndFromType(Collections.singletonList(itemId), Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT);
+        List<Gallery> expected = sut.findByItemIdAndFromType(itemId, Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT, 1);
+
+        if (expected.isEmpty()) {
+            Assert.assertTrue(galleries.isEmpty());
+        } else {
+            Assert.assertEquals(expected.get(0).getId(), galleries.get(itemId.toString()).getId());
+        }
+    }
+
 }
@@ -0,0 +1,153 @@
+package com.jakduk.api.gallery;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.ImageBlob;
+import com.jakduk.api.repository.blob.ImageBlobRepository;
+import com.jakduk.api.service.ImageBlobStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImageBlobStoreTest {
+
+    private static final String HASH = ImageBlobStore.hash(new byte[]{1, 2, 3});
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private ImageBlobRepository imageBlobRepository;
+
+    @InjectMocks private ImageBlobStore sut;
+
+    @Before
+    public void setUp() {
+        JakdukProperties.Storage storage = new JakdukProperties().new Storage();
+        storage.setBlobPath(temporaryFolder.getRoot().getAbsolutePath());
+
+        ReflectionTestUtils.setField(sut, "storageProperties", storage);
+
+        when(imageBlobRepository.increaseRefCount(HASH)).thenReturn(Optional.of(imageBlob("g1")));
+    }
+
+    @Test
+    public void keyBySha256() {
+        Assert.assertEquals("039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81", HASH);
+    }
+
+    @Test
+    public void writeSameImageOnce() throws IOException {
+        AtomicInteger writes = new AtomicInteger();
+
+        ImageBlobStore.BlobWriter writer = filePath -> {
+            writes.incrementAndGet();
+            Files.write(filePath, new byte[]{1, 2, 3});
+        };
+
+        ImageBlobStore.Acquired first = sut.acquire(HASH, writer);
+        ImageBlobStore.Acquired second = sut.acquire(HASH, writer);
+
+        Path fullPath = sut.resolve(first.getBlobId(), ImageBlobStore.FULL);
+
+        Assert.assertTrue(first.getWritten());
+        Assert.assertFalse(second.getWritten());
+        Assert.assertEquals(HASH + "_g1", first.getBlobId());
+        Assert.assertEquals(first.getBlobId(), second.getBlobId());
+        Assert.assertEquals(1, writes.get());
+        Assert.assertEquals(temporaryFolder.getRoot().toPath().resolve(HASH.substring(0, 2)).resolve(HASH.substring(2, 4))
+                .resolve(HASH + "_g1").resolve("full"), fullPath);
+        Assert.assertTrue(Files.exists(fullPath));
+        verify(imageBlobRepository, times(2)).increaseRefCount(HASH);
+    }
+
+    @Test
+    public void releaseCountWhenWriteFails() {
+        try {
+            sut.acquire(HASH, filePath -> {
+                Files.write(filePath, new byte[]{1});
+                throw new IOException("disk full");
+            });
+            Assert.fail();
+        } catch (IOException ignored) {
+        }
+
+        verify(imageBlobRepository).decreaseRefCount(HASH, "g1");
+        Assert.assertFalse(Files.exists(sut.resolve(HASH + "_g1", ImageBlobStore.FULL)));
+    }
+
+    @Test
+    public void deleteOnlyWhenMarkedInMongo() throws IOException {
+        String blobId = sut.acquire(HASH, filePath -> Files.write(filePath, new byte[]{1})).getBlobId();
+        sut.writeIfAbsent(blobId, ImageBlobStore.SMALL, filePath -> Files.write(filePath, new byte[]{1}));
+
+        Path directory = sut.resolve(blobId, ImageBlobStore.FULL).getParent();
+
+        // 아직 다른 글이 참조하고 있다.
+        when(imageBlobRepository.decreaseRefCount(HASH, "g1")).thenReturn(1);
+        sut.release(blobId);
+
+        Assert.assertTrue(Files.exists(directory));
+        verify(imageBlobRepository, never()).markDeleting(HASH, "g1");
+
+        // 0 이 됐지만 그 사이에 다른 서버가 다시 참조했다.
+        when(imageBlobRepository.decreaseRefCount(HASH, "g1")).thenReturn(0);
+        when(imageBlobRepository.markDeleting(HASH, "g1")).thenReturn(false);
+        sut.release(blobId);
+
+        Assert.assertTrue(Files.exists(directory));
+        verify(imageBlobRepository, never()).removeDeleting(HASH, "g1");
+
+        when(imageBlobRepository.markDeleting(HASH, "g1")).thenReturn(true);
+        sut.release(blobId);
+
+        Assert.assertFalse(Files.exists(directory));
+        verify(imageBlobRepository).removeDeleting(HASH, "g1");
+    }
+
+    @Test
+    public void writeNewGenerationWhileOldOneIsDeleting() throws IOException {
+        String oldBlobId = sut.acquire(HASH, filePath -> Files.write(filePath, new byte[]{1})).getBlobId();
+
+        // 다른 서버가 g1 을 지우는 중이라 늘리지 못하고 새 세대로 바꾼다.
+        when(imageBlobRepository.increaseRefCount(HASH)).thenReturn(Optional.empty());
+        when(imageBlobRepository.replaceDeleting(HASH)).thenReturn(Optional.of(imageBlob("g2")));
+
+        ImageBlobStore.Acquired acquired = sut.acquire(HASH, filePath -> Files.write(filePath, new byte[]{1}));
+
+        Assert.assertEquals(HASH + "_g2", acquired.getBlobId());
+        Assert.assertTrue(acquired.getWritten());
+
+        // 지우는 쪽이 예전 세대 폴더를 지워도 새 세대는 남는다.
+        when(imageBlobRepository.decreaseRefCount(HASH, "g1")).thenReturn(0);
+        when(imageBlobRepository.markDeleting(HASH, "g1")).thenReturn(true);
+        sut.release(oldBlobId);
+
+        Assert.assertFalse(Files.exists(sut.resolve(oldBlobId, ImageBlobStore.FULL)));
+        Assert.assertTrue(Files.exists(sut.resolve(acquired.getBlobId(), ImageBlobStore.FULL)));
+    }
+
+    private static ImageBlob imageBlob(String generation) {
+        ImageBlob imageBlob = new ImageBlob();
+        imageBlob.setId(HASH);
+        imageBlob.setGeneration(generation);
+        imageBlob.setRefCount(1);
+
+        return imageBlob;
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.jakduk.api.home;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.model.db.HomeDescription;
+import com.jakduk.api.model.simple.GallerySimple;
+import com.jakduk.api.restcontroller.vo.home.HomeResponse;
+import com.jakduk.api.service.ArticleService;
+import com.jakduk.api.service.GalleryService;
+import com.jakduk.api.service.HomeLatestCache;
+import com.jakduk.api.service.HomeService;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HomeLatestCacheTest {
+
+    @Mock private UrlGenerationUtils urlGenerationUtils;
+    @Mock private HomeService homeService;
+    @Mock private ArticleService articleService;
+    @Mock private GalleryService galleryService;
+
+    @InjectMocks private HomeLatestCache sut;
+
+    @Before
+    public void setUp() {
+        GallerySimple gallery = new GallerySimple();
+        ReflectionTestUtils.setField(gallery, "id", new ObjectId().toString());
+
+        when(homeService.getHomeDescription()).thenReturn(new HomeDescription());
+        when(homeService.getUsersLatest(anyString())).thenReturn(Collections.emptyList());
+        when(homeService.getBoardCommentsLatest()).thenReturn(Collections.emptyList());
+        when(articleService.getLatestArticles()).thenReturn(Collections.emptyList());
+        when(galleryService.findSimpleById(any(ObjectId.class), eq(Constants.HOME_SIZE_GALLERY)))
+                .thenReturn(Collections.singletonList(gallery));
+        when(urlGenerationUtils.generateGalleryUrl(any(Constants.IMAGE_SIZE_TYPE.class), anyString()))
+                .thenReturn("http://localhost/api/gallery/thumbnail");
+    }
+
+    @After
+    public void tearDown() {
+        sut.destroy();
+    }
+
+    @Test
+    public void serveSnapshotPerLanguage() {
+        HomeResponse ko = sut.getLatest("ko");
+
+        Assert.assertSame(ko, sut.getLatest("ko"));
+        Assert.assertEquals(1, ko.getGalleries().size());
+        Assert.assertEquals("http://localhost/api/gallery/thumbnail", ko.getGalleries().get(0).getThumbnailUrl());
+
+        sut.getLatest("en");
+
+        verify(homeService, times(1)).getUsersLatest("ko");
+        verify(homeService, times(1)).getUsersLatest("en");
+        verify(articleService, times(2)).getLatestArticles();
+    }
+
+    @Test
+    public void rebuildOffRequestThreadWhenChanged() throws InterruptedException {
+        // 만들어 둔 것이 없으면 다시 만들 것도 없다.
+        sut.changed();
+        verify(articleService, after(100).never()).getLatestArticles();
+
+        HomeResponse before = sut.getLatest("ko");
+
+        sut.changed();
+
+        verify(articleService, timeout(1000).times(2)).getLatestArticles();
+
+        for (int i = 0; i < 100 && before == sut.getLatest("ko"); i++)
+            Thread.sleep(10);
+
+        Assert.assertNotSame(before, sut.getLatest("ko"));
+        verify(homeService, times(2)).getUsersLatest("ko");
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.jakduk.api.search;
+
+import com.jakduk.api.service.mapper.SearchMapper;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.highlight.HighlightField;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 검색 결과 하이라이트 변환 (SearchMapper.toHighlight)
+ */
+public class SearchHighlightTest {
+
+    @Test
+    public void toHighlight() {
+        Map<String, HighlightField> highlightFields = new HashMap<>();
+        highlightFields.put("subject", new HighlightField("subject", new Text[]{new Text("<span>경기</span>")}));
+        highlightFields.put("content", new HighlightField("content", new Text[]{new Text("첫째"), new Text("둘째")}));
+
+        Map<String, List<String>> highlight = SearchMapper.toHighlight(highlightFields.entrySet());
+
+        Assert.assertEquals(2, highlight.size());
+        Assert.assertEquals(Arrays.asList("<span>경기</span>"), highlight.get("subject"));
+        Assert.assertEquals(Arrays.asList("첫째", "둘째"), highlight.get("content"));
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.jakduk.api.search;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.db.SearchReindexCheckpoint;
+import com.jakduk.api.repository.SearchReindexCheckpointRepository;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.repository.article.comment.ArticleCommentRepository;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.restcontroller.vo.admin.ReindexProgress;
+import com.jakduk.api.service.SearchReindexService;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.exists.AliasesExistRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.exists.AliasesExistResponse;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesResponse;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
+import org.elasticsearch.action.admin.indices.get.GetIndexRequestBuilder;
+import org.elasticsearch.action.admin.indices.get.GetIndexResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequestBuilder;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequestBuilder;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.AdminClient;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Settings;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchReindexServiceTest {
+
+    private static final String BOARD_ALIAS = "jakduk_board";
+    private static final String GALLERY_ALIAS = "jakduk_gallery";
+
+    @Mock private Client client;
+    @Mock private AdminClient adminClient;
+    @Mock private IndicesAdminClient indices;
+    @Mock private GetIndexRequestBuilder prepareGetIndex;
+    @Mock private ArticleRepository articleRepository;
+    @Mock private ArticleCommentRepository articleCommentRepository;
+    @Mock private GalleryRepository galleryRepository;
+    @Mock private SearchReindexCheckpointRepository searchReindexCheckpointRepository;
+
+    @InjectMocks private SearchReindexService sut;
+
+    @Before
+    public void setUp() {
+        JakdukProperties.Elasticsearch elasticsearch = new JakdukProperties().new Elasticsearch();
+        elasticsearch.setIndexBoard(BOARD_ALIAS);
+        elasticsearch.setIndexGallery(GALLERY_ALIAS);
+        elasticsearch.setIndexSearchWord("jakduk_search_word");
+        elasticsearch.setBulkFlushIntervalSeconds(1);
+
+        ReflectionTestUtils.setField(sut, "elasticsearchProperties", elasticsearch);
+
+        when(client.settings()).thenReturn(Settings.EMPTY);
+        when(client.admin()).thenReturn(adminClient);
+        when(adminClient.indices()).thenReturn(indices);
+        when(indices.prepareGetIndex()).thenReturn(prepareGetIndex);
+    }
+
+    @After
+    public void tearDown() {
+        sut.destroy();
+    }
+
+    @Test
+    public void refuseWhenAliasIsStillConcreteIndex() {
+        this.givenAliasExists(BOARD_ALIAS, false);
+        this.givenAliasExists(GALLERY_ALIAS, true);
+
+        try {
+            sut.startReindex();
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertEquals(ServiceError.ELASTICSEARCH_ALIAS_NOT_MIGRATED, e.getServiceError());
+        }
+
+        // 살아있는 인덱스를 지우거나 새 인덱스를 만들지 않는다.
+        verify(indices, never()).prepareDelete(anyVararg());
+        verify(indices, never()).prepareCreate(anyString());
+        verify(searchReindexCheckpointRepository, never()).save(any(SearchReindexCheckpoint.class));
+    }
+
+    @Test
+    public void swapAliasInOneRequestAndKeepOldIndex() throws InterruptedException {
+        this.givenAliasExists(BOARD_ALIAS, true);
+        this.givenAliasExists(GALLERY_ALIAS, true);
+        this.givenCurrentIndex(BOARD_ALIAS, "jakduk_board_old");
+        this.givenCurrentIndex(GALLERY_ALIAS, "jakduk_gallery_old");
+
+        CreateIndexRequestBuilder createIndexRequestBuilder = mock(CreateIndexRequestBuilder.class);
+        when(indices.prepareCreate(anyString())).thenReturn(createIndexRequestBuilder);
+        when(createIndexRequestBuilder.setSettings(any(Settings.Builder.class))).thenReturn(createIndexRequestBuilder);
+
+        UpdateSettingsRequestBuilder updateSettingsRequestBuilder = mock(UpdateSettingsRequestBuilder.class);
+        when(indices.prepareUpdateSettings(anyVararg())).thenReturn(updateSettingsRequestBuilder);
+        when(updateSettingsRequestBuilder.setSettings(any(Settings.class))).thenReturn(updateSettingsRequestBuilder);
+        when(indices.prepareRefresh(anyVararg())).thenReturn(mock(RefreshRequestBuilder.class));
+
+        IndicesAliasesRequestBuilder aliasesRequestBuilder = mock(IndicesAliasesRequestBuilder.class);
+        when(indices.prepareAliases()).thenReturn(aliasesRequestBuilder);
+        when(aliasesRequestBuilder.removeAlias(anyString(), anyString())).thenReturn(aliasesRequestBuilder);
+        when(aliasesRequestBuilder.addAlias(anyString(), anyString())).thenReturn(aliasesRequestBuilder);
+
+        when(articleRepository.findPostsGreaterThanId(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(articleCommentRepository.findCommentsGreaterThanId(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(galleryRepository.findGalleriesGreaterThanId(any(), anyInt())).thenReturn(Collections.emptyList());
+
+        ReindexProgress started = sut.startReindex();
+        ReindexProgress progress = this.waitForFinish();
+
+        Assert.assertEquals(Constants.REINDEX_STATUS.COMPLETED, progress.getStatus());
+
+        // 예전 별칭 떼기와 새 별칭 붙이기를 한 요청으로 보낸다. 예전 인덱스는 지우지 않는다.
+        verify(aliasesRequestBuilder).removeAlias("jakduk_board_old", BOARD_ALIAS);
+        verify(aliasesRequestBuilder).addAlias(started.getBoardIndex(), BOARD_ALIAS);
+        verify(aliasesRequestBuilder).removeAlias("jakduk_gallery_old", GALLERY_ALIAS);
+        verify(aliasesRequestBuilder).addAlias(started.getGalleryIndex(), GALLERY_ALIAS);
+        verify(aliasesRequestBuilder, times(2)).get();
+        verify(indices, never()).prepareDelete(anyVararg());
+
+        ArgumentCaptor<SearchReindexCheckpoint> checkpoint = ArgumentCaptor.forClass(SearchReindexCheckpoint.class);
+        verify(searchReindexCheckpointRepository, atLeast(2)).save(checkpoint.capture());
+
+        List<SearchReindexCheckpoint> checkpoints = checkpoint.getAllValues();
+        Assert.assertEquals(Constants.REINDEX_STATUS.COMPLETED, checkpoints.get(checkpoints.size() - 1).getStatus());
+    }
+
+    @Test
+    public void resumableAfterRestartWhileRunning() {
+        SearchReindexCheckpoint checkpoint = SearchReindexCheckpoint.builder()
+                .id("elasticsearch")
+                .status(Constants.REINDEX_STATUS.RUNNING)
+                .boardIndex("jakduk_board_20170901000000")
+                .galleryIndex("jakduk_gallery_20170901000000")
+                .lastArticleId("59a8d5e6a1ba4e1b9d5b0d01")
+                .articleCount(100)
+                .build();
+
+        when(searchReindexCheckpointRepository.findOneById("elasticsearch")).thenReturn(Optional.of(checkpoint));
+
+        sut.loadCheckpoint();
+
+        ReindexProgress progress = sut.getProgress();
+
+        // 돌던 중에 내려갔으면 실패로 바꿔서 이어서 할 수 있게 한다.
+        Assert.assertEquals(Constants.REINDEX_STATUS.FAILED, progress.getStatus());
+        Assert.assertEquals("59a8d5e6a1ba4e1b9d5b0d01", progress.getLastArticleId());
+        Assert.assertEquals(100, progress.getArticleCount());
+        Assert.assertEquals("jakduk_board_20170901000000", progress.getBoardIndex());
+        verify(searchReindexCheckpointRepository).save(any(SearchReindexCheckpoint.class));
+    }
+
+    @Test
+    public void mirrorLiveRequestsToNewIndexUntilSwap() {
+        SearchReindexCheckpoint checkpoint = SearchReindexCheckpoint.builder()
+                .id("elasticsearch")
+                .status(Constants.REINDEX_STATUS.FAILED)
+                .boardIndex("jakduk_board_20170901000000")
+                .galleryIndex("jakduk_gallery_20170901000000")
+                .build();
+
+        when(searchReindexCheckpointRepository.findOneById("elasticsearch")).thenReturn(Optional.of(checkpoint));
+
+        doAnswer(invocation -> {
+            ActionListener<BulkResponse> listener = (ActionListener<BulkResponse>) invocation.getArguments()[1];
+            listener.onResponse(new BulkResponse(new BulkItemResponse[0], 1));
+            return null;
+        }).when(client).bulk(any(BulkRequest.class), any(ActionListener.class));
+
+        sut.loadCheckpoint();
+
+        sut.mirror(new DeleteRequest(BOARD_ALIAS, Constants.ES_TYPE_BOARD, "59a8d5e6a1ba4e1b9d5b0d01"));
+        sut.mirror(new IndexRequest(GALLERY_ALIAS, Constants.ES_TYPE_GALLERY, "59a8d5e6a1ba4e1b9d5b0d02").source("{}"));
+        sut.mirror(new IndexRequest("jakduk_search_word", Constants.ES_TYPE_SEARCH_WORD, "word01").source("{}"));
+
+        // 닫으면서 남은 요청을 보낸다.
+        sut.destroy();
+
+        ArgumentCaptor<BulkRequest> bulkRequest = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client).bulk(bulkRequest.capture(), any(ActionListener.class));
+
+        List<ActionRequest> requests = bulkRequest.getValue().requests();
+
+        // 재색인하지 않는 별칭은 보내지 않는다.
+        Assert.assertEquals(2, requests.size());
+        Assert.assertEquals("jakduk_board_20170901000000", ((DeleteRequest) requests.get(0)).index());
+        Assert.assertEquals("jakduk_gallery_20170901000000", ((IndexRequest) requests.get(1)).index());
+    }
+
+    private void givenAliasExists(String alias, boolean exists) {
+        AliasesExistRequestBuilder requestBuilder = mock(AliasesExistRequestBuilder.class);
+        AliasesExistResponse response = mock(AliasesExistResponse.class);
+
+        when(indices.prepareAliasesExist(alias)).thenReturn(requestBuilder);
+        when(requestBuilder.get()).thenReturn(response);
+        when(response.exists()).thenReturn(exists);
+    }
+
+    private void givenCurrentIndex(String alias, String index) {
+        GetIndexRequestBuilder getIndexRequestBuilder = mock(GetIndexRequestBuilder.class);
+        GetIndexResponse getIndexResponse = mock(GetIndexResponse.class);
+
+        when(prepareGetIndex.addIndices(alias)).thenReturn(getIndexRequestBuilder);
+        when(getIndexRequestBuilder.get()).thenReturn(getIndexResponse);
+        when(getIndexResponse.getIndices()).thenReturn(new String[]{index});
+        when(getIndexResponse.getSettings()).thenReturn(ImmutableOpenMap.<String, Settings>builder()
+                .fPut(index, Settings.settingsBuilder().put("index.refresh_interval", "1s").build())
+                .build());
+        when(getIndexResponse.getMappings()).thenReturn(ImmutableOpenMap.<String, ImmutableOpenMap<String, MappingMetaData>>builder()
+                .fPut(index, ImmutableOpenMap.<String, MappingMetaData>of())
+                .build());
+
+        GetAliasesRequestBuilder getAliasesRequestBuilder = mock(GetAliasesRequestBuilder.class);
+        GetAliasesResponse getAliasesResponse = mock(GetAliasesResponse.class);
+
+        when(indices.prepareGetAliases(alias)).thenReturn(getAliasesRequestBuilder);
+        when(getAliasesRequestBuilder.get()).thenReturn(getAliasesResponse);
+        when(getAliasesResponse.getAliases()).thenReturn(ImmutableOpenMap.<String, List<AliasMetaData>>builder()
+                .fPut(index, Collections.emptyList())
+                .build());
+    }
+
+    private ReindexProgress waitForFinish() throws InterruptedException {
+        for (int i = 0; i < 100 && sut.getProgress().getStatus() == Constants.REINDEX_STATUS.RUNNING; i++)
+            Thread.sleep(10);
+
+        return sut.getProgress();
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.jakduk.api.utils;
+
+import com.jakduk.api.common.util.HtmlTextExtractor;
+import com.jakduk.api.common.util.JakdukUtils;
+import org.jsoup.Jsoup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+public class HtmlTextExtractorTest {
+
+    // 글쓰기 에디터가 만든 글 본문들. "=====" 줄로 나눈다.
+    private List<String> loadCorpus() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/html/article-corpus.html");
+             Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name())) {
+
+            return Arrays.asList(scanner.useDelimiter("\\A").next().split("\n=====\n"));
+        }
+    }
+
+    @Test
+    public void sameAsJsoupOnArticleCorpus() throws IOException {
+        List<String> corpus = this.loadCorpus();
+
+        Assert.assertTrue(corpus.size() > 10);
+
+        for (String html : corpus)
+            Assert.assertEquals(html, Jsoup.parse(html).text(), HtmlTextExtractor.extractText(html));
+    }
+
+    @Test
+    public void sameAsJsoupOnEdgeCases() {
+        List<String> cases = Arrays.asList(
+                "",
+                "   ",
+                "plain text",
+                "<b>bold</b><i>italic</i>",
+                "<p>one</p><p>two</p>",
+                "<img src=\"a.png\" alt=\"x > y\">after",
+                "<a href='x' title=\"it's\">quoted</a>",
+                "&amp;&lt;&gt;&quot;&#39;&#x41;&#65",
+                "<!DOCTYPE html><html><head></head><body>body</body></html>",
+                "<?xml version=\"1.0\"?>xml",
+                "<SCRIPT>ignored</SCRIPT>visible",
+                "<div>block<span>inline</span>text</div>",
+                "a<br>b<br/>c",
+                "&notanentity; & amp;"
+        );
+
+        for (String html : cases)
+            Assert.assertEquals(html, Jsoup.parse(html).text(), HtmlTextExtractor.extractText(html));
+    }
+
+    @Test
+    public void stripHtmlTag() {
+        Assert.assertEquals("", JakdukUtils.stripHtmlTag(null));
+        Assert.assertEquals("안녕 하세요 & 반가워요", JakdukUtils.stripHtmlTag("<p>안녕&nbsp;<b>하세요</b></p><p>&amp; 반가워요</p>"));
+    }
+
+}